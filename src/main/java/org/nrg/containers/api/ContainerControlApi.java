@@ -9,6 +9,8 @@ import org.nrg.containers.model.Container;
 import org.nrg.containers.model.DockerHub;
 import org.nrg.containers.model.DockerImage;
 import org.nrg.containers.model.DockerServer;
+import org.nrg.containers.model.ImageCatalogStatus;
+import org.nrg.containers.model.ImagePull;
 import org.nrg.containers.model.ResolvedCommand;
 import org.nrg.prefs.exceptions.InvalidPreferenceName;
 
@@ -18,6 +20,8 @@ import java.util.Map;
 
 public interface ContainerControlApi {
     String LABEL_KEY = "org.nrg.commands";
+    String LAUNCHED_BY_LABEL_KEY = "org.nrg.containers.launched-by";
+    String LAUNCHED_BY_LABEL_VALUE = "xnat";
 
     DockerServer getServer() throws NoServerPrefException;
     DockerServer setServer(String host, String certPath) throws InvalidPreferenceName;
@@ -28,12 +32,21 @@ public interface ContainerControlApi {
     String pingHub(DockerHub hub) throws DockerServerException, NoServerPrefException;
 
     List<DockerImage> getAllImages() throws NoServerPrefException, DockerServerException;
+    ImageCatalogStatus refreshImageCatalog() throws NoServerPrefException, DockerServerException;
+    ImageCatalogStatus getImageCatalogStatus();
+    String getImageCatalogETag();
+    void updateImageCatalog(final Date since, final Date until) throws NoServerPrefException, DockerServerException;
     DockerImage getImageById(final String imageId) throws NotFoundException, DockerServerException, NoServerPrefException;
+    Map<String, Long> getImageLayerSizes(final String imageId) throws NotFoundException, DockerServerException, NoServerPrefException;
     void deleteImageById(String id, Boolean force) throws NoServerPrefException, DockerServerException;
     void pullImage(String name) throws NoServerPrefException, DockerServerException;
     void pullImage(String name, DockerHub hub) throws NoServerPrefException, DockerServerException;
     DockerImage pullAndReturnImage(String name) throws NoServerPrefException, DockerServerException;
     DockerImage pullAndReturnImage(String name, DockerHub hub) throws NoServerPrefException, DockerServerException;
+    ImagePull startPull(String name, DockerHub hub, ImagePullListener listener) throws NoServerPrefException, DockerServerException;
+    ImagePull prewarmImage(String name) throws NoServerPrefException, DockerServerException;
+    ImagePull getPull(String pullId) throws NotFoundException;
+    List<ImagePull> getPulls();
 
     String launchImage(final ResolvedCommand command) throws NoServerPrefException, DockerServerException;
 //    String launchImage(final String imageName, final List<String> runCommand, final List <String> volumes) throws NoServerPrefException, DockerServerException;
@@ -49,6 +62,7 @@ public interface ContainerControlApi {
 
     List<Container> getAllContainers() throws NoServerPrefException, DockerServerException;
     List<Container> getContainers(final Map<String, String> params) throws NoServerPrefException, DockerServerException;
+    List<Container> getContainerStates(final boolean launchedByXnatOnly) throws NoServerPrefException, DockerServerException;
     Container getContainer(final String id) throws NotFoundException, NoServerPrefException, DockerServerException;
     String getContainerStatus(final String id) throws NotFoundException, NoServerPrefException, DockerServerException;
     String getContainerStdoutLog(String id) throws NoServerPrefException, DockerServerException;
@@ -4,8 +4,12 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.spotify.docker.client.DefaultDockerClient;
 import com.spotify.docker.client.DockerCertificates;
 import com.spotify.docker.client.DockerClient;
@@ -25,8 +29,10 @@ import com.spotify.docker.client.messages.ContainerInfo;
 import com.spotify.docker.client.messages.Event;
 import com.spotify.docker.client.messages.HostConfig;
 import com.spotify.docker.client.messages.Image;
+import com.spotify.docker.client.messages.ImageHistory;
 import com.spotify.docker.client.messages.ImageInfo;
 import com.spotify.docker.client.messages.PortBinding;
+import com.spotify.docker.client.messages.ProgressDetail;
 import com.spotify.docker.client.messages.ProgressMessage;
 import org.apache.commons.lang3.StringUtils;
 import org.nrg.containers.events.DockerContainerEvent;
@@ -41,6 +47,8 @@ import org.nrg.containers.model.DockerHub;
 import org.nrg.containers.model.DockerImage;
 import org.nrg.containers.model.DockerServer;
 import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.model.ImageCatalogStatus;
+import org.nrg.containers.model.ImagePull;
 import org.nrg.containers.model.ResolvedCommand;
 import org.nrg.framework.services.NrgEventService;
 import org.nrg.prefs.exceptions.InvalidPreferenceName;
@@ -49,11 +57,22 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import static com.spotify.docker.client.DockerClient.EventsParam.since;
 import static com.spotify.docker.client.DockerClient.EventsParam.type;
@@ -63,10 +82,27 @@ import static com.spotify.docker.client.DockerClient.EventsParam.until;
 public class DockerControlApi implements ContainerControlApi {
     private static final Logger log = LoggerFactory.getLogger(DockerControlApi.class);
 
+    private static final int MAX_CONCURRENT_PULLS = 3;
+    private static final int MAX_WAITING_PULLS = 100;
+    private static final int RECENT_PULLS_KEPT = 100;
+
     private DockerServerPrefsBean containerServerPref;
     private ObjectMapper objectMapper;
     private NrgEventService eventService;
 
+    private final ExecutorService pullExecutor = new ThreadPoolExecutor(MAX_CONCURRENT_PULLS, MAX_CONCURRENT_PULLS,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_WAITING_PULLS),
+            new ThreadFactoryBuilder().setNameFormat("docker-image-pull-%d").setDaemon(true).build());
+    // Keyed by image name and tag. Guards recentPulls as well.
+    private final Map<String, PullJob> pullsInFlight = Maps.newHashMap();
+    private final DockerImageCatalog imageCatalog = new DockerImageCatalog();
+    private final Map<String, ImagePull> recentPulls = new LinkedHashMap<String, ImagePull>() {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ImagePull> eldest) {
+            return size() > RECENT_PULLS_KEPT && eldest.getValue().isDone();
+        }
+    };
+
     @Autowired
     public DockerControlApi(final DockerServerPrefsBean containerServerPref,
                             final ObjectMapper objectMapper,
@@ -137,7 +173,77 @@ public class DockerControlApi implements ContainerControlApi {
      **/
     @Override
     public List<DockerImage> getAllImages() throws NoServerPrefException, DockerServerException {
-        return getImages(null);
+        if (imageCatalog.isLoaded()) {
+            imageCatalog.hit();
+        } else {
+            imageCatalog.miss();
+            loadImageCatalog();
+        }
+        return imageCatalog.getAll();
+    }
+
+    @Override
+    public ImageCatalogStatus refreshImageCatalog() throws NoServerPrefException, DockerServerException {
+        loadImageCatalog();
+        return imageCatalog.getStatus();
+    }
+
+    @Override
+    public ImageCatalogStatus getImageCatalogStatus() {
+        return imageCatalog.getStatus();
+    }
+
+    @Override
+    public String getImageCatalogETag() {
+        return imageCatalog.getETag();
+    }
+
+    /**
+     * Apply docker image events to the image catalog. Images that were deleted are dropped from the catalog.
+     * If any image was pulled, tagged, untagged, loaded, or imported, the catalog is loaded again in one call.
+     * If the events cannot be applied, the catalog is invalidated, and loaded again in full on the next read.
+     *
+     * @param since Apply events at or after this time
+     * @param until Apply events before this time
+     */
+    @Override
+    public void updateImageCatalog(final Date since, final Date until) throws NoServerPrefException, DockerServerException {
+        if (!imageCatalog.isLoaded()) {
+            loadImageCatalog();
+            imageCatalog.eventsChecked(until);
+            return;
+        }
+
+        boolean reload = false;
+        try {
+            for (final Event event : getDockerEvents(since, until, "image")) {
+                final String action = event.status();
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Docker image event: %s %s", action, event.id()));
+                }
+                if ("delete".equals(action)) {
+                    imageCatalog.remove(event.id());
+                } else if (action != null && action.matches("pull|tag|untag|load|import")) {
+                    reload = true;
+                }
+            }
+            if (reload) {
+                loadImageCatalog();
+            }
+        } catch (NoServerPrefException | DockerServerException | RuntimeException e) {
+            // The events in this window will not be read again, so the catalog cannot be kept current from them
+            imageCatalog.invalidate();
+            throw e;
+        }
+        imageCatalog.eventsChecked(until);
+    }
+
+    private void loadImageCatalog() throws NoServerPrefException, DockerServerException {
+        final List<DockerImage> images = getImages(null);
+        imageCatalog.load(images);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Loaded %d images into the image catalog.", images.size()));
+        }
     }
 
     /**
@@ -174,6 +280,46 @@ public class DockerControlApi implements ContainerControlApi {
         }
     }
 
+    /**
+     * Query Docker server for the layers of an image, and the size of each.
+     *
+     * <p>Docker only reports the id of an image's top layer, so each layer is keyed by a hash of its own history
+     * entry and of every entry beneath it. Images built on the same base have the same keys for the base's layers,
+     * and a layer's bytes can be counted once however many images share it.</p>
+     *
+     * @param imageId ID of image
+     * @return Layer sizes in bytes, by layer key, from the bottom layer up. Layers that add no files are left out.
+     **/
+    @Override
+    public Map<String, Long> getImageLayerSizes(final String imageId)
+            throws NotFoundException, NoServerPrefException, DockerServerException {
+        final List<ImageHistory> history;
+        try (final DockerClient client = getClient()) {
+            history = client.history(imageId);
+        } catch (ImageNotFoundException e) {
+            throw new NotFoundException(String.format("Could not find image %s", imageId));
+        } catch (DockerException | InterruptedException e) {
+            throw new DockerServerException(e);
+        }
+
+        // History lists the top layer first
+        final Map<String, Long> layers = new LinkedHashMap<>();
+        String key = "";
+        for (final ImageHistory entry : Lists.reverse(history)) {
+            final long size = entry.size() == null ? 0L : entry.size();
+            final Hasher hasher = Hashing.sha256().newHasher()
+                    .putString(key, StandardCharsets.UTF_8)
+                    .putLong(entry.created() == null ? 0L : entry.created())
+                    .putString(StringUtils.defaultString(entry.createdBy()), StandardCharsets.UTF_8)
+                    .putLong(size);
+            key = hasher.hash().toString();
+            if (size > 0) {
+                layers.put(key, size);
+            }
+        }
+        return layers;
+    }
+
     /**
      * Query Docker server for image by name
      *
@@ -183,6 +329,13 @@ public class DockerControlApi implements ContainerControlApi {
     @Override
     public DockerImage getImageById(final String imageId)
         throws NotFoundException, DockerServerException, NoServerPrefException {
+        final DockerImage cached = imageCatalog.find(imageId);
+        if (cached != null) {
+            imageCatalog.hit();
+            return cached;
+        }
+
+        imageCatalog.miss();
         final DockerImage image = DockerImageToNrgImage(_getImageById(imageId));
         if (image != null) {
             return image;
@@ -194,6 +347,8 @@ public class DockerControlApi implements ContainerControlApi {
         throws DockerServerException, NoServerPrefException {
         try (final DockerClient client = getClient()) {
             return client.inspectImage(imageId);
+        } catch (ImageNotFoundException e) {
+            return null;
         } catch (DockerException | InterruptedException e) {
             throw new DockerServerException(e);
         }
@@ -209,6 +364,9 @@ public class DockerControlApi implements ContainerControlApi {
     public String launchImage(final ResolvedCommand command)
             throws NoServerPrefException, DockerServerException {
         final String dockerImageId = command.getDockerImage();
+        final long waitStart = System.currentTimeMillis();
+        command.setColdStart(ensureImage(dockerImageId));
+        command.setImageWaitMillis(System.currentTimeMillis() - waitStart);
         final String runCommand = command.getCommandLine();
         final List<String> bindMounts = Lists.newArrayList();
         for (final ContainerExecutionMount mount : command.getMountsIn()) {
@@ -221,7 +379,7 @@ public class DockerControlApi implements ContainerControlApi {
         for (final Map.Entry<String, String> env : command.getEnvironmentVariables().entrySet()) {
             environmentVariables.add(StringUtils.join(new String[] {env.getKey(), env.getValue()}, "="));
         }
-        return launchImage(getServer(), dockerImageId, runCommand, bindMounts, environmentVariables, command.getPorts());
+        return launchImage(getServer(), dockerImageId, runCommand, bindMounts, environmentVariables, command.getPorts(), command.getMemoryLimit());
     }
 
 //    /**
@@ -261,6 +419,7 @@ public class DockerControlApi implements ContainerControlApi {
      * @param imageName name of image to launch
      * @param runCommand Command string list to execute
      * @param volumes Volume mounts, in the form "/path/on/server:/path/in/container"
+     * @param memoryLimit Maximum memory in bytes the container may use, or null for no limit
      * @return ID of created Container
      **/
     private String launchImage(final DockerServer server,
@@ -268,7 +427,8 @@ public class DockerControlApi implements ContainerControlApi {
                                final String runCommand,
                                final List<String> volumes,
                                final List<String> environmentVariables,
-                               final Map<String, String> ports) throws DockerServerException {
+                               final Map<String, String> ports,
+                               final Long memoryLimit) throws DockerServerException {
 
         final Map<String, List<PortBinding>> portBindings = Maps.newHashMap();
         final List<String> portStringList = Lists.newArrayList();
@@ -296,11 +456,14 @@ public class DockerControlApi implements ContainerControlApi {
             }
         }
 
-        final HostConfig hostConfig =
+        final HostConfig.Builder hostConfigBuilder =
                 HostConfig.builder()
                         .binds(volumes)
-                        .portBindings(portBindings)
-                        .build();
+                        .portBindings(portBindings);
+        if (memoryLimit != null && memoryLimit > 0) {
+            hostConfigBuilder.memory(memoryLimit);
+        }
+        final HostConfig hostConfig = hostConfigBuilder.build();
         final ContainerConfig containerConfig =
                 ContainerConfig.builder()
                         .hostConfig(hostConfig)
@@ -309,6 +472,7 @@ public class DockerControlApi implements ContainerControlApi {
                         .attachStderr(true)
                         .cmd(Lists.newArrayList("/bin/sh", "-c", runCommand))
                         .env(environmentVariables)
+                        .labels(ImmutableMap.of(LAUNCHED_BY_LABEL_KEY, LAUNCHED_BY_LABEL_VALUE))
                         .build();
 
         if (log.isDebugEnabled()) {
@@ -319,13 +483,15 @@ public class DockerControlApi implements ContainerControlApi {
                             "\n\tcommand \"%s\"" +
                             "\n\tvolumes [%s]" +
                             "\n\tenvironment variables [%s]" +
-                            "\n\texposed ports: {%s}",
+                            "\n\texposed ports: {%s}" +
+                            "\n\tmemory limit: %s",
                     server,
                     imageName,
                     runCommand,
                     StringUtils.join(volumes, ", "),
                     StringUtils.join(environmentVariables, ", "),
-                    StringUtils.join(portStringList, ", ")
+                    StringUtils.join(portStringList, ", "),
+                    memoryLimit
             );
             log.debug(message);
         }
@@ -355,6 +521,7 @@ public class DockerControlApi implements ContainerControlApi {
     public void deleteImageById(final String id, final Boolean force) throws NoServerPrefException, DockerServerException {
         try (final DockerClient dockerClient = getClient()) {
             dockerClient.removeImage(id, force, false);
+            imageCatalog.remove(id);
         } catch (DockerException|InterruptedException e) {
             throw new DockerServerException(e);
         }
@@ -366,12 +533,7 @@ public class DockerControlApi implements ContainerControlApi {
      **/
     @Override
     public void pullImage(String name) throws NoServerPrefException, DockerServerException {
-        try (final DockerClient client = getClient()) {
-            client.pull(name);
-        } catch (DockerException | InterruptedException e) {
-            log.error(e.getMessage());
-            throw new DockerServerException(e);
-        }
+        pullAndReturnImage(name);
     }
 
     /**
@@ -380,50 +542,193 @@ public class DockerControlApi implements ContainerControlApi {
      **/
     @Override
     public void pullImage(String name, DockerHub hub) throws NoServerPrefException, DockerServerException {
-        if (hub == null) {
-            pullImage(name);
-        } else {
-            try (final DockerClient client = getClient()) {
-                final AuthConfig authConfig = AuthConfig.builder()
-                        .email(hub.getEmail())
-                        .username(hub.getUsername())
-                        .password(hub.getPassword())
-                        .serverAddress(hub.getUrl())
-                        .build();
-                client.pull(name, authConfig);
-            } catch (DockerException | InterruptedException e) {
-                log.error(e.getMessage());
-                throw new DockerServerException(e);
-            }
-        }
+        pullAndReturnImage(name, hub);
     }
 
     @Override
     public DockerImage pullAndReturnImage(final String name) throws NoServerPrefException, DockerServerException {
-        try (final DockerClient client = getClient()) {
-            final LoadProgressHandler handler = new LoadProgressHandler();
-            client.pull(name, handler);
+        return pullAndReturnImage(name, null);
+    }
+
+    @Override
+    public DockerImage pullAndReturnImage(final String name, final DockerHub hub)
+            throws NoServerPrefException, DockerServerException {
+        return awaitPull(startPull(name, hub, null));
+    }
+
+    /**
+     * Start pulling an image in the background. If the same image is already being pulled,
+     * no new pull is started; the caller gets the pull that is already running.
+     *
+     * @param name Image name, with optional tag
+     * @param hub The hub to pull from, or null for the default hub
+     * @param listener Notified if the pull succeeds. May be null.
+     * @return The pull, whose ID can be used to check its progress
+     */
+    @Override
+    public ImagePull startPull(final String name, final DockerHub hub, final ImagePullListener listener)
+            throws NoServerPrefException, DockerServerException {
+        // Fail now, rather than in the background, if there is no server to pull to
+        getServer();
+
+        final String key = imagePullKey(name);
+        final PullJob job;
+        synchronized (pullsInFlight) {
+            final PullJob inFlight = pullsInFlight.get(key);
+            if (inFlight != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Image %s is already being pulled by pull %s.", key, inFlight.pull.getId()));
+                }
+                inFlight.addListener(listener);
+                return inFlight.pull;
+            }
+
+            job = new PullJob(new ImagePull(name), key, hub);
+            job.addListener(listener);
+            final FutureTask<DockerImage> task = new FutureTask<>(job);
+            job.pull.setFuture(task);
+            pullsInFlight.put(key, job);
             try {
-                return getImageById(name);
-            } catch (NotFoundException e) {
-                final String m = String.format("The image %s was not found", name);
-                log.error(m);
-                throw new DockerServerException(m);
+                pullExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                pullsInFlight.remove(key);
+                throw new DockerServerException(String.format("Too many image pulls are waiting. Could not pull %s.", name));
             }
-        } catch (DockerException | InterruptedException e) {
-            log.error(e.getMessage());
-            throw new DockerServerException(e);
+            recentPulls.put(job.pull.getId(), job.pull);
         }
+        return job.pull;
     }
 
+    /**
+     * Start pulling an image in the background if it is not already on the docker server,
+     * so the first container launched from it does not have to wait.
+     *
+     * @param name Image name
+     * @return The pull, or null if the image is already on the server
+     */
     @Override
-    public DockerImage pullAndReturnImage(final String name, final DockerHub hub)
+    public ImagePull prewarmImage(final String name) throws NoServerPrefException, DockerServerException {
+        try {
+            getImageById(name);
+            return null;
+        } catch (NotFoundException e) {
+            if (log.isInfoEnabled()) {
+                log.info(String.format("Pre-pulling image %s.", name));
+            }
+            return startPull(name, null, null);
+        }
+    }
+
+    @Override
+    public ImagePull getPull(final String pullId) throws NotFoundException {
+        synchronized (pullsInFlight) {
+            final ImagePull pull = recentPulls.get(pullId);
+            if (pull == null) {
+                throw new NotFoundException("No image pull with id " + pullId);
+            }
+            return pull;
+        }
+    }
+
+    @Override
+    public List<ImagePull> getPulls() {
+        synchronized (pullsInFlight) {
+            return Lists.newArrayList(recentPulls.values());
+        }
+    }
+
+    /**
+     * Wait for a pull, started by anyone, to finish.
+     */
+    private DockerImage awaitPull(final ImagePull pull) throws NoServerPrefException, DockerServerException {
+        try {
+            return pull.getFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerServerException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof NoServerPrefException) {
+                throw (NoServerPrefException) cause;
+            } else if (cause instanceof DockerServerException) {
+                throw (DockerServerException) cause;
+            }
+            throw new DockerServerException(cause);
+        }
+    }
+
+    /**
+     * Make sure an image is on the docker server before a container is launched from it. If the image
+     * is being pulled, wait for the pull. If it is not on the server at all, pull it now.
+     *
+     * @param name Image name or id
+     * @return Whether the launch had to wait for a pull
+     */
+    private boolean ensureImage(final String name) throws NoServerPrefException {
+        if (awaitPullInFlight(name)) {
+            return true;
+        }
+
+        try {
+            getImageById(name);
+            return false;
+        } catch (NotFoundException e) {
+            if (log.isInfoEnabled()) {
+                log.info(String.format("Image %s is not on the docker server. Pulling it before launching it.", name));
+            }
+        } catch (DockerServerException e) {
+            // Let the launch report the problem
+            return false;
+        }
+
+        try {
+            pullImage(name);
+        } catch (DockerServerException e) {
+            // Launching will fail with a more useful message if the image is not there
+            log.error("Pull of image " + name + " failed.", e);
+        }
+        return true;
+    }
+
+    private boolean awaitPullInFlight(final String name) throws NoServerPrefException {
+        final PullJob inFlight;
+        synchronized (pullsInFlight) {
+            inFlight = pullsInFlight.get(imagePullKey(name));
+        }
+        if (inFlight == null) {
+            return false;
+        }
+
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Waiting for image %s to finish pulling before launching it.", name));
+        }
+        try {
+            awaitPull(inFlight.pull);
+        } catch (DockerServerException e) {
+            // Launching will fail with a more useful message if the image is not there
+            log.error("Pull of image " + name + " failed.", e);
+        }
+        return true;
+    }
+
+    private static String imagePullKey(final String name) {
+        final String afterRegistry = StringUtils.substringAfterLast(name, "/");
+        final String repoAndTag = afterRegistry.isEmpty() ? name : afterRegistry;
+        return repoAndTag.contains(":") || repoAndTag.contains("@") ? name : name + ":latest";
+    }
+
+    private DockerImage doPull(final ImagePull pull, final DockerHub hub)
             throws NoServerPrefException, DockerServerException {
-        if (hub == null) {
-            return pullAndReturnImage(name);
-        } else {
-            try (final DockerClient client = getClient()) {
-                final LoadProgressHandler handler = new LoadProgressHandler();
+        pull.started();
+        final String name = pull.getImage();
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Pull %s: pulling image %s.", pull.getId(), name));
+        }
+        try (final DockerClient client = getClient()) {
+            final LoadProgressHandler handler = new LoadProgressHandler(new ImagePullProgressHandler(pull));
+            if (hub == null) {
+                client.pull(name, handler);
+            } else {
                 final AuthConfig authConfig = AuthConfig.builder()
                         .email(hub.getEmail())
                         .username(hub.getUsername())
@@ -431,21 +736,79 @@ public class DockerControlApi implements ContainerControlApi {
                         .serverAddress(hub.getUrl())
                         .build();
                 client.pull(name, authConfig, handler);
-                final String imageId = handler.getImageId();
+            }
+
+            // The tag may have pointed at a different image before, so the catalog cannot answer until it is loaded again
+            imageCatalog.invalidate();
+
+            final String imageId = handler.hasImageId() ? handler.getImageId() : name;
+            final DockerImage image = DockerImageToNrgImage(_getImageById(imageId));
+            if (image == null) {
+                final String m = String.format("The image %s was not found", imageId);
+                log.error(m);
+                throw new DockerServerException(m);
+            }
+            return image;
+        } catch (DockerException | InterruptedException e) {
+            log.error(e.getMessage());
+            throw new DockerServerException(e);
+        }
+    }
+
+    private class PullJob implements Callable<DockerImage> {
+        private final ImagePull pull;
+        private final String key;
+        private final DockerHub hub;
+        private final List<ImagePullListener> listeners = Lists.newArrayList();
+
+        private PullJob(final ImagePull pull, final String key, final DockerHub hub) {
+            this.pull = pull;
+            this.key = key;
+            this.hub = hub;
+        }
+
+        private synchronized void addListener(final ImagePullListener listener) {
+            if (listener != null) {
+                listeners.add(listener);
+            }
+        }
+
+        @Override
+        public DockerImage call() throws Exception {
+            final DockerImage image;
+            try {
+                image = doPull(pull, hub);
+                pull.completed(image.getImageId());
+            } catch (Exception e) {
+                pull.failed(e.getMessage());
+                throw e;
+            } finally {
+                // Once the pull is done, a new request for the same image should go back to the server
+                synchronized (pullsInFlight) {
+                    pullsInFlight.remove(key);
+                }
+            }
+
+            final List<ImagePullListener> toNotify;
+            synchronized (this) {
+                toNotify = Lists.newArrayList(listeners);
+            }
+            for (final ImagePullListener listener : toNotify) {
                 try {
-                    return getImageById(imageId);
-                } catch (NotFoundException e) {
-                    final String m = String.format("The image with id %s was not found", imageId);
-                    log.error(m);
-                    throw new DockerServerException(m);
+                    listener.pulled(image);
+                } catch (RuntimeException e) {
+                    log.error(String.format("Pull %s: error handling pulled image %s.", pull.getId(), pull.getImage()), e);
                 }
-            } catch (DockerException | InterruptedException e) {
-                log.error(e.getMessage());
-                throw new DockerServerException(e);
             }
+            return image;
         }
     }
 
+    @PreDestroy
+    public void shutdownPulls() {
+        pullExecutor.shutdownNow();
+    }
+
     @Override
     public List<Command> parseLabels(final String imageId)
             throws DockerServerException, NoServerPrefException, NotFoundException {
@@ -517,6 +880,30 @@ public class DockerControlApi implements ContainerControlApi {
         return DockerContainerToNrgContainer(containerList);
     }
 
+    /**
+     * List the containers on the docker server, running or stopped, in one request.
+     * Stopped containers report their exit code in their status.
+     *
+     * @param launchedByXnatOnly Only list containers with the label XNAT puts on the containers it launches
+     * @return Containers on the docker server
+     **/
+    @Override
+    public List<Container> getContainerStates(final boolean launchedByXnatOnly)
+            throws NoServerPrefException, DockerServerException {
+        final List<DockerClient.ListContainersParam> params = Lists.newArrayList(DockerClient.ListContainersParam.allContainers());
+        if (launchedByXnatOnly) {
+            params.add(DockerClient.ListContainersParam.withLabel(LAUNCHED_BY_LABEL_KEY, LAUNCHED_BY_LABEL_VALUE));
+        }
+
+        try (final DockerClient dockerClient = getClient()) {
+            return Lists.newArrayList(DockerContainerToNrgContainer(
+                    dockerClient.listContainers(params.toArray(new DockerClient.ListContainersParam[params.size()]))));
+        } catch (DockerException | InterruptedException e) {
+            log.error(e.getMessage());
+            throw new DockerServerException(e);
+        }
+    }
+
     /**
      * Query Docker server for specific container
      *
@@ -620,11 +1007,13 @@ public class DockerControlApi implements ContainerControlApi {
 
     @Override
     public List<DockerContainerEvent> getContainerEvents(final Date since, final Date until) throws NoServerPrefException, DockerServerException {
-        final List<Event> dockerEventList = getDockerContainerEvents(since, until);
+        final List<Event> dockerEventList = getDockerEvents(since, until, "container");
 
         final List<DockerContainerEvent> events = Lists.newArrayList();
         for (final Event dockerEvent : dockerEventList) {
-            events.add(new DockerContainerEvent(dockerEvent.status(), dockerEvent.id(), dockerEvent.time()));
+            final Map<String, String> attributes = dockerEvent.actor() == null ? null : dockerEvent.actor().attributes();
+            final String exitCode = attributes == null ? null : attributes.get("exitCode");
+            events.add(new DockerContainerEvent(dockerEvent.status(), dockerEvent.id(), dockerEvent.time(), exitCode));
         }
         return events;
     }
@@ -643,13 +1032,13 @@ public class DockerControlApi implements ContainerControlApi {
         return events;
     }
 
-    private List<Event> getDockerContainerEvents(final Date since, final Date until) throws NoServerPrefException, DockerServerException {
+    private List<Event> getDockerEvents(final Date since, final Date until, final String eventType) throws NoServerPrefException, DockerServerException {
         try(final DockerClient client = getClient()) {
             if (log.isDebugEnabled()) {
-                log.debug("Reading all docker container events from " + since.getTime() + " to " + until.getTime() + ".");
+                log.debug("Reading all docker " + eventType + " events from " + since.getTime() + " to " + until.getTime() + ".");
             }
             final EventStream eventStream =
-                    client.events(since(since.getTime() / 1000), until((until.getTime() / 1000)), type("container"));
+                    client.events(since(since.getTime() / 1000), until((until.getTime() / 1000)), type(eventType));
             if (log.isDebugEnabled()) {
                 log.debug("Got a stream of docker events.");
             }
@@ -720,7 +1109,7 @@ public class DockerControlApi implements ContainerControlApi {
             return null;
         }
 
-        return new DockerImage(image.id(), image.repoTags(), image.labels());
+        return new DockerImage(image.id(), image.repoTags(), image.labels(), image.size());
     }
 
     /**
@@ -734,7 +1123,7 @@ public class DockerControlApi implements ContainerControlApi {
             return null;
         }
 
-        return new DockerImage(image.id(), null, image.config().labels());
+        return new DockerImage(image.id(), null, image.config().labels(), image.size());
     }
 
     /**
@@ -841,6 +1230,10 @@ public class DockerControlApi implements ContainerControlApi {
             return imageId;
         }
 
+        private boolean hasImageId() {
+            return imageId != null;
+        }
+
         @Override
         public void progress(ProgressMessage message) throws DockerException {
             delegate.progress(message);
@@ -853,4 +1246,28 @@ public class DockerControlApi implements ContainerControlApi {
         }
 
     }
+
+    /**
+     * Records the docker server's pull progress messages on an ImagePull, so it can be queried while the pull runs.
+     */
+    private static class ImagePullProgressHandler implements ProgressHandler {
+        private final ImagePull pull;
+
+        private ImagePullProgressHandler(final ImagePull pull) {
+            this.pull = pull;
+        }
+
+        @Override
+        public void progress(final ProgressMessage message) throws DockerException {
+            if (message.error() != null) {
+                pull.progress(message.id(), message.error(), null, null);
+                return;
+            }
+            final ProgressDetail detail = message.progressDetail();
+            final String text = message.progress() == null ? message.status() : message.status() + " " + message.progress();
+            pull.progress(message.id(), text,
+                    detail == null ? null : detail.current(),
+                    detail == null ? null : detail.total());
+        }
+    }
 }
\ No newline at end of file
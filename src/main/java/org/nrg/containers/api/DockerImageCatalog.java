@@ -0,0 +1,114 @@
+package org.nrg.containers.api;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.nrg.containers.model.DockerImage;
+import org.nrg.containers.model.ImageCatalogStatus;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The images on the docker server, held in memory so reads do not have to go to the server.
+ * Loaded in full from the server, then kept current from docker image events.
+ */
+class DockerImageCatalog {
+    private static final String ID_PREFIX = "sha256:";
+
+    // Distinguishes ETags issued before a restart from those issued after, when the version starts over
+    private final String instance = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<String, DockerImage> imagesById = Maps.newLinkedHashMap();
+    private boolean loaded = false;
+    private long version = 0;
+    private Date loadedAt;
+    private Date eventsCheckedAt;
+    private long hits = 0;
+    private long misses = 0;
+    private long reloads = 0;
+
+    synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    synchronized void load(final List<DockerImage> images) {
+        imagesById.clear();
+        if (images != null) {
+            for (final DockerImage image : images) {
+                imagesById.put(image.getImageId(), image);
+            }
+        }
+        loaded = true;
+        loadedAt = new Date();
+        reloads++;
+        version++;
+    }
+
+    /**
+     * The catalog no longer matches the server. It will be loaded again on the next read.
+     */
+    synchronized void invalidate() {
+        loaded = false;
+    }
+
+    synchronized List<DockerImage> getAll() {
+        return Lists.newArrayList(imagesById.values());
+    }
+
+    /**
+     * Find an image by full ID, ID without the "sha256:" prefix, short ID, or repo tag.
+     *
+     * @return The image, or null if the catalog does not have it
+     */
+    synchronized DockerImage find(final String reference) {
+        if (!loaded || reference == null) {
+            return null;
+        }
+        final DockerImage byId = imagesById.get(reference);
+        if (byId != null) {
+            return byId;
+        }
+        final String idReference = reference.startsWith(ID_PREFIX) ? reference : ID_PREFIX + reference;
+        final String tagReference = reference.contains(":") ? reference : reference + ":latest";
+        for (final DockerImage image : imagesById.values()) {
+            final String id = image.getImageId();
+            if (id != null && idReference.length() >= ID_PREFIX.length() + 12 && id.startsWith(idReference)) {
+                return image;
+            }
+            if (image.getTags() != null && image.getTags().contains(tagReference)) {
+                return image;
+            }
+        }
+        return null;
+    }
+
+    synchronized void remove(final String reference) {
+        final DockerImage image = find(reference);
+        if (image != null) {
+            imagesById.remove(image.getImageId());
+            version++;
+        }
+    }
+
+    synchronized void hit() {
+        hits++;
+    }
+
+    synchronized void miss() {
+        misses++;
+    }
+
+    synchronized void eventsChecked(final Date until) {
+        eventsCheckedAt = until;
+    }
+
+    synchronized String getETag() {
+        return "\"" + instance + "-" + version + "\"";
+    }
+
+    synchronized ImageCatalogStatus getStatus() {
+        return new ImageCatalogStatus(loaded, imagesById.size(), getETag(), loadedAt, eventsCheckedAt, hits, misses, reloads);
+    }
+}
@@ -0,0 +1,10 @@
+package org.nrg.containers.api;
+
+import org.nrg.containers.model.DockerImage;
+
+/**
+ * Notified on the pulling thread when an asynchronous image pull succeeds.
+ */
+public interface ImagePullListener {
+    void pulled(final DockerImage image);
+}
@@ -1,7 +1,16 @@
 package org.nrg.containers.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.nrg.containers.events.BuildDirectoryMonitor;
+import org.nrg.containers.events.CommandBatcher;
+import org.nrg.containers.events.ContainerExecutionArchiver;
+import org.nrg.containers.events.ContainerExecutionHistoryFlusher;
+import org.nrg.containers.events.ContainerReconciler;
+import org.nrg.containers.events.ContainerRetryLauncher;
 import org.nrg.containers.events.DockerEventPuller;
+import org.nrg.containers.events.ImageGarbageCollector;
+import org.nrg.containers.events.LegacyExecutionDataMigrator;
+import org.nrg.containers.events.OutputStoreCleaner;
 import org.nrg.framework.annotations.XnatPlugin;
 import org.nrg.transporter.config.TransporterConfig;
 import org.nrg.xdat.security.PermissionsServiceImpl;
@@ -44,4 +53,77 @@ public class ContainersConfig {
                 new PeriodicTrigger(10L, TimeUnit.SECONDS)
         );
     }
-}
\ No newline at end of file
+
+    @Bean
+    public TriggerTask containerRetryLauncherTask(final ContainerRetryLauncher containerRetryLauncher) {
+        return new TriggerTask(
+                containerRetryLauncher,
+                new PeriodicTrigger(10L, TimeUnit.SECONDS)
+        );
+    }
+
+    @Bean
+    public TriggerTask commandBatcherTask(final CommandBatcher commandBatcher) {
+        return new TriggerTask(
+                commandBatcher,
+                new PeriodicTrigger(10L, TimeUnit.SECONDS)
+        );
+    }
+
+    @Bean
+    public TriggerTask imageGarbageCollectorTask(final ImageGarbageCollector imageGarbageCollector) {
+        return new TriggerTask(
+                imageGarbageCollector,
+                new PeriodicTrigger(10L, TimeUnit.MINUTES)
+        );
+    }
+
+    @Bean
+    public TriggerTask containerReconcilerTask(final ContainerReconciler containerReconciler) {
+        // The first run happens as soon as the scheduler starts, which reconciles at startup
+        return new TriggerTask(
+                containerReconciler,
+                new PeriodicTrigger(5L, TimeUnit.MINUTES)
+        );
+    }
+
+    @Bean
+    public TriggerTask containerExecutionHistoryFlusherTask(final ContainerExecutionHistoryFlusher containerExecutionHistoryFlusher) {
+        return new TriggerTask(
+                containerExecutionHistoryFlusher,
+                new PeriodicTrigger(1L, TimeUnit.SECONDS)
+        );
+    }
+
+    @Bean
+    public TriggerTask containerExecutionArchiverTask(final ContainerExecutionArchiver containerExecutionArchiver) {
+        return new TriggerTask(
+                containerExecutionArchiver,
+                new PeriodicTrigger(1L, TimeUnit.HOURS)
+        );
+    }
+
+    @Bean
+    public TriggerTask legacyExecutionDataMigratorTask(final LegacyExecutionDataMigrator legacyExecutionDataMigrator) {
+        return new TriggerTask(
+                legacyExecutionDataMigrator,
+                new PeriodicTrigger(10L, TimeUnit.MINUTES)
+        );
+    }
+
+    @Bean
+    public TriggerTask buildDirectoryMonitorTask(final BuildDirectoryMonitor buildDirectoryMonitor) {
+        return new TriggerTask(
+                buildDirectoryMonitor,
+                new PeriodicTrigger(1L, TimeUnit.MINUTES)
+        );
+    }
+
+    @Bean
+    public TriggerTask outputStoreCleanerTask(final OutputStoreCleaner outputStoreCleaner) {
+        return new TriggerTask(
+                outputStoreCleaner,
+                new PeriodicTrigger(1L, TimeUnit.HOURS)
+        );
+    }
+}
@@ -0,0 +1,90 @@
+package org.nrg.containers.daos;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Query;
+import org.hibernate.criterion.Restrictions;
+import org.nrg.containers.model.ArchivedContainerExecution;
+import org.nrg.containers.model.ContainerExecutionSummary;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class ArchivedContainerExecutionDao extends AbstractHibernateDAO<ArchivedContainerExecution> {
+
+    /**
+     * Find an archived execution by the ID it had before it was archived.
+     *
+     * @param executionId Execution ID
+     * @return The archived execution, or null if no execution with that ID has been archived
+     */
+    public ArchivedContainerExecution findByExecutionId(final long executionId) {
+        return (ArchivedContainerExecution) getSession().createCriteria(ArchivedContainerExecution.class)
+                .add(Restrictions.eq("executionId", executionId))
+                .uniqueResult();
+    }
+
+    /**
+     * List archived executions, newest first, without reading their documents.
+     *
+     * @param commandId Only executions of this command. Null for any command.
+     * @param userId Only executions launched by this user. Null for any user.
+     * @param project Only executions that ran on data in this project. Null for any project.
+     * @param uri Only executions that were given the XNAT object with this URI as an input. Null for any object.
+     * @param since Only executions launched at or after this time. Null for no lower bound.
+     * @param until Only executions launched before this time. Null for no upper bound.
+     * @param before Only executions with an ID lower than this. Null for the first page.
+     * @param limit The most executions to return
+     * @return Summaries of the matching executions, in descending order of execution ID. Empty list if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ContainerExecutionSummary> findSummaries(final Long commandId,
+                                                         final String userId,
+                                                         final String project,
+                                                         final String uri,
+                                                         final Date since,
+                                                         final Date until,
+                                                         final Long before,
+                                                         final int limit) {
+        final List<String> conditions = Lists.newArrayList();
+        final Map<String, Object> parameters = Maps.newHashMap();
+        addCondition(conditions, parameters, "a.commandId = :commandId", "commandId", commandId);
+        addCondition(conditions, parameters, "a.userId = :userId", "userId", StringUtils.trimToNull(userId));
+        addCondition(conditions, parameters, "a.project = :project", "project", StringUtils.trimToNull(project));
+        addCondition(conditions, parameters, "exists (select o.id from ContainerExecutionObject o " +
+                "where o.containerExecutionId = a.executionId and o.uri = :uri)", "uri", StringUtils.trimToNull(uri));
+        addCondition(conditions, parameters, "a.launched >= :since", "since", since);
+        addCondition(conditions, parameters, "a.launched < :until", "until", until);
+        addCondition(conditions, parameters, "a.executionId < :before", "before", before);
+
+        final StringBuilder hql = new StringBuilder("select new org.nrg.containers.model.ContainerExecutionSummary(" +
+                "a.executionId, a.commandId, a.dockerImage, a.containerId, a.userId, a.project, a.status, a.statusTime, " +
+                "a.launched, a.attempt, a.batchExecutionId) from ArchivedContainerExecution a");
+        if (!conditions.isEmpty()) {
+            hql.append(" where ").append(StringUtils.join(conditions, " and "));
+        }
+        hql.append(" order by a.executionId desc");
+
+        final Query query = getSession().createQuery(hql.toString()).setMaxResults(limit);
+        for (final Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        return query.list();
+    }
+
+    private static void addCondition(final List<String> conditions,
+                                     final Map<String, Object> parameters,
+                                     final String condition,
+                                     final String name,
+                                     final Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            parameters.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.nrg.containers.daos;
+
+import com.google.common.collect.Maps;
+import org.nrg.containers.model.CommandLabelImport;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class CommandLabelImportDao extends AbstractHibernateDAO<CommandLabelImport> {
+
+    /**
+     * Every image that commands have been imported from, keyed by image id.
+     *
+     * @return Map of image id to the import record. Empty map if nothing has been imported.
+     */
+    public Map<String, CommandLabelImport> findAllByImageId() {
+        final Map<String, CommandLabelImport> byImageId = Maps.newHashMap();
+        final List<CommandLabelImport> all = findAll();
+        if (all != null) {
+            for (final CommandLabelImport labelImport : all) {
+                byImageId.put(labelImport.getImageId(), labelImport);
+            }
+        }
+        return byImageId;
+    }
+}
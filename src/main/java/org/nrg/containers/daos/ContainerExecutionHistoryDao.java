@@ -0,0 +1,98 @@
+package org.nrg.containers.daos;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class ContainerExecutionHistoryDao extends AbstractHibernateDAO<ContainerExecutionHistory> {
+
+    /**
+     * Read an execution's history.
+     *
+     * @param containerExecutionId ID of the execution
+     * @return The execution's history entries, oldest first
+     */
+    @SuppressWarnings("unchecked")
+    public List<ContainerExecutionHistory> findByExecutionId(final Long containerExecutionId) {
+        return getSession().createCriteria(ContainerExecutionHistory.class)
+                .add(Restrictions.eq("containerExecutionId", containerExecutionId))
+                .addOrder(Order.asc("sequence"))
+                .list();
+    }
+
+    /**
+     * Append entries to the history of one or more executions. The entries are written through a stateless
+     * session in their own transaction, so they are sent to the database in JDBC batches without being loaded
+     * into, or dirty-checked by, the calling session. Only the history table is written: executions' statuses
+     * are written through the session that changed them, so this transaction never waits on a row lock held by
+     * a caller on the same thread.
+     *
+     * <p>Sequence numbers continue from the highest already stored for each execution, so callers must not
+     * append to the same execution's history concurrently.</p>
+     *
+     * @param entries Entries to append, each with its execution's ID, in the order they happened
+     */
+    @SuppressWarnings("unchecked")
+    public void append(final List<ContainerExecutionHistory> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        final Set<Long> executionIds = Sets.newHashSet();
+        for (final ContainerExecutionHistory entry : entries) {
+            executionIds.add(entry.getContainerExecutionId());
+        }
+
+        final StatelessSession session = getSession().getSessionFactory().openStatelessSession();
+        final Transaction transaction = session.beginTransaction();
+        try {
+            final Map<Long, Integer> nextSequence = Maps.newHashMap();
+            final List<Object[]> maxSequences = session
+                    .createQuery("select h.containerExecutionId, max(h.sequence) from ContainerExecutionHistory h " +
+                            "where h.containerExecutionId in (:ids) group by h.containerExecutionId")
+                    .setParameterList("ids", executionIds)
+                    .list();
+            for (final Object[] row : maxSequences) {
+                nextSequence.put((Long) row[0], row[1] == null ? 0 : ((Integer) row[1]) + 1);
+            }
+
+            for (final ContainerExecutionHistory entry : entries) {
+                final Long executionId = entry.getContainerExecutionId();
+                final Integer sequence = nextSequence.containsKey(executionId) ? nextSequence.get(executionId) : 0;
+                entry.setSequence(sequence);
+                nextSequence.put(executionId, sequence + 1);
+                session.insert(entry);
+            }
+            transaction.commit();
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Delete the history of executions.
+     *
+     * @param containerExecutionIds IDs of the executions
+     * @return The number of entries deleted
+     */
+    public int deleteByExecutionIds(final List<Long> containerExecutionIds) {
+        return getSession()
+                .createQuery("delete from ContainerExecutionHistory h where h.containerExecutionId in (:ids)")
+                .setParameterList("ids", containerExecutionIds)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,9 @@
+package org.nrg.containers.daos;
+
+import org.nrg.containers.model.ContainerExecutionObject;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class ContainerExecutionObjectDao extends AbstractHibernateDAO<ContainerExecutionObject> {
+}
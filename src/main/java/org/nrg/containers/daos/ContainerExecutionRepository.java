@@ -1,10 +1,221 @@
 package org.nrg.containers.daos;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Query;
+import org.hibernate.criterion.Restrictions;
 import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionSummary;
 import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
 import org.springframework.stereotype.Repository;
 
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
 @Repository
 public class ContainerExecutionRepository extends AbstractHibernateDAO<ContainerExecution> {
 
+    /**
+     * Find executions that failed and are waiting to be retried, whose backoff has elapsed.
+     *
+     * @param now Retries scheduled at or before this time are due.
+     * @return Executions whose retries are due. Empty list if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ContainerExecution> findRetriesDue(final Date now) {
+        return getSession().createCriteria(ContainerExecution.class)
+                .add(Restrictions.isNotNull("retryAfter"))
+                .add(Restrictions.le("retryAfter", now))
+                .list();
+    }
+
+    /**
+     * Find the ID of the execution running in a container, without reading the execution.
+     *
+     * @param containerId Docker container ID
+     * @return Execution ID, or null if no execution ran in the container
+     */
+    public Long findIdByContainerId(final String containerId) {
+        return (Long) getSession()
+                .createQuery("select e.id from ContainerExecution e where e.containerId = :containerId")
+                .setParameter("containerId", containerId)
+                .uniqueResult();
+    }
+
+    /**
+     * Set an execution's status to that of its latest history entry, without reading the execution. The update
+     * is made in the calling session's transaction.
+     *
+     * @param id ID of the execution
+     * @param status Status of the latest history entry
+     * @param statusTime Time of the latest history entry
+     */
+    public void updateStatus(final Long id, final String status, final Date statusTime) {
+        getSession()
+                .createQuery("update ContainerExecution set status = :status, statusTime = :statusTime where id = :id")
+                .setParameter("status", status)
+                .setParameter("statusTime", statusTime)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    /**
+     * Find executions whose containers have not been seen to stop.
+     *
+     * @param exitStatuses History statuses that mean a container has stopped
+     * @return Executions with a container and none of the given statuses in their history. Empty list if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ContainerExecution> findNotExited(final List<String> exitStatuses) {
+        return getSession()
+                .createQuery("select e from ContainerExecution e where e.containerId is not null and not exists (" +
+                        "select h from ContainerExecutionHistory h where h.containerExecutionId = e.id and h.status in (:exitStatuses))")
+                .setParameterList("exitStatuses", exitStatuses)
+                .list();
+    }
+
+    /**
+     * Find executions that finished, and have not changed since, before a cutoff. Oldest first.
+     *
+     * @param finishedStatuses History statuses that mean an execution is done
+     * @param cutoff Only executions whose latest history entry is before this time
+     * @param limit The most executions to return
+     * @return Finished executions that are not waiting to be retried. Empty list if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ContainerExecution> findFinishedBefore(final List<String> finishedStatuses, final Date cutoff, final int limit) {
+        return getSession()
+                .createQuery("select e from ContainerExecution e where e.statusTime < :cutoff and e.retryAfter is null " +
+                        "and exists (select h.id from ContainerExecutionHistory h where h.containerExecutionId = e.id " +
+                        "and h.status in (:statuses)) order by e.id")
+                .setParameterList("statuses", finishedStatuses)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .list();
+    }
+
+    /**
+     * Find executions whose input values or history are still in the tables they were stored in before they
+     * were stored apart from executions.
+     *
+     * @param limit The most executions to return
+     * @return Executions to migrate, lowest ID first. Empty list if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ContainerExecution> findWithLegacyData(final int limit) {
+        return getSession()
+                .createQuery("select e from ContainerExecution e " +
+                        "where e.legacyInputValues is not empty or e.legacyHistory is not empty order by e.id")
+                .setMaxResults(limit)
+                .list();
+    }
+
+    /**
+     * When each docker image was last used to launch a container.
+     *
+     * @return Map of the docker image each execution was launched with to its latest launch time.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Date> findImageLastUsed() {
+        final List<Object[]> rows = getSession()
+                .createQuery("select e.dockerImage, max(e.created) from ContainerExecution e " +
+                        "where e.dockerImage is not null group by e.dockerImage")
+                .list();
+        final Map<String, Date> lastUsed = Maps.newHashMap();
+        for (final Object[] row : rows) {
+            lastUsed.put((String) row[0], (Date) row[1]);
+        }
+        return lastUsed;
+    }
+
+    /**
+     * List executions, newest first, without reading any of their collections. Pages are found by
+     * ID rather than by offset, so every page is read from the primary key index no matter how deep it is.
+     *
+     * @param status Only executions whose latest history entry has this status. Null for any status.
+     * @param commandId Only executions of this command. Null for any command.
+     * @param userId Only executions launched by this user. Null for any user.
+     * @param project Only executions that ran on data in this project. Null for any project.
+     * @param since Only executions launched at or after this time. Null for no lower bound.
+     * @param until Only executions launched before this time. Null for no upper bound.
+     * @param before Only executions with an ID lower than this, i.e. the ID of the last execution on the previous page. Null for the first page.
+     * @param limit The most executions to return
+     * @return Summaries of the matching executions, in descending order of ID. Empty list if there are none.
+     */
+    public List<ContainerExecutionSummary> findSummaries(final String status,
+                                                         final Long commandId,
+                                                         final String userId,
+                                                         final String project,
+                                                         final Date since,
+                                                         final Date until,
+                                                         final Long before,
+                                                         final int limit) {
+        final List<String> conditions = Lists.newArrayList();
+        final Map<String, Object> parameters = Maps.newHashMap();
+        addCondition(conditions, parameters, "e.status = :status", "status", StringUtils.trimToNull(status));
+        addCondition(conditions, parameters, "e.commandId = :commandId", "commandId", commandId);
+        addCondition(conditions, parameters, "e.userId = :userId", "userId", StringUtils.trimToNull(userId));
+        addCondition(conditions, parameters, "e.project = :project", "project", StringUtils.trimToNull(project));
+        addCondition(conditions, parameters, "e.created >= :since", "since", since);
+        addCondition(conditions, parameters, "e.created < :until", "until", until);
+        addCondition(conditions, parameters, "e.id < :before", "before", before);
+
+        return listSummaries(conditions, parameters, limit);
+    }
+
+    /**
+     * List executions that had an XNAT object as one of their inputs, newest first, without reading any execution's inputs.
+     *
+     * @param uri The object's URI. Null to find the object by ID.
+     * @param xnatId The object's ID. Null to find the object by URI.
+     * @param before Only executions with an ID lower than this. Null for the first page.
+     * @param limit The most executions to return
+     * @return Summaries of the matching executions, in descending order of ID. Empty list if there are none.
+     */
+    public List<ContainerExecutionSummary> findSummariesByObject(final String uri,
+                                                                 final String xnatId,
+                                                                 final Long before,
+                                                                 final int limit) {
+        final List<String> objectConditions = Lists.newArrayList("o.containerExecutionId = e.id");
+        final Map<String, Object> parameters = Maps.newHashMap();
+        addCondition(objectConditions, parameters, "o.uri = :uri", "uri", StringUtils.trimToNull(uri));
+        addCondition(objectConditions, parameters, "o.xnatId = :xnatId", "xnatId", StringUtils.trimToNull(xnatId));
+
+        final List<String> conditions = Lists.newArrayList("exists (select o.id from ContainerExecutionObject o where " +
+                StringUtils.join(objectConditions, " and ") + ")");
+        addCondition(conditions, parameters, "e.id < :before", "before", before);
+        return listSummaries(conditions, parameters, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ContainerExecutionSummary> listSummaries(final List<String> conditions,
+                                                          final Map<String, Object> parameters,
+                                                          final int limit) {
+        final StringBuilder hql = new StringBuilder("select new org.nrg.containers.model.ContainerExecutionSummary(" +
+                "e.id, e.commandId, e.dockerImage, e.containerId, e.userId, e.project, e.status, e.statusTime, " +
+                "e.created, e.attempt, e.batchExecutionId) from ContainerExecution e");
+        if (!conditions.isEmpty()) {
+            hql.append(" where ").append(StringUtils.join(conditions, " and "));
+        }
+        hql.append(" order by e.id desc");
+
+        final Query query = getSession().createQuery(hql.toString()).setMaxResults(limit);
+        for (final Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        return query.list();
+    }
+
+    private static void addCondition(final List<String> conditions,
+                                     final Map<String, Object> parameters,
+                                     final String condition,
+                                     final String name,
+                                     final Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            parameters.put(name, value);
+        }
+    }
 }
@@ -0,0 +1,126 @@
+package org.nrg.containers.daos;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Criteria;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.nrg.containers.helpers.DurationHistogram;
+import org.nrg.containers.model.ContainerExecutionStats;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class ContainerExecutionStatsDao extends AbstractHibernateDAO<ContainerExecutionStats> {
+
+    /**
+     * Add one finished execution to its row of totals, creating the row if this is the first such execution.
+     * The row is read and written through a stateless session in its own transaction, so the totals are
+     * committed at once and a long finalizing transaction does not hold them. Callers must not add to the same
+     * row concurrently.
+     *
+     * @param key The row's day, command, project, and outcome. Its totals are ignored.
+     * @param queueMillis Time from launch to start, or null if it is not known
+     * @param runMillis Time from start to exit, or null if it is not known
+     * @param finalizeMillis Time from exit until the outputs were uploaded, or null if it is not known
+     * @param uploadedBytes Bytes of output uploaded
+     * @param linkedBytes Of those, bytes moved or hard-linked rather than copied
+     * @param deduplicatedBytes Of those, bytes linked to the output store's copies
+     * @param avoidedWriteBytes Of the deduplicated bytes, those found in the store as they were copied, so no copy was kept
+     */
+    public void add(final ContainerExecutionStats key,
+                    final Long queueMillis,
+                    final Long runMillis,
+                    final Long finalizeMillis,
+                    final long uploadedBytes,
+                    final long linkedBytes,
+                    final long deduplicatedBytes,
+                    final long avoidedWriteBytes) {
+        final StatelessSession session = getSession().getSessionFactory().openStatelessSession();
+        final Transaction transaction = session.beginTransaction();
+        try {
+            ContainerExecutionStats stats = (ContainerExecutionStats) session.createCriteria(ContainerExecutionStats.class)
+                    .add(Restrictions.eq("finishedOn", key.getFinishedOn()))
+                    .add(Restrictions.eq("commandId", key.getCommandId()))
+                    .add(Restrictions.eq("project", key.getProject()))
+                    .add(Restrictions.eq("outcome", key.getOutcome()))
+                    .uniqueResult();
+            final boolean isNew = stats == null;
+            if (isNew) {
+                stats = new ContainerExecutionStats(key.getFinishedOn(), key.getCommandId(), key.getProject(), key.getOutcome());
+            }
+
+            stats.setExecutions(stats.getExecutions() + 1);
+            if (queueMillis != null) {
+                stats.setQueueCount(stats.getQueueCount() + 1);
+                stats.setQueueMillis(stats.getQueueMillis() + queueMillis);
+                stats.setQueueHistogram(addToHistogram(stats.getQueueHistogram(), queueMillis));
+            }
+            if (runMillis != null) {
+                stats.setRunCount(stats.getRunCount() + 1);
+                stats.setRunMillis(stats.getRunMillis() + runMillis);
+                stats.setRunHistogram(addToHistogram(stats.getRunHistogram(), runMillis));
+            }
+            if (finalizeMillis != null) {
+                stats.setFinalizeCount(stats.getFinalizeCount() + 1);
+                stats.setFinalizeMillis(stats.getFinalizeMillis() + finalizeMillis);
+                stats.setFinalizeHistogram(addToHistogram(stats.getFinalizeHistogram(), finalizeMillis));
+            }
+            stats.setUploadedBytes(stats.getUploadedBytes() + uploadedBytes);
+            stats.setLinkedBytes(stats.getLinkedBytes() + linkedBytes);
+            stats.setDeduplicatedBytes(stats.getDeduplicatedBytes() + deduplicatedBytes);
+            stats.setAvoidedWriteBytes(stats.getAvoidedWriteBytes() + avoidedWriteBytes);
+
+            if (isNew) {
+                session.insert(stats);
+            } else {
+                session.update(stats);
+            }
+            transaction.commit();
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        } finally {
+            session.close();
+        }
+    }
+
+    private static String addToHistogram(final String histogram, final long millis) {
+        final DurationHistogram parsed = DurationHistogram.parse(histogram);
+        parsed.add(millis);
+        return parsed.toString();
+    }
+
+    /**
+     * Read rows of totals.
+     *
+     * @param commandId Only rows for this command. Null for every command.
+     * @param project Only rows for this project. Null for every project.
+     * @param since Only rows for this day, as yyyy-MM-dd, or later. Null for no lower bound.
+     * @param until Only rows for this day, as yyyy-MM-dd, or earlier. Null for no upper bound.
+     * @return Matching rows, by day. Empty list if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ContainerExecutionStats> find(final Long commandId,
+                                              final String project,
+                                              final String since,
+                                              final String until) {
+        final Criteria criteria = getSession().createCriteria(ContainerExecutionStats.class);
+        if (commandId != null) {
+            criteria.add(Restrictions.eq("commandId", commandId));
+        }
+        if (project != null) {
+            criteria.add(Restrictions.eq("project", project));
+        }
+        if (StringUtils.isNotBlank(since)) {
+            criteria.add(Restrictions.ge("finishedOn", since));
+        }
+        if (StringUtils.isNotBlank(until)) {
+            criteria.add(Restrictions.le("finishedOn", until));
+        }
+        return criteria.addOrder(Order.asc("finishedOn")).list();
+    }
+}
@@ -0,0 +1,78 @@
+package org.nrg.containers.daos;
+
+import com.google.common.collect.Maps;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.criterion.Restrictions;
+import org.nrg.containers.model.ContainerInputBlob;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class ContainerInputBlobDao extends AbstractHibernateDAO<ContainerInputBlob> {
+
+    /**
+     * Read the blobs with the given hashes in one query.
+     *
+     * @param hashes Content hashes
+     * @return Map of hash to blob, for those hashes that are stored. Empty map if none are.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, ContainerInputBlob> findByHashes(final Collection<String> hashes) {
+        final Map<String, ContainerInputBlob> byHash = Maps.newHashMap();
+        if (hashes == null || hashes.isEmpty()) {
+            return byHash;
+        }
+        final List<ContainerInputBlob> blobs = getSession().createCriteria(ContainerInputBlob.class)
+                .add(Restrictions.in("hash", hashes))
+                .list();
+        for (final ContainerInputBlob blob : blobs) {
+            byHash.put(blob.getHash(), blob);
+        }
+        return byHash;
+    }
+
+    /**
+     * Which of the given hashes are already stored, without reading any blob's data.
+     *
+     * @param hashes Content hashes
+     * @return The hashes that are stored. Empty list if none are.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> findStoredHashes(final Collection<String> hashes) {
+        return getSession().createQuery("select b.hash from ContainerInputBlob b where b.hash in (:hashes)")
+                .setParameterList("hashes", hashes)
+                .list();
+    }
+
+    /**
+     * Insert blobs and commit them in their own transaction, so that other launches can see, and reuse,
+     * them at once rather than when the launching transaction ends.
+     *
+     * @param blobs Blobs that are not yet stored
+     * @throws org.hibernate.exception.ConstraintViolationException If another launch stored one of the blobs first.
+     * None of the blobs are stored.
+     */
+    public void insert(final Collection<ContainerInputBlob> blobs) {
+        if (blobs == null || blobs.isEmpty()) {
+            return;
+        }
+        final StatelessSession session = getSession().getSessionFactory().openStatelessSession();
+        final Transaction transaction = session.beginTransaction();
+        try {
+            for (final ContainerInputBlob blob : blobs) {
+                session.insert(blob);
+            }
+            transaction.commit();
+        } catch (RuntimeException e) {
+            transaction.rollback();
+            throw e;
+        } finally {
+            session.close();
+        }
+    }
+}
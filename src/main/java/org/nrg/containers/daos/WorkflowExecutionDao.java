@@ -0,0 +1,22 @@
+package org.nrg.containers.daos;
+
+import org.nrg.containers.model.WorkflowExecution;
+import org.nrg.framework.orm.hibernate.AbstractHibernateDAO;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+public class WorkflowExecutionDao extends AbstractHibernateDAO<WorkflowExecution> {
+
+    /**
+     * Find workflow executions that may still launch or wait on containers.
+     *
+     * @return Running workflow executions. Empty list if there are none.
+     */
+    public List<WorkflowExecution> findRunning() {
+        final List<WorkflowExecution> running = findByProperty("status", WorkflowExecution.RUNNING);
+        return running == null ? Collections.<WorkflowExecution>emptyList() : running;
+    }
+}
@@ -0,0 +1,37 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.services.ContainerExecutionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Records how much disk running container executions use for their outputs, and kills those over the build quota.
+ */
+@Component
+public class BuildDirectoryMonitor implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(BuildDirectoryMonitor.class);
+
+    private ContainerExecutionService containerExecutionService;
+
+    @Autowired
+    public BuildDirectoryMonitor(final ContainerExecutionService containerExecutionService) {
+        this.containerExecutionService = containerExecutionService;
+    }
+
+    @Override
+    public void run() {
+        try {
+            final List<ContainerExecution> killed = containerExecutionService.enforceBuildQuota();
+            if (!killed.isEmpty()) {
+                log.info(String.format("Killed %d container executions that were over the build quota.", killed.size()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not measure the output directories of running container executions.", e);
+        }
+    }
+}
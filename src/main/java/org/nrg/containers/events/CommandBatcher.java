@@ -0,0 +1,112 @@
+package org.nrg.containers.events;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.nrg.containers.exceptions.ContainerException;
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoServerPrefException;
+import org.nrg.containers.model.CommandBatchPolicy;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ResolvedCommand;
+import org.nrg.containers.services.CommandService;
+import org.nrg.xft.security.UserI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects resolved commands for Commands that run in batches, and launches each batch
+ * once it is full or its time window has passed.
+ */
+@Component
+public class CommandBatcher implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(CommandBatcher.class);
+    private static final int DEFAULT_SIZE = 50;
+    private static final long DEFAULT_WINDOW_SECONDS = 60L;
+
+    private final Map<String, PendingBatch> pending = Maps.newHashMap();
+    private CommandService commandService;
+
+    @Autowired
+    public CommandBatcher(final CommandService commandService) {
+        this.commandService = commandService;
+    }
+
+    /**
+     * Add a resolved command to the batch for its Command and user. Launches the batch if it is now full.
+     */
+    public void add(final ResolvedCommand resolvedCommand,
+                    final CommandBatchPolicy policy,
+                    final UserI userI) {
+        final String key = resolvedCommand.getCommandId() + ":" + userI.getLogin();
+        final int size = policy.getSize() == null || policy.getSize() < 1 ? DEFAULT_SIZE : policy.getSize();
+        final long windowSeconds = policy.getWindowSeconds() == null ? DEFAULT_WINDOW_SECONDS : policy.getWindowSeconds();
+
+        final PendingBatch full;
+        synchronized (pending) {
+            PendingBatch batch = pending.get(key);
+            if (batch == null) {
+                batch = new PendingBatch(userI, System.currentTimeMillis() + windowSeconds * 1000L);
+                pending.put(key, batch);
+            }
+            batch.items.add(resolvedCommand);
+            if (batch.items.size() >= size) {
+                pending.remove(key);
+                full = batch;
+            } else {
+                full = null;
+            }
+        }
+
+        if (full != null) {
+            launch(full);
+        }
+    }
+
+    @Override
+    public void run() {
+        final List<PendingBatch> due = Lists.newArrayList();
+        final long now = System.currentTimeMillis();
+        synchronized (pending) {
+            final Iterator<PendingBatch> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                final PendingBatch batch = iterator.next();
+                if (batch.launchBy <= now) {
+                    iterator.remove();
+                    due.add(batch);
+                }
+            }
+        }
+
+        for (final PendingBatch batch : due) {
+            launch(batch);
+        }
+    }
+
+    private void launch(final PendingBatch batch) {
+        try {
+            final ContainerExecution launched = commandService.launchResolvedCommands(batch.items, batch.userI);
+            if (log.isInfoEnabled()) {
+                log.info(String.format("Launched a batch of %d items as ContainerExecution %s.", batch.items.size(), launched.getId()));
+            }
+        } catch (NoServerPrefException | DockerServerException | ContainerException | RuntimeException e) {
+            log.error(String.format("Could not launch a batch of %d items.", batch.items.size()), e);
+        }
+    }
+
+    private static class PendingBatch {
+        private final UserI userI;
+        private final long launchBy;
+        private final List<ResolvedCommand> items = Lists.newArrayList();
+
+        private PendingBatch(final UserI userI, final long launchBy) {
+            this.userI = userI;
+            this.launchBy = launchBy;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.services.ContainerExecutionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves container executions that finished more than the configured number of days ago into the execution archive,
+ * so the execution tables hold only running and recently finished executions.
+ */
+@Component
+public class ContainerExecutionArchiver implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(ContainerExecutionArchiver.class);
+
+    private ContainerExecutionService containerExecutionService;
+    private DockerServerPrefsBean dockerServerPrefsBean;
+
+    @Autowired
+    public ContainerExecutionArchiver(final ContainerExecutionService containerExecutionService,
+                                      final DockerServerPrefsBean dockerServerPrefsBean) {
+        this.containerExecutionService = containerExecutionService;
+        this.dockerServerPrefsBean = dockerServerPrefsBean;
+    }
+
+    @Override
+    public void run() {
+        final Long days = dockerServerPrefsBean.getExecutionArchiveDays();
+        if (days == null || days <= 0) {
+            return;
+        }
+        final Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days));
+        if (log.isDebugEnabled()) {
+            log.debug("Archiving container executions that finished before " + cutoff);
+        }
+
+        int total = 0;
+        try {
+            // Each call archives one batch in its own transaction
+            int archived;
+            do {
+                archived = containerExecutionService.archiveFinished(cutoff);
+                total += archived;
+            } while (archived > 0);
+        } catch (RuntimeException e) {
+            log.error("Could not archive container executions.", e);
+        }
+        if (total > 0) {
+            log.info(String.format("Archived %d container executions that finished before %s.", total, cutoff));
+        }
+    }
+}
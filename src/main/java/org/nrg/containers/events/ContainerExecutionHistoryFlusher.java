@@ -0,0 +1,28 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.services.ContainerExecutionHistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ContainerExecutionHistoryFlusher implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(ContainerExecutionHistoryFlusher.class);
+
+    private ContainerExecutionHistoryService containerExecutionHistoryService;
+
+    @Autowired
+    public ContainerExecutionHistoryFlusher(final ContainerExecutionHistoryService containerExecutionHistoryService) {
+        this.containerExecutionHistoryService = containerExecutionHistoryService;
+    }
+
+    @Override
+    public void run() {
+        try {
+            containerExecutionHistoryService.flushIfDue();
+        } catch (RuntimeException e) {
+            log.error("Could not write container execution history.", e);
+        }
+    }
+}
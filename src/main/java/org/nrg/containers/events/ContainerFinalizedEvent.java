@@ -0,0 +1,101 @@
+package org.nrg.containers.events;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Maps;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionOutput;
+import org.nrg.framework.event.EventI;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Thrown once a ContainerExecution has been finalized, i.e. its logs and outputs have been uploaded.
+ * Carries everything a listener needs, so listeners do not have to read the execution
+ * before the finalizing transaction has committed.
+ */
+public class ContainerFinalizedEvent implements EventI {
+    private Long containerExecutionId;
+    private Long originalExecutionId;
+    private boolean succeeded;
+    private Date exited;
+    private Date finalized;
+    private Map<String, String> createdOutputs;
+
+    public ContainerFinalizedEvent(final ContainerExecution containerExecution, final Date finalized) {
+        this.containerExecutionId = containerExecution.getId();
+        this.originalExecutionId = containerExecution.getOriginalExecutionId();
+        this.succeeded = containerExecution.isExitedCleanly();
+        this.exited = containerExecution.getExitTime();
+        this.finalized = finalized;
+        this.createdOutputs = Maps.newHashMap();
+        if (containerExecution.getOutputs() != null) {
+            for (final ContainerExecutionOutput output : containerExecution.getOutputs()) {
+                if (output.getCreated() != null) {
+                    createdOutputs.put(output.getName(), output.getCreated());
+                }
+            }
+        }
+    }
+
+    public Long getContainerExecutionId() {
+        return containerExecutionId;
+    }
+
+    /**
+     * The ID of the first execution in this execution's chain of retries, or null if it was not a retry.
+     */
+    public Long getOriginalExecutionId() {
+        return originalExecutionId;
+    }
+
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+
+    public Date getExited() {
+        return exited == null ? null : new Date(exited.getTime());
+    }
+
+    public Date getFinalized() {
+        return finalized == null ? null : new Date(finalized.getTime());
+    }
+
+    /**
+     * Map from output name to the URI of the object that was created from it.
+     */
+    public Map<String, String> getCreatedOutputs() {
+        return createdOutputs;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ContainerFinalizedEvent that = (ContainerFinalizedEvent) o;
+        return this.succeeded == that.succeeded &&
+                Objects.equals(this.containerExecutionId, that.containerExecutionId) &&
+                Objects.equals(this.originalExecutionId, that.originalExecutionId) &&
+                Objects.equals(this.exited, that.exited) &&
+                Objects.equals(this.finalized, that.finalized) &&
+                Objects.equals(this.createdOutputs, that.createdOutputs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(containerExecutionId, originalExecutionId, succeeded, exited, finalized, createdOutputs);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("containerExecutionId", containerExecutionId)
+                .add("originalExecutionId", originalExecutionId)
+                .add("succeeded", succeeded)
+                .add("exited", exited)
+                .add("finalized", finalized)
+                .add("createdOutputs", createdOutputs)
+                .toString();
+    }
+}
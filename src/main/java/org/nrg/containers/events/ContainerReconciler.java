@@ -0,0 +1,45 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoServerPrefException;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.services.ContainerExecutionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Catches container executions up with containers that stopped while their events were missed,
+ * e.g. while XNAT was down. Runs once at startup, then periodically.
+ */
+@Component
+public class ContainerReconciler implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(ContainerReconciler.class);
+
+    private ContainerExecutionService containerExecutionService;
+
+    @Autowired
+    public ContainerReconciler(final ContainerExecutionService containerExecutionService) {
+        this.containerExecutionService = containerExecutionService;
+    }
+
+    @Override
+    public void run() {
+        if (log.isDebugEnabled()) {
+            log.debug("Reconciling container executions with the containers on the docker server.");
+        }
+        try {
+            final List<ContainerExecution> reconciled = containerExecutionService.reconcile();
+            if (!reconciled.isEmpty()) {
+                log.info(String.format("Found %d container executions whose containers had stopped.", reconciled.size()));
+            }
+        } catch (NoServerPrefException e) {
+            log.info("Cannot reconcile container executions. No docker server has been defined.");
+        } catch (DockerServerException | RuntimeException e) {
+            log.error("Could not reconcile container executions.", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.services.ContainerExecutionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class ContainerRetryLauncher implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(ContainerRetryLauncher.class);
+
+    private ContainerExecutionService containerExecutionService;
+
+    @Autowired
+    public ContainerRetryLauncher(final ContainerExecutionService containerExecutionService) {
+        this.containerExecutionService = containerExecutionService;
+    }
+
+    @Override
+    public void run() {
+        if (log.isDebugEnabled()) {
+            log.debug("Checking for container executions that are due to be retried.");
+        }
+        try {
+            final List<ContainerExecution> launched = containerExecutionService.launchDueRetries();
+            if (!launched.isEmpty()) {
+                log.info(String.format("Launched %d container execution retries.", launched.size()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not launch container execution retries.", e);
+        }
+    }
+}
@@ -38,14 +38,23 @@ public class DockerEventPuller implements Runnable {
             final Date lastEventCheckTime = dockerServerPrefs.getLastEventCheckTime();
             final Date since = lastEventCheckTime == null ? new Date(0L) : lastEventCheckTime;
 
+            final Date now = new Date();
             try {
-                final Date now = new Date();
                 controlApi.getContainerEventsAndThrow(since, now);
+                // Container events are recorded now. Do not read them again, even if the image catalog cannot be updated.
                 dockerServerPrefs.setLastEventCheckTime(now);
             } catch (NoServerPrefException e) {
                 log.info("Cannot search for Docker container events. No Docker server defined.");
+                return;
             } catch (DockerServerException e) {
                 log.error("Cannot find Docker container events.", e);
+                return;
+            }
+
+            try {
+                controlApi.updateImageCatalog(since, now);
+            } catch (NoServerPrefException | DockerServerException e) {
+                log.error("Cannot update the docker image catalog. It will be loaded again in full.", e);
             }
         }
     }
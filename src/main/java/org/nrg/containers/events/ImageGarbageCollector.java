@@ -0,0 +1,39 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.exceptions.DockerServerException;
+import org.nrg.containers.exceptions.NoServerPrefException;
+import org.nrg.containers.model.ImageGcStatus;
+import org.nrg.containers.services.DockerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ImageGarbageCollector implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(ImageGarbageCollector.class);
+
+    private DockerService dockerService;
+
+    @Autowired
+    public ImageGarbageCollector(final DockerService dockerService) {
+        this.dockerService = dockerService;
+    }
+
+    @Override
+    public void run() {
+        if (log.isDebugEnabled()) {
+            log.debug("Checking docker image disk usage.");
+        }
+        try {
+            final ImageGcStatus status = dockerService.collectImageGarbage();
+            if (log.isDebugEnabled()) {
+                log.debug(status.toString());
+            }
+        } catch (NoServerPrefException e) {
+            log.info("Cannot collect image garbage. No docker server has been defined.");
+        } catch (DockerServerException | RuntimeException e) {
+            log.error("Could not collect image garbage.", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.services.ContainerExecutionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves data of container executions saved by earlier versions of the plugin out of the tables those versions kept
+ * it in. Once every execution is migrated, each run finds nothing to do.
+ */
+@Component
+public class LegacyExecutionDataMigrator implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(LegacyExecutionDataMigrator.class);
+
+    private ContainerExecutionService containerExecutionService;
+
+    @Autowired
+    public LegacyExecutionDataMigrator(final ContainerExecutionService containerExecutionService) {
+        this.containerExecutionService = containerExecutionService;
+    }
+
+    @Override
+    public void run() {
+        int total = 0;
+        try {
+            // Each call migrates one batch in its own transaction
+            int migrated;
+            do {
+                migrated = containerExecutionService.migrateLegacyData();
+                total += migrated;
+            } while (migrated > 0);
+        } catch (RuntimeException e) {
+            log.error("Could not migrate the data of container executions saved by an earlier version.", e);
+        }
+        if (total > 0) {
+            log.info(String.format("Migrated the data of %d container executions saved by an earlier version.", total));
+        }
+    }
+}
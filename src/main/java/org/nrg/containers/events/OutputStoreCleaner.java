@@ -0,0 +1,34 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.services.OutputStoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes files from the output store once no archived resource links to them.
+ */
+@Component
+public class OutputStoreCleaner implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(OutputStoreCleaner.class);
+
+    private OutputStoreService outputStoreService;
+
+    @Autowired
+    public OutputStoreCleaner(final OutputStoreService outputStoreService) {
+        this.outputStoreService = outputStoreService;
+    }
+
+    @Override
+    public void run() {
+        try {
+            final long freed = outputStoreService.clean();
+            if (freed > 0) {
+                log.info(String.format("Removed %d bytes of unused files from the output store.", freed));
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not clean the output store.", e);
+        }
+    }
+}
@@ -4,7 +4,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Maps;
 import org.nrg.containers.exceptions.*;
+import org.nrg.containers.model.Command;
 import org.nrg.containers.model.CommandEventMapping;
+import org.nrg.containers.model.ResolvedCommand;
 import org.nrg.containers.model.xnat.Scan;
 import org.nrg.containers.services.CommandEventMappingService;
 import org.nrg.containers.services.CommandService;
@@ -31,6 +33,7 @@ public class ScanArchiveListenerAndCommandLauncher implements Consumer<Event<Sca
     @Autowired private ObjectMapper mapper;
     @Autowired private CommandService commandService;
     @Autowired private CommandEventMappingService commandEventMappingService;
+    @Autowired private CommandBatcher commandBatcher;
 
      /**
      * Instantiates a new xft item event listener.
@@ -77,7 +80,14 @@ public class ScanArchiveListenerAndCommandLauncher implements Consumer<Event<Sca
                             }
                         }
                     }
-                    commandService.resolveAndLaunchCommand(commandId, runtimeValues, scanArchiveEventToLaunchCommands.getUser());
+                    final Command command = commandService.get(commandId);
+                    if (command.getBatchPolicy() != null) {
+                        // Many scans arrive together. Process them in one container rather than starting one per scan.
+                        final ResolvedCommand resolvedCommand = commandService.resolveCommand(command, runtimeValues, scanArchiveEventToLaunchCommands.getUser());
+                        commandBatcher.add(resolvedCommand, command.getBatchPolicy(), scanArchiveEventToLaunchCommands.getUser());
+                    } else {
+                        commandService.resolveAndLaunchCommand(commandId, runtimeValues, scanArchiveEventToLaunchCommands.getUser());
+                    }
                 } catch (NotFoundException | CommandResolutionException | NoServerPrefException | DockerServerException e) {
                     log.error("Error launching command " + commandId, e);
                 }
@@ -0,0 +1,31 @@
+package org.nrg.containers.events;
+
+import org.nrg.containers.services.WorkflowService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.bus.Event;
+import reactor.bus.EventBus;
+import reactor.fn.Consumer;
+
+import static reactor.bus.selector.Selectors.type;
+
+@Component
+public class WorkflowStepListener implements Consumer<Event<ContainerFinalizedEvent>> {
+    private WorkflowService workflowService;
+
+    @Autowired
+    public WorkflowStepListener(final EventBus eventBus) {
+        eventBus.on(type(ContainerFinalizedEvent.class), this);
+    }
+
+    @Override
+    public void accept(final Event<ContainerFinalizedEvent> containerFinalizedEventEvent) {
+        final ContainerFinalizedEvent event = containerFinalizedEventEvent.getData();
+        workflowService.processFinalizedEvent(event);
+    }
+
+    @Autowired
+    public void setWorkflowService(final WorkflowService workflowService) {
+        this.workflowService = workflowService;
+    }
+}
@@ -0,0 +1,141 @@
+package org.nrg.containers.helpers;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.exceptions.ContainerException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads an assessor XML document once, as a stream of events, before XNAT parses it into an item. The scan holds
+ * one element at a time, so it takes the same memory for any document. It rejects documents that are not well
+ * formed or that declare a DTD, and reads the session and project the assessor is placed in, without building a tree.
+ */
+public class AssessorXmlScanner {
+    private static final String IMAGE_SESSION_ID = "imageSession_ID";
+
+    private String rootElement;
+    private String project;
+    private String imageSessionId;
+    private long elements;
+
+    private AssessorXmlScanner() {}
+
+    /**
+     * @param xml An assessor XML document
+     * @return What the document says about the assessor
+     * @throws ContainerException If the document cannot be read, is not well formed, or declares a DTD
+     */
+    public static AssessorXmlScanner scan(final File xml) throws ContainerException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+
+        final AssessorXmlScanner scanned = new AssessorXmlScanner();
+        try (final InputStream in = new BufferedInputStream(new FileInputStream(xml))) {
+            final XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                int depth = 0;
+                while (reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.DTD:
+                            throw new ContainerException(String.format("Assessor XML %s declares a DTD, which is not allowed.", xml.getName()));
+                        case XMLStreamConstants.START_ELEMENT:
+                            scanned.elements++;
+                            if (depth == 0) {
+                                scanned.readRoot(reader);
+                            } else if (depth == 1 && IMAGE_SESSION_ID.equals(reader.getLocalName())) {
+                                // Reads through the end of the element, which stays at this depth
+                                scanned.imageSessionId = StringUtils.trimToNull(reader.getElementText());
+                                continue;
+                            }
+                            depth++;
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            depth--;
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new ContainerException(String.format("Assessor XML %s is not well formed.", xml.getName()), e);
+        } catch (IOException e) {
+            throw new ContainerException(String.format("Cannot read assessor XML %s.", xml.getName()), e);
+        }
+
+        if (scanned.rootElement == null) {
+            throw new ContainerException(String.format("Assessor XML %s has no root element.", xml.getName()));
+        }
+        return scanned;
+    }
+
+    private void readRoot(final XMLStreamReader reader) {
+        rootElement = StringUtils.isBlank(reader.getPrefix()) ? reader.getLocalName() : reader.getPrefix() + ":" + reader.getLocalName();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String namespace = reader.getAttributeNamespace(i);
+            if (StringUtils.isNotBlank(namespace) && !XMLConstants.NULL_NS_URI.equals(namespace)) {
+                continue;
+            }
+            final String name = reader.getAttributeLocalName(i);
+            if ("project".equals(name)) {
+                project = StringUtils.trimToNull(reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    /**
+     * The root element's name, as written, e.g. "fs:Freesurfer"
+     */
+    public String getRootElement() {
+        return rootElement;
+    }
+
+    /**
+     * Project the document says the assessor belongs to, or null if it does not say
+     */
+    public String getProject() {
+        return project;
+    }
+
+    /**
+     * ID of the session the document says the assessor belongs to, or null if it does not say
+     */
+    public String getImageSessionId() {
+        return imageSessionId;
+    }
+
+    /**
+     * Check that the document places the assessor under the given session. A document that does not name a
+     * session or project is placed wherever it is uploaded.
+     *
+     * @param sessionId ID of the session the assessor is uploaded to
+     * @param sessionProject The session's project, or null if it is not known
+     * @throws ContainerException If the document names another session or project
+     */
+    public void checkParent(final String sessionId, final String sessionProject) throws ContainerException {
+        if (imageSessionId != null && !imageSessionId.equals(sessionId)) {
+            throw new ContainerException(String.format("The XML names session %s, but the parent is session %s.", imageSessionId, sessionId));
+        }
+        if (project != null && sessionProject != null && !project.equals(sessionProject)) {
+            throw new ContainerException(String.format("The XML names project %s, but the parent session is in project %s.", project, sessionProject));
+        }
+    }
+
+    /**
+     * How many elements the document has, including the root
+     */
+    public long getElements() {
+        return elements;
+    }
+}
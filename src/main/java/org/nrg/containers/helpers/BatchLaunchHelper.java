@@ -0,0 +1,183 @@
+package org.nrg.containers.helpers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.exceptions.ContainerException;
+import org.nrg.containers.model.ContainerExecutionMount;
+import org.nrg.containers.model.ResolvedCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs several resolved commands into one container.
+ *
+ * <p>Every item's mounts are bound under {@code /batch-items/<index>}. A generated script, in a writable
+ * directory mounted at {@code /batch}, runs the items one after another. Before each item runs, the script
+ * links the item's directories to the paths its command line expects. The script records each item's exit
+ * code in {@code /batch/exit-codes/<index>}. {@code /batch/manifest.json} lists the items, so images that
+ * know about batches can process them in their own way.</p>
+ */
+public class BatchLaunchHelper {
+    private static final Logger log = LoggerFactory.getLogger(BatchLaunchHelper.class);
+
+    public static final String BATCH_MOUNT_NAME = "batch";
+    public static final String BATCH_PATH = "/batch";
+    public static final String ITEMS_PATH = "/batch-items";
+    public static final String MANIFEST_FILE = "manifest.json";
+    public static final String SCRIPT_FILE = "run.sh";
+    public static final String EXIT_CODES_DIR = "exit-codes";
+
+    private BatchLaunchHelper() {}
+
+    /**
+     * Build the command for the container that will process a batch.
+     *
+     * @param items Resolved commands, all for the same Command, whose mounts have already been transported
+     * @param batchDirectory A writable directory for the manifest and script
+     * @return A resolved command that processes every item
+     */
+    public static ResolvedCommand packBatch(final List<ResolvedCommand> items,
+                                            final Path batchDirectory,
+                                            final ObjectMapper mapper) throws ContainerException {
+        if (items == null || items.isEmpty()) {
+            throw new ContainerException("Cannot launch an empty batch.");
+        }
+        final ResolvedCommand first = items.get(0);
+
+        final ResolvedCommand batch = new ResolvedCommand();
+        batch.setCommandId(first.getCommandId());
+        batch.setDockerImage(first.getDockerImage());
+        batch.setMemoryLimit(first.getMemoryLimit());
+        batch.setEnvironmentVariables(first.getEnvironmentVariables());
+        batch.addEnvironmentVariables(batchEnvironment());
+        batch.setCommandLine("/bin/sh " + BATCH_PATH + "/" + SCRIPT_FILE);
+        batch.setInputValues(Maps.<String, String>newHashMap());
+        batch.setOutputs(null);
+
+        final List<ContainerExecutionMount> mountsIn = Lists.newArrayList();
+        final List<ContainerExecutionMount> mountsOut = Lists.newArrayList();
+        final List<Map<String, Object>> manifest = Lists.newArrayList();
+        final StringBuilder script = new StringBuilder();
+        script.append("#!/bin/sh\n");
+        script.append("# Runs each item of a batch in turn. Generated by the XNAT container service.\n");
+        script.append("mkdir -p ").append(BATCH_PATH).append("/").append(EXIT_CODES_DIR).append("\n");
+        script.append("failed=0\n");
+
+        for (int index = 0; index < items.size(); index++) {
+            final ResolvedCommand item = items.get(index);
+            final Map<String, String> itemMounts = Maps.newHashMap();
+            final List<ContainerExecutionMount> itemMountList = Lists.newArrayList();
+            if (item.getMountsIn() != null) {
+                itemMountList.addAll(item.getMountsIn());
+            }
+            if (item.getMountsOut() != null) {
+                itemMountList.addAll(item.getMountsOut());
+            }
+
+            script.append("\n# Item ").append(index).append("\n");
+            for (final ContainerExecutionMount mount : itemMountList) {
+                final String itemPath = itemPath(index, mount.getRemotePath());
+                final ContainerExecutionMount batchMount = new ContainerExecutionMount(mount);
+                batchMount.setName(mount.getName() + "-" + index);
+                batchMount.setRemotePath(itemPath);
+                (mount.isInput() ? mountsIn : mountsOut).add(batchMount);
+                itemMounts.put(mount.getName(), itemPath);
+
+                final String remotePath = quote(mount.getRemotePath());
+                script.append("mkdir -p \"$(dirname ").append(remotePath).append(")\" && rm -rf ").append(remotePath)
+                        .append(" && ln -s ").append(quote(itemPath)).append(" ").append(remotePath).append("\n");
+            }
+
+            script.append("(\n");
+            if (item.getEnvironmentVariables() != null) {
+                for (final Map.Entry<String, String> env : item.getEnvironmentVariables().entrySet()) {
+                    script.append("export ").append(env.getKey()).append("=").append(quote(env.getValue())).append("\n");
+                }
+            }
+            script.append(item.getCommandLine()).append("\n");
+            script.append(")\n");
+            script.append("code=$?\n");
+            script.append("echo $code > ").append(BATCH_PATH).append("/").append(EXIT_CODES_DIR).append("/").append(index).append("\n");
+            script.append("[ $code -eq 0 ] || failed=1\n");
+
+            final Map<String, Object> manifestEntry = Maps.newLinkedHashMap();
+            manifestEntry.put("index", index);
+            manifestEntry.put("command-line", item.getCommandLine());
+            manifestEntry.put("mounts", itemMounts);
+            manifestEntry.put("input-values", item.getInputValues());
+            manifest.add(manifestEntry);
+        }
+        script.append("\nexit $failed\n");
+
+        final ContainerExecutionMount batchDirectoryMount = new ContainerExecutionMount();
+        batchDirectoryMount.setName(BATCH_MOUNT_NAME);
+        batchDirectoryMount.setIsInput(false);
+        batchDirectoryMount.setHostPath(batchDirectory.toString());
+        batchDirectoryMount.setRemotePath(BATCH_PATH);
+        mountsOut.add(batchDirectoryMount);
+
+        batch.setMountsIn(mountsIn);
+        batch.setMountsOut(mountsOut);
+
+        try {
+            Files.createDirectories(batchDirectory);
+            mapper.writeValue(batchDirectory.resolve(MANIFEST_FILE).toFile(), manifest);
+            Files.write(batchDirectory.resolve(SCRIPT_FILE), script.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ContainerException("Could not write batch manifest to " + batchDirectory, e);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Packed %d items into a batch. Manifest and script are in %s.", items.size(), batchDirectory));
+        }
+        return batch;
+    }
+
+    /**
+     * Read the exit code the batch script recorded for one item.
+     *
+     * @param batchDirectory The host path of the batch's {@code /batch} mount
+     * @param index The item's position in the batch
+     * @return The item's exit code, or null if the item never finished
+     */
+    public static String readExitCode(final String batchDirectory, final int index) {
+        if (StringUtils.isBlank(batchDirectory)) {
+            return null;
+        }
+        final File exitCodeFile = Paths.get(batchDirectory, EXIT_CODES_DIR, String.valueOf(index)).toFile();
+        if (!exitCodeFile.isFile()) {
+            return null;
+        }
+        try {
+            return StringUtils.trimToNull(new String(Files.readAllBytes(exitCodeFile.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.error("Could not read batch item exit code from " + exitCodeFile, e);
+            return null;
+        }
+    }
+
+    private static Map<String, String> batchEnvironment() {
+        final Map<String, String> env = Maps.newHashMap();
+        env.put("XNAT_BATCH_MANIFEST", BATCH_PATH + "/" + MANIFEST_FILE);
+        return env;
+    }
+
+    private static String itemPath(final int index, final String remotePath) {
+        return ITEMS_PATH + "/" + index + (remotePath.startsWith("/") ? "" : "/") + remotePath;
+    }
+
+    private static String quote(final String value) {
+        return "'" + (value == null ? "" : value.replace("'", "'\\''")) + "'";
+    }
+}
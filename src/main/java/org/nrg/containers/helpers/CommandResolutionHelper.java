@@ -263,6 +263,9 @@ public class CommandResolutionHelper {
                         }
 
                         if (matches != null) {
+                            if (matches.getXnatImagesessiondata() != null && resolvedCommand.getProject() == null) {
+                                resolvedCommand.setProject(matches.getXnatImagesessiondata().getProject());
+                            }
                             try {
                                 resolvedValue = mapper.writeValueAsString(matches);
                             } catch (JsonProcessingException e) {
@@ -367,6 +370,10 @@ public class CommandResolutionHelper {
                         if (childStringList != null && !childStringList.isEmpty()) {
                             log.debug("Selecting first matching result from list.");
                             final Resource first = childStringList.get(0);
+                            if (hasFileChild(input)) {
+                                // A resource's files are only serialized once read. Only this resource's catalog is read.
+                                first.getFiles();
+                            }
                             try {
                                 resolvedValue = mapper.writeValueAsString(first);
                             } catch (JsonProcessingException e) {
@@ -430,6 +437,15 @@ public class CommandResolutionHelper {
         return commandJson;
     }
 
+    private boolean hasFileChild(final CommandInput input) {
+        for (final CommandInput other : command.getInputs()) {
+            if (other.getType() == CommandInput.Type.FILE && input.getName().equals(other.getParent())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private <T extends XnatModelObject> List<T> matchChildFromParent(final String parentValue, final String value, final String childKey, final String valueMatchProperty, final String matcherFromInput, final TypeRef<List<T>> typeRef) {
         final String matcherFromValue = StringUtils.isNotBlank(value) ?
                 String.format("@.%s == '%s'", valueMatchProperty, value) :
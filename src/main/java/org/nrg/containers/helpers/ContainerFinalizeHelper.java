@@ -15,36 +15,71 @@ import org.nrg.containers.model.CommandOutputFiles;
 import org.nrg.containers.model.ContainerExecution;
 import org.nrg.containers.model.ContainerExecutionMount;
 import org.nrg.containers.model.ContainerExecutionOutput;
+import org.nrg.containers.model.FileChecksum;
+import org.nrg.containers.model.OutputType;
+import org.nrg.containers.model.xnat.Session;
 import org.nrg.containers.model.xnat.XnatModelObject;
+import org.nrg.containers.services.OutputChecksumService;
+import org.nrg.containers.services.OutputStoreService;
 import org.nrg.transporter.TransportService;
+import org.nrg.xdat.base.BaseElement;
+import org.nrg.xdat.bean.CatCatalogBean;
+import org.nrg.xdat.bean.CatEntryBean;
+import org.nrg.xdat.model.XnatImagesessiondataI;
+import org.nrg.xdat.om.XnatExperimentdata;
+import org.nrg.xdat.om.XnatImageassessordata;
+import org.nrg.xdat.om.XnatResourcecatalog;
 import org.nrg.xdat.preferences.SiteConfigPreferences;
 import org.nrg.xdat.security.services.PermissionsServiceI;
+import org.nrg.xft.XFTItem;
+import org.nrg.xft.event.EventUtils;
+import org.nrg.xft.schema.Wrappers.XMLWrapper.SAXReader;
 import org.nrg.xft.security.UserI;
 import org.nrg.xft.utils.FileUtils;
+import org.nrg.xft.utils.SaveItemHelper;
 import org.nrg.xnat.restlet.util.XNATRestConstants;
 import org.nrg.xnat.services.archive.CatalogService;
+import org.nrg.xnat.utils.CatalogUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 public class ContainerFinalizeHelper {
     private static final Logger log = LoggerFactory.getLogger(ContainerFinalizeHelper.class);
 
+    public static final String INGEST_COPY = "copy";
+    public static final String INGEST_MOVE = "move";
+    public static final String INGEST_LINK = "link";
+    public static final String MANIFEST = "container-manifest.json";
+    // XNAT reads an assessor's whole document into memory, so one whose command sets no max-bytes is held to this
+    public static final long DEFAULT_ASSESSOR_MAX_BYTES = 50L * 1024 * 1024;
+
     private ContainerControlApi containerControlApi;
     private SiteConfigPreferences siteConfigPreferences;
     private TransportService transportService;
     private PermissionsServiceI permissionsService;
     private CatalogService catalogService;
+    private OutputChecksumService checksumService;
+    private OutputStoreService outputStore;
     private ObjectMapper mapper;
+    private String ingestMode;
 
     private ContainerExecution containerExecution;
     private UserI userI;
@@ -52,6 +87,18 @@ public class ContainerFinalizeHelper {
     private Map<String, ContainerExecutionMount> untransportedMounts;
     private Map<String, ContainerExecutionMount> transportedMounts;
     private Map<String, String> inputUriCache;
+    private Map<String, List<ContainerExecutionOutput>> pendingCatalogRefreshes;
+    // Outputs not yet uploaded that read each mount, so files are moved out of a mount only by its last output
+    private Map<String, Integer> pendingOutputsByMount;
+    private boolean mountShared;
+    private List<Path> linkedSources;
+    private long uploadedBytes;
+    private long linkedBytes;
+    private long deduplicatedBytes;
+    private long avoidedWriteBytes;
+    private boolean uploadFailed;
+    private Map<String, FileChecksum> copiedChecksums;
+    private FileChecksummer copier;
 
     private ContainerFinalizeHelper(final ContainerExecution containerExecution,
                                     final UserI userI,
@@ -60,13 +107,19 @@ public class ContainerFinalizeHelper {
                                     final TransportService transportService,
                                     final PermissionsServiceI permissionsService,
                                     final CatalogService catalogService,
-                                    final ObjectMapper mapper) {
+                                    final OutputChecksumService checksumService,
+                                    final OutputStoreService outputStore,
+                                    final ObjectMapper mapper,
+                                    final String ingestMode) {
         this.containerControlApi = containerControlApi;
         this.siteConfigPreferences = siteConfigPreferences;
         this.transportService = transportService;
         this.permissionsService = permissionsService;
         this.catalogService = catalogService;
+        this.checksumService = checksumService;
+        this.outputStore = outputStore;
         this.mapper = mapper;
+        this.ingestMode = StringUtils.defaultIfBlank(ingestMode, INGEST_COPY);
 
         this.containerExecution = containerExecution;
         this.userI = userI;
@@ -74,23 +127,40 @@ public class ContainerFinalizeHelper {
         untransportedMounts = Maps.newHashMap();
         transportedMounts = Maps.newHashMap();
         inputUriCache = Maps.newHashMap();
+        pendingCatalogRefreshes = Maps.newLinkedHashMap();
+        pendingOutputsByMount = Maps.newHashMap();
+        linkedSources = Lists.newArrayList();
     }
 
-    public static void finalizeContainer(final ContainerExecution containerExecution,
+    /**
+     * Upload the execution's logs and outputs.
+     *
+     * @param ingestMode How resource files get into the archive: {@link #INGEST_COPY}, {@link #INGEST_MOVE},
+     *                   or {@link #INGEST_LINK}. Blank for {@link #INGEST_COPY}.
+     * @return False if files for any output could not be uploaded, so its output mounts should be kept
+     */
+    public static boolean finalizeContainer(final ContainerExecution containerExecution,
                                          final UserI userI,
                                          final ContainerControlApi containerControlApi,
                                          final SiteConfigPreferences siteConfigPreferences,
                                          final TransportService transportService,
                                          final PermissionsServiceI permissionsService,
                                          final CatalogService catalogService,
-                                         final ObjectMapper mapper) {
+                                         final OutputChecksumService checksumService,
+                                         final OutputStoreService outputStore,
+                                         final ObjectMapper mapper,
+                                         final String ingestMode) {
         final ContainerFinalizeHelper helper =
-                new ContainerFinalizeHelper(containerExecution, userI, containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, mapper);
+                new ContainerFinalizeHelper(containerExecution, userI, containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, checksumService, outputStore, mapper, ingestMode);
         helper.finalizeContainer();
+        return !helper.uploadFailed;
     }
 
     private void finalizeContainer() {
-        uploadLogs();
+        // Items of a batch have no container of their own. The batch's logs are uploaded when the batch is finalized.
+        if (StringUtils.isNotBlank(containerExecution.getContainerId())) {
+            uploadLogs();
+        }
 
         if (containerExecution.getOutputs() != null) {
             if (containerExecution.getMountsOut() != null) {
@@ -101,6 +171,10 @@ public class ContainerFinalizeHelper {
 
             uploadOutputs();
         }
+        containerExecution.setUploadedBytes(uploadedBytes);
+        containerExecution.setLinkedBytes(linkedBytes);
+        containerExecution.setDeduplicatedBytes(deduplicatedBytes);
+        containerExecution.setAvoidedWriteBytes(avoidedWriteBytes);
     }
 
     private void uploadLogs() {
@@ -144,14 +218,22 @@ public class ContainerFinalizeHelper {
     private void uploadOutputs() {
         log.info("Uploading command outputs.");
 
+        for (final ContainerExecutionOutput output : containerExecution.getOutputs()) {
+            final Integer pending = pendingOutputsByMount.get(output.getMount());
+            pendingOutputsByMount.put(output.getMount(), pending == null ? 1 : pending + 1);
+        }
 
         for (final ContainerExecutionOutput output: containerExecution.getOutputs()) {
             try {
                 uploadOutput(output);
             } catch (ContainerException | RuntimeException e) {
+                // Keeps the output mounts, so the files can still be uploaded by hand
+                uploadFailed = true;
                 log.error("Cannot upload files for command output " + output.getName(), e);
             }
         }
+        refreshCatalogs();
+        removeLinkedSources();
 
         log.info("Done uploading command outputs.");
     }
@@ -166,6 +248,10 @@ public class ContainerFinalizeHelper {
 
         final String mountName = output.getMount();
         final String relativeFilePath = output.getPath() != null ? output.getPath() : "";
+        final int pending = pendingOutputsByMount.get(mountName) - 1;
+        pendingOutputsByMount.put(mountName, pending);
+        // Another output may read the same files, so they are linked rather than moved
+        mountShared = pending > 0;
         final ContainerExecutionMount mount = getMount(mountName);
         if (mount == null) {
             throw new ContainerException(String.format("Mount \"%s\" does not exist.", mountName));
@@ -179,7 +265,69 @@ public class ContainerFinalizeHelper {
             throw new ContainerException(String.format("Cannot upload output \"%s\". Mount \"%s\" has blank hostPath.", output.getName(), mount.getName()));
         }
 
-        final List<File> toUpload;
+        final Long maxBytes = output.getMaxBytes() == null && output.getType() == OutputType.ASSESSOR ? DEFAULT_ASSESSOR_MAX_BYTES : output.getMaxBytes();
+        final OutputScanner scanner = new OutputScanner(output.getInclude(), output.getExclude(), output.getMaxFiles(), maxBytes);
+        Path staged = null;
+        try {
+            final List<File> toUpload;
+            if (scanner.isFiltered()) {
+                // Only some files are uploaded. Link them, as they are found, into a tree of their own under the mount.
+                final File source = getOutputSource(output, mount, relativeFilePath);
+                try {
+                    staged = Files.createTempDirectory(Paths.get(mount.getHostPath()), OutputScanner.STAGING_PREFIX);
+                } catch (IOException e) {
+                    throw new ContainerException(String.format("Cannot stage files for output \"%s\".", output.getName()), e);
+                }
+                scan(output, scanner, source, new StagingVisitor(staged));
+                if (scanner.getFiles() == 0) {
+                    throw new ContainerException(String.format("Nothing to upload for output \"%s\". No files match.", output.getName()));
+                }
+                toUpload = Arrays.asList(staged.toFile().listFiles());
+            } else {
+                if (!scanner.isUnrestricted()) {
+                    scan(output, scanner, getOutputSource(output, mount, relativeFilePath), null);
+                }
+                toUpload = listOutputFiles(output, mount, relativeFilePath);
+            }
+
+            uploadOutput(output, mount, toUpload);
+        } finally {
+            if (staged != null) {
+                org.apache.commons.io.FileUtils.deleteQuietly(staged.toFile());
+            }
+        }
+    }
+
+    private void scan(final ContainerExecutionOutput output,
+                      final OutputScanner scanner,
+                      final File source,
+                      final OutputScanner.Visitor visitor) throws ContainerException {
+        try {
+            scanner.scan(source.toPath(), visitor);
+        } catch (IOException e) {
+            throw new ContainerException(String.format("Cannot read files for output \"%s\".", output.getName()), e);
+        } catch (ContainerException e) {
+            throw new ContainerException(String.format("Cannot upload output \"%s\". %s", output.getName(), e.getMessage()));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Output \"%s\" has %d matching files holding %d bytes.", output.getName(), scanner.getFiles(), scanner.getBytes()));
+        }
+    }
+
+    private File getOutputSource(final ContainerExecutionOutput output,
+                                 final ContainerExecutionMount mount,
+                                 final String relativeFilePath) throws ContainerException {
+        final File source = StringUtils.isBlank(relativeFilePath) ? new File(mount.getHostPath()) :
+                new File(FilenameUtils.concat(mount.getHostPath(), relativeFilePath));
+        if (!source.exists()) {
+            throw new ContainerException(String.format("Nothing to upload for output \"%s\". %s does not exist.", output.getName(), source));
+        }
+        return source;
+    }
+
+    private List<File> listOutputFiles(final ContainerExecutionOutput output,
+                                       final ContainerExecutionMount mount,
+                                       final String relativeFilePath) throws ContainerException {
         if (StringUtils.isBlank(relativeFilePath)) {
             // This is fine. It just means upload everything in the build directory.
             final File buildDir = new File(mount.getHostPath());
@@ -187,7 +335,7 @@ public class ContainerFinalizeHelper {
             if (buildDirContents == null || buildDirContents.length == 0) {
                 throw new ContainerException(String.format("Nothing to upload for output \"%s\". Mount \"%s\" hostPath has no files.", output.getName(), mount.getName()));
             }
-            toUpload = Arrays.asList(buildDirContents);
+            return Arrays.asList(buildDirContents);
         } else {
             final String filePath = FilenameUtils.concat(mount.getHostPath(), relativeFilePath);
             if (StringUtils.isBlank(filePath)) {
@@ -195,9 +343,14 @@ public class ContainerFinalizeHelper {
                 throw new ContainerException(String.format("Cannot upload output \"%s\". Mount \"%s\" hostPath + output path is blank.", output.getName(), mount.getName()));
             }
 
-            toUpload = Lists.newArrayList(new File(filePath));
+            return Lists.<File>newArrayList(new File(filePath));
         }
+    }
 
+    private void uploadOutput(final ContainerExecutionOutput output,
+                              final ContainerExecutionMount mount,
+                              final List<File> toUpload) throws ContainerException {
+        final String mountName = mount.getName();
         final String label = StringUtils.isNotBlank(output.getLabel()) ? output.getLabel() :
                 StringUtils.isNotBlank(mount.getResource()) ? mount.getResource() :
                         mountName;
@@ -214,57 +367,371 @@ public class ContainerFinalizeHelper {
                     log.debug(String.format(template, userI.getLogin(), parentInputUri, label, toUpload));
                 }
                 try {
-                    catalogService.insertResources(userI, "/archive" + parentInputUri, toUpload, label, null, null, null);
+                    final XnatResourcecatalog resourcecatalog = ingestResources(output, parentInputUri, toUpload, label);
+                    output.setCreated(parentInputUri + "/resources/" + resourcecatalog.getXnatAbstractresourceId());
+                    if (!pendingCatalogRefreshes.containsKey(parentInputUri)) {
+                        pendingCatalogRefreshes.put(parentInputUri, Lists.<ContainerExecutionOutput>newArrayList());
+                    }
+                    pendingCatalogRefreshes.get(parentInputUri).add(output);
                 } catch (Exception e) {
+                    uploadFailed = true;
                     throw new ContainerException("Could not upload files to resource.", e);
                 }
                 break;
             case ASSESSOR:
-                /* TODO Waiting on XNAT-4556
-                final CommandMount mount = getMount(output.getFiles().getMount());
-                final String absoluteFilePath = FilenameUtils.concat(mount.getHostPath(), output.getFiles().getPath());
-                final SAXReader reader = new SAXReader(userI);
-                XFTItem item = null;
+                if (toUpload.size() != 1 || !toUpload.get(0).isFile()) {
+                    throw new ContainerException(String.format("Cannot upload output \"%s\". An assessor output must be one XML file.", output.getName()));
+                }
+                final XnatImageassessordata assessor = insertAssessor(output, toUpload.get(0));
+                output.setCreated(parentInputUri + "/assessors/" + assessor.getId());
+                uploadedBytes += toUpload.get(0).length();
+                break;
+        }
+    }
+
+    /**
+     * Create an assessor from an XML document. The document is first read as a stream, which rejects malformed
+     * documents and DTDs and checks that its session and project are the output's parent's, so that only a document
+     * that can be saved is read into an item by XNAT. The item is saved with its child rows in one save.
+     */
+    private XnatImageassessordata insertAssessor(final ContainerExecutionOutput output, final File xml) throws ContainerException {
+        final AssessorXmlScanner scanned = AssessorXmlScanner.scan(xml);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Assessor XML %s has root %s and %d elements.", xml, scanned.getRootElement(), scanned.getElements()));
+        }
+
+        final XnatModelObject parent = getInput(output.getParentInputName());
+        if (!(parent instanceof Session)) {
+            throw new ContainerException(String.format("Cannot upload output \"%s\". Assessors must be created under a session.", output.getName()));
+        }
+        final String parentProject = getProject((Session) parent);
+        try {
+            scanned.checkParent(parent.getId(), parentProject);
+        } catch (ContainerException e) {
+            throw new ContainerException(String.format("Cannot upload output \"%s\". %s", output.getName(), e.getMessage()));
+        }
+
+        try {
+            final SAXReader reader = new SAXReader(userI);
+            final XFTItem item = reader.parse(xml);
+            if (!reader.assertValid()) {
+                throw new ContainerException(String.format("Assessor XML for output \"%s\" is invalid: %s", output.getName(), reader.getErrors().get(0)));
+            }
+            if (item == null || !item.instanceOf("xnat:imageAssessorData")) {
+                throw new ContainerException(String.format("Assessor XML for output \"%s\" does not describe an image assessor. Its root is %s.", output.getName(), scanned.getRootElement()));
+            }
+
+            final XnatImageassessordata assessor = (XnatImageassessordata) BaseElement.GetGeneratedItem(item);
+            if (StringUtils.isBlank(assessor.getImagesessionId())) {
+                assessor.setImagesessionId(parent.getId());
+            }
+            if (StringUtils.isBlank(assessor.getProject())) {
+                assessor.setProject(parentProject != null ? parentProject : containerExecution.getProject());
+            }
+            if (StringUtils.isBlank(assessor.getId())) {
+                assessor.setId(XnatExperimentdata.CreateNewID());
+            }
+            if (StringUtils.isBlank(assessor.getLabel())) {
+                assessor.setLabel(assessor.getId());
+            }
+            if (!permissionsService.canCreate(userI, assessor)) {
+                throw new ContainerException(String.format("User \"%s\" has insufficient privileges for assessors in project \"%s\".", userI.getLogin(), assessor.getProject()));
+            }
+
+            SaveItemHelper.authorizedSave(assessor, userI, false, false,
+                    EventUtils.DEFAULT_EVENT(userI, "Created by container execution " + containerExecution.getId()));
+            return assessor;
+        } catch (ContainerException e) {
+            throw e;
+        } catch (Exception e) {
+            uploadFailed = true;
+            throw new ContainerException(String.format("Could not create assessor for output \"%s\".", output.getName()), e);
+        }
+    }
+
+    // The project of the session, loading the session if the input does not hold it. Null if it cannot be loaded.
+    private String getProject(final Session session) {
+        final XnatImagesessiondataI sessiondata = session.getXnatImagesessiondata() != null ?
+                session.getXnatImagesessiondata() : session.loadXnatImagesessiondata(userI);
+        return sessiondata == null ? null : StringUtils.trimToNull(sessiondata.getProject());
+    }
+
+    /**
+     * Create an empty resource and put the files into its directory in the archive. Files are copied, or, by the
+     * ingest mode, moved or hard-linked, so they are not read or written. A file on another filesystem than the
+     * archive is copied instead. The resource's catalog gets entries for its files, and its manifest, when the
+     * catalogs of all the resources on its parent are refreshed together in {@link #refreshCatalogs()}.
+     */
+    private XnatResourcecatalog ingestResources(final ContainerExecutionOutput output,
+                                                final String parentInputUri,
+                                                final List<File> toIngest,
+                                                final String label) throws Exception {
+        final String archiveParentUri = "/archive" + parentInputUri;
+        final XnatResourcecatalog resourcecatalog = catalogService.insertResourceCatalog(userI, archiveParentUri,
+                catalogService.createResourceCatalog(userI, label, null, null));
+        if (resourcecatalog == null || resourcecatalog.getXnatAbstractresourceId() == null || StringUtils.isBlank(resourcecatalog.getUri())) {
+            throw new ContainerException(String.format("Could not create resource \"%s\" on %s.", label, parentInputUri));
+        }
+
+        final Path resourceDir = Paths.get(resourcecatalog.getUri()).getParent();
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Ingesting %s into %s by %s.", toIngest, resourceDir, ingestMode));
+        }
+        copiedChecksums = Maps.newHashMap();
+        final List<File> ingested = Lists.newArrayList();
+        for (final File file : toIngest) {
+            ingest(file.toPath(), resourceDir.resolve(file.getName()), resourceDir);
+            ingested.add(resourceDir.resolve(file.getName()).toFile());
+        }
+        final List<FileChecksum> checksums = writeManifest(output, ingested, resourceDir.resolve(MANIFEST));
+        addCatalogEntries(output, Paths.get(resourcecatalog.getUri()), checksums);
+        deduplicatedBytes += outputStore.deduplicate(resourceDir, checksums);
+        return resourcecatalog;
+    }
+
+    /**
+     * Add an entry, with its MD5 digest, to the resource's catalog for each file that was checksummed, so XNAT
+     * does not have to read the files again to checksum them. The catalog refresh then adds entries only for files
+     * not listed here, such as the manifest. If the catalog cannot be written, the refresh adds every file,
+     * without digests.
+     */
+    private void addCatalogEntries(final ContainerExecutionOutput output, final Path catalogFile, final List<FileChecksum> checksums) {
+        if (checksums == null || checksums.isEmpty()) {
+            return;
+        }
+        try {
+            final CatCatalogBean catalog = CatalogUtils.getCatalog(catalogFile.toFile());
+            for (final FileChecksum checksum : checksums) {
+                final CatEntryBean entry = new CatEntryBean();
+                entry.setUri(checksum.getPath());
+                entry.setId(checksum.getPath());
+                entry.setName(FilenameUtils.getName(checksum.getPath()));
+                entry.setDigest(checksum.getMd5());
+                catalog.addEntries_entry(entry);
+            }
+            CatalogUtils.writeCatalogToFile(catalog, catalogFile.toFile());
+        } catch (Exception e) {
+            log.warn(String.format("Could not add digests for output \"%s\" to catalog %s. Its files will be cataloged without them.",
+                    output.getName(), catalogFile), e);
+        }
+    }
+
+    /**
+     * Catalog the files of every new resource, with one refresh for all the resources on each parent, rather than
+     * one per output. If a parent's refresh fails, each of its resources is refreshed on its own.
+     *
+     * <p>A resource that still cannot be refreshed is not recorded as created, and the upload fails. Its files are
+     * already in its directory, and are not taken back out: in move mode they are no longer in the output mount, and
+     * filtered outputs were staged in a directory that is gone. Its URI is logged, so its catalog can be refreshed
+     * by hand.</p>
+     */
+    private void refreshCatalogs() {
+        for (final Map.Entry<String, List<ContainerExecutionOutput>> parent : pendingCatalogRefreshes.entrySet()) {
+            final List<String> resourceUris = Lists.newArrayList();
+            for (final ContainerExecutionOutput output : parent.getValue()) {
+                resourceUris.add("/archive" + output.getCreated());
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Refreshing catalogs of %d resources on %s.", resourceUris.size(), parent.getKey()));
+            }
+            try {
+                catalogService.refreshResourceCatalogs(userI, resourceUris,
+                        CatalogService.Operation.Append, CatalogService.Operation.PopulateStats);
+                continue;
+            } catch (Exception e) {
+                log.error(String.format("Could not refresh catalogs of resources %s on %s. Refreshing them one at a time.", resourceUris, parent.getKey()), e);
+            }
+
+            for (final ContainerExecutionOutput output : parent.getValue()) {
+                final String resourceUri = "/archive" + output.getCreated();
                 try {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Reading XML file at " + absoluteFilePath);
-                    }
-                    item = reader.parse(new File(absoluteFilePath));
+                    catalogService.refreshResourceCatalog(userI, resourceUri,
+                            CatalogService.Operation.Append, CatalogService.Operation.PopulateStats);
+                } catch (Exception e) {
+                    uploadFailed = true;
+                    output.setCreated(null);
+                    log.error(String.format("Could not refresh the catalog of resource %s for output \"%s\". Its files are in the " +
+                            "resource's directory but not in its catalog. Refresh its catalog to repair it.", resourceUri, output.getName()), e);
+                }
+            }
+        }
+        pendingCatalogRefreshes.clear();
+    }
 
-                } catch (IOException e) {
-                    log.error("An error occurred reading the XML", e);
-                } catch (SAXException e) {
-                    log.error("An error occurred parsing the XML", e);
+    private void ingest(final Path source, final Path target, final Path resourceDir) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        final boolean move = INGEST_MOVE.equals(ingestMode);
+        if (move && !mountShared) {
+            final long size = sizeOf(Lists.newArrayList(source.toFile()));
+            try {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                linkedBytes += size;
+                uploadedBytes += size;
+                return;
+            } catch (AtomicMoveNotSupportedException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Cannot move %s to %s. Copying it.", source, target));
                 }
+            }
+        }
 
-                if (!reader.assertValid()) {
-                    throw new ContainerException("XML file invalid", reader.getErrors().get(0));
+        if (attributes.isDirectory()) {
+            Files.createDirectories(target);
+            try (final DirectoryStream<Path> children = Files.newDirectoryStream(source)) {
+                for (final Path child : children) {
+                    ingest(child, target.resolve(child.getFileName().toString()), resourceDir);
                 }
-                if (item == null) {
-                    throw new ContainerException("Could not create assessor from XML");
+            }
+            return;
+        }
+
+        if ((INGEST_LINK.equals(ingestMode) || move) && attributes.isRegularFile()) {
+            try {
+                Files.createLink(target, source);
+                if (move) {
+                    // Unlinked once every output is uploaded, as if it had been moved
+                    linkedSources.add(source);
+                }
+                linkedBytes += attributes.size();
+                uploadedBytes += attributes.size();
+                return;
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Cannot link %s to %s. Copying it.", source, target));
                 }
+            }
+        }
+
+        if (attributes.isRegularFile()) {
+            if (copier == null) {
+                copier = new FileChecksummer();
+            }
+            final String path = resourceDir.relativize(target).toString().replace(File.separatorChar, '/');
+            if (outputStore.isEnabled()) {
+                copyOrLinkToStore(source, target, path, attributes.size());
+                return;
+            }
+            // Checksum the file as it is copied, so the manifest need not read it again
+            copiedChecksums.put(path, copier.copy(source, target, path));
+        } else {
+            Files.copy(source, target, LinkOption.NOFOLLOW_LINKS);
+        }
+        uploadedBytes += attributes.size();
+    }
+
+    // Sources that were linked in place of being moved, because other outputs read them, are removed once those have been uploaded
+    private void removeLinkedSources() {
+        if (uploadFailed) {
+            return;
+        }
+        for (final Path source : linkedSources) {
+            try {
+                Files.deleteIfExists(source);
+            } catch (IOException e) {
+                log.warn(String.format("Could not remove %s, which was uploaded.", source), e);
+            }
+        }
+        linkedSources.clear();
+    }
 
+    /**
+     * Copy a file next to its target, checksumming it in the same read. If the store has the same contents, link
+     * the target to the stored file and drop the copy; otherwise the copy becomes the target. The source is read
+     * once either way.
+     */
+    private void copyOrLinkToStore(final Path source, final Path target, final String path, final long size) throws IOException {
+        final Path copy = target.resolveSibling(OutputScanner.STAGING_PREFIX + UUID.randomUUID());
+        try {
+            final FileChecksum checksum = copier.copy(source, copy, path);
+            copiedChecksums.put(path, checksum);
+            uploadedBytes += size;
+
+            final Path stored = outputStore.find(checksum, copy);
+            if (stored != null) {
                 try {
-                    if (item.instanceOf("xnat:imageAssessorData")) {
-                        final XnatImageassessordata assessor = (XnatImageassessordata) BaseElement.GetGeneratedItem(item);
-                        if(permissionsService.canCreate(userI, assessor)){
-                            throw new ContainerException(String.format("User \"%s\" has insufficient privileges for assessors in project \"%s\".", userI.getLogin(), assessor.getProject()));
-                        }
+                    Files.createLink(target, stored);
+                    avoidedWriteBytes += size;
+                    deduplicatedBytes += size;
+                    return;
+                } catch (UnsupportedOperationException | FileSystemException e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("Cannot link %s to stored file %s. Keeping the copy.", target, stored));
+                    }
+                }
+            }
+            Files.move(copy, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    /**
+     * Checksum an output's files and list them in a manifest. An output whose checksums cannot be computed is
+     * still uploaded, without a manifest.
+     *
+     * @param entries The files and directories of the output, as they are named in the resource
+     * @param manifest Where to write the manifest
+     * @return The checksums in the manifest, or null if it was not written
+     */
+    private List<FileChecksum> writeManifest(final ContainerExecutionOutput output, final List<File> entries, final Path manifest) {
+        for (final File entry : entries) {
+            if (MANIFEST.equals(entry.getName())) {
+                log.warn(String.format("Output \"%s\" has its own %s. Not writing a manifest.", output.getName(), MANIFEST));
+                return null;
+            }
+        }
+        try {
+            final List<FileChecksum> checksums = checksumService.checksum(entries, copiedChecksums);
+            mapper.writerWithDefaultPrettyPrinter().writeValue(manifest.toFile(), checksums);
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Wrote checksums of %d files for output \"%s\" to %s.", checksums.size(), output.getName(), manifest));
+            }
+            return checksums;
+        } catch (IOException e) {
+            log.error(String.format("Could not write a manifest for output \"%s\".", output.getName()), e);
+            return null;
+        }
+    }
 
-                        if(assessor.getLabel()==null){
-                            assessor.setLabel(assessor.getId());
-                        }
+    // Links each matching file into the staging tree at its relative path, or copies it if it cannot be linked
+    private static class StagingVisitor implements OutputScanner.Visitor {
+        private final Path staged;
 
-                        // I hate this
+        StagingVisitor(final Path staged) {
+            this.staged = staged;
+        }
+
+        @Override
+        public void visit(final Path file, final Path relativePath, final BasicFileAttributes attributes) throws IOException {
+            final Path target = staged.resolve(relativePath.toString());
+            Files.createDirectories(target.getParent());
+            if (attributes.isRegularFile()) {
+                try {
+                    Files.createLink(target, file);
+                    return;
+                } catch (UnsupportedOperationException | FileSystemException e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("Cannot link %s to %s. Copying it.", file, target));
                     }
-                } catch (ElementNotFoundException e) {
-                    throw new ContainerException(e);
-                } catch (Exception e) {
-                    e.printStackTrace();
                 }
-                 */
-                break;
+            }
+            Files.copy(file, target, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    private static long sizeOf(final List<File> files) {
+        long size = 0L;
+        for (final File file : files) {
+            if (file.isDirectory()) {
+                final File[] children = file.listFiles();
+                if (children != null) {
+                    size += sizeOf(Arrays.asList(children));
+                }
+            } else {
+                size += file.length();
+            }
         }
+        return size;
     }
 
     private ContainerExecutionMount getMount(final String mountName) throws ContainerException {
@@ -313,14 +780,27 @@ public class ContainerFinalizeHelper {
             return null;
         }
 
+        final XnatModelObject parent = getInput(inputName);
+        final String parentUri = parent == null ? "" : parent.getUri();
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Caching URI for input \"%s\": %s", inputName, parentUri));
+        }
+        inputUriCache.put(inputName, parentUri);
+        return parentUri;
+    }
+
+    private XnatModelObject getInput(final String inputName) {
         final String parentInputValue = containerExecution.getInputValues().get(inputName);
-        String parentUri = "";
+        if (parentInputValue == null) {
+            return null;
+        }
         try {
             final XnatModelObject parent = mapper.readValue(parentInputValue, XnatModelObject.class);
             if (log.isDebugEnabled()) {
                 log.debug(String.format("Deserialized input \"%s\": %s", inputName, parent));
             }
-            parentUri = parent.getUri();
+            return parent;
         } catch (IOException e) {
             if (log.isDebugEnabled()) {
                 // Yes, I know I checked for "debug" and am logging at "error".
@@ -331,11 +811,6 @@ public class ContainerFinalizeHelper {
                 log.error("Could not deserialize Container Execution input value.", e);
             }
         }
-
-        if (log.isDebugEnabled()) {
-            log.debug(String.format("Caching URI for input \"%s\": %s", inputName, parentUri));
-        }
-        inputUriCache.put(inputName, parentUri);
-        return parentUri;
+        return null;
     }
 }
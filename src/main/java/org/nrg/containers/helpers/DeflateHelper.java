@@ -0,0 +1,59 @@
+package org.nrg.containers.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses what the container service stores in its own tables. The fastest deflate level is used,
+ * since the data is mostly repetitive JSON, which compresses well even at that level.
+ */
+public class DeflateHelper {
+
+    public static byte[] deflate(final byte[] bytes) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param data Deflated bytes
+     * @param size Length of the bytes before they were deflated
+     * @return The inflated bytes
+     * @throws IllegalStateException If the data is corrupt, or does not inflate to the expected size
+     */
+    public static byte[] inflate(final byte[] data, final int size) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            final byte[] bytes = new byte[size];
+            int read = 0;
+            while (read < size && !inflater.finished()) {
+                final int n = inflater.inflate(bytes, read, size - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != size) {
+                throw new IllegalStateException(String.format("Stored data is %d bytes, expected %d.", read, size));
+            }
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Stored data is corrupt.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
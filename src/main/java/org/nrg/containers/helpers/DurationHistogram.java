@@ -0,0 +1,86 @@
+package org.nrg.containers.helpers;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts durations in buckets whose bounds grow by {@value #GROWTH} each, so percentiles can be kept up to date
+ * one duration at a time, and read back to within 10%, without keeping every duration.
+ *
+ * <p>The histogram is stored as text: the non-empty buckets as {@code index:count} pairs, separated by commas.</p>
+ */
+public class DurationHistogram {
+    private static final double GROWTH = 1.1;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long total;
+
+    public DurationHistogram() {}
+
+    public static DurationHistogram parse(final String text) {
+        final DurationHistogram histogram = new DurationHistogram();
+        if (StringUtils.isNotBlank(text)) {
+            for (final String pair : text.split(",")) {
+                final String[] bucketAndCount = pair.split(":");
+                if (bucketAndCount.length == 2) {
+                    final long count = Long.parseLong(bucketAndCount[1].trim());
+                    histogram.counts.put(Integer.parseInt(bucketAndCount[0].trim()), count);
+                    histogram.total += count;
+                }
+            }
+        }
+        return histogram;
+    }
+
+    public void add(final long millis) {
+        final int bucket = bucket(millis);
+        final Long count = counts.get(bucket);
+        counts.put(bucket, count == null ? 1L : count + 1L);
+        total++;
+    }
+
+    /**
+     * @param fraction E.g. 0.95 for the 95th percentile
+     * @return The upper bound, in milliseconds, of the bucket that holds the percentile. Null if the histogram is empty.
+     */
+    public Long percentile(final double fraction) {
+        if (total == 0) {
+            return null;
+        }
+        final long rank = (long) Math.ceil(fraction * total);
+        long seen = 0L;
+        for (final Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                return upperBound(bucket.getKey());
+            }
+        }
+        return upperBound(counts.lastKey());
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        final List<String> pairs = Lists.newArrayList();
+        for (final Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+            pairs.add(bucket.getKey() + ":" + bucket.getValue());
+        }
+        return StringUtils.join(pairs, ",");
+    }
+
+    private static int bucket(final long millis) {
+        return millis < 1 ? 0 : 1 + (int) Math.floor(Math.log(millis) / LOG_GROWTH);
+    }
+
+    private static long upperBound(final int bucket) {
+        return bucket == 0 ? 0L : (long) Math.ceil(Math.pow(GROWTH, bucket));
+    }
+}
@@ -0,0 +1,81 @@
+package org.nrg.containers.helpers;
+
+import org.nrg.containers.model.FileChecksum;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+/**
+ * Computes a file's MD5 and CRC32 in one read, either on its own or while copying the file, so a file that has
+ * to be copied is not read a second time to checksum it.
+ */
+public class FileChecksummer {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest md5;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public FileChecksummer() {
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide MD5
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param file The file to read
+     * @param path The file's path in the resource
+     */
+    public FileChecksum checksum(final Path file, final String path) throws IOException {
+        return copy(file, null, path);
+    }
+
+    /**
+     * Copy a file and checksum the bytes copied.
+     *
+     * @param source The file to read
+     * @param target Where to write it, which must not exist. Null to only checksum the source.
+     * @param path The file's path in the resource
+     */
+    public FileChecksum copy(final Path source, final Path target, final String path) throws IOException {
+        md5.reset();
+        crc.reset();
+        long size = 0L;
+        try (final FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             final FileChannel out = target == null ? null : FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            buffer.clear();
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                md5.update(buffer.array(), 0, buffer.limit());
+                crc.update(buffer.array(), 0, buffer.limit());
+                size += buffer.limit();
+                if (out != null) {
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        return new FileChecksum(path, size, hex(md5.digest()), String.format("%08x", crc.getValue()));
+    }
+
+    private static String hex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
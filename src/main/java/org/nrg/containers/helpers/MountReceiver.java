@@ -0,0 +1,235 @@
+package org.nrg.containers.helpers;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Receives a directory sent by {@link MountTransfer}, into a target directory. Each chunk is read off the socket,
+ * written at its place in its file, and checked against the CRC-32 the sender computed from the source; a chunk
+ * that matches is synced and written to a journal in the target directory. The journal outlives the receiver, so
+ * a receiver started again on the same directory tells the sender which chunks it already holds. The journal is
+ * removed once the sender reports that every chunk has arrived.
+ */
+public class MountReceiver implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(MountReceiver.class);
+
+    public static final String JOURNAL = ".mount-transfer";
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path target;
+    private final Path journalPath;
+    private final ServerSocketChannel server;
+    private final ExecutorService executor;
+    // Chunk key to the source size, modification time, length, and checksum it was received with
+    private final Map<String, String> received = new ConcurrentHashMap<>();
+    private FileChannel journal;
+
+    /**
+     * Start receiving.
+     *
+     * @param target Directory to write what is received to. It is created if it does not exist.
+     * @param address Address to listen on. Port 0 for any free port.
+     */
+    public MountReceiver(final Path target, final InetSocketAddress address) throws IOException {
+        this.target = Files.createDirectories(target).toAbsolutePath().normalize();
+        this.journalPath = this.target.resolve(JOURNAL);
+        readJournal();
+
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        executor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("mount-receiver-%d").setDaemon(true).build());
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        });
+    }
+
+    /**
+     * @return The address senders connect to
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        executor.shutdownNow();
+        synchronized (this) {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            final SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.error("Could not accept a connection to receive a mount into " + target, e);
+                return;
+            }
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try (final SocketChannel connection = channel) {
+                        receive(connection);
+                    } catch (IOException e) {
+                        log.error("Could not receive a mount into " + target, e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void receive(final SocketChannel channel) throws IOException {
+        // Not buffered, so the chunk bytes that follow a header are read off the channel itself
+        final DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        while (true) {
+            final byte message = in.readByte();
+            if (message == MountTransfer.CHUNK) {
+                receiveChunk(channel, in, out);
+            } else if (message == MountTransfer.COMPLETE) {
+                complete();
+                out.writeByte(MountTransfer.OK);
+                out.flush();
+                return;
+            } else if (message == MountTransfer.END) {
+                return;
+            } else {
+                throw new IOException("Unknown message " + message);
+            }
+        }
+    }
+
+    private void receiveChunk(final SocketChannel channel, final DataInputStream in, final DataOutputStream out) throws IOException {
+        final String relative = in.readUTF();
+        final long offset = in.readLong();
+        final long length = in.readLong();
+        final long sourceSize = in.readLong();
+        final long sourceModified = in.readLong();
+        final long crc = in.readLong();
+
+        final Path file = resolve(relative);
+        final String key = relative + "\t" + offset;
+        final String entry = sourceSize + "\t" + sourceModified + "\t" + length + "\t" + crc;
+        if (entry.equals(received.get(key)) && Files.exists(file)) {
+            out.writeByte(MountTransfer.SKIP);
+            out.flush();
+            return;
+        }
+        out.writeByte(MountTransfer.SEND);
+        out.flush();
+
+        prepare(file, sourceSize);
+        final CRC32 actual = new CRC32();
+        try (final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            long done = 0L;
+            while (done < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - done));
+                if (channel.read(buffer) < 0) {
+                    throw new IOException(String.format("Connection closed before the end of the chunk at %d of %s.", offset, relative));
+                }
+                buffer.flip();
+                actual.update(buffer.array(), 0, buffer.limit());
+                while (buffer.hasRemaining()) {
+                    done += fileChannel.write(buffer, offset + done);
+                }
+            }
+            if (actual.getValue() != crc) {
+                out.writeByte(MountTransfer.BAD);
+                out.flush();
+                return;
+            }
+            fileChannel.force(false);
+        }
+        appendToJournal(key, entry);
+        out.writeByte(MountTransfer.OK);
+        out.flush();
+    }
+
+    private Path resolve(final String relative) throws IOException {
+        final Path file = target.resolve(relative).normalize();
+        if (!file.startsWith(target) || file.equals(target)) {
+            throw new IOException(String.format("File %s is not in %s.", relative, target));
+        }
+        return file;
+    }
+
+    // Chunks of one file arrive on several connections, so the file is created and sized once
+    private synchronized void prepare(final Path file, final long size) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (final RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            if (raf.length() != size) {
+                raf.setLength(size);
+            }
+        }
+    }
+
+    private synchronized void appendToJournal(final String key, final String entry) throws IOException {
+        if (journal == null) {
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        journal.write(ByteBuffer.wrap((key + "\t" + entry + "\n").getBytes(StandardCharsets.UTF_8)));
+        journal.force(false);
+        received.put(key, entry);
+    }
+
+    private synchronized void complete() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        Files.deleteIfExists(journalPath);
+        received.clear();
+    }
+
+    private void readJournal() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        for (final String line : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+            // A line cut short by an interruption has too few fields, and its chunk is received again
+            final String[] fields = line.split("\t");
+            if (fields.length == 6) {
+                received.put(fields[0] + "\t" + fields[1], fields[2] + "\t" + fields[3] + "\t" + fields[4] + "\t" + fields[5]);
+            }
+        }
+    }
+}
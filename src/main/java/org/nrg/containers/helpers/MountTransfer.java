@@ -0,0 +1,235 @@
+package org.nrg.containers.helpers;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Sends a mount's directory to a {@link MountReceiver} on another host, in fixed-size chunks over several
+ * connections at once. Each chunk's CRC-32 is computed from the source file and sent ahead of the chunk, which is
+ * sent with {@link FileChannel#transferTo}; the receiver checks the bytes it read off the socket against it, and a
+ * chunk that does not match is sent again. Chunks the receiver already holds from an interrupted transfer, from
+ * the same source file, are skipped, so sending again resumes the transfer.
+ *
+ * <p>Chunks are not compressed: compressing them would mean reading them into the JVM, which is what
+ * {@code transferTo} avoids.</p>
+ */
+public class MountTransfer {
+    private static final Logger log = LoggerFactory.getLogger(MountTransfer.class);
+
+    public static final long DEFAULT_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    static final byte CHUNK = 1;
+    static final byte END = 2;
+    static final byte COMPLETE = 3;
+
+    static final byte SKIP = 1;
+    static final byte SEND = 2;
+    static final byte OK = 3;
+    static final byte BAD = 4;
+
+    private static final int MAX_SENDS = 3;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final int connections;
+    private final long chunkBytes;
+
+    public MountTransfer() {
+        this(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), DEFAULT_CHUNK_BYTES);
+    }
+
+    public MountTransfer(final int connections, final long chunkBytes) {
+        this.connections = connections;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Send a directory, or resume sending one that was interrupted.
+     *
+     * @param source Directory to send
+     * @param receiver Address of the receiver, which writes the directory where it was started for
+     * @return Bytes sent by this call. Chunks the receiver already held are not counted.
+     * @throws IOException If a chunk could not be sent, or did not arrive intact after {@value #MAX_SENDS} tries.
+     * Chunks that arrived stay with the receiver, and are skipped when the directory is sent again.
+     */
+    public long send(final Path source, final InetSocketAddress receiver) throws IOException {
+        final Queue<Chunk> chunks = new ConcurrentLinkedQueue<>(plan(source));
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Sending %d chunks from %s to %s.", chunks.size(), source, receiver));
+        }
+
+        long bytes = 0L;
+        final int threads = Math.max(1, Math.min(connections, chunks.size()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("mount-transfer-%d").setDaemon(true).build());
+        try {
+            final List<Callable<Long>> tasks = Lists.newArrayList();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(new Callable<Long>() {
+                    @Override
+                    public Long call() throws IOException {
+                        return sendChunks(chunks, receiver);
+                    }
+                });
+            }
+            for (final Future<Long> result : executor.invokeAll(tasks)) {
+                bytes += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending " + source + " to " + receiver, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ?
+                    (IOException) e.getCause() :
+                    new IOException("Could not send " + source + " to " + receiver, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Every chunk has arrived, so the receiver no longer needs to remember which
+        try (final SocketChannel channel = SocketChannel.open(receiver)) {
+            final DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeByte(COMPLETE);
+            out.flush();
+            new DataInputStream(Channels.newInputStream(channel)).readByte();
+        }
+        return bytes;
+    }
+
+    /**
+     * List the chunks of every file under the source. An empty file is one chunk of no bytes, so it is created.
+     */
+    private List<Chunk> plan(final Path source) throws IOException {
+        final List<Chunk> chunks = Lists.newArrayList();
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                // Sent with forward slashes, so the receiver need not run on the same platform
+                final String relative = source.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                final long modified = attrs.lastModifiedTime().toMillis();
+                long offset = 0L;
+                do {
+                    chunks.add(new Chunk(file, relative, offset, Math.min(chunkBytes, attrs.size() - offset), attrs.size(), modified));
+                    offset += chunkBytes;
+                } while (offset < attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return chunks;
+    }
+
+    private static long sendChunks(final Queue<Chunk> chunks, final InetSocketAddress receiver) throws IOException {
+        long bytes = 0L;
+        try (final SocketChannel channel = SocketChannel.open(receiver)) {
+            // Neither stream buffers reads, so the chunk bytes that follow a header are read off the channel itself
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            final DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            Chunk chunk;
+            while ((chunk = chunks.poll()) != null) {
+                bytes += sendChunk(chunk, channel, out, in);
+            }
+            out.writeByte(END);
+            out.flush();
+        }
+        return bytes;
+    }
+
+    private static long sendChunk(final Chunk chunk, final SocketChannel channel,
+                                  final DataOutputStream out, final DataInputStream in) throws IOException {
+        try (final FileChannel file = FileChannel.open(chunk.source, StandardOpenOption.READ)) {
+            final long crc = crc(file, chunk);
+            for (int send = 1; send <= MAX_SENDS; send++) {
+                out.writeByte(CHUNK);
+                out.writeUTF(chunk.relative);
+                out.writeLong(chunk.offset);
+                out.writeLong(chunk.length);
+                out.writeLong(chunk.sourceSize);
+                out.writeLong(chunk.sourceModified);
+                out.writeLong(crc);
+                out.flush();
+                if (in.readByte() == SKIP) {
+                    return 0L;
+                }
+
+                long done = 0L;
+                while (done < chunk.length) {
+                    final long transferred = file.transferTo(chunk.offset + done, chunk.length - done, channel);
+                    if (transferred <= 0) {
+                        throw new IOException(String.format("%s ended before byte %d.", chunk.source, chunk.offset + chunk.length));
+                    }
+                    done += transferred;
+                }
+                if (in.readByte() == OK) {
+                    return chunk.length;
+                }
+                log.warn(String.format("Chunk at %d of %s did not arrive intact. Sending it again.", chunk.offset, chunk.relative));
+            }
+        }
+        throw new IOException(String.format("Chunk at %d of %s did not arrive intact after %d tries.", chunk.offset, chunk.relative, MAX_SENDS));
+    }
+
+    private static long crc(final FileChannel file, final Chunk chunk) throws IOException {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        long done = 0L;
+        while (done < chunk.length) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), chunk.length - done));
+            final int read = file.read(buffer, chunk.offset + done);
+            if (read <= 0) {
+                throw new IOException(String.format("%s ended before byte %d.", chunk.source, chunk.offset + chunk.length));
+            }
+            crc.update(buffer.array(), 0, read);
+            done += read;
+        }
+        return crc.getValue();
+    }
+
+    private static class Chunk {
+        private final Path source;
+        private final String relative;
+        private final long offset;
+        private final long length;
+        private final long sourceSize;
+        private final long sourceModified;
+
+        private Chunk(final Path source, final String relative, final long offset,
+                      final long length, final long sourceSize, final long sourceModified) {
+            this.source = source;
+            this.relative = relative;
+            this.offset = offset;
+            this.length = length;
+            this.sourceSize = sourceSize;
+            this.sourceModified = sourceModified;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.nrg.containers.helpers;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.exceptions.ContainerException;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Walks an output directory one entry at a time, handing each file that matches the output's globs to a visitor
+ * as it is found. The walk stops as soon as the matched files pass the output's file count or byte limit, so a
+ * runaway output is rejected without listing all of it.
+ *
+ * <p>Globs use {@link java.nio.file.FileSystem#getPathMatcher(String)} syntax and are matched against each
+ * file's path relative to the directory, e.g. {@code **.nii.gz} or {@code {stats,label}/**}. A directory that
+ * matches the exclude glob is not entered.</p>
+ */
+public class OutputScanner {
+    /**
+     * Directories whose names start with this are never scanned. Finalizing stages filtered outputs in them.
+     */
+    public static final String STAGING_PREFIX = ".xnat-output-";
+
+    public interface Visitor {
+        /**
+         * @param file A matching file, or a symbolic link, which is not followed
+         * @param relativePath The file's path relative to the scanned directory
+         * @param attributes The file's attributes, read without following links
+         */
+        void visit(Path file, Path relativePath, BasicFileAttributes attributes) throws IOException;
+    }
+
+    private final PathMatcher include;
+    private final PathMatcher exclude;
+    private final Long maxFiles;
+    private final Long maxBytes;
+
+    private long files;
+    private long bytes;
+
+    /**
+     * @param include Only files whose relative paths match this glob. Blank for every file.
+     * @param exclude No files or directories whose relative paths match this glob. Blank to exclude nothing.
+     * @param maxFiles The most files that may match. Null for no limit.
+     * @param maxBytes The most bytes the matching files may hold. Null for no limit.
+     */
+    public OutputScanner(final String include, final String exclude, final Long maxFiles, final Long maxBytes) {
+        this.include = StringUtils.isBlank(include) ? null : FileSystems.getDefault().getPathMatcher("glob:" + include);
+        this.exclude = StringUtils.isBlank(exclude) ? null : FileSystems.getDefault().getPathMatcher("glob:" + exclude);
+        this.maxFiles = maxFiles;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return True if the scanner does not match every file, so the matches must be uploaded one by one
+     */
+    public boolean isFiltered() {
+        return include != null || exclude != null;
+    }
+
+    /**
+     * @return True if the scanner neither filters nor limits, so the directory need not be walked at all
+     */
+    public boolean isUnrestricted() {
+        return !isFiltered() && maxFiles == null && maxBytes == null;
+    }
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Walk a directory, or look at a single file, and visit each match.
+     *
+     * @param root The directory or file to scan
+     * @param visitor Given each match as it is found. Null to only count the matches.
+     * @throws ContainerException If the matches pass the file count or byte limit. Files already visited stay visited.
+     * @throws IOException If the tree cannot be read, or the visitor fails
+     */
+    public void scan(final Path root, final Visitor visitor) throws ContainerException, IOException {
+        files = 0L;
+        bytes = 0L;
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attributes) {
+                    if (dir.equals(root)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    final Path relativePath = root.relativize(dir);
+                    return dir.getFileName().toString().startsWith(STAGING_PREFIX) || (exclude != null && exclude.matches(relativePath)) ?
+                            FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+                    final Path relativePath = file.equals(root) ? file.getFileName() : root.relativize(file);
+                    if ((include != null && !include.matches(relativePath)) || (exclude != null && exclude.matches(relativePath))) {
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    files++;
+                    bytes += attributes.size();
+                    if (maxFiles != null && files > maxFiles) {
+                        throw new QuotaExceeded(String.format("More than %d files match.", maxFiles));
+                    }
+                    if (maxBytes != null && bytes > maxBytes) {
+                        throw new QuotaExceeded(String.format("Matching files hold more than %d bytes.", maxBytes));
+                    }
+
+                    if (visitor != null) {
+                        visitor.visit(file, relativePath, attributes);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (QuotaExceeded e) {
+            throw new ContainerException(e.getMessage());
+        }
+    }
+
+    // Carries a quota failure out of the walk, which may only throw IOException
+    private static class QuotaExceeded extends IOException {
+        QuotaExceeded(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.nrg.containers.model;
+
+import com.google.common.base.MoreObjects;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * A finished container execution that has been moved out of the execution tables. The columns needed to find
+ * and list it are kept as they are; everything else is kept as one deflated JSON document.
+ */
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"executionId"})},
+        indexes = {@Index(columnList = "commandId"), @Index(columnList = "userId"),
+                @Index(columnList = "project"), @Index(columnList = "launched")})
+public class ArchivedContainerExecution extends AbstractHibernateEntity {
+    private long executionId;
+    private Long commandId;
+    private String dockerImage;
+    private String containerId;
+    private String userId;
+    private String project;
+    private String status;
+    private Date statusTime;
+    private Date launched;
+    private Integer attempt;
+    private Long batchExecutionId;
+    private int size;
+    private byte[] data;
+
+    public ArchivedContainerExecution() {}
+
+    public ArchivedContainerExecution(final ContainerExecution execution, final int size, final byte[] data) {
+        this.executionId = execution.getId();
+        this.commandId = execution.getCommandId();
+        this.dockerImage = execution.getDockerImage();
+        this.containerId = execution.getContainerId();
+        this.userId = execution.getUserId();
+        this.project = execution.getProject();
+        this.status = execution.getStatus();
+        this.statusTime = execution.getStatusTime();
+        this.launched = execution.getCreated();
+        this.attempt = execution.getAttempt();
+        this.batchExecutionId = execution.getBatchExecutionId();
+        this.size = size;
+        this.data = data;
+    }
+
+    /**
+     * The ID the execution had before it was archived
+     */
+    public long getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(final long executionId) {
+        this.executionId = executionId;
+    }
+
+    public Long getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(final Long commandId) {
+        this.commandId = commandId;
+    }
+
+    public String getDockerImage() {
+        return dockerImage;
+    }
+
+    public void setDockerImage(final String dockerImage) {
+        this.dockerImage = dockerImage;
+    }
+
+    public String getContainerId() {
+        return containerId;
+    }
+
+    public void setContainerId(final String containerId) {
+        this.containerId = containerId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(final String userId) {
+        this.userId = userId;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(final String project) {
+        this.project = project;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    public Date getStatusTime() {
+        return statusTime;
+    }
+
+    public void setStatusTime(final Date statusTime) {
+        this.statusTime = statusTime;
+    }
+
+    /**
+     * When the execution was created, i.e. when its container was launched
+     */
+    public Date getLaunched() {
+        return launched;
+    }
+
+    public void setLaunched(final Date launched) {
+        this.launched = launched;
+    }
+
+    public Integer getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(final Integer attempt) {
+        this.attempt = attempt;
+    }
+
+    public Long getBatchExecutionId() {
+        return batchExecutionId;
+    }
+
+    public void setBatchExecutionId(final Long batchExecutionId) {
+        this.batchExecutionId = batchExecutionId;
+    }
+
+    /**
+     * Length of the JSON document in UTF-8 bytes, before compression
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(final int size) {
+        this.size = size;
+    }
+
+    /**
+     * The deflated JSON document
+     */
+    @Column(length = Integer.MAX_VALUE)
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(final byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ArchivedContainerExecution that = (ArchivedContainerExecution) o;
+        return this.executionId == that.executionId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(executionId);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("executionId", executionId)
+                .add("commandId", commandId)
+                .add("userId", userId)
+                .add("project", project)
+                .add("status", status)
+                .add("statusTime", statusTime)
+                .add("launched", launched)
+                .add("size", size)
+                .add("storedSize", data == null ? 0 : data.length)
+                .toString();
+    }
+}
@@ -28,6 +28,8 @@ public class Command extends AbstractHibernateEntity {
     private CommandRun run;
     private List<CommandInput> inputs = Lists.newArrayList();
     private List<CommandOutput> outputs = Lists.newArrayList();
+    @JsonProperty("retry-policy") private CommandRetryPolicy retryPolicy;
+    @JsonProperty("batch") private CommandBatchPolicy batchPolicy;
 
     @Nonnull
     @ApiModelProperty(value = "The Command's user-readable name. Must be unique for a given docker image.", required = true)
@@ -105,6 +107,26 @@ public class Command extends AbstractHibernateEntity {
                 outputs;
     }
 
+    @Nullable
+    @ApiModelProperty("How containers launched from this Command are retried when they fail or run out of memory.")
+    public CommandRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(final CommandRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Nullable
+    @ApiModelProperty("If set, containers launched from this Command in response to events each process a batch of XNAT objects, rather than one.")
+    public CommandBatchPolicy getBatchPolicy() {
+        return batchPolicy;
+    }
+
+    public void setBatchPolicy(final CommandBatchPolicy batchPolicy) {
+        this.batchPolicy = batchPolicy;
+    }
+
     @Override
     public ToStringHelper addParentPropertiesToString(final ToStringHelper helper) {
         return super.addParentPropertiesToString(helper)
@@ -114,7 +136,9 @@ public class Command extends AbstractHibernateEntity {
                 .add("dockerImage", dockerImage)
                 .add("run", run)
                 .add("inputs", inputs)
-                .add("outputs", outputs);
+                .add("outputs", outputs)
+                .add("retryPolicy", retryPolicy)
+                .add("batchPolicy", batchPolicy);
     }
 
     @Override
@@ -129,12 +153,14 @@ public class Command extends AbstractHibernateEntity {
                 Objects.equals(this.dockerImage, that.dockerImage) &&
                 Objects.equals(this.run, that.run) &&
                 Objects.equals(this.inputs, that.inputs) &&
-                Objects.equals(this.outputs, that.outputs);
+                Objects.equals(this.outputs, that.outputs) &&
+                Objects.equals(this.retryPolicy, that.retryPolicy) &&
+                Objects.equals(this.batchPolicy, that.batchPolicy);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, description, infoUrl, dockerImage, run, inputs, outputs);
+        return Objects.hash(name, description, infoUrl, dockerImage, run, inputs, outputs, retryPolicy, batchPolicy);
     }
 
     @Override
@@ -0,0 +1,62 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class CommandBatchPolicy implements Serializable {
+    @JsonProperty("size") private Integer size;
+    @JsonProperty("window-seconds") private Long windowSeconds;
+
+    public CommandBatchPolicy() {}
+
+    public CommandBatchPolicy(final Integer size, final Long windowSeconds) {
+        this.size = size;
+        this.windowSeconds = windowSeconds;
+    }
+
+    @ApiModelProperty("Maximum number of XNAT objects to process in one container. A batch is launched as soon as it is full.")
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(final Integer size) {
+        this.size = size;
+    }
+
+    @ApiModelProperty("Seconds to wait for a batch to fill. When they have passed, the batch is launched with what it has. Default: 60.")
+    public Long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public void setWindowSeconds(final Long windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final CommandBatchPolicy that = (CommandBatchPolicy) o;
+        return Objects.equals(this.size, that.size) &&
+                Objects.equals(this.windowSeconds, that.windowSeconds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(size, windowSeconds);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("size", size)
+                .add("windowSeconds", windowSeconds)
+                .toString();
+    }
+}
@@ -0,0 +1,98 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.List;
+
+@ApiModel(description = "What a bulk import did with the command label on one docker image.")
+public class CommandImportReport {
+    public static final String IMPORTED = "Imported";
+    public static final String UNCHANGED = "Unchanged";
+    public static final String NO_LABEL = "No label";
+    public static final String ERROR = "Error";
+
+    @JsonProperty("image-id") private String imageId;
+    private List<String> tags;
+    private String status;
+    private List<String> saved = Lists.newArrayList();
+    @JsonProperty("already-present") private List<String> alreadyPresent = Lists.newArrayList();
+    private String message;
+
+    public CommandImportReport() {}
+
+    public CommandImportReport(final DockerImage image, final String status) {
+        this.imageId = image.getImageId();
+        this.tags = image.getTags();
+        this.status = status;
+    }
+
+    @ApiModelProperty("ID of the docker image")
+    public String getImageId() {
+        return imageId;
+    }
+
+    public void setImageId(final String imageId) {
+        this.imageId = imageId;
+    }
+
+    @ApiModelProperty("Tags of the docker image")
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(final List<String> tags) {
+        this.tags = tags;
+    }
+
+    @ApiModelProperty(value = "What happened to the image's label.", allowableValues = IMPORTED + ", " + UNCHANGED + ", " + NO_LABEL + ", " + ERROR)
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    @ApiModelProperty("Names of the commands that were saved from the label")
+    public List<String> getSaved() {
+        return saved;
+    }
+
+    public void setSaved(final List<String> saved) {
+        this.saved = saved == null ? Lists.<String>newArrayList() : saved;
+    }
+
+    @ApiModelProperty("Names of the commands in the label that were already saved for this image")
+    public List<String> getAlreadyPresent() {
+        return alreadyPresent;
+    }
+
+    public void setAlreadyPresent(final List<String> alreadyPresent) {
+        this.alreadyPresent = alreadyPresent == null ? Lists.<String>newArrayList() : alreadyPresent;
+    }
+
+    @ApiModelProperty("Why the label could not be imported")
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(final String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("imageId", imageId)
+                .add("tags", tags)
+                .add("status", status)
+                .add("saved", saved)
+                .add("alreadyPresent", alreadyPresent)
+                .add("message", message)
+                .toString();
+    }
+}
@@ -0,0 +1,77 @@
+package org.nrg.containers.model;
+
+import com.google.common.base.MoreObjects;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Records the content of the command label on a docker image the last time commands were imported from it,
+ * so an image whose label has not changed can be skipped on the next bulk import.
+ */
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"imageId"})})
+public class CommandLabelImport extends AbstractHibernateEntity {
+    private String imageId;
+    private String labelHash;
+    private Date imported;
+
+    public CommandLabelImport() {}
+
+    public CommandLabelImport(final String imageId, final String labelHash) {
+        this.imageId = imageId;
+        this.labelHash = labelHash;
+        this.imported = new Date();
+    }
+
+    public String getImageId() {
+        return imageId;
+    }
+
+    public void setImageId(final String imageId) {
+        this.imageId = imageId;
+    }
+
+    public String getLabelHash() {
+        return labelHash;
+    }
+
+    public void setLabelHash(final String labelHash) {
+        this.labelHash = labelHash;
+    }
+
+    public Date getImported() {
+        return imported;
+    }
+
+    public void setImported(final Date imported) {
+        this.imported = imported;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final CommandLabelImport that = (CommandLabelImport) o;
+        return Objects.equals(this.imageId, that.imageId) &&
+                Objects.equals(this.labelHash, that.labelHash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(imageId, labelHash);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("imageId", imageId)
+                .add("labelHash", labelHash)
+                .add("imported", imported)
+                .toString();
+    }
+}
@@ -1,5 +1,6 @@
 package org.nrg.containers.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
 
 import javax.persistence.Embeddable;
@@ -9,6 +10,10 @@ import java.util.Objects;
 public class CommandOutputFiles {
     private String mount;
     private String path;
+    private String include;
+    private String exclude;
+    @JsonProperty("max-files") private Long maxFiles;
+    @JsonProperty("max-bytes") private Long maxBytes;
 
     public String getMount() {
         return mount;
@@ -26,18 +31,66 @@ public class CommandOutputFiles {
         this.path = path;
     }
 
+    /**
+     * Glob of the paths, relative to the output path, of the files to upload. Blank to upload every file.
+     */
+    public String getInclude() {
+        return include;
+    }
+
+    public void setInclude(final String include) {
+        this.include = include;
+    }
+
+    /**
+     * Glob of the relative paths of files and directories not to upload. Blank to exclude nothing.
+     */
+    public String getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(final String exclude) {
+        this.exclude = exclude;
+    }
+
+    /**
+     * The most files the output may have. If the container writes more, the output is not uploaded.
+     */
+    public Long getMaxFiles() {
+        return maxFiles;
+    }
+
+    public void setMaxFiles(final Long maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * The most bytes the output's files may hold. If the container writes more, the output is not uploaded.
+     */
+    public Long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(final Long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         final CommandOutputFiles that = (CommandOutputFiles) o;
         return Objects.equals(this.mount, that.mount) &&
-                Objects.equals(this.path, that.path);
+                Objects.equals(this.path, that.path) &&
+                Objects.equals(this.include, that.include) &&
+                Objects.equals(this.exclude, that.exclude) &&
+                Objects.equals(this.maxFiles, that.maxFiles) &&
+                Objects.equals(this.maxBytes, that.maxBytes);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(mount, path);
+        return Objects.hash(mount, path, include, exclude, maxFiles, maxBytes);
     }
 
     @Override
@@ -45,6 +98,10 @@ public class CommandOutputFiles {
         return MoreObjects.toStringHelper(this)
                 .add("mount", mount)
                 .add("path", path)
+                .add("include", include)
+                .add("exclude", exclude)
+                .add("maxFiles", maxFiles)
+                .add("maxBytes", maxBytes)
                 .toString();
     }
 }
@@ -0,0 +1,120 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.persistence.Embeddable;
+import javax.persistence.Transient;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class CommandRetryPolicy implements Serializable {
+    private static final long DEFAULT_BACKOFF_SECONDS = 30L;
+
+    @JsonProperty("max-attempts") private Integer maxAttempts;
+    @JsonProperty("backoff-seconds") private Long backoffSeconds;
+    @JsonProperty("memory-escalation-factor") private Double memoryEscalationFactor;
+
+    public CommandRetryPolicy() {}
+
+    public CommandRetryPolicy(final CommandRetryPolicy other) {
+        this.maxAttempts = other.maxAttempts;
+        this.backoffSeconds = other.backoffSeconds;
+        this.memoryEscalationFactor = other.memoryEscalationFactor;
+    }
+
+    @ApiModelProperty("Total number of times a container may be launched, including the first launch. Default: 1 (no retries).")
+    public Integer getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(final Integer maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    @ApiModelProperty("Seconds to wait before the first retry. The wait doubles on each subsequent retry. Default: 30.")
+    public Long getBackoffSeconds() {
+        return backoffSeconds;
+    }
+
+    public void setBackoffSeconds(final Long backoffSeconds) {
+        this.backoffSeconds = backoffSeconds;
+    }
+
+    @ApiModelProperty("When a container is killed for running out of memory, its memory limit is multiplied by this factor before it is retried.")
+    public Double getMemoryEscalationFactor() {
+        return memoryEscalationFactor;
+    }
+
+    public void setMemoryEscalationFactor(final Double memoryEscalationFactor) {
+        this.memoryEscalationFactor = memoryEscalationFactor;
+    }
+
+    /**
+     * Can a container that has run {@code attempt} times be launched again?
+     *
+     * @param attempt The number of launches so far, starting at 1
+     * @return Whether another launch is permitted
+     */
+    @Transient
+    @JsonIgnore
+    public boolean allowsRetry(final int attempt) {
+        return maxAttempts != null && attempt < maxAttempts;
+    }
+
+    /**
+     * How long to wait before relaunching a container that has run {@code attempt} times.
+     *
+     * @param attempt The number of launches so far, starting at 1
+     * @return Delay in milliseconds
+     */
+    @Transient
+    @JsonIgnore
+    public long getBackoffMillis(final int attempt) {
+        final long base = backoffSeconds == null ? DEFAULT_BACKOFF_SECONDS : backoffSeconds;
+        final int doublings = Math.min(Math.max(attempt - 1, 0), 16);
+        return base * 1000L * (1L << doublings);
+    }
+
+    /**
+     * Memory limit to use on the next launch after a container was killed for running out of memory.
+     *
+     * @param memoryLimit The memory limit, in bytes, of the container that was killed. May be null.
+     * @return The escalated limit, or the same limit if it is unset or there is no escalation factor.
+     */
+    @Transient
+    @JsonIgnore
+    public Long escalateMemory(final Long memoryLimit) {
+        if (memoryLimit == null || memoryEscalationFactor == null || memoryEscalationFactor <= 1.0) {
+            return memoryLimit;
+        }
+        return (long) Math.ceil(memoryLimit * memoryEscalationFactor);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final CommandRetryPolicy that = (CommandRetryPolicy) o;
+        return Objects.equals(this.maxAttempts, that.maxAttempts) &&
+                Objects.equals(this.backoffSeconds, that.backoffSeconds) &&
+                Objects.equals(this.memoryEscalationFactor, that.memoryEscalationFactor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxAttempts, backoffSeconds, memoryEscalationFactor);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxAttempts", maxAttempts)
+                .add("backoffSeconds", backoffSeconds)
+                .add("memoryEscalationFactor", memoryEscalationFactor)
+                .toString();
+    }
+}
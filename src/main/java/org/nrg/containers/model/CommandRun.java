@@ -20,6 +20,7 @@ public class CommandRun implements Serializable {
     @JsonProperty("mounts") private List<CommandMount> mounts = Lists.newArrayList();
     @JsonProperty("environment-variables") private Map<String, String> environmentVariables = Maps.newHashMap();
     private Map<String, String> ports = Maps.newHashMap();
+    @JsonProperty("memory-limit") private Long memoryLimit;
 
     @Nullable
     @ApiModelProperty("The command that will be executed in the container when the Command is launched.")
@@ -69,6 +70,16 @@ public class CommandRun implements Serializable {
 
     }
 
+    @Nullable
+    @ApiModelProperty("The maximum amount of memory, in bytes, that the container may use. If not set, the container's memory is not limited.")
+    public Long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public void setMemoryLimit(final Long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -77,12 +88,13 @@ public class CommandRun implements Serializable {
         return Objects.equals(this.commandLine, that.commandLine) &&
                 Objects.equals(this.mounts, that.mounts) &&
                 Objects.equals(this.environmentVariables, that.environmentVariables) &&
-                Objects.equals(this.ports, that.ports);
+                Objects.equals(this.ports, that.ports) &&
+                Objects.equals(this.memoryLimit, that.memoryLimit);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(commandLine, mounts, environmentVariables, ports);
+        return Objects.hash(commandLine, mounts, environmentVariables, ports, memoryLimit);
     }
 
     @Override
@@ -92,6 +104,7 @@ public class CommandRun implements Serializable {
                 .add("mounts", mounts)
                 .add("environmentVariables", environmentVariables)
                 .add("ports", ports)
+                .add("memoryLimit", memoryLimit)
                 .toString();
     }
 }
@@ -1,11 +1,15 @@
 package org.nrg.containers.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
 
 import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class Container {
+    private static final Pattern EXITED_STATUS = Pattern.compile("^Exited \\((-?\\d+)\\).*");
 
     public Container() {}
 
@@ -40,6 +44,27 @@ public class Container {
         _status = status;
     }
 
+    /**
+     * Whether the container has stopped. Docker reports a stopped container's status
+     * as, e.g., "Exited (0) 5 minutes ago" or "Dead".
+     **/
+    @JsonIgnore
+    public boolean isStopped() {
+        return _status != null && (_status.startsWith("Exited") || _status.startsWith("Dead"));
+    }
+
+    /**
+     * The exit code in the container's status, or null if the container has not exited
+     * or the status does not include one.
+     **/
+    public String exitCode() {
+        if (_status == null) {
+            return null;
+        }
+        final Matcher matcher = EXITED_STATUS.matcher(_status);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
     public String toString() {
         return "Container{\n" +
                 "\tid : " + _id + ",\n" +
@@ -1,35 +1,65 @@
 package org.nrg.containers.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
 import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
 
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapKeyColumn;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 @Entity
-@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"containerId"})})
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"containerId"})},
+        indexes = {@Index(columnList = "status"), @Index(columnList = "commandId"), @Index(columnList = "userId"),
+                @Index(columnList = "project"), @Index(columnList = "created")})
 public class ContainerExecution extends AbstractHibernateEntity {
     @JsonProperty("command-id") private Long commandId;
     @JsonProperty("docker-image") private String dockerImage;
     @JsonProperty("command-line") private String commandLine;
     @JsonProperty("env") private Map<String, String> environmentVariables = Maps.newHashMap();
+    private Map<String, String> ports = Maps.newHashMap();
     @JsonProperty("mounts-in") private List<ContainerExecutionMount> mountsIn = Lists.newArrayList();
     @JsonProperty("mounts-out") private List<ContainerExecutionMount> mountsOut = Lists.newArrayList();
     @JsonProperty("container-id") private String containerId;
     @JsonProperty("user-id") private String userId;
+    private String project;
     @JsonProperty("input-values") private Map<String, String> inputValues = Maps.newHashMap();
+    @JsonIgnore private Map<String, String> inputValueHashes = Maps.newHashMap();
+    @JsonIgnore private Map<String, String> legacyInputValues = Maps.newHashMap();
     private List<ContainerExecutionOutput> outputs;
     private List<ContainerExecutionHistory> history = Lists.newArrayList();
+    @JsonIgnore private List<LegacyContainerExecutionHistory> legacyHistory = Lists.newArrayList();
+    private String status;
+    @JsonProperty("status-time") private Date statusTime;
+    @JsonProperty("memory-limit") private Long memoryLimit;
+    @JsonProperty("retry-policy") private CommandRetryPolicy retryPolicy;
+    private Integer attempt = 1;
+    @JsonProperty("retry-of") private Long originalExecutionId;
+    @JsonProperty("retry-after") private Date retryAfter;
+    @JsonProperty("batch-id") private Long batchExecutionId;
+    @JsonProperty("batch-index") private Integer batchIndex;
+    @JsonProperty("image-wait-millis") private Long imageWaitMillis;
+    @JsonProperty("cold-start") private Boolean coldStart;
+    @JsonProperty("uploaded-bytes") private Long uploadedBytes;
+    @JsonProperty("build-bytes") private Long buildBytes;
+    @JsonProperty("linked-bytes") private Long linkedBytes;
+    @JsonProperty("deduplicated-bytes") private Long deduplicatedBytes;
+    @JsonProperty("avoided-write-bytes") private Long avoidedWriteBytes;
 
     public ContainerExecution() {}
 
@@ -45,6 +75,9 @@ public class ContainerExecution extends AbstractHibernateEntity {
         this.environmentVariables = resolvedCommand.getEnvironmentVariables() == null ?
                 Maps.<String, String>newHashMap() :
                 Maps.newHashMap(resolvedCommand.getEnvironmentVariables());
+        this.ports = resolvedCommand.getPorts() == null ?
+                Maps.<String, String>newHashMap() :
+                Maps.newHashMap(resolvedCommand.getPorts());
         this.mountsIn = resolvedCommand.getMountsIn() == null ?
                 Lists.<ContainerExecutionMount>newArrayList() :
                 Lists.newArrayList(resolvedCommand.getMountsIn());
@@ -57,6 +90,11 @@ public class ContainerExecution extends AbstractHibernateEntity {
         this.outputs = resolvedCommand.getOutputs() == null ?
                 Lists.<ContainerExecutionOutput>newArrayList() :
                 Lists.newArrayList(resolvedCommand.getOutputs());
+        this.project = resolvedCommand.getProject();
+        this.memoryLimit = resolvedCommand.getMemoryLimit();
+        this.retryPolicy = resolvedCommand.getRetryPolicy();
+        this.imageWaitMillis = resolvedCommand.getImageWaitMillis();
+        this.coldStart = resolvedCommand.getColdStart();
     }
 
     public Long getCommandId() {
@@ -92,6 +130,18 @@ public class ContainerExecution extends AbstractHibernateEntity {
         this.environmentVariables = environmentVariables;
     }
 
+    /**
+     * Container ports bound to host ports, so a retry binds the same ports.
+     */
+    @ElementCollection
+    public Map<String, String> getPorts() {
+        return ports;
+    }
+
+    public void setPorts(final Map<String, String> ports) {
+        this.ports = ports;
+    }
+
     @ElementCollection
     public List<ContainerExecutionMount> getMountsIn() {
         return mountsIn;
@@ -126,8 +176,22 @@ public class ContainerExecution extends AbstractHibernateEntity {
         this.userId = user;
     }
 
-    @ElementCollection
-    @Column(columnDefinition = "TEXT")
+    /**
+     * The ID of the project whose data the execution ran on, or null if it could not be determined when the command was resolved.
+     */
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(final String project) {
+        this.project = project;
+    }
+
+    /**
+     * The resolved value of each input. Values are stored apart from the execution, once per distinct value,
+     * and are only present when they have been read by the container execution service.
+     */
+    @Transient
     public Map<String, String> getInputValues() {
         return inputValues;
     }
@@ -136,6 +200,48 @@ public class ContainerExecution extends AbstractHibernateEntity {
         this.inputValues = inputValues;
     }
 
+    /**
+     * The hash of each input's stored value, by input name.
+     */
+    @ElementCollection
+    public Map<String, String> getInputValueHashes() {
+        return inputValueHashes;
+    }
+
+    public void setInputValueHashes(final Map<String, String> inputValueHashes) {
+        this.inputValueHashes = inputValueHashes;
+    }
+
+    /**
+     * Input values as they were stored before values were stored apart from executions, in the table that held
+     * them then. Only read, to migrate them; empty for executions saved since.
+     */
+    @ElementCollection
+    @CollectionTable(name = "ContainerExecution_inputValues", joinColumns = @JoinColumn(name = "ContainerExecution_id"))
+    @MapKeyColumn(name = "inputValues_KEY")
+    @Column(name = "inputValues", columnDefinition = "TEXT")
+    public Map<String, String> getLegacyInputValues() {
+        return legacyInputValues;
+    }
+
+    public void setLegacyInputValues(final Map<String, String> legacyInputValues) {
+        this.legacyInputValues = legacyInputValues;
+    }
+
+    /**
+     * History as it was stored before history was stored apart from executions, in the table that held it then.
+     * Only read, to migrate it; empty for executions saved since.
+     */
+    @ElementCollection
+    @CollectionTable(name = "ContainerExecution_history", joinColumns = @JoinColumn(name = "ContainerExecution_id"))
+    public List<LegacyContainerExecutionHistory> getLegacyHistory() {
+        return legacyHistory;
+    }
+
+    public void setLegacyHistory(final List<LegacyContainerExecutionHistory> legacyHistory) {
+        this.legacyHistory = legacyHistory;
+    }
+
     @ElementCollection
     public List<ContainerExecutionOutput> getOutputs() {
         return outputs;
@@ -145,7 +251,11 @@ public class ContainerExecution extends AbstractHibernateEntity {
         this.outputs = outputs;
     }
 
-    @ElementCollection
+    /**
+     * The execution's history. History is stored apart from the execution, and is only present
+     * when it has been read by the container execution service.
+     */
+    @Transient
     public List<ContainerExecutionHistory> getHistory() {
         return history;
     }
@@ -154,12 +264,239 @@ public class ContainerExecution extends AbstractHibernateEntity {
         this.history = history;
     }
 
+    /**
+     * The status of the most recent entry in the execution's history. Set when an entry is added to the history.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    /**
+     * The time of the most recent entry in the execution's history.
+     */
+    public Date getStatusTime() {
+        return statusTime;
+    }
+
+    public void setStatusTime(final Date statusTime) {
+        this.statusTime = statusTime;
+    }
+
+    public Long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public void setMemoryLimit(final Long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    public CommandRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(final CommandRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Which launch of the original execution this is. The first launch is attempt 1.
+     */
+    public Integer getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(final Integer attempt) {
+        this.attempt = attempt;
+    }
+
+    /**
+     * The ID of the first execution in a chain of retries, or null if this execution is not a retry.
+     */
+    public Long getOriginalExecutionId() {
+        return originalExecutionId;
+    }
+
+    public void setOriginalExecutionId(final Long originalExecutionId) {
+        this.originalExecutionId = originalExecutionId;
+    }
+
+    /**
+     * If this execution failed and will be retried, the earliest time the retry may be launched.
+     */
+    public Date getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(final Date retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * The ID of the batch execution whose container processed this execution's inputs,
+     * or null if this execution had a container of its own.
+     */
+    public Long getBatchExecutionId() {
+        return batchExecutionId;
+    }
+
+    public void setBatchExecutionId(final Long batchExecutionId) {
+        this.batchExecutionId = batchExecutionId;
+    }
+
+    /**
+     * The position of this execution's inputs in its batch's manifest.
+     */
+    public Integer getBatchIndex() {
+        return batchIndex;
+    }
+
+    public void setBatchIndex(final Integer batchIndex) {
+        this.batchIndex = batchIndex;
+    }
+
+    /**
+     * How long the launch waited for the docker image to be pulled, in milliseconds.
+     */
+    public Long getImageWaitMillis() {
+        return imageWaitMillis;
+    }
+
+    public void setImageWaitMillis(final Long imageWaitMillis) {
+        this.imageWaitMillis = imageWaitMillis;
+    }
+
+    /**
+     * Whether the docker image had to be pulled, or finish pulling, before the container could be launched.
+     */
+    public Boolean getColdStart() {
+        return coldStart;
+    }
+
+    public void setColdStart(final Boolean coldStart) {
+        this.coldStart = coldStart;
+    }
+
+    /**
+     * Bytes of output files uploaded to XNAT when the execution was finalized.
+     */
+    public Long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public void setUploadedBytes(final Long uploadedBytes) {
+        this.uploadedBytes = uploadedBytes;
+    }
+
+    /**
+     * The most bytes the execution's output mounts were seen to hold, while it ran or when it was finalized.
+     */
+    public Long getBuildBytes() {
+        return buildBytes;
+    }
+
+    public void setBuildBytes(final Long buildBytes) {
+        this.buildBytes = buildBytes;
+    }
+
+    /**
+     * Of the uploaded bytes, those that were moved or hard-linked into the archive rather than copied.
+     */
+    public Long getLinkedBytes() {
+        return linkedBytes;
+    }
+
+    public void setLinkedBytes(final Long linkedBytes) {
+        this.linkedBytes = linkedBytes;
+    }
+
+    /**
+     * Of the uploaded bytes, those in files that are links to the output store's copies, so take no new space.
+     */
+    public Long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
+    public void setDeduplicatedBytes(final Long deduplicatedBytes) {
+        this.deduplicatedBytes = deduplicatedBytes;
+    }
+
+    /**
+     * Of the deduplicated bytes, those found in the output store as they were copied in, so the archive kept no
+     * copy of them.
+     */
+    public Long getAvoidedWriteBytes() {
+        return avoidedWriteBytes;
+    }
+
+    public void setAvoidedWriteBytes(final Long avoidedWriteBytes) {
+        this.avoidedWriteBytes = avoidedWriteBytes;
+    }
+
+    @Transient
+    public boolean hasHistoryStatus(final String status) {
+        if (history != null) {
+            for (final ContainerExecutionHistory historyItem : history) {
+                if (status.equals(historyItem.getStatus())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The time at which the container stopped, according to the most recent kill, die, or oom event.
+     */
+    @Transient
+    @JsonIgnore
+    public Date getExitTime() {
+        Date exitTime = null;
+        if (history != null) {
+            for (final ContainerExecutionHistory historyItem : history) {
+                if (historyItem.getStatus() != null && historyItem.getStatus().matches("kill|die|oom") &&
+                        historyItem.getTime() != null &&
+                        (exitTime == null || historyItem.getTime().after(exitTime))) {
+                    exitTime = historyItem.getTime();
+                }
+            }
+        }
+        return exitTime;
+    }
+
+    /**
+     * Did the container run to completion? It must not have been killed or run out of memory,
+     * and it must not have reported a non-zero exit code.
+     */
+    @Transient
+    @JsonIgnore
+    public boolean isExitedCleanly() {
+        if (hasHistoryStatus("kill") || hasHistoryStatus("oom")) {
+            return false;
+        }
+        if (history != null) {
+            for (final ContainerExecutionHistory historyItem : history) {
+                if ("die".equals(historyItem.getStatus()) &&
+                        StringUtils.isNotBlank(historyItem.getExitCode()) &&
+                        !"0".equals(historyItem.getExitCode().trim())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     @Transient
     public void addToHistory(final ContainerExecutionHistory historyItem) {
         if (this.history == null) {
             this.history = Lists.newArrayList();
         }
         this.history.add(historyItem);
+        this.status = historyItem.getStatus();
+        this.statusTime = historyItem.getTime();
     }
 
     @Override
@@ -172,19 +509,37 @@ public class ContainerExecution extends AbstractHibernateEntity {
                 Objects.equals(this.dockerImage, that.dockerImage) &&
                 Objects.equals(this.commandLine, that.commandLine) &&
                 Objects.equals(this.environmentVariables, that.environmentVariables) &&
+                Objects.equals(this.ports, that.ports) &&
                 Objects.equals(this.mountsIn, that.mountsIn) &&
                 Objects.equals(this.mountsOut, that.mountsOut) &&
                 Objects.equals(this.containerId, that.containerId) &&
                 Objects.equals(this.userId, that.userId) &&
+                Objects.equals(this.project, that.project) &&
                 Objects.equals(this.inputValues, that.inputValues) &&
                 Objects.equals(this.outputs, that.outputs) &&
-                Objects.equals(this.history, that.history);
+                Objects.equals(this.history, that.history) &&
+                Objects.equals(this.memoryLimit, that.memoryLimit) &&
+                Objects.equals(this.retryPolicy, that.retryPolicy) &&
+                Objects.equals(this.attempt, that.attempt) &&
+                Objects.equals(this.originalExecutionId, that.originalExecutionId) &&
+                Objects.equals(this.retryAfter, that.retryAfter) &&
+                Objects.equals(this.batchExecutionId, that.batchExecutionId) &&
+                Objects.equals(this.batchIndex, that.batchIndex) &&
+                Objects.equals(this.imageWaitMillis, that.imageWaitMillis) &&
+                Objects.equals(this.coldStart, that.coldStart) &&
+                Objects.equals(this.uploadedBytes, that.uploadedBytes) &&
+                Objects.equals(this.buildBytes, that.buildBytes) &&
+                Objects.equals(this.linkedBytes, that.linkedBytes) &&
+                Objects.equals(this.deduplicatedBytes, that.deduplicatedBytes) &&
+                Objects.equals(this.avoidedWriteBytes, that.avoidedWriteBytes);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.getId(), commandId, dockerImage, commandLine, environmentVariables,
-                mountsIn, mountsOut, containerId, userId, inputValues, outputs, history);
+        return Objects.hash(super.getId(), commandId, dockerImage, commandLine, environmentVariables, ports,
+                mountsIn, mountsOut, containerId, userId, project, inputValues, outputs, history,
+                memoryLimit, retryPolicy, attempt, originalExecutionId, retryAfter,
+                batchExecutionId, batchIndex, imageWaitMillis, coldStart, uploadedBytes, buildBytes, linkedBytes, deduplicatedBytes, avoidedWriteBytes);
     }
 
     @Override
@@ -194,13 +549,30 @@ public class ContainerExecution extends AbstractHibernateEntity {
                 .add("dockerImage", dockerImage)
                 .add("commandLine", commandLine)
                 .add("environmentVariables", environmentVariables)
+                .add("ports", ports)
                 .add("mountsIn", mountsIn)
                 .add("mountsOut", mountsOut)
                 .add("containerId", containerId)
                 .add("userId", userId)
+                .add("project", project)
                 .add("inputValues", inputValues)
                 .add("outputs", outputs)
                 .add("history", history)
+                .add("status", status)
+                .add("memoryLimit", memoryLimit)
+                .add("retryPolicy", retryPolicy)
+                .add("attempt", attempt)
+                .add("originalExecutionId", originalExecutionId)
+                .add("retryAfter", retryAfter)
+                .add("batchExecutionId", batchExecutionId)
+                .add("batchIndex", batchIndex)
+                .add("imageWaitMillis", imageWaitMillis)
+                .add("coldStart", coldStart)
+                .add("uploadedBytes", uploadedBytes)
+                .add("buildBytes", buildBytes)
+                .add("linkedBytes", linkedBytes)
+                .add("deduplicatedBytes", deduplicatedBytes)
+                .add("avoidedWriteBytes", avoidedWriteBytes)
                 .toString();
     }
 }
@@ -1,20 +1,61 @@
 package org.nrg.containers.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.google.common.base.MoreObjects;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
 
-import javax.persistence.Embeddable;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 import java.util.Date;
 
-@Embeddable
-public class ContainerExecutionHistory {
+/**
+ * One entry in a container execution's history. Entries are only ever appended, so they live in their own
+ * table, keyed by the execution's ID and the entry's position in the execution's history.
+ */
+@Entity
+@Table(name = "container_execution_history_entry",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"containerExecutionId", "sequence"})})
+@JsonIgnoreProperties({"id", "created", "timestamp", "enabled", "disabled"})
+public class ContainerExecutionHistory extends AbstractHibernateEntity {
+    private Long containerExecutionId;
+    private Integer sequence;
     private String status;
     private Date time;
+    private String exitCode;
 
     public ContainerExecutionHistory() {}
 
     public ContainerExecutionHistory(final String status, final Date time) {
+        this(status, time, null);
+    }
+
+    public ContainerExecutionHistory(final String status, final Date time, final String exitCode) {
         this.status = status;
         this.time = time;
+        this.exitCode = exitCode;
+    }
+
+    @JsonIgnore
+    public Long getContainerExecutionId() {
+        return containerExecutionId;
+    }
+
+    public void setContainerExecutionId(final Long containerExecutionId) {
+        this.containerExecutionId = containerExecutionId;
+    }
+
+    /**
+     * Position of this entry in its execution's history, starting at 0.
+     */
+    @JsonIgnore
+    public Integer getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(final Integer sequence) {
+        this.sequence = sequence;
     }
 
     public String getStatus() {
@@ -33,11 +74,22 @@ public class ContainerExecutionHistory {
         this.time = time;
     }
 
+    public String getExitCode() {
+        return exitCode;
+    }
+
+    public void setExitCode(final String exitCode) {
+        this.exitCode = exitCode;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
+                .add("containerExecutionId", containerExecutionId)
+                .add("sequence", sequence)
                 .add("status", status)
                 .add("time", time)
+                .add("exitCode", exitCode)
                 .toString();
     }
 }
@@ -32,6 +32,15 @@ public class ContainerExecutionMount implements Serializable {
         this.resource = commandMount.getResource();
     }
 
+    public ContainerExecutionMount(final ContainerExecutionMount other) {
+        this.name = other.name;
+        this.isInput = other.isInput;
+        this.hostPath = other.hostPath;
+        this.remotePath = other.remotePath;
+        this.fileInput = other.fileInput;
+        this.resource = other.resource;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,119 @@
+package org.nrg.containers.model;
+
+import com.google.common.base.MoreObjects;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.util.Objects;
+
+/**
+ * Records that an XNAT object was one of the resolved inputs of a container execution,
+ * so the executions that ran on an object can be found without reading any execution's inputs.
+ */
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"containerExecutionId", "uri"})},
+        indexes = {@Index(columnList = "uri"), @Index(columnList = "xnatId")})
+public class ContainerExecutionObject extends AbstractHibernateEntity {
+    private long containerExecutionId;
+    private String uri;
+    private String xnatId;
+    private String type;
+    private String inputName;
+
+    public ContainerExecutionObject() {}
+
+    public ContainerExecutionObject(final long containerExecutionId,
+                                    final String uri,
+                                    final String xnatId,
+                                    final String type,
+                                    final String inputName) {
+        this.containerExecutionId = containerExecutionId;
+        this.uri = uri;
+        this.xnatId = xnatId;
+        this.type = type;
+        this.inputName = inputName;
+    }
+
+    public long getContainerExecutionId() {
+        return containerExecutionId;
+    }
+
+    public void setContainerExecutionId(final long containerExecutionId) {
+        this.containerExecutionId = containerExecutionId;
+    }
+
+    /**
+     * The object's URI, relative to the XNAT REST root, e.g. /experiments/XNAT_E00001.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(final String uri) {
+        this.uri = uri;
+    }
+
+    /**
+     * The object's ID. Scan and resource IDs are only unique within their parent; use the URI for those.
+     */
+    public String getXnatId() {
+        return xnatId;
+    }
+
+    public void setXnatId(final String xnatId) {
+        this.xnatId = xnatId;
+    }
+
+    /**
+     * The kind of object, e.g. Session or Scan.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public void setType(final String type) {
+        this.type = type;
+    }
+
+    /**
+     * The name of the command input the object was resolved for.
+     */
+    public String getInputName() {
+        return inputName;
+    }
+
+    public void setInputName(final String inputName) {
+        this.inputName = inputName;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ContainerExecutionObject that = (ContainerExecutionObject) o;
+        return this.containerExecutionId == that.containerExecutionId &&
+                Objects.equals(this.uri, that.uri) &&
+                Objects.equals(this.xnatId, that.xnatId) &&
+                Objects.equals(this.type, that.type) &&
+                Objects.equals(this.inputName, that.inputName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(containerExecutionId, uri, xnatId, type, inputName);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("containerExecutionId", containerExecutionId)
+                .add("uri", uri)
+                .add("xnatId", xnatId)
+                .add("type", type)
+                .add("inputName", inputName)
+                .toString();
+    }
+}
@@ -17,6 +17,11 @@ public class ContainerExecutionOutput implements Serializable {
     @JsonProperty("parent") private String parentInputName;
     private String mount;
     private String path;
+    private String include;
+    private String exclude;
+    @JsonProperty("max-files") private Long maxFiles;
+    @JsonProperty("max-bytes") private Long maxBytes;
+    private String created;
 
     public ContainerExecutionOutput() {}
 
@@ -30,6 +35,12 @@ public class ContainerExecutionOutput implements Serializable {
                 commandOutput.getFiles().getMount() : "";
         this.path = commandOutput.getFiles() != null ?
                 commandOutput.getFiles().getPath() : "";
+        if (commandOutput.getFiles() != null) {
+            this.include = commandOutput.getFiles().getInclude();
+            this.exclude = commandOutput.getFiles().getExclude();
+            this.maxFiles = commandOutput.getFiles().getMaxFiles();
+            this.maxBytes = commandOutput.getFiles().getMaxBytes();
+        }
     }
 
     public String getName() {
@@ -93,6 +104,49 @@ public class ContainerExecutionOutput implements Serializable {
         this.path = path;
     }
 
+    public String getInclude() {
+        return include;
+    }
+
+    public void setInclude(final String include) {
+        this.include = include;
+    }
+
+    public String getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(final String exclude) {
+        this.exclude = exclude;
+    }
+
+    public Long getMaxFiles() {
+        return maxFiles;
+    }
+
+    public void setMaxFiles(final Long maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    public Long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(final Long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The URI of the XNAT object that was created from this output when the container was finalized.
+     */
+    public String getCreated() {
+        return created;
+    }
+
+    public void setCreated(final String created) {
+        this.created = created;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -104,12 +158,17 @@ public class ContainerExecutionOutput implements Serializable {
                 Objects.equals(this.required, that.required) &&
                 Objects.equals(this.parentInputName, that.parentInputName) &&
                 Objects.equals(this.mount, that.mount) &&
-                Objects.equals(this.path, that.path);
+                Objects.equals(this.path, that.path) &&
+                Objects.equals(this.include, that.include) &&
+                Objects.equals(this.exclude, that.exclude) &&
+                Objects.equals(this.maxFiles, that.maxFiles) &&
+                Objects.equals(this.maxBytes, that.maxBytes) &&
+                Objects.equals(this.created, that.created);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, type, label, required, parentInputName, mount, path);
+        return Objects.hash(name, type, label, required, parentInputName, mount, path, include, exclude, maxFiles, maxBytes, created);
     }
 
     @Override
@@ -122,6 +181,11 @@ public class ContainerExecutionOutput implements Serializable {
                 .add("parent", parentInputName)
                 .add("mount", mount)
                 .add("path", path)
+                .add("include", include)
+                .add("exclude", exclude)
+                .add("maxFiles", maxFiles)
+                .add("maxBytes", maxBytes)
+                .add("created", created)
                 .toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+package org.nrg.containers.model;
+
+import com.google.common.base.MoreObjects;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.util.Objects;
+
+/**
+ * Totals for the container executions of one command, on one project's data, that finished with one outcome
+ * on one day. Each row is updated as executions are finalized, so statistics are read without reading executions.
+ *
+ * <p>Durations are kept as a count, a total, and a histogram each, for the mean and percentiles. An execution
+ * contributes to a duration only if the history entries it is measured between were recorded.</p>
+ */
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"finishedOn", "commandId", "project", "outcome"})})
+public class ContainerExecutionStats extends AbstractHibernateEntity {
+    public static final String NO_PROJECT = "";
+
+    private String finishedOn;
+    private long commandId;
+    private String project;
+    private String outcome;
+    private long executions;
+    private long queueCount;
+    private long queueMillis;
+    private String queueHistogram;
+    private long runCount;
+    private long runMillis;
+    private String runHistogram;
+    private long finalizeCount;
+    private long finalizeMillis;
+    private String finalizeHistogram;
+    private long uploadedBytes;
+    private long linkedBytes;
+    private long deduplicatedBytes;
+    private long avoidedWriteBytes;
+
+    public ContainerExecutionStats() {}
+
+    public ContainerExecutionStats(final String finishedOn, final long commandId, final String project, final String outcome) {
+        this.finishedOn = finishedOn;
+        this.commandId = commandId;
+        this.project = project;
+        this.outcome = outcome;
+    }
+
+    /**
+     * The UTC day the executions finished on, as yyyy-MM-dd
+     */
+    public String getFinishedOn() {
+        return finishedOn;
+    }
+
+    public void setFinishedOn(final String finishedOn) {
+        this.finishedOn = finishedOn;
+    }
+
+    public long getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(final long commandId) {
+        this.commandId = commandId;
+    }
+
+    /**
+     * ID of the project the executions ran on, or {@link #NO_PROJECT} if it is not known
+     */
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(final String project) {
+        this.project = project;
+    }
+
+    /**
+     * How the executions ended: succeeded, failed, killed, or oom
+     */
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(final String outcome) {
+        this.outcome = outcome;
+    }
+
+    public long getExecutions() {
+        return executions;
+    }
+
+    public void setExecutions(final long executions) {
+        this.executions = executions;
+    }
+
+    public long getQueueCount() {
+        return queueCount;
+    }
+
+    public void setQueueCount(final long queueCount) {
+        this.queueCount = queueCount;
+    }
+
+    public long getQueueMillis() {
+        return queueMillis;
+    }
+
+    public void setQueueMillis(final long queueMillis) {
+        this.queueMillis = queueMillis;
+    }
+
+    @Column(columnDefinition = "TEXT")
+    public String getQueueHistogram() {
+        return queueHistogram;
+    }
+
+    public void setQueueHistogram(final String queueHistogram) {
+        this.queueHistogram = queueHistogram;
+    }
+
+    public long getRunCount() {
+        return runCount;
+    }
+
+    public void setRunCount(final long runCount) {
+        this.runCount = runCount;
+    }
+
+    public long getRunMillis() {
+        return runMillis;
+    }
+
+    public void setRunMillis(final long runMillis) {
+        this.runMillis = runMillis;
+    }
+
+    @Column(columnDefinition = "TEXT")
+    public String getRunHistogram() {
+        return runHistogram;
+    }
+
+    public void setRunHistogram(final String runHistogram) {
+        this.runHistogram = runHistogram;
+    }
+
+    public long getFinalizeCount() {
+        return finalizeCount;
+    }
+
+    public void setFinalizeCount(final long finalizeCount) {
+        this.finalizeCount = finalizeCount;
+    }
+
+    public long getFinalizeMillis() {
+        return finalizeMillis;
+    }
+
+    public void setFinalizeMillis(final long finalizeMillis) {
+        this.finalizeMillis = finalizeMillis;
+    }
+
+    @Column(columnDefinition = "TEXT")
+    public String getFinalizeHistogram() {
+        return finalizeHistogram;
+    }
+
+    public void setFinalizeHistogram(final String finalizeHistogram) {
+        this.finalizeHistogram = finalizeHistogram;
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public void setUploadedBytes(final long uploadedBytes) {
+        this.uploadedBytes = uploadedBytes;
+    }
+
+    /**
+     * Of the uploaded bytes, those moved or hard-linked into the archive rather than copied
+     */
+    public long getLinkedBytes() {
+        return linkedBytes;
+    }
+
+    public void setLinkedBytes(final long linkedBytes) {
+        this.linkedBytes = linkedBytes;
+    }
+
+    /**
+     * Of the uploaded bytes, those linked to the output store's copies rather than stored again
+     */
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
+    public void setDeduplicatedBytes(final long deduplicatedBytes) {
+        this.deduplicatedBytes = deduplicatedBytes;
+    }
+
+    public long getAvoidedWriteBytes() {
+        return avoidedWriteBytes;
+    }
+
+    public void setAvoidedWriteBytes(final long avoidedWriteBytes) {
+        this.avoidedWriteBytes = avoidedWriteBytes;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ContainerExecutionStats that = (ContainerExecutionStats) o;
+        return this.commandId == that.commandId &&
+                Objects.equals(this.finishedOn, that.finishedOn) &&
+                Objects.equals(this.project, that.project) &&
+                Objects.equals(this.outcome, that.outcome);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(finishedOn, commandId, project, outcome);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("finishedOn", finishedOn)
+                .add("commandId", commandId)
+                .add("project", project)
+                .add("outcome", outcome)
+                .add("executions", executions)
+                .add("queueCount", queueCount)
+                .add("queueMillis", queueMillis)
+                .add("runCount", runCount)
+                .add("runMillis", runMillis)
+                .add("finalizeCount", finalizeCount)
+                .add("finalizeMillis", finalizeMillis)
+                .add("uploadedBytes", uploadedBytes)
+                .add("linkedBytes", linkedBytes)
+                .add("deduplicatedBytes", deduplicatedBytes)
+                .add("avoidedWriteBytes", avoidedWriteBytes)
+                .toString();
+    }
+}
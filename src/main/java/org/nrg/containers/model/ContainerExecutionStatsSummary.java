@@ -0,0 +1,239 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import org.nrg.containers.helpers.DurationHistogram;
+
+import java.util.Objects;
+
+@ApiModel(description = "Counts and durations of the executions of one command, on one project's data, that finished with one outcome on one day.")
+public class ContainerExecutionStatsSummary {
+    private static final double P95 = 0.95;
+
+    @JsonProperty("date") private String date;
+    @JsonProperty("command-id") private long commandId;
+    @JsonProperty("project") private String project;
+    @JsonProperty("outcome") private String outcome;
+    @JsonProperty("executions") private long executions;
+    @JsonProperty("queue-mean-millis") private Long queueMeanMillis;
+    @JsonProperty("queue-p95-millis") private Long queueP95Millis;
+    @JsonProperty("run-mean-millis") private Long runMeanMillis;
+    @JsonProperty("run-p95-millis") private Long runP95Millis;
+    @JsonProperty("finalize-mean-millis") private Long finalizeMeanMillis;
+    @JsonProperty("finalize-p95-millis") private Long finalizeP95Millis;
+    @JsonProperty("uploaded-bytes") private long uploadedBytes;
+    @JsonProperty("linked-bytes") private long linkedBytes;
+    @JsonProperty("deduplicated-bytes") private long deduplicatedBytes;
+    @JsonProperty("avoided-write-bytes") private long avoidedWriteBytes;
+
+    public ContainerExecutionStatsSummary() {}
+
+    public ContainerExecutionStatsSummary(final ContainerExecutionStats stats) {
+        this.date = stats.getFinishedOn();
+        this.commandId = stats.getCommandId();
+        this.project = ContainerExecutionStats.NO_PROJECT.equals(stats.getProject()) ? null : stats.getProject();
+        this.outcome = stats.getOutcome();
+        this.executions = stats.getExecutions();
+        this.queueMeanMillis = mean(stats.getQueueMillis(), stats.getQueueCount());
+        this.queueP95Millis = DurationHistogram.parse(stats.getQueueHistogram()).percentile(P95);
+        this.runMeanMillis = mean(stats.getRunMillis(), stats.getRunCount());
+        this.runP95Millis = DurationHistogram.parse(stats.getRunHistogram()).percentile(P95);
+        this.finalizeMeanMillis = mean(stats.getFinalizeMillis(), stats.getFinalizeCount());
+        this.finalizeP95Millis = DurationHistogram.parse(stats.getFinalizeHistogram()).percentile(P95);
+        this.uploadedBytes = stats.getUploadedBytes();
+        this.linkedBytes = stats.getLinkedBytes();
+        this.deduplicatedBytes = stats.getDeduplicatedBytes();
+        this.avoidedWriteBytes = stats.getAvoidedWriteBytes();
+    }
+
+    private static Long mean(final long total, final long count) {
+        return count == 0 ? null : total / count;
+    }
+
+    @ApiModelProperty("UTC day the executions finished on, as yyyy-MM-dd")
+    public String getDate() {
+        return date;
+    }
+
+    public void setDate(final String date) {
+        this.date = date;
+    }
+
+    @ApiModelProperty("ID of the command that was launched. 0 if it is not known.")
+    public long getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(final long commandId) {
+        this.commandId = commandId;
+    }
+
+    @ApiModelProperty("ID of the project the executions ran on. Null if it is not known.")
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(final String project) {
+        this.project = project;
+    }
+
+    @ApiModelProperty(value = "How the executions ended", allowableValues = "succeeded, failed, killed, oom")
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(final String outcome) {
+        this.outcome = outcome;
+    }
+
+    @ApiModelProperty("Number of executions")
+    public long getExecutions() {
+        return executions;
+    }
+
+    public void setExecutions(final long executions) {
+        this.executions = executions;
+    }
+
+    @ApiModelProperty("Mean time from launch until the container started. Null if it is not known for any execution.")
+    public Long getQueueMeanMillis() {
+        return queueMeanMillis;
+    }
+
+    public void setQueueMeanMillis(final Long queueMeanMillis) {
+        this.queueMeanMillis = queueMeanMillis;
+    }
+
+    @ApiModelProperty("95th percentile of the time from launch until the container started, to within 10%")
+    public Long getQueueP95Millis() {
+        return queueP95Millis;
+    }
+
+    public void setQueueP95Millis(final Long queueP95Millis) {
+        this.queueP95Millis = queueP95Millis;
+    }
+
+    @ApiModelProperty("Mean time from when the container started until it stopped. Null if it is not known for any execution.")
+    public Long getRunMeanMillis() {
+        return runMeanMillis;
+    }
+
+    public void setRunMeanMillis(final Long runMeanMillis) {
+        this.runMeanMillis = runMeanMillis;
+    }
+
+    @ApiModelProperty("95th percentile of the time from when the container started until it stopped, to within 10%")
+    public Long getRunP95Millis() {
+        return runP95Millis;
+    }
+
+    public void setRunP95Millis(final Long runP95Millis) {
+        this.runP95Millis = runP95Millis;
+    }
+
+    @ApiModelProperty("Mean time from when the container stopped until its outputs were uploaded")
+    public Long getFinalizeMeanMillis() {
+        return finalizeMeanMillis;
+    }
+
+    public void setFinalizeMeanMillis(final Long finalizeMeanMillis) {
+        this.finalizeMeanMillis = finalizeMeanMillis;
+    }
+
+    @ApiModelProperty("95th percentile of the time from when the container stopped until its outputs were uploaded, to within 10%")
+    public Long getFinalizeP95Millis() {
+        return finalizeP95Millis;
+    }
+
+    public void setFinalizeP95Millis(final Long finalizeP95Millis) {
+        this.finalizeP95Millis = finalizeP95Millis;
+    }
+
+    @ApiModelProperty("Total bytes of output files uploaded")
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    public void setUploadedBytes(final long uploadedBytes) {
+        this.uploadedBytes = uploadedBytes;
+    }
+
+    @ApiModelProperty("Of the bytes uploaded, those moved or hard-linked into the archive rather than copied")
+    public long getLinkedBytes() {
+        return linkedBytes;
+    }
+
+    public void setLinkedBytes(final long linkedBytes) {
+        this.linkedBytes = linkedBytes;
+    }
+
+    @ApiModelProperty("Of the bytes uploaded, those linked to copies in the output store, so taking no new space")
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
+    public void setDeduplicatedBytes(final long deduplicatedBytes) {
+        this.deduplicatedBytes = deduplicatedBytes;
+    }
+
+    @ApiModelProperty("Of the bytes deduplicated, those that would otherwise have been written to the archive")
+    public long getAvoidedWriteBytes() {
+        return avoidedWriteBytes;
+    }
+
+    public void setAvoidedWriteBytes(final long avoidedWriteBytes) {
+        this.avoidedWriteBytes = avoidedWriteBytes;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ContainerExecutionStatsSummary that = (ContainerExecutionStatsSummary) o;
+        return this.commandId == that.commandId &&
+                this.executions == that.executions &&
+                this.uploadedBytes == that.uploadedBytes &&
+                this.linkedBytes == that.linkedBytes &&
+                this.deduplicatedBytes == that.deduplicatedBytes &&
+                this.avoidedWriteBytes == that.avoidedWriteBytes &&
+                Objects.equals(this.date, that.date) &&
+                Objects.equals(this.project, that.project) &&
+                Objects.equals(this.outcome, that.outcome) &&
+                Objects.equals(this.queueMeanMillis, that.queueMeanMillis) &&
+                Objects.equals(this.queueP95Millis, that.queueP95Millis) &&
+                Objects.equals(this.runMeanMillis, that.runMeanMillis) &&
+                Objects.equals(this.runP95Millis, that.runP95Millis) &&
+                Objects.equals(this.finalizeMeanMillis, that.finalizeMeanMillis) &&
+                Objects.equals(this.finalizeP95Millis, that.finalizeP95Millis);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, commandId, project, outcome, executions, queueMeanMillis, queueP95Millis,
+                runMeanMillis, runP95Millis, finalizeMeanMillis, finalizeP95Millis, uploadedBytes, linkedBytes,
+                deduplicatedBytes, avoidedWriteBytes);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("date", date)
+                .add("commandId", commandId)
+                .add("project", project)
+                .add("outcome", outcome)
+                .add("executions", executions)
+                .add("queueMeanMillis", queueMeanMillis)
+                .add("queueP95Millis", queueP95Millis)
+                .add("runMeanMillis", runMeanMillis)
+                .add("runP95Millis", runP95Millis)
+                .add("finalizeMeanMillis", finalizeMeanMillis)
+                .add("finalizeP95Millis", finalizeP95Millis)
+                .add("uploadedBytes", uploadedBytes)
+                .add("linkedBytes", linkedBytes)
+                .add("deduplicatedBytes", deduplicatedBytes)
+                .add("avoidedWriteBytes", avoidedWriteBytes)
+                .toString();
+    }
+}
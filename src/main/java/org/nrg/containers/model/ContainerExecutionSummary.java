@@ -0,0 +1,194 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.Date;
+import java.util.Objects;
+
+@ApiModel(description = "The columns of a container execution needed to list it. Its inputs, mounts, outputs, and history are left out.")
+public class ContainerExecutionSummary {
+    @JsonProperty("id") private long id;
+    @JsonProperty("command-id") private Long commandId;
+    @JsonProperty("docker-image") private String dockerImage;
+    @JsonProperty("container-id") private String containerId;
+    @JsonProperty("user-id") private String userId;
+    @JsonProperty("project") private String project;
+    @JsonProperty("status") private String status;
+    @JsonProperty("status-time") private Date statusTime;
+    @JsonProperty("created") private Date created;
+    @JsonProperty("attempt") private Integer attempt;
+    @JsonProperty("batch-id") private Long batchExecutionId;
+
+    public ContainerExecutionSummary() {}
+
+    /**
+     * Used by the "select new" query in {@link org.nrg.containers.daos.ContainerExecutionRepository}.
+     * The argument order must match the query.
+     */
+    public ContainerExecutionSummary(final long id,
+                                     final Long commandId,
+                                     final String dockerImage,
+                                     final String containerId,
+                                     final String userId,
+                                     final String project,
+                                     final String status,
+                                     final Date statusTime,
+                                     final Date created,
+                                     final Integer attempt,
+                                     final Long batchExecutionId) {
+        this.id = id;
+        this.commandId = commandId;
+        this.dockerImage = dockerImage;
+        this.containerId = containerId;
+        this.userId = userId;
+        this.project = project;
+        this.status = status;
+        this.statusTime = statusTime;
+        this.created = created;
+        this.attempt = attempt;
+        this.batchExecutionId = batchExecutionId;
+    }
+
+    @ApiModelProperty("ID of the execution. Pass the ID of the last execution in a page as \"before\" to get the next page.")
+    public long getId() {
+        return id;
+    }
+
+    public void setId(final long id) {
+        this.id = id;
+    }
+
+    @ApiModelProperty("ID of the command that was launched")
+    public Long getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(final Long commandId) {
+        this.commandId = commandId;
+    }
+
+    @ApiModelProperty("Docker image the container was launched from")
+    public String getDockerImage() {
+        return dockerImage;
+    }
+
+    public void setDockerImage(final String dockerImage) {
+        this.dockerImage = dockerImage;
+    }
+
+    @ApiModelProperty("Docker container ID. Null for an item of a batch.")
+    public String getContainerId() {
+        return containerId;
+    }
+
+    public void setContainerId(final String containerId) {
+        this.containerId = containerId;
+    }
+
+    @ApiModelProperty("Login of the user who launched the container")
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(final String userId) {
+        this.userId = userId;
+    }
+
+    @ApiModelProperty("ID of the project whose data the container ran on, if known")
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(final String project) {
+        this.project = project;
+    }
+
+    @ApiModelProperty("Status of the most recent history entry")
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    @ApiModelProperty("Time of the most recent history entry")
+    public Date getStatusTime() {
+        return statusTime;
+    }
+
+    public void setStatusTime(final Date statusTime) {
+        this.statusTime = statusTime;
+    }
+
+    @ApiModelProperty("When the container was launched")
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(final Date created) {
+        this.created = created;
+    }
+
+    @ApiModelProperty("Which launch of the original execution this is, starting at 1")
+    public Integer getAttempt() {
+        return attempt;
+    }
+
+    public void setAttempt(final Integer attempt) {
+        this.attempt = attempt;
+    }
+
+    @ApiModelProperty("ID of the batch execution whose container ran this execution, if any")
+    public Long getBatchExecutionId() {
+        return batchExecutionId;
+    }
+
+    public void setBatchExecutionId(final Long batchExecutionId) {
+        this.batchExecutionId = batchExecutionId;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ContainerExecutionSummary that = (ContainerExecutionSummary) o;
+        return this.id == that.id &&
+                Objects.equals(this.commandId, that.commandId) &&
+                Objects.equals(this.dockerImage, that.dockerImage) &&
+                Objects.equals(this.containerId, that.containerId) &&
+                Objects.equals(this.userId, that.userId) &&
+                Objects.equals(this.project, that.project) &&
+                Objects.equals(this.status, that.status) &&
+                Objects.equals(this.statusTime, that.statusTime) &&
+                Objects.equals(this.created, that.created) &&
+                Objects.equals(this.attempt, that.attempt) &&
+                Objects.equals(this.batchExecutionId, that.batchExecutionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, commandId, dockerImage, containerId, userId, project, status, statusTime,
+                created, attempt, batchExecutionId);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("commandId", commandId)
+                .add("dockerImage", dockerImage)
+                .add("containerId", containerId)
+                .add("userId", userId)
+                .add("project", project)
+                .add("status", status)
+                .add("statusTime", statusTime)
+                .add("created", created)
+                .add("attempt", attempt)
+                .add("batchExecutionId", batchExecutionId)
+                .toString();
+    }
+}
@@ -0,0 +1,97 @@
+package org.nrg.containers.model;
+
+import com.google.common.base.MoreObjects;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.util.Objects;
+
+/**
+ * A resolved input value, stored once no matter how many container executions were given it.
+ * Executions refer to the value by the SHA-256 hash of its content.
+ */
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"hash"})})
+public class ContainerInputBlob extends AbstractHibernateEntity {
+    private String hash;
+    private boolean compressed;
+    private int size;
+    private byte[] data;
+
+    public ContainerInputBlob() {}
+
+    public ContainerInputBlob(final String hash, final boolean compressed, final int size, final byte[] data) {
+        this.hash = hash;
+        this.compressed = compressed;
+        this.size = size;
+        this.data = data;
+    }
+
+    /**
+     * Hex SHA-256 hash of the value's UTF-8 bytes
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(final String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * Whether the data is deflated. Small values, and values that do not get smaller, are stored as they are.
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(final boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    /**
+     * Length of the value in UTF-8 bytes, before compression
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(final int size) {
+        this.size = size;
+    }
+
+    @Column(length = Integer.MAX_VALUE)
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(final byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ContainerInputBlob that = (ContainerInputBlob) o;
+        return Objects.equals(this.hash, that.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hash);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("hash", hash)
+                .add("compressed", compressed)
+                .add("size", size)
+                .add("storedSize", data == null ? 0 : data.length)
+                .toString();
+    }
+}
@@ -15,6 +15,7 @@ public class DockerImage {
     @JsonProperty("image-id") private String imageId;
     @JsonProperty("tags") private List<String> tags;
     private Map<String, String> labels;
+    @JsonProperty("size") private Long size;
 
     public DockerImage() {}
 
@@ -26,6 +27,14 @@ public class DockerImage {
         this.labels = labels;
     }
 
+    public DockerImage(final String imageId,
+                       final List<String> repoTags,
+                       final Map<String, String> labels,
+                       final Long size) {
+        this(imageId, repoTags, labels);
+        this.size = size;
+    }
+
     /**
      * The image's docker id.
      **/
@@ -54,11 +63,22 @@ public class DockerImage {
         this.labels = labels;
     }
 
+    /**
+     * Image size on disk, in bytes
+     **/
+    @ApiModelProperty(value = "Image size on disk, in bytes, including layers it shares with other images.")
+    public Long getSize() { return size; }
+
+    public void setSize(final Long size) {
+        this.size = size;
+    }
+
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("imageId", imageId)
                 .add("tags", tags)
                 .add("labels", labels)
+                .add("size", size)
                 .toString();
     }
 
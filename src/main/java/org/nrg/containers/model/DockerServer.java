@@ -7,6 +7,17 @@ import java.util.Objects;
 public class DockerServer {
     @JsonProperty("host") private String host;
     @JsonProperty("cert-path") private String certPath;
+    @JsonProperty("image-disk-budget") private Long imageDiskBudget;
+    @JsonProperty("execution-archive-days") private Long executionArchiveDays;
+    @JsonProperty("input-cache-path") private String inputCachePath;
+    @JsonProperty("input-cache-budget") private Long inputCacheBudget;
+    @JsonProperty("build-path") private String buildPath;
+    @JsonProperty("build-tmpfs-path") private String buildTmpfsPath;
+    @JsonProperty("build-tmpfs-max-bytes") private Long buildTmpfsMaxBytes;
+    @JsonProperty("build-pool-size") private Long buildPoolSize;
+    @JsonProperty("build-quota") private Long buildQuota;
+    @JsonProperty("output-ingest-mode") private String outputIngestMode;
+    @JsonProperty("output-store-path") private String outputStorePath;
 
     public DockerServer() {}
 
@@ -18,6 +29,17 @@ public class DockerServer {
     public DockerServer(final DockerServerPrefsBean dockerServerPrefsBean) {
         this.host = dockerServerPrefsBean.getHost();
         this.certPath = dockerServerPrefsBean.getCertPath();
+        this.imageDiskBudget = dockerServerPrefsBean.getImageDiskBudget();
+        this.executionArchiveDays = dockerServerPrefsBean.getExecutionArchiveDays();
+        this.inputCachePath = dockerServerPrefsBean.getInputCachePath();
+        this.inputCacheBudget = dockerServerPrefsBean.getInputCacheBudget();
+        this.buildPath = dockerServerPrefsBean.getBuildPath();
+        this.buildTmpfsPath = dockerServerPrefsBean.getBuildTmpfsPath();
+        this.buildTmpfsMaxBytes = dockerServerPrefsBean.getBuildTmpfsMaxBytes();
+        this.buildPoolSize = dockerServerPrefsBean.getBuildPoolSize();
+        this.buildQuota = dockerServerPrefsBean.getBuildQuota();
+        this.outputIngestMode = dockerServerPrefsBean.getOutputIngestMode();
+        this.outputStorePath = dockerServerPrefsBean.getOutputStorePath();
     }
 
     public String getHost() {
@@ -36,6 +58,140 @@ public class DockerServer {
         this.certPath = certPath;
     }
 
+    /**
+     * Bytes of disk the docker server may use for images before the least recently used are removed.
+     * Zero or null means images are never removed automatically.
+     */
+    public Long getImageDiskBudget() {
+        return imageDiskBudget;
+    }
+
+    public void setImageDiskBudget(final Long imageDiskBudget) {
+        this.imageDiskBudget = imageDiskBudget;
+    }
+
+    /**
+     * Days after a container execution finishes that it is moved to the execution archive.
+     * Zero or null means executions are never archived.
+     */
+    public Long getExecutionArchiveDays() {
+        return executionArchiveDays;
+    }
+
+    public void setExecutionArchiveDays(final Long executionArchiveDays) {
+        this.executionArchiveDays = executionArchiveDays;
+    }
+
+    /**
+     * Directory for the input file cache, at the same path on XNAT and the docker server. Input files are copied
+     * here once per checksum, and linked into each execution's input mounts. Blank means inputs are not cached.
+     */
+    public String getInputCachePath() {
+        return inputCachePath;
+    }
+
+    public void setInputCachePath(final String inputCachePath) {
+        this.inputCachePath = inputCachePath;
+    }
+
+    /**
+     * Bytes of disk the input file cache may use before the least recently used files are removed.
+     * Zero or null means cached files are never removed.
+     */
+    public Long getInputCacheBudget() {
+        return inputCacheBudget;
+    }
+
+    public void setInputCacheBudget(final Long inputCacheBudget) {
+        this.inputCacheBudget = inputCacheBudget;
+    }
+
+    /**
+     * Directory for output mounts, at the same path on XNAT and the docker server. Each execution gets its own
+     * directory under it, which is emptied and reused, or removed, once the outputs are uploaded. Blank means output
+     * directories come from the transporter, and are not cleaned up.
+     */
+    public String getBuildPath() {
+        return buildPath;
+    }
+
+    public void setBuildPath(final String buildPath) {
+        this.buildPath = buildPath;
+    }
+
+    /**
+     * Directory on a tmpfs, at the same path on XNAT and the docker server, for the output mounts of commands
+     * whose outputs are small. See {@link #getBuildTmpfsMaxBytes()}. Blank means every command uses the build path.
+     */
+    public String getBuildTmpfsPath() {
+        return buildTmpfsPath;
+    }
+
+    public void setBuildTmpfsPath(final String buildTmpfsPath) {
+        this.buildTmpfsPath = buildTmpfsPath;
+    }
+
+    /**
+     * Commands whose executions over the last 30 days uploaded this many bytes or fewer, on average, get their
+     * output mounts on the tmpfs build path. Zero or null means no command does.
+     */
+    public Long getBuildTmpfsMaxBytes() {
+        return buildTmpfsMaxBytes;
+    }
+
+    public void setBuildTmpfsMaxBytes(final Long buildTmpfsMaxBytes) {
+        this.buildTmpfsMaxBytes = buildTmpfsMaxBytes;
+    }
+
+    /**
+     * Empty output directories to keep ready under each build path, so launches need not create them.
+     * Zero or null means directories are created as they are needed.
+     */
+    public Long getBuildPoolSize() {
+        return buildPoolSize;
+    }
+
+    public void setBuildPoolSize(final Long buildPoolSize) {
+        this.buildPoolSize = buildPoolSize;
+    }
+
+    /**
+     * Bytes an execution's output mounts may hold. An execution that goes over is killed. Zero or null means
+     * there is no limit.
+     */
+    public Long getBuildQuota() {
+        return buildQuota;
+    }
+
+    public void setBuildQuota(final Long buildQuota) {
+        this.buildQuota = buildQuota;
+    }
+
+    /**
+     * How output files get into the archive. "copy" copies them into the resource directory. "move" and "link" move
+     * or hard-link them there, and copy only those that are on another filesystem. A mount that more than one output
+     * reads is linked from under "move", and its files removed once every output is uploaded. Blank means "copy".
+     */
+    public String getOutputIngestMode() {
+        return outputIngestMode;
+    }
+
+    public void setOutputIngestMode(final String outputIngestMode) {
+        this.outputIngestMode = outputIngestMode;
+    }
+
+    /**
+     * Directory, on the same filesystem as the archive, where one copy of each distinct output file is kept.
+     * Archived output files with the same contents are hard links to that copy. Blank means outputs are not
+     * deduplicated.
+     */
+    public String getOutputStorePath() {
+        return outputStorePath;
+    }
+
+    public void setOutputStorePath(final String outputStorePath) {
+        this.outputStorePath = outputStorePath;
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -49,11 +205,23 @@ public class DockerServer {
         DockerServer that = (DockerServer) o;
 
         return Objects.equals(this.host, that.host) &&
-                Objects.equals(this.certPath, that.certPath);
+                Objects.equals(this.certPath, that.certPath) &&
+                Objects.equals(this.imageDiskBudget, that.imageDiskBudget) &&
+                Objects.equals(this.executionArchiveDays, that.executionArchiveDays) &&
+                Objects.equals(this.inputCachePath, that.inputCachePath) &&
+                Objects.equals(this.inputCacheBudget, that.inputCacheBudget) &&
+                Objects.equals(this.buildPath, that.buildPath) &&
+                Objects.equals(this.buildTmpfsPath, that.buildTmpfsPath) &&
+                Objects.equals(this.buildTmpfsMaxBytes, that.buildTmpfsMaxBytes) &&
+                Objects.equals(this.buildPoolSize, that.buildPoolSize) &&
+                Objects.equals(this.buildQuota, that.buildQuota) &&
+                Objects.equals(this.outputIngestMode, that.outputIngestMode) &&
+                Objects.equals(this.outputStorePath, that.outputStorePath);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(host, certPath);
+        return Objects.hash(host, certPath, imageDiskBudget, executionArchiveDays, inputCachePath, inputCacheBudget,
+                buildPath, buildTmpfsPath, buildTmpfsMaxBytes, buildPoolSize, buildQuota, outputIngestMode, outputStorePath);
     }
 }
@@ -32,6 +32,17 @@ public class DockerServerPrefsBean extends AbstractPreferenceBean {
     public void setFromDto(final DockerServer dockerServerDto) throws InvalidPreferenceName {
         setHost(dockerServerDto.getHost());
         setCertPath(dockerServerDto.getCertPath());
+        setImageDiskBudget(dockerServerDto.getImageDiskBudget());
+        setExecutionArchiveDays(dockerServerDto.getExecutionArchiveDays());
+        setInputCachePath(dockerServerDto.getInputCachePath());
+        setInputCacheBudget(dockerServerDto.getInputCacheBudget());
+        setBuildPath(dockerServerDto.getBuildPath());
+        setBuildTmpfsPath(dockerServerDto.getBuildTmpfsPath());
+        setBuildTmpfsMaxBytes(dockerServerDto.getBuildTmpfsMaxBytes());
+        setBuildPoolSize(dockerServerDto.getBuildPoolSize());
+        setBuildQuota(dockerServerDto.getBuildQuota());
+        setOutputIngestMode(dockerServerDto.getOutputIngestMode());
+        setOutputStorePath(dockerServerDto.getOutputStorePath());
         setLastEventCheckTime(new Date()); // Initialize with current time
     }
 
@@ -87,11 +98,198 @@ public class DockerServerPrefsBean extends AbstractPreferenceBean {
         }
     }
 
+    @NrgPreference(defaultValue = "0")
+    public Long getImageDiskBudget() {
+        return getLongValue("imageDiskBudget");
+    }
+
+    public void setImageDiskBudget(final Long imageDiskBudget) {
+        _log.debug("Setting imageDiskBudget: " + imageDiskBudget);
+        if (imageDiskBudget != null) {
+            try {
+                setLongValue(imageDiskBudget, "imageDiskBudget");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"imageDiskBudget\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference(defaultValue = "0")
+    public Long getExecutionArchiveDays() {
+        return getLongValue("executionArchiveDays");
+    }
+
+    public void setExecutionArchiveDays(final Long executionArchiveDays) {
+        _log.debug("Setting executionArchiveDays: " + executionArchiveDays);
+        if (executionArchiveDays != null) {
+            try {
+                setLongValue(executionArchiveDays, "executionArchiveDays");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"executionArchiveDays\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference
+    public String getInputCachePath() {
+        return getValue("inputCachePath");
+    }
+
+    public void setInputCachePath(final String inputCachePath) {
+        _log.debug("Setting inputCachePath: " + inputCachePath);
+        if (inputCachePath != null) {
+            try {
+                set(inputCachePath, "inputCachePath");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"inputCachePath\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference(defaultValue = "0")
+    public Long getInputCacheBudget() {
+        return getLongValue("inputCacheBudget");
+    }
+
+    public void setInputCacheBudget(final Long inputCacheBudget) {
+        _log.debug("Setting inputCacheBudget: " + inputCacheBudget);
+        if (inputCacheBudget != null) {
+            try {
+                setLongValue(inputCacheBudget, "inputCacheBudget");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"inputCacheBudget\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference
+    public String getBuildPath() {
+        return getValue("buildPath");
+    }
+
+    public void setBuildPath(final String buildPath) {
+        _log.debug("Setting buildPath: " + buildPath);
+        if (buildPath != null) {
+            try {
+                set(buildPath, "buildPath");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"buildPath\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference
+    public String getBuildTmpfsPath() {
+        return getValue("buildTmpfsPath");
+    }
+
+    public void setBuildTmpfsPath(final String buildTmpfsPath) {
+        _log.debug("Setting buildTmpfsPath: " + buildTmpfsPath);
+        if (buildTmpfsPath != null) {
+            try {
+                set(buildTmpfsPath, "buildTmpfsPath");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"buildTmpfsPath\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference(defaultValue = "0")
+    public Long getBuildTmpfsMaxBytes() {
+        return getLongValue("buildTmpfsMaxBytes");
+    }
+
+    public void setBuildTmpfsMaxBytes(final Long buildTmpfsMaxBytes) {
+        _log.debug("Setting buildTmpfsMaxBytes: " + buildTmpfsMaxBytes);
+        if (buildTmpfsMaxBytes != null) {
+            try {
+                setLongValue(buildTmpfsMaxBytes, "buildTmpfsMaxBytes");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"buildTmpfsMaxBytes\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference(defaultValue = "0")
+    public Long getBuildPoolSize() {
+        return getLongValue("buildPoolSize");
+    }
+
+    public void setBuildPoolSize(final Long buildPoolSize) {
+        _log.debug("Setting buildPoolSize: " + buildPoolSize);
+        if (buildPoolSize != null) {
+            try {
+                setLongValue(buildPoolSize, "buildPoolSize");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"buildPoolSize\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference(defaultValue = "0")
+    public Long getBuildQuota() {
+        return getLongValue("buildQuota");
+    }
+
+    public void setBuildQuota(final Long buildQuota) {
+        _log.debug("Setting buildQuota: " + buildQuota);
+        if (buildQuota != null) {
+            try {
+                setLongValue(buildQuota, "buildQuota");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"buildQuota\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference(defaultValue = "copy")
+    public String getOutputIngestMode() {
+        return getValue("outputIngestMode");
+    }
+
+    public void setOutputIngestMode(final String outputIngestMode) {
+        _log.debug("Setting outputIngestMode: " + outputIngestMode);
+        if (outputIngestMode != null) {
+            try {
+                set(outputIngestMode, "outputIngestMode");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"outputIngestMode\".", e.getMessage());
+            }
+        }
+    }
+
+    @NrgPreference
+    public String getOutputStorePath() {
+        return getValue("outputStorePath");
+    }
+
+    public void setOutputStorePath(final String outputStorePath) {
+        _log.debug("Setting outputStorePath: " + outputStorePath);
+        if (outputStorePath != null) {
+            try {
+                set(outputStorePath, "outputStorePath");
+            } catch (InvalidPreferenceName e) {
+                _log.error("Error setting Docker server preference \"outputStorePath\".", e.getMessage());
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
             .add("host", getHost())
             .add("certPath", getCertPath())
+            .add("imageDiskBudget", getImageDiskBudget())
+            .add("executionArchiveDays", getExecutionArchiveDays())
+            .add("inputCachePath", getInputCachePath())
+            .add("inputCacheBudget", getInputCacheBudget())
+            .add("buildPath", getBuildPath())
+            .add("buildTmpfsPath", getBuildTmpfsPath())
+            .add("buildTmpfsMaxBytes", getBuildTmpfsMaxBytes())
+            .add("buildPoolSize", getBuildPoolSize())
+            .add("buildQuota", getBuildQuota())
+            .add("outputIngestMode", getOutputIngestMode())
+            .add("outputStorePath", getOutputStorePath())
             .add("lastEventCheckTime", getLastEventCheckTime())
             .toString();
     }
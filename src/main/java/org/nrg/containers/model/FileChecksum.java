@@ -0,0 +1,92 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import java.util.Objects;
+
+/**
+ * Checksums of one output file, as listed in the manifest written with each output resource.
+ */
+public class FileChecksum {
+    @JsonProperty("path") private String path;
+    @JsonProperty("size") private long size;
+    @JsonProperty("md5") private String md5;
+    @JsonProperty("crc32") private String crc32;
+
+    public FileChecksum() {}
+
+    public FileChecksum(final String path, final long size, final String md5, final String crc32) {
+        this.path = path;
+        this.size = size;
+        this.md5 = md5;
+        this.crc32 = crc32;
+    }
+
+    /**
+     * Path of the file in the resource, with "/" separators
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(final String path) {
+        this.path = path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(final long size) {
+        this.size = size;
+    }
+
+    /**
+     * MD5 of the file's contents, as lowercase hex
+     */
+    public String getMd5() {
+        return md5;
+    }
+
+    public void setMd5(final String md5) {
+        this.md5 = md5;
+    }
+
+    /**
+     * CRC32 of the file's contents, as 8 lowercase hex digits
+     */
+    public String getCrc32() {
+        return crc32;
+    }
+
+    public void setCrc32(final String crc32) {
+        this.crc32 = crc32;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final FileChecksum that = (FileChecksum) o;
+        return this.size == that.size &&
+                Objects.equals(this.path, that.path) &&
+                Objects.equals(this.md5, that.md5) &&
+                Objects.equals(this.crc32, that.crc32);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, size, md5, crc32);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("path", path)
+                .add("size", size)
+                .add("md5", md5)
+                .add("crc32", crc32)
+                .toString();
+    }
+}
@@ -0,0 +1,111 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.Date;
+
+@ApiModel(description = "How current the in-memory catalog of docker images is, and how often it answers reads.")
+public class ImageCatalogStatus {
+    private boolean loaded;
+    private int images;
+    private String etag;
+    @JsonProperty("loaded-at") private Date loadedAt;
+    @JsonProperty("events-checked-at") private Date eventsCheckedAt;
+    @JsonProperty("staleness-seconds") private Long stalenessSeconds;
+    private long hits;
+    private long misses;
+    private long reloads;
+
+    public ImageCatalogStatus() {}
+
+    public ImageCatalogStatus(final boolean loaded,
+                              final int images,
+                              final String etag,
+                              final Date loadedAt,
+                              final Date eventsCheckedAt,
+                              final long hits,
+                              final long misses,
+                              final long reloads) {
+        this.loaded = loaded;
+        this.images = images;
+        this.etag = etag;
+        this.loadedAt = loadedAt;
+        this.eventsCheckedAt = eventsCheckedAt;
+        this.hits = hits;
+        this.misses = misses;
+        this.reloads = reloads;
+
+        final Date current = eventsCheckedAt != null && (loadedAt == null || eventsCheckedAt.after(loadedAt)) ?
+                eventsCheckedAt : loadedAt;
+        this.stalenessSeconds = current == null ? null : (System.currentTimeMillis() - current.getTime()) / 1000L;
+    }
+
+    @ApiModelProperty("Whether the catalog has been loaded from the docker server.")
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @ApiModelProperty("Number of images in the catalog.")
+    public int getImages() {
+        return images;
+    }
+
+    @ApiModelProperty("The ETag of the current image list.")
+    public String getEtag() {
+        return etag;
+    }
+
+    @ApiModelProperty("When the catalog was last loaded in full from the docker server.")
+    public Date getLoadedAt() {
+        return loadedAt;
+    }
+
+    @ApiModelProperty("When docker image events were last applied to the catalog.")
+    public Date getEventsCheckedAt() {
+        return eventsCheckedAt;
+    }
+
+    @ApiModelProperty("Seconds since the catalog was last known to match the docker server.")
+    public Long getStalenessSeconds() {
+        return stalenessSeconds;
+    }
+
+    @ApiModelProperty("Image reads answered from the catalog.")
+    public long getHits() {
+        return hits;
+    }
+
+    @ApiModelProperty("Image reads that had to go to the docker server.")
+    public long getMisses() {
+        return misses;
+    }
+
+    @JsonProperty("hit-rate")
+    public Double getHitRate() {
+        final long reads = hits + misses;
+        return reads == 0 ? null : (double) hits / reads;
+    }
+
+    @ApiModelProperty("Number of times the catalog has been loaded in full.")
+    public long getReloads() {
+        return reloads;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("loaded", loaded)
+                .add("images", images)
+                .add("etag", etag)
+                .add("loadedAt", loadedAt)
+                .add("eventsCheckedAt", eventsCheckedAt)
+                .add("stalenessSeconds", stalenessSeconds)
+                .add("hits", hits)
+                .add("misses", misses)
+                .add("reloads", reloads)
+                .toString();
+    }
+}
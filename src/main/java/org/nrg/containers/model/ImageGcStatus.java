@@ -0,0 +1,119 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.Date;
+import java.util.List;
+
+@ApiModel(description = "Disk used by docker images, and what image garbage collection has removed.")
+public class ImageGcStatus {
+    @JsonProperty("budget-bytes") private Long budgetBytes;
+    @JsonProperty("used-bytes") private long usedBytes;
+    @JsonProperty("reclaimable-bytes") private long reclaimableBytes;
+    @JsonProperty("images") private int images;
+    @JsonProperty("pinned-images") private int pinnedImages;
+    @JsonProperty("last-run") private Date lastRun;
+    @JsonProperty("last-evicted") private List<DockerImage> lastEvicted = Lists.newArrayList();
+    @JsonProperty("reclaimed-bytes-total") private long reclaimedBytesTotal;
+    @JsonProperty("evicted-images-total") private long evictedImagesTotal;
+
+    @ApiModelProperty("Bytes of disk images may use before the least recently used are removed. Zero or null if images are never removed.")
+    public Long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public void setBudgetBytes(final Long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    @ApiModelProperty("Bytes used by all images after the last run. Layers shared between images are counted once.")
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public void setUsedBytes(final long usedBytes) {
+        this.usedBytes = usedBytes;
+    }
+
+    @ApiModelProperty("Bytes used by layers that only images no command uses have, which could be removed.")
+    public long getReclaimableBytes() {
+        return reclaimableBytes;
+    }
+
+    public void setReclaimableBytes(final long reclaimableBytes) {
+        this.reclaimableBytes = reclaimableBytes;
+    }
+
+    @ApiModelProperty("Number of images on the docker server after the last run")
+    public int getImages() {
+        return images;
+    }
+
+    public void setImages(final int images) {
+        this.images = images;
+    }
+
+    @ApiModelProperty("Number of images that a command uses, and so will never be removed")
+    public int getPinnedImages() {
+        return pinnedImages;
+    }
+
+    public void setPinnedImages(final int pinnedImages) {
+        this.pinnedImages = pinnedImages;
+    }
+
+    @ApiModelProperty("When garbage collection last ran")
+    public Date getLastRun() {
+        return lastRun;
+    }
+
+    public void setLastRun(final Date lastRun) {
+        this.lastRun = lastRun;
+    }
+
+    @ApiModelProperty("Images removed by the last run")
+    public List<DockerImage> getLastEvicted() {
+        return lastEvicted;
+    }
+
+    public void setLastEvicted(final List<DockerImage> lastEvicted) {
+        this.lastEvicted = lastEvicted == null ? Lists.<DockerImage>newArrayList() : lastEvicted;
+    }
+
+    @ApiModelProperty("Bytes reclaimed by removing images since XNAT started")
+    public long getReclaimedBytesTotal() {
+        return reclaimedBytesTotal;
+    }
+
+    public void setReclaimedBytesTotal(final long reclaimedBytesTotal) {
+        this.reclaimedBytesTotal = reclaimedBytesTotal;
+    }
+
+    @ApiModelProperty("Number of images removed since XNAT started")
+    public long getEvictedImagesTotal() {
+        return evictedImagesTotal;
+    }
+
+    public void setEvictedImagesTotal(final long evictedImagesTotal) {
+        this.evictedImagesTotal = evictedImagesTotal;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("budgetBytes", budgetBytes)
+                .add("usedBytes", usedBytes)
+                .add("reclaimableBytes", reclaimableBytes)
+                .add("images", images)
+                .add("pinnedImages", pinnedImages)
+                .add("lastRun", lastRun)
+                .add("lastEvicted", lastEvicted)
+                .add("reclaimedBytesTotal", reclaimedBytesTotal)
+                .add("evictedImagesTotal", evictedImagesTotal)
+                .toString();
+    }
+}
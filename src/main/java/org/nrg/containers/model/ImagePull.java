@@ -0,0 +1,159 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Maps;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+@ApiModel(description = "The state of an image being pulled onto the docker server.")
+public class ImagePull {
+    public static final String QUEUED = "Queued";
+    public static final String PULLING = "Pulling";
+    public static final String COMPLETE = "Complete";
+    public static final String FAILED = "Failed";
+
+    private final String id;
+    private final String image;
+    private final Date created;
+    private String status = QUEUED;
+    private Date started;
+    private Date finished;
+    private String imageId;
+    private String message;
+    private final Map<String, Long> layerBytesDownloaded = Maps.newHashMap();
+    private final Map<String, Long> layerBytesTotal = Maps.newHashMap();
+    private Future<DockerImage> future;
+
+    public ImagePull(final String image) {
+        this.id = UUID.randomUUID().toString();
+        this.image = image;
+        this.created = new Date();
+    }
+
+    @ApiModelProperty("The ID of this pull. Use it to check on the pull's progress.")
+    public String getId() {
+        return id;
+    }
+
+    @ApiModelProperty("The name and tag of the image being pulled.")
+    public String getImage() {
+        return image;
+    }
+
+    public synchronized String getStatus() {
+        return status;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public synchronized Date getStarted() {
+        return started;
+    }
+
+    public synchronized Date getFinished() {
+        return finished;
+    }
+
+    @JsonProperty("image-id")
+    @ApiModelProperty("The ID of the pulled image, once the pull is complete.")
+    public synchronized String getImageId() {
+        return imageId;
+    }
+
+    @ApiModelProperty("The most recent progress message from the docker server, or the error if the pull failed.")
+    public synchronized String getMessage() {
+        return message;
+    }
+
+    @JsonProperty("layers")
+    public synchronized int getLayers() {
+        return layerBytesTotal.size();
+    }
+
+    @JsonProperty("bytes-downloaded")
+    public synchronized long getBytesDownloaded() {
+        return sum(layerBytesDownloaded);
+    }
+
+    @JsonProperty("bytes-total")
+    @ApiModelProperty("Total size of the layers being downloaded. Grows as the docker server discovers layers.")
+    public synchronized long getBytesTotal() {
+        return sum(layerBytesTotal);
+    }
+
+    @JsonIgnore
+    public Future<DockerImage> getFuture() {
+        return future;
+    }
+
+    public void setFuture(final Future<DockerImage> future) {
+        this.future = future;
+    }
+
+    public synchronized void started() {
+        this.status = PULLING;
+        this.started = new Date();
+    }
+
+    public synchronized void progress(final String layerId, final String message, final Long current, final Long total) {
+        this.message = message;
+        if (layerId != null) {
+            if (total != null && total > 0) {
+                layerBytesTotal.put(layerId, total);
+            }
+            if (current != null) {
+                layerBytesDownloaded.put(layerId, current);
+            }
+        }
+    }
+
+    public synchronized void completed(final String imageId) {
+        this.status = COMPLETE;
+        this.imageId = imageId;
+        this.finished = new Date();
+        // Once the pull is done every layer is fully downloaded, even those the server only reported as "exists"
+        layerBytesDownloaded.putAll(layerBytesTotal);
+    }
+
+    public synchronized void failed(final String message) {
+        this.status = FAILED;
+        this.message = message;
+        this.finished = new Date();
+    }
+
+    @JsonIgnore
+    public synchronized boolean isDone() {
+        return COMPLETE.equals(status) || FAILED.equals(status);
+    }
+
+    private static long sum(final Map<String, Long> values) {
+        long sum = 0;
+        for (final Long value : values.values()) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("image", image)
+                .add("status", status)
+                .add("created", created)
+                .add("started", started)
+                .add("finished", finished)
+                .add("imageId", imageId)
+                .add("message", message)
+                .toString();
+    }
+}
@@ -0,0 +1,57 @@
+package org.nrg.containers.model;
+
+import com.google.common.base.MoreObjects;
+
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * One entry in a container execution's history, as it was stored before history was stored apart from executions.
+ * Only read, to migrate it.
+ */
+@Embeddable
+public class LegacyContainerExecutionHistory implements Serializable {
+    private String status;
+    private Date time;
+    private String exitCode;
+
+    public LegacyContainerExecutionHistory() {}
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    public Date getTime() {
+        return time;
+    }
+
+    public void setTime(final Date time) {
+        this.time = time;
+    }
+
+    public String getExitCode() {
+        return exitCode;
+    }
+
+    public void setExitCode(final String exitCode) {
+        this.exitCode = exitCode;
+    }
+
+    public ContainerExecutionHistory toHistory() {
+        return new ContainerExecutionHistory(status, time, exitCode);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("status", status)
+                .add("time", time)
+                .add("exitCode", exitCode)
+                .toString();
+    }
+}
@@ -26,12 +26,48 @@ public class ResolvedCommand implements Serializable {
     @JsonProperty("input-values") private Map<String, String> inputValues;
     private List<ContainerExecutionOutput> outputs;
     private Map<String, String> ports;
+    @JsonProperty("memory-limit") private Long memoryLimit;
+    @JsonProperty("retry-policy") private CommandRetryPolicy retryPolicy;
+    @JsonProperty("image-wait-millis") private Long imageWaitMillis;
+    @JsonProperty("cold-start") private Boolean coldStart;
+    private String project;
 
     public ResolvedCommand() {}
 
     public ResolvedCommand(final Command command) {
         this.commandId = command.getId();
         this.dockerImage = command.getDockerImage();
+        this.memoryLimit = command.getRun() == null ? null : command.getRun().getMemoryLimit();
+        this.retryPolicy = command.getRetryPolicy() == null ? null : new CommandRetryPolicy(command.getRetryPolicy());
+    }
+
+    /**
+     * Rebuild the command that was launched for a previous execution, so it can be launched again
+     * without resolving the inputs a second time.
+     */
+    public ResolvedCommand(final ContainerExecution execution) {
+        this.commandId = execution.getCommandId();
+        this.dockerImage = execution.getDockerImage();
+        this.commandLine = execution.getCommandLine();
+        setEnvironmentVariables(execution.getEnvironmentVariables());
+        setMountsIn(copyMounts(execution.getMountsIn()));
+        setMountsOut(copyMounts(execution.getMountsOut()));
+        setInputValues(execution.getInputValues());
+        setOutputs(execution.getOutputs());
+        setPorts(execution.getPorts());
+        this.memoryLimit = execution.getMemoryLimit();
+        this.retryPolicy = execution.getRetryPolicy() == null ? null : new CommandRetryPolicy(execution.getRetryPolicy());
+        this.project = execution.getProject();
+    }
+
+    private static List<ContainerExecutionMount> copyMounts(final List<ContainerExecutionMount> mounts) {
+        final List<ContainerExecutionMount> copies = Lists.newArrayList();
+        if (mounts != null) {
+            for (final ContainerExecutionMount mount : mounts) {
+                copies.add(new ContainerExecutionMount(mount));
+            }
+        }
+        return copies;
     }
 
     public Long getCommandId() {
@@ -150,6 +186,55 @@ public class ResolvedCommand implements Serializable {
                 Maps.<String, String>newHashMap();
     }
 
+    public Long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    public void setMemoryLimit(final Long memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    public CommandRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(final CommandRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * How long the launch waited for the image to be pulled. Set when the command is launched.
+     */
+    public Long getImageWaitMillis() {
+        return imageWaitMillis;
+    }
+
+    public void setImageWaitMillis(final Long imageWaitMillis) {
+        this.imageWaitMillis = imageWaitMillis;
+    }
+
+    /**
+     * Whether the image was not on the docker server when the command was launched. Set when the command is launched.
+     */
+    public Boolean getColdStart() {
+        return coldStart;
+    }
+
+    public void setColdStart(final Boolean coldStart) {
+        this.coldStart = coldStart;
+    }
+
+    /**
+     * The ID of the project whose data the command was resolved against, if it could be determined.
+     */
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(final String project) {
+        this.project = project;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -163,12 +248,15 @@ public class ResolvedCommand implements Serializable {
                 Objects.equals(this.mountsOut, that.mountsOut) &&
                 Objects.equals(this.inputValues, that.inputValues) &&
                 Objects.equals(this.outputs, that.outputs) &&
-                Objects.equals(this.ports, that.ports);
+                Objects.equals(this.ports, that.ports) &&
+                Objects.equals(this.memoryLimit, that.memoryLimit) &&
+                Objects.equals(this.retryPolicy, that.retryPolicy) &&
+                Objects.equals(this.project, that.project);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(commandId, commandLine, dockerImage, environmentVariables, mountsIn, mountsOut, inputValues, outputs, ports);
+        return Objects.hash(commandId, commandLine, dockerImage, environmentVariables, mountsIn, mountsOut, inputValues, outputs, ports, memoryLimit, retryPolicy, project);
     }
 
     @Override
@@ -183,6 +271,9 @@ public class ResolvedCommand implements Serializable {
                 .add("inputValues", inputValues)
                 .add("outputs", outputs)
                 .add("ports", ports)
+                .add("memoryLimit", memoryLimit)
+                .add("retryPolicy", retryPolicy)
+                .add("project", project)
                 .toString();
     }
 }
@@ -0,0 +1,139 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.MoreObjects.ToStringHelper;
+import com.google.common.collect.Lists;
+import io.swagger.annotations.ApiModelProperty;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.UniqueConstraint;
+import java.util.List;
+import java.util.Objects;
+
+@Entity
+@Table(uniqueConstraints = {@UniqueConstraint(columnNames = {"name"})})
+public class Workflow extends AbstractHibernateEntity {
+    private String name;
+    private String description;
+    private List<WorkflowStep> steps = Lists.newArrayList();
+    private List<WorkflowEdge> edges = Lists.newArrayList();
+
+    @Nonnull
+    @ApiModelProperty(value = "The Workflow's user-readable name. Must be unique.", required = true)
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    @Nullable
+    @ApiModelProperty("A brief description of the Workflow")
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(final String description) {
+        this.description = description;
+    }
+
+    @ElementCollection
+    @ApiModelProperty("The steps of the Workflow. Each step launches one Command.")
+    public List<WorkflowStep> getSteps() {
+        return steps;
+    }
+
+    public void setSteps(final List<WorkflowStep> steps) {
+        this.steps = steps == null ?
+                Lists.<WorkflowStep>newArrayList() :
+                steps;
+    }
+
+    @ElementCollection
+    @ApiModelProperty("Connections from an output of one step to an input of another. " +
+            "A step is launched once every step upstream of it has been finalized.")
+    public List<WorkflowEdge> getEdges() {
+        return edges;
+    }
+
+    public void setEdges(final List<WorkflowEdge> edges) {
+        this.edges = edges == null ?
+                Lists.<WorkflowEdge>newArrayList() :
+                edges;
+    }
+
+    @Transient
+    @JsonIgnore
+    public WorkflowStep getStep(final String stepName) {
+        for (final WorkflowStep step : steps) {
+            if (step.getName().equals(stepName)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    @Transient
+    @JsonIgnore
+    public List<WorkflowEdge> getEdgesInto(final String stepName) {
+        final List<WorkflowEdge> into = Lists.newArrayList();
+        for (final WorkflowEdge edge : edges) {
+            if (edge.getToStep().equals(stepName)) {
+                into.add(edge);
+            }
+        }
+        return into;
+    }
+
+    @Transient
+    @JsonIgnore
+    public List<WorkflowEdge> getEdgesOutOf(final String stepName) {
+        final List<WorkflowEdge> outOf = Lists.newArrayList();
+        for (final WorkflowEdge edge : edges) {
+            if (edge.getFromStep().equals(stepName)) {
+                outOf.add(edge);
+            }
+        }
+        return outOf;
+    }
+
+    @Override
+    public ToStringHelper addParentPropertiesToString(final ToStringHelper helper) {
+        return super.addParentPropertiesToString(helper)
+                .add("name", name)
+                .add("description", description)
+                .add("steps", steps)
+                .add("edges", edges);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final Workflow that = (Workflow) o;
+        return Objects.equals(this.getId(), that.getId()) &&
+                Objects.equals(this.name, that.name) &&
+                Objects.equals(this.description, that.description) &&
+                Objects.equals(this.steps, that.steps) &&
+                Objects.equals(this.edges, that.edges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, description, steps, edges);
+    }
+
+    @Override
+    public String toString() {
+        return addParentPropertiesToString(MoreObjects.toStringHelper(this))
+                .toString();
+    }
+}
@@ -0,0 +1,88 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class WorkflowEdge implements Serializable {
+    @JsonProperty(value = "from-step", required = true) private String fromStep;
+    @JsonProperty(value = "from-output", required = true) private String fromOutput;
+    @JsonProperty(value = "to-step", required = true) private String toStep;
+    @JsonProperty(value = "to-input", required = true) private String toInput;
+
+    public WorkflowEdge() {}
+
+    public WorkflowEdge(final String fromStep, final String fromOutput, final String toStep, final String toInput) {
+        this.fromStep = fromStep;
+        this.fromOutput = fromOutput;
+        this.toStep = toStep;
+        this.toInput = toInput;
+    }
+
+    @ApiModelProperty(value = "The name of the upstream step.", required = true)
+    public String getFromStep() {
+        return fromStep;
+    }
+
+    public void setFromStep(final String fromStep) {
+        this.fromStep = fromStep;
+    }
+
+    @ApiModelProperty(value = "The name of an output of the upstream step's Command.", required = true)
+    public String getFromOutput() {
+        return fromOutput;
+    }
+
+    public void setFromOutput(final String fromOutput) {
+        this.fromOutput = fromOutput;
+    }
+
+    @ApiModelProperty(value = "The name of the downstream step.", required = true)
+    public String getToStep() {
+        return toStep;
+    }
+
+    public void setToStep(final String toStep) {
+        this.toStep = toStep;
+    }
+
+    @ApiModelProperty(value = "The name of an input of the downstream step's Command, which receives the object created from the output.", required = true)
+    public String getToInput() {
+        return toInput;
+    }
+
+    public void setToInput(final String toInput) {
+        this.toInput = toInput;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final WorkflowEdge that = (WorkflowEdge) o;
+        return Objects.equals(this.fromStep, that.fromStep) &&
+                Objects.equals(this.fromOutput, that.fromOutput) &&
+                Objects.equals(this.toStep, that.toStep) &&
+                Objects.equals(this.toInput, that.toInput);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fromStep, fromOutput, toStep, toInput);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("fromStep", fromStep)
+                .add("fromOutput", fromOutput)
+                .add("toStep", toStep)
+                .add("toInput", toInput)
+                .toString();
+    }
+}
@@ -0,0 +1,164 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.MoreObjects.ToStringHelper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntity;
+
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.Transient;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Entity
+public class WorkflowExecution extends AbstractHibernateEntity {
+    public static final String RUNNING = "Running";
+    public static final String COMPLETE = "Complete";
+    public static final String FAILED = "Failed";
+
+    @JsonProperty("workflow-id") private Long workflowId;
+    @JsonProperty("user-id") private String userId;
+    private String status = RUNNING;
+    private Date launched;
+    @JsonProperty("runtime-values") private Map<String, String> runtimeValues = Maps.newHashMap();
+    private List<WorkflowStepExecution> steps = Lists.newArrayList();
+
+    public WorkflowExecution() {}
+
+    public WorkflowExecution(final Workflow workflow,
+                             final Map<String, String> runtimeValues,
+                             final String userId) {
+        this.workflowId = workflow.getId();
+        this.userId = userId;
+        this.runtimeValues = runtimeValues == null ?
+                Maps.<String, String>newHashMap() :
+                Maps.newHashMap(runtimeValues);
+        for (final WorkflowStep step : workflow.getSteps()) {
+            steps.add(new WorkflowStepExecution(step.getName()));
+        }
+    }
+
+    public Long getWorkflowId() {
+        return workflowId;
+    }
+
+    public void setWorkflowId(final Long workflowId) {
+        this.workflowId = workflowId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(final String userId) {
+        this.userId = userId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    public Date getLaunched() {
+        return launched;
+    }
+
+    public void setLaunched(final Date launched) {
+        this.launched = launched;
+    }
+
+    @ElementCollection
+    @Column(columnDefinition = "TEXT")
+    public Map<String, String> getRuntimeValues() {
+        return runtimeValues;
+    }
+
+    public void setRuntimeValues(final Map<String, String> runtimeValues) {
+        this.runtimeValues = runtimeValues;
+    }
+
+    @ElementCollection
+    public List<WorkflowStepExecution> getSteps() {
+        return steps;
+    }
+
+    public void setSteps(final List<WorkflowStepExecution> steps) {
+        this.steps = steps;
+    }
+
+    @Transient
+    @JsonIgnore
+    public WorkflowStepExecution getStep(final String stepName) {
+        for (final WorkflowStepExecution step : steps) {
+            if (step.getStepName().equals(stepName)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the step that launched a container execution.
+     *
+     * @param containerExecutionIds IDs of the execution and, if it was a retry, of the execution it retried
+     * @return The step, or null if no step of this workflow launched any of those executions
+     */
+    @Transient
+    @JsonIgnore
+    public WorkflowStepExecution getStepForContainerExecution(final Long... containerExecutionIds) {
+        for (final WorkflowStepExecution step : steps) {
+            for (final Long containerExecutionId : containerExecutionIds) {
+                if (containerExecutionId != null && containerExecutionId.equals(step.getContainerExecutionId())) {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public ToStringHelper addParentPropertiesToString(final ToStringHelper helper) {
+        return super.addParentPropertiesToString(helper)
+                .add("workflowId", workflowId)
+                .add("userId", userId)
+                .add("status", status)
+                .add("launched", launched)
+                .add("runtimeValues", runtimeValues)
+                .add("steps", steps);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final WorkflowExecution that = (WorkflowExecution) o;
+        return Objects.equals(this.getId(), that.getId()) &&
+                Objects.equals(this.workflowId, that.workflowId) &&
+                Objects.equals(this.userId, that.userId) &&
+                Objects.equals(this.status, that.status) &&
+                Objects.equals(this.launched, that.launched) &&
+                Objects.equals(this.runtimeValues, that.runtimeValues) &&
+                Objects.equals(this.steps, that.steps);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(workflowId, userId, status, launched, runtimeValues, steps);
+    }
+
+    @Override
+    public String toString() {
+        return addParentPropertiesToString(MoreObjects.toStringHelper(this))
+                .toString();
+    }
+}
@@ -0,0 +1,62 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import io.swagger.annotations.ApiModelProperty;
+
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class WorkflowStep implements Serializable {
+    @JsonProperty(required = true) private String name;
+    @JsonProperty(value = "command-id", required = true) private Long commandId;
+
+    public WorkflowStep() {}
+
+    public WorkflowStep(final String name, final Long commandId) {
+        this.name = name;
+        this.commandId = commandId;
+    }
+
+    @ApiModelProperty(value = "The step's name. Must be unique within the workflow.", required = true)
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    @ApiModelProperty(value = "The ID of the Command this step launches.", required = true)
+    public Long getCommandId() {
+        return commandId;
+    }
+
+    public void setCommandId(final Long commandId) {
+        this.commandId = commandId;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final WorkflowStep that = (WorkflowStep) o;
+        return Objects.equals(this.name, that.name) &&
+                Objects.equals(this.commandId, that.commandId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, commandId);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("commandId", commandId)
+                .toString();
+    }
+}
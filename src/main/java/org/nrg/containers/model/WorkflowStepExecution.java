@@ -0,0 +1,123 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+@Embeddable
+public class WorkflowStepExecution implements Serializable {
+    public static final String WAITING = "Waiting";
+    public static final String RUNNING = "Running";
+    public static final String COMPLETE = "Complete";
+    public static final String FAILED = "Failed";
+    public static final String SKIPPED = "Skipped";
+
+    @JsonProperty("step") private String stepName;
+    @JsonProperty("container-execution-id") private Long containerExecutionId;
+    private String status = WAITING;
+    private Date ready;
+    private Date launched;
+    private Date exited;
+    private Date finalized;
+
+    public WorkflowStepExecution() {}
+
+    public WorkflowStepExecution(final String stepName) {
+        this.stepName = stepName;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    public void setStepName(final String stepName) {
+        this.stepName = stepName;
+    }
+
+    public Long getContainerExecutionId() {
+        return containerExecutionId;
+    }
+
+    public void setContainerExecutionId(final Long containerExecutionId) {
+        this.containerExecutionId = containerExecutionId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(final String status) {
+        this.status = status;
+    }
+
+    /**
+     * When every step upstream of this one had been finalized, or when the workflow was launched if this step has no upstream.
+     */
+    public Date getReady() {
+        return ready;
+    }
+
+    public void setReady(final Date ready) {
+        this.ready = ready;
+    }
+
+    public Date getLaunched() {
+        return launched;
+    }
+
+    public void setLaunched(final Date launched) {
+        this.launched = launched;
+    }
+
+    public Date getExited() {
+        return exited;
+    }
+
+    public void setExited(final Date exited) {
+        this.exited = exited;
+    }
+
+    public Date getFinalized() {
+        return finalized;
+    }
+
+    public void setFinalized(final Date finalized) {
+        this.finalized = finalized;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final WorkflowStepExecution that = (WorkflowStepExecution) o;
+        return Objects.equals(this.stepName, that.stepName) &&
+                Objects.equals(this.containerExecutionId, that.containerExecutionId) &&
+                Objects.equals(this.status, that.status) &&
+                Objects.equals(this.ready, that.ready) &&
+                Objects.equals(this.launched, that.launched) &&
+                Objects.equals(this.exited, that.exited) &&
+                Objects.equals(this.finalized, that.finalized);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(stepName, containerExecutionId, status, ready, launched, exited, finalized);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("stepName", stepName)
+                .add("containerExecutionId", containerExecutionId)
+                .add("status", status)
+                .add("ready", ready)
+                .add("launched", launched)
+                .add("exited", exited)
+                .add("finalized", finalized)
+                .toString();
+    }
+}
@@ -0,0 +1,133 @@
+package org.nrg.containers.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.Lists;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Where the time went in a workflow execution: per step, how long it waited to be launched,
+ * how long its container ran, and how long it took to finalize; plus the chain of steps that
+ * determined the workflow's total time.
+ */
+public class WorkflowTiming {
+    @JsonProperty("workflow-execution-id") private Long workflowExecutionId;
+    @JsonProperty("total-millis") private Long totalMillis;
+    @JsonProperty("critical-path") private List<String> criticalPath = Lists.newArrayList();
+    private List<StepTiming> steps = Lists.newArrayList();
+
+    public WorkflowTiming() {}
+
+    public WorkflowTiming(final WorkflowExecution execution, final Workflow workflow) {
+        this.workflowExecutionId = execution.getId();
+
+        WorkflowStepExecution last = null;
+        for (final WorkflowStepExecution step : execution.getSteps()) {
+            steps.add(new StepTiming(step));
+            if (step.getFinalized() != null &&
+                    (last == null || step.getFinalized().after(last.getFinalized()))) {
+                last = step;
+            }
+        }
+
+        if (last != null && execution.getLaunched() != null) {
+            totalMillis = last.getFinalized().getTime() - execution.getLaunched().getTime();
+        }
+
+        // Walk back from the step that finished last, through whichever upstream step finished last
+        WorkflowStepExecution current = last;
+        while (current != null) {
+            criticalPath.add(0, current.getStepName());
+            WorkflowStepExecution slowestUpstream = null;
+            for (final WorkflowEdge edge : workflow.getEdgesInto(current.getStepName())) {
+                final WorkflowStepExecution upstream = execution.getStep(edge.getFromStep());
+                if (upstream != null && upstream.getFinalized() != null &&
+                        (slowestUpstream == null || upstream.getFinalized().after(slowestUpstream.getFinalized()))) {
+                    slowestUpstream = upstream;
+                }
+            }
+            current = slowestUpstream;
+        }
+    }
+
+    public Long getWorkflowExecutionId() {
+        return workflowExecutionId;
+    }
+
+    public Long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public List<String> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public List<StepTiming> getSteps() {
+        return steps;
+    }
+
+    private static Long between(final Date start, final Date end) {
+        return start == null || end == null ? null : end.getTime() - start.getTime();
+    }
+
+    public static class StepTiming {
+        private String step;
+        private String status;
+        @JsonProperty("queue-millis") private Long queueMillis;
+        @JsonProperty("run-millis") private Long runMillis;
+        @JsonProperty("finalize-millis") private Long finalizeMillis;
+
+        public StepTiming() {}
+
+        public StepTiming(final WorkflowStepExecution stepExecution) {
+            this.step = stepExecution.getStepName();
+            this.status = stepExecution.getStatus();
+            this.queueMillis = between(stepExecution.getReady(), stepExecution.getLaunched());
+            this.runMillis = between(stepExecution.getLaunched(), stepExecution.getExited());
+            this.finalizeMillis = between(stepExecution.getExited(), stepExecution.getFinalized());
+        }
+
+        public String getStep() {
+            return step;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Long getQueueMillis() {
+            return queueMillis;
+        }
+
+        public Long getRunMillis() {
+            return runMillis;
+        }
+
+        public Long getFinalizeMillis() {
+            return finalizeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("step", step)
+                    .add("status", status)
+                    .add("queueMillis", queueMillis)
+                    .add("runMillis", runMillis)
+                    .add("finalizeMillis", finalizeMillis)
+                    .toString();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("workflowExecutionId", workflowExecutionId)
+                .add("totalMillis", totalMillis)
+                .add("criticalPath", criticalPath)
+                .add("steps", steps)
+                .toString();
+    }
+}
@@ -0,0 +1,166 @@
+package org.nrg.containers.model.xnat;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the file entries of a resource catalog one at a time, as the catalog XML is read. Only the current entry
+ * is held, so a catalog of any size is read in the same memory, and reading can stop after the entries needed.
+ *
+ * <p>Entries in nested entry sets are read too. An entry's path is its URI, resolved against the catalog's
+ * directory unless it is absolute. Entries whose file is not on disk are skipped. The reader closes the catalog when the last entry has been read; a caller
+ * that stops sooner must {@link #close()} it.</p>
+ */
+public class CatalogEntryReader implements Iterator<XnatFile>, Closeable {
+    private static final String ENTRY = "entry";
+    private static final String TAG = "tag";
+
+    private final String resourceUri;
+    private final File directory;
+    private final InputStream in;
+    private final XMLStreamReader reader;
+    private XnatFile next;
+    private boolean closed;
+
+    /**
+     * @param resourceUri URI of the resource, under which each file's URI is made
+     * @param catalogFile The resource's catalog. A name ending in ".gz" is read as gzipped.
+     * @throws IOException If the catalog cannot be opened
+     */
+    public CatalogEntryReader(final String resourceUri, final File catalogFile) throws IOException {
+        this.resourceUri = resourceUri;
+        this.directory = catalogFile.getParentFile();
+
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+
+        final InputStream file = new BufferedInputStream(new FileInputStream(catalogFile));
+        try {
+            in = catalogFile.getName().endsWith(".gz") ? new GZIPInputStream(file) : file;
+            reader = factory.createXMLStreamReader(in);
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+            file.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Cannot read catalog " + catalogFile, e);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException If the catalog is not well formed
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            next = readEntry();
+        }
+        return next != null;
+    }
+
+    @Override
+    public XnatFile next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final XnatFile entry = next;
+        next = null;
+        return entry;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Catalog entries are read-only.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } catch (XMLStreamException ignored) {
+            // The stream is closed below either way
+        } finally {
+            in.close();
+        }
+    }
+
+    private XnatFile readEntry() {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && ENTRY.equals(reader.getLocalName())) {
+                    final XnatFile entry = readEntryElement();
+                    if (entry != null) {
+                        return entry;
+                    }
+                }
+            }
+            close();
+            return null;
+        } catch (XMLStreamException | IOException e) {
+            closeQuietly();
+            throw new IllegalStateException("Cannot read catalog entries of resource " + resourceUri, e);
+        }
+    }
+
+    // Reads the attributes and tags of the entry the reader is on, through the end of the entry. Null if it has no URI
+    // or its file does not exist.
+    private XnatFile readEntryElement() throws XMLStreamException {
+        final String uri = reader.getAttributeValue(null, "URI");
+        final String format = reader.getAttributeValue(null, "format");
+        final String content = reader.getAttributeValue(null, "content");
+
+        final List<String> tags = Lists.newArrayList();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (TAG.equals(reader.getLocalName())) {
+                        // Reads through the end of the tag, which leaves the depth as it was
+                        tags.add(StringUtils.trim(reader.getElementText()));
+                    } else {
+                        depth++;
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+            }
+        }
+
+        if (StringUtils.isBlank(uri)) {
+            return null;
+        }
+        final File file = new File(uri).isAbsolute() ? new File(uri) : new File(directory, uri);
+        if (!file.exists()) {
+            return null;
+        }
+        return new XnatFile(resourceUri, file.getName(), file.getAbsolutePath(), Joiner.on(",").join(tags), format, content, file);
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // Already failing
+        }
+    }
+}
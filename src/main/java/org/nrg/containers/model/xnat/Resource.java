@@ -6,24 +6,32 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.Lists;
-import org.nrg.xdat.bean.CatCatalogBean;
 import org.nrg.xdat.model.XnatResourcecatalogI;
 import org.nrg.xdat.om.XnatResourcecatalog;
 import org.nrg.xft.security.UserI;
-import org.nrg.xnat.utils.CatalogUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 
 @JsonInclude(Include.NON_NULL)
 public class Resource extends XnatModelObject {
+    private static final Logger log = LoggerFactory.getLogger(Resource.class);
     public static Type type = Type.RESOURCE;
 
     @JsonIgnore private XnatResourcecatalog xnatResourcecatalog;
+    @JsonIgnore private File catalogFile;
     @JsonProperty(value = "parent-id") private String parentId;
     private String directory;
-    private List<XnatFile> files;
+    @JsonProperty(value = "file-count") private Integer fileCount;
+    @JsonProperty(value = "file-size") private Long fileSize;
+    // Serialized from the field, so writing a resource never reads its catalog
+    @JsonProperty(value = "files") private List<XnatFile> files;
 
     public Resource() {}
 
@@ -45,15 +53,11 @@ public class Resource extends XnatModelObject {
 
         this.parentId = parentId;
 
-        final CatCatalogBean cat = xnatResourcecatalog.getCleanCatalog(rootArchivePath, true, null, null);
-        this.directory = xnatResourcecatalog.getCatalogFile(rootArchivePath).getParent();
-
-        final List<Object[]> entryDetails = CatalogUtils.getEntryDetails(cat, this.directory, null, xnatResourcecatalog, true, null, null, "absolutePath");
-        this.files = Lists.newArrayList();
-        for (final Object[] entry: entryDetails) {
-            // See CatalogUtils.getEntryDetails to see where all these "entry" elements come from
-            files.add(new XnatFile(this.uri, (String) entry[0], (String) entry[2], (String) entry[4], (String) entry[5], (String) entry[6], (File) entry[8]));
-        }
+        // The catalog is not read until the files are wanted. The count and size are the resource's own stats.
+        this.catalogFile = xnatResourcecatalog.getCatalogFile(rootArchivePath);
+        this.directory = catalogFile.getParent();
+        this.fileCount = toInteger(xnatResourcecatalog.getFileCount());
+        this.fileSize = toLong(xnatResourcecatalog.getFileSize());
     }
 
     public XnatResourcecatalog loadXnatResourcecatalog(final UserI userI) {
@@ -85,18 +89,103 @@ public class Resource extends XnatModelObject {
         this.directory = directory;
     }
 
+    /**
+     * Path of the resource's catalog, so a resource read back from JSON can still read its files when they are wanted.
+     */
+    @JsonProperty(value = "catalog-path")
+    public String getCatalogPath() {
+        return catalogFile == null ? null : catalogFile.getPath();
+    }
+
+    public void setCatalogPath(final String catalogPath) {
+        this.catalogFile = catalogPath == null ? null : new File(catalogPath);
+    }
+
+    /**
+     * The resource's files, read from its catalog the first time they are wanted. To go through the files of a
+     * large resource without holding them all, use {@link #iterateFiles()} or {@link #getFiles(int, int)}.
+     */
+    @JsonIgnore
     public List<XnatFile> getFiles() {
+        if (files == null && catalogFile != null) {
+            files = getFiles(0, Integer.MAX_VALUE);
+        }
         return files;
     }
 
+    /**
+     * A page of the resource's files, in catalog order. Entries before the page are read but not kept.
+     *
+     * @param offset How many files to skip
+     * @param limit The most files to return
+     */
+    public List<XnatFile> getFiles(final int offset, final int limit) {
+        if (files != null || catalogFile == null) {
+            final List<XnatFile> all = files == null ? Collections.<XnatFile>emptyList() : files;
+            return Lists.newArrayList(all.subList(Math.min(offset, all.size()), (int) Math.min((long) offset + limit, all.size())));
+        }
+
+        final List<XnatFile> page = Lists.newArrayList();
+        try (final CatalogEntryReader reader = new CatalogEntryReader(uri, catalogFile)) {
+            for (int skipped = 0; skipped < offset && reader.hasNext(); skipped++) {
+                reader.next();
+            }
+            while (page.size() < limit && reader.hasNext()) {
+                page.add(reader.next());
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.error("Could not read the catalog of resource " + uri, e);
+        }
+        return page;
+    }
+
+    /**
+     * Go through the resource's files one at a time, reading its catalog as they are wanted. If the iterator is
+     * not read to the end, close it if it is {@link java.io.Closeable}.
+     */
+    public Iterator<XnatFile> iterateFiles() {
+        if (files != null || catalogFile == null) {
+            return files == null ? Collections.<XnatFile>emptyIterator() : files.iterator();
+        }
+        try {
+            return new CatalogEntryReader(uri, catalogFile);
+        } catch (IOException e) {
+            log.error("Could not read the catalog of resource " + uri, e);
+            return Collections.emptyIterator();
+        }
+    }
+
     public void setFiles(final List<XnatFile> files) {
         this.files = files;
     }
 
+    /**
+     * How many files the resource holds, as XNAT last counted them, without reading the catalog. Null if not counted.
+     */
+    public Integer getFileCount() {
+        return fileCount;
+    }
+
+    public void setFileCount(final Integer fileCount) {
+        this.fileCount = fileCount;
+    }
+
+    /**
+     * How many bytes the resource's files hold, as XNAT last counted them, without reading the catalog. Null if not counted.
+     */
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(final Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
     public Type getType() {
         return type;
     }
 
+    // Files are not compared: whether they have been read from the catalog yet is not part of what a resource is
     @Override
     public boolean equals(final Object o) {
         if (this == o) return true;
@@ -105,12 +194,13 @@ public class Resource extends XnatModelObject {
         final Resource that = (Resource) o;
         return Objects.equals(this.parentId, that.parentId) &&
                 Objects.equals(this.directory, that.directory) &&
-                Objects.equals(this.files, that.files);
+                Objects.equals(this.fileCount, that.fileCount) &&
+                Objects.equals(this.fileSize, that.fileSize);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), parentId, directory, files);
+        return Objects.hash(super.hashCode(), parentId, directory, fileCount, fileSize);
     }
 
     @Override
@@ -118,7 +208,25 @@ public class Resource extends XnatModelObject {
         return addParentPropertiesToString(MoreObjects.toStringHelper(this))
                 .add("parentId", parentId)
                 .add("directory", directory)
+                .add("fileCount", fileCount)
+                .add("fileSize", fileSize)
                 .add("files", files)
                 .toString();
     }
+
+    private static Integer toInteger(final Object value) {
+        final Long asLong = toLong(value);
+        return asLong == null ? null : asLong.intValue();
+    }
+
+    private static Long toLong(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return value == null ? null : Long.valueOf(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
@@ -1,10 +1,16 @@
 package org.nrg.containers.rest;
 
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.exceptions.BadRequestException;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoServerPrefException;
 import org.nrg.containers.exceptions.NotFoundException;
 import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionStatsSummary;
+import org.nrg.containers.model.ContainerExecutionSummary;
+import org.nrg.containers.services.ArchivedContainerExecutionService;
 import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.ContainerExecutionStatsService;
 import org.nrg.framework.annotations.XapiRestController;
 import org.nrg.prefs.exceptions.InvalidPreferenceName;
 import org.nrg.xdat.XDAT;
@@ -13,15 +19,18 @@ import org.nrg.xdat.security.services.RoleHolder;
 import org.nrg.xdat.security.services.UserManagementServiceI;
 import org.nrg.xft.security.UserI;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.util.Date;
 import java.util.List;
 
 import static org.springframework.web.bind.annotation.RequestMethod.DELETE;
@@ -34,19 +43,95 @@ public class ContainerExecutionRestApi extends AbstractXapiRestController {
     private static final String JSON = MediaType.APPLICATION_JSON_UTF8_VALUE;
 
     private ContainerExecutionService containerExecutionService;
+    private ArchivedContainerExecutionService archivedContainerExecutionService;
+    private ContainerExecutionStatsService containerExecutionStatsService;
 
     @Autowired
     public ContainerExecutionRestApi(final ContainerExecutionService containerExecutionService,
+                                     final ArchivedContainerExecutionService archivedContainerExecutionService,
+                                     final ContainerExecutionStatsService containerExecutionStatsService,
                                      final UserManagementServiceI userManagementService,
                                      final RoleHolder roleHolder) {
         super(userManagementService, roleHolder);
         this.containerExecutionService = containerExecutionService;
+        this.archivedContainerExecutionService = archivedContainerExecutionService;
+        this.containerExecutionStatsService = containerExecutionStatsService;
     }
 
-    @RequestMapping(method = GET)
+    /**
+     * List executions, newest first. To get the next page, pass the ID of the last execution on this page as "before".
+     * Only a summary of each execution is returned; get one execution for its inputs, mounts, outputs, and history.
+     */
+    @RequestMapping(method = GET, produces = JSON)
     @ResponseBody
-    public List<ContainerExecution> getAll() {
-        return containerExecutionService.getAll();
+    public List<ContainerExecutionSummary> getAll(final @RequestParam(value = "status", required = false) String status,
+                                                  final @RequestParam(value = "command-id", required = false) Long commandId,
+                                                  final @RequestParam(value = "user", required = false) String userId,
+                                                  final @RequestParam(value = "project", required = false) String project,
+                                                  final @RequestParam(value = "since", required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date since,
+                                                  final @RequestParam(value = "until", required = false)
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date until,
+                                                  final @RequestParam(value = "before", required = false) Long before,
+                                                  final @RequestParam(value = "limit", required = false) Integer limit) {
+        return containerExecutionService.getSummaries(status, commandId, userId, project, since, until, before, limit);
+    }
+
+    /**
+     * List executions that were given an XNAT object as an input, newest first. Find the object by its URI, e.g.
+     * /experiments/XNAT_E00001, or by its ID. To get the next page, pass the ID of the last execution on this page as "before".
+     */
+    @RequestMapping(value = "/by-object", method = GET, produces = JSON)
+    @ResponseBody
+    public List<ContainerExecutionSummary> getByObject(final @RequestParam(value = "uri", required = false) String uri,
+                                                       final @RequestParam(value = "id", required = false) String xnatId,
+                                                       final @RequestParam(value = "before", required = false) Long before,
+                                                       final @RequestParam(value = "limit", required = false) Integer limit)
+            throws BadRequestException {
+        if (StringUtils.isBlank(uri) && StringUtils.isBlank(xnatId)) {
+            throw new BadRequestException("Give the URI or ID of an XNAT object.");
+        }
+        return containerExecutionService.getSummariesByObject(uri, xnatId, before, limit);
+    }
+
+    /**
+     * List archived executions, newest first. Executions are archived some days after they finish; see the
+     * docker server's "execution-archive-days". To get the next page, pass the ID of the last execution on this page as "before".
+     */
+    @RequestMapping(value = "/archive", method = GET, produces = JSON)
+    @ResponseBody
+    public List<ContainerExecutionSummary> getArchived(final @RequestParam(value = "command-id", required = false) Long commandId,
+                                                       final @RequestParam(value = "user", required = false) String userId,
+                                                       final @RequestParam(value = "project", required = false) String project,
+                                                       final @RequestParam(value = "uri", required = false) String uri,
+                                                       final @RequestParam(value = "since", required = false)
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date since,
+                                                       final @RequestParam(value = "until", required = false)
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date until,
+                                                       final @RequestParam(value = "before", required = false) Long before,
+                                                       final @RequestParam(value = "limit", required = false) Integer limit) {
+        return archivedContainerExecutionService.getSummaries(commandId, userId, project, uri, since, until, before, limit);
+    }
+
+    @RequestMapping(value = "/archive/{id}", method = GET, produces = JSON)
+    @ResponseBody
+    public String getArchivedOne(final @PathVariable Long id) throws NotFoundException {
+        return archivedContainerExecutionService.getDocument(id);
+    }
+
+    /**
+     * Counts and durations of finalized executions per command, project, outcome, and UTC day. These are kept up
+     * to date as executions are finalized, so the executions themselves are not read.
+     */
+    @RequestMapping(value = "/stats", method = GET, produces = JSON)
+    @ResponseBody
+    public List<ContainerExecutionStatsSummary> getStats(final @RequestParam(value = "command-id", required = false) Long commandId,
+                                                         final @RequestParam(value = "project", required = false) String project,
+                                                         final @RequestParam(value = "since", required = false)
+                                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date since,
+                                                         final @RequestParam(value = "until", required = false)
+                                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date until) {
+        return containerExecutionStatsService.getStats(commandId, project, since, until);
     }
 
     @RequestMapping(value = "/{id}", method = GET)
@@ -85,6 +170,12 @@ public class ContainerExecutionRestApi extends AbstractXapiRestController {
         return e.getMessage();
     }
 
+    @ResponseStatus(value = HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(value = {BadRequestException.class})
+    public String handleBadRequest(final Exception e) {
+        return e.getMessage();
+    }
+
     @ResponseStatus(value = HttpStatus.FAILED_DEPENDENCY)
     @ExceptionHandler(value = {NoServerPrefException.class})
     public String handleFailedDependency() {
@@ -11,9 +11,13 @@ import org.nrg.containers.exceptions.NoServerPrefException;
 import org.nrg.containers.exceptions.NotFoundException;
 import org.nrg.containers.exceptions.UnauthorizedException;
 import org.nrg.containers.model.Command;
+import org.nrg.containers.model.CommandImportReport;
 import org.nrg.containers.model.DockerHub;
 import org.nrg.containers.model.DockerImage;
 import org.nrg.containers.model.DockerServer;
+import org.nrg.containers.model.ImageCatalogStatus;
+import org.nrg.containers.model.ImageGcStatus;
+import org.nrg.containers.model.ImagePull;
 import org.nrg.containers.services.DockerService;
 import org.nrg.framework.annotations.XapiRestController;
 import org.nrg.framework.exceptions.NrgServiceRuntimeException;
@@ -38,6 +42,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -133,21 +138,54 @@ public class DockerRestApi extends AbstractXapiRestController {
         return dockerService.pingHub(id);
     }
 
-    @RequestMapping(value = "/hubs/{id}/pull", params = {"image"}, method = POST)
-    public void pullImageFromHub(final @PathVariable Long hubId,
-                                 final @RequestParam(value = "image") String image,
-                                 final @RequestParam(value = "save-commands", defaultValue = "true")
-                                             Boolean saveCommands)
+    @ApiOperation(value = "Pull an image from a Docker Hub",
+            notes = "Starts pulling the image in the background, and returns the pull. If the image is already being pulled, returns that pull.",
+            code = 202)
+    @ApiResponses({
+            @ApiResponse(code = 202, message = "The pull has started", response = ImagePull.class),
+            @ApiResponse(code = 404, message = "No Docker Hub with the given id"),
+            @ApiResponse(code = 424, message = "Admin must set up Docker server."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @RequestMapping(value = "/hubs/{id}/pull", params = {"image"}, method = POST, produces = JSON)
+    public ResponseEntity<ImagePull> pullImageFromHub(final @PathVariable("id") Long hubId,
+                                                      final @RequestParam(value = "image") String image,
+                                                      final @RequestParam(value = "save-commands", defaultValue = "true")
+                                                              Boolean saveCommands)
             throws DockerServerException, NotFoundException, NoServerPrefException {
-        dockerService.pullFromHub(hubId, image, saveCommands);
+        return new ResponseEntity<>(dockerService.startPullFromHub(hubId, image, saveCommands), HttpStatus.ACCEPTED);
     }
 
-    @RequestMapping(value = "/images/pull", params = {"image"}, method = POST)
-    public void pullImageFromDefaultHub(final @RequestParam(value = "image") String image,
-                                        final @RequestParam(value = "save-commands", defaultValue = "true")
-                                                Boolean saveCommands)
-            throws DockerServerException, NotFoundException, NoServerPrefException {
-        dockerService.pullFromHub(image, saveCommands);
+    @ApiOperation(value = "Pull an image from the default Docker Hub",
+            notes = "Starts pulling the image in the background, and returns the pull. If the image is already being pulled, returns that pull.",
+            code = 202)
+    @ApiResponses({
+            @ApiResponse(code = 202, message = "The pull has started", response = ImagePull.class),
+            @ApiResponse(code = 424, message = "Admin must set up Docker server."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @RequestMapping(value = "/images/pull", params = {"image"}, method = POST, produces = JSON)
+    public ResponseEntity<ImagePull> pullImageFromDefaultHub(final @RequestParam(value = "image") String image,
+                                                             final @RequestParam(value = "save-commands", defaultValue = "true")
+                                                                     Boolean saveCommands)
+            throws DockerServerException, NoServerPrefException {
+        return new ResponseEntity<>(dockerService.startPullFromHub(image, saveCommands), HttpStatus.ACCEPTED);
+    }
+
+    @ApiOperation(value = "Get recent image pulls", notes = "Returns pulls that are running, and pulls that finished recently.")
+    @RequestMapping(value = "/images/pulls", method = GET, produces = JSON)
+    @ResponseBody
+    public List<ImagePull> getPulls() {
+        return dockerService.getPulls();
+    }
+
+    @ApiOperation(value = "Get an image pull", notes = "Returns the status and progress of an image pull.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Found the pull"),
+            @ApiResponse(code = 404, message = "No recent pull with the given id"),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @RequestMapping(value = "/images/pulls/{id}", method = GET, produces = JSON)
+    @ResponseBody
+    public ImagePull getPull(final @PathVariable("id") String id) throws NotFoundException {
+        return dockerService.getPull(id);
     }
 
     @ApiOperation(value = "Get list of images.", notes = "Returns a list of all Docker images.")
@@ -156,10 +194,57 @@ public class DockerRestApi extends AbstractXapiRestController {
             @ApiResponse(code = 424, message = "Admin must set up Docker server."),
             @ApiResponse(code = 500, message = "Unexpected error")})
     @RequestMapping(value = "/images", method = GET, produces = JSON)
+    public ResponseEntity<List<DockerImage>> getAllImages(final WebRequest request)
+            throws NoServerPrefException, DockerServerException {
+        // Take the ETag first. If the catalog changes while we read it, the client just reads it again next time.
+        final String etag = dockerService.getImagesETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(dockerService.getImages());
+    }
+
+    @ApiOperation(value = "Reload the image catalog",
+            notes = "The image list is served from memory and kept current by docker image events. " +
+                    "This reads it from the docker server again.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "The catalog was reloaded"),
+            @ApiResponse(code = 424, message = "Admin must set up Docker server."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @RequestMapping(value = "/images/refresh", method = POST, produces = JSON)
     @ResponseBody
-    public List<DockerImage> getAllImages()
+    public ImageCatalogStatus refreshImages()
             throws NoServerPrefException, DockerServerException {
-        return dockerService.getImages();
+        return dockerService.refreshImages();
+    }
+
+    @ApiOperation(value = "Image catalog status",
+            notes = "How current the in-memory image catalog is, and how many reads it has answered.")
+    @RequestMapping(value = "/images/catalog", method = GET, produces = JSON)
+    @ResponseBody
+    public ImageCatalogStatus getImageCatalogStatus() {
+        return dockerService.getImageCatalogStatus();
+    }
+
+    @ApiOperation(value = "Image garbage collection status",
+            notes = "Disk used by docker images, and the images removed to keep within the image disk budget.")
+    @RequestMapping(value = "/images/gc", method = GET, produces = JSON)
+    @ResponseBody
+    public ImageGcStatus getImageGcStatus() {
+        return dockerService.getImageGcStatus();
+    }
+
+    @ApiOperation(value = "Collect image garbage",
+            notes = "Remove the least recently used images that no command uses until the images fit in the image disk budget.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "Garbage collection ran"),
+            @ApiResponse(code = 424, message = "Admin must set up Docker server."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @RequestMapping(value = "/images/gc", method = POST, produces = JSON)
+    @ResponseBody
+    public ImageGcStatus collectImageGarbage()
+            throws NoServerPrefException, DockerServerException {
+        return dockerService.collectImageGarbage();
     }
 
     @ApiOperation(value = "Get Docker image",
@@ -170,10 +255,14 @@ public class DockerRestApi extends AbstractXapiRestController {
             @ApiResponse(code = 424, message = "Admin must set up Docker server."),
             @ApiResponse(code = 500, message = "Unexpected error")})
     @RequestMapping(value = "/images/{id}", method = GET, produces = JSON)
-    @ResponseBody
-    public DockerImage getImage(final @PathVariable("id") String id)
+    public ResponseEntity<DockerImage> getImage(final @PathVariable("id") String id,
+                                                final WebRequest request)
             throws NoServerPrefException, NotFoundException {
-        return dockerService.getImage(id);
+        final String etag = dockerService.getImagesETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(dockerService.getImage(id));
     }
 
     @ApiOperation(value = "Delete Docker image",
@@ -206,6 +295,21 @@ public class DockerRestApi extends AbstractXapiRestController {
         return dockerService.saveFromImageLabels(imageId);
     }
 
+    @ApiOperation(value = "Save Commands from labels on all images",
+            notes = "Read labels from every Docker image on the server and save the Commands in them. " +
+                    "Images whose " + LABEL_KEY + " label has not changed since it was last imported are skipped, " +
+                    "unless force=true.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "A report for each image"),
+            @ApiResponse(code = 424, message = "Admin must set up Docker server."),
+            @ApiResponse(code = 500, message = "Unexpected error")})
+    @RequestMapping(value = "/images/save-all", method = POST, produces = JSON)
+    @ResponseBody
+    public List<CommandImportReport> saveFromAllLabels(final @RequestParam(value = "force", defaultValue = "false") Boolean force)
+            throws NoServerPrefException, DockerServerException {
+        return dockerService.saveFromAllImageLabels(force);
+    }
+
     @ResponseStatus(value = HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(value = {InvalidPreferenceName.class})
     public String handleInvalidPreferenceName(final Exception e) {
@@ -0,0 +1,126 @@
+package org.nrg.containers.rest;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.nrg.containers.exceptions.BadRequestException;
+import org.nrg.containers.exceptions.NotFoundException;
+import org.nrg.containers.model.Workflow;
+import org.nrg.containers.model.WorkflowExecution;
+import org.nrg.containers.model.WorkflowTiming;
+import org.nrg.containers.services.WorkflowService;
+import org.nrg.framework.annotations.XapiRestController;
+import org.nrg.framework.exceptions.NrgRuntimeException;
+import org.nrg.xdat.XDAT;
+import org.nrg.xdat.rest.AbstractXapiRestController;
+import org.nrg.xdat.security.services.RoleHolder;
+import org.nrg.xdat.security.services.UserManagementServiceI;
+import org.nrg.xft.security.UserI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.web.bind.annotation.RequestMethod.DELETE;
+import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
+
+@XapiRestController
+@RequestMapping("/workflows")
+@Api("Workflow API for XNAT Action/Context Execution service")
+public class WorkflowRestApi extends AbstractXapiRestController {
+    private static final String JSON = MediaType.APPLICATION_JSON_UTF8_VALUE;
+
+    private WorkflowService workflowService;
+
+    @Autowired
+    public WorkflowRestApi(final WorkflowService workflowService,
+                           final UserManagementServiceI userManagementService,
+                           final RoleHolder roleHolder) {
+        super(userManagementService, roleHolder);
+        this.workflowService = workflowService;
+    }
+
+    @RequestMapping(value = {}, method = GET)
+    @ApiOperation(value = "Get all Workflows")
+    @ResponseBody
+    public List<Workflow> getWorkflows() {
+        return workflowService.getAll();
+    }
+
+    @RequestMapping(value = {"/{id}"}, method = GET)
+    @ApiOperation(value = "Get a Workflow")
+    @ResponseBody
+    public Workflow retrieveWorkflow(final @PathVariable Long id) throws NotFoundException {
+        final Workflow workflow = workflowService.retrieve(id);
+        if (workflow == null) {
+            throw new NotFoundException("Workflow " + id + " not found.");
+        }
+        return workflow;
+    }
+
+    @RequestMapping(value = {}, method = POST, produces = JSON)
+    @ApiOperation(value = "Create a Workflow", code = 201)
+    @ApiResponses({
+            @ApiResponse(code = 201, message = "Created", response = Workflow.class),
+            @ApiResponse(code = 400, message = "Steps or edges are invalid, or form a cycle"),
+            @ApiResponse(code = 415, message = "Set the Content-type header on the request")
+    })
+    public ResponseEntity<Workflow> createWorkflow(final @RequestBody Workflow workflow)
+            throws BadRequestException {
+        try {
+            final Workflow created = workflowService.create(workflow);
+            return new ResponseEntity<>(created, HttpStatus.CREATED);
+        } catch (NrgRuntimeException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+
+    @RequestMapping(value = {"/{id}"}, method = DELETE)
+    @ApiOperation(value = "Delete a Workflow", code = 204)
+    public ResponseEntity<String> deleteWorkflow(final @PathVariable Long id) {
+        workflowService.delete(id);
+        return new ResponseEntity<>("", HttpStatus.NO_CONTENT);
+    }
+
+    @RequestMapping(value = {"/{id}/launch"}, method = POST)
+    @ApiOperation(value = "Launch a Workflow, using the variable values in the query string for every step")
+    @ResponseBody
+    public WorkflowExecution launchWorkflow(final @PathVariable Long id,
+                                            final @RequestParam Map<String, String> allRequestParams)
+            throws NotFoundException {
+        final UserI userI = XDAT.getUserDetails();
+        return workflowService.launch(id, allRequestParams, userI);
+    }
+
+    @RequestMapping(value = {"/executions/{id}"}, method = GET)
+    @ApiOperation(value = "Get a Workflow execution and the status of each of its steps")
+    @ResponseBody
+    public WorkflowExecution retrieveExecution(final @PathVariable Long id) throws NotFoundException {
+        return workflowService.retrieveExecution(id);
+    }
+
+    @RequestMapping(value = {"/executions/{id}/timing"}, method = GET)
+    @ApiOperation(value = "Get queue, run, and finalize times for each step of a Workflow execution, and its critical path")
+    @ResponseBody
+    public WorkflowTiming getTiming(final @PathVariable Long id) throws NotFoundException {
+        return workflowService.getTiming(id);
+    }
+
+    @ResponseStatus(value = HttpStatus.NOT_FOUND)
+    @ExceptionHandler(value = {NotFoundException.class})
+    public String handleNotFound(final Exception e) {
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,23 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.exceptions.NotFoundException;
+import org.nrg.containers.model.ArchivedContainerExecution;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionSummary;
+import org.nrg.framework.orm.hibernate.BaseHibernateService;
+
+import java.util.Date;
+import java.util.List;
+
+public interface ArchivedContainerExecutionService extends BaseHibernateService<ArchivedContainerExecution> {
+    ArchivedContainerExecution archive(final ContainerExecution execution);
+    List<ContainerExecutionSummary> getSummaries(final Long commandId,
+                                                 final String userId,
+                                                 final String project,
+                                                 final String uri,
+                                                 final Date since,
+                                                 final Date until,
+                                                 final Long before,
+                                                 final Integer limit);
+    String getDocument(final long executionId) throws NotFoundException;
+}
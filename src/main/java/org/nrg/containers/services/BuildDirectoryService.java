@@ -0,0 +1,13 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.ContainerExecutionMount;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface BuildDirectoryService {
+    List<Path> acquire(String dockerHost, Long commandId, int count);
+    long measure(List<ContainerExecutionMount> mountsOut);
+    boolean isOverQuota(long bytes);
+    void release(List<ContainerExecutionMount> mountsOut);
+}
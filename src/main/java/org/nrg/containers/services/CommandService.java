@@ -1,6 +1,7 @@
 package org.nrg.containers.services;
 
 import org.nrg.containers.exceptions.CommandResolutionException;
+import org.nrg.containers.exceptions.ContainerException;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoServerPrefException;
 import org.nrg.containers.exceptions.NotFoundException;
@@ -15,6 +16,7 @@ import java.util.Map;
 
 public interface CommandService extends BaseHibernateService<Command> {
     Command get(Long id) throws NotFoundException;
+    Command retrieve(final String name, final String dockerImageId);
 
     ResolvedCommand resolveCommand(final Long commandId,
                                    final Map<String, String> variableRuntimeValues,
@@ -30,9 +32,13 @@ public interface CommandService extends BaseHibernateService<Command> {
             throws NoServerPrefException, DockerServerException, NotFoundException, CommandResolutionException;
     ContainerExecution launchResolvedCommand(final ResolvedCommand resolvedCommand, final UserI userI)
             throws NoServerPrefException, DockerServerException;
+    ContainerExecution launchResolvedCommands(final List<ResolvedCommand> resolvedCommands, final UserI userI)
+            throws NoServerPrefException, DockerServerException, ContainerException;
 
     List<Command> save(final List<Command> commands);
 
+    void prewarmImage(final Command command);
+
 //    @VisibleForTesting
 //    ResolvedCommand prepareToLaunchScan(Command command,
 //                                        XnatImagesessiondata session,
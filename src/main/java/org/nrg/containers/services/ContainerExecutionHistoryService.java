@@ -0,0 +1,15 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.framework.orm.hibernate.BaseHibernateService;
+
+import java.util.List;
+
+public interface ContainerExecutionHistoryService extends BaseHibernateService<ContainerExecutionHistory> {
+    void append(final Long containerExecutionId, final ContainerExecutionHistory entry);
+    void flush();
+    void flushIfDue();
+    void write(final List<ContainerExecutionHistory> entries);
+    List<ContainerExecutionHistory> getHistory(final Long containerExecutionId);
+    void deleteHistory(final List<Long> containerExecutionIds);
+}
@@ -5,10 +5,13 @@ import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoServerPrefException;
 import org.nrg.containers.exceptions.NotFoundException;
 import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionSummary;
 import org.nrg.containers.model.ResolvedCommand;
 import org.nrg.framework.orm.hibernate.BaseHibernateService;
 import org.nrg.xft.security.UserI;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 public interface ContainerExecutionService extends BaseHibernateService<ContainerExecution> {
@@ -18,6 +21,28 @@ public interface ContainerExecutionService extends BaseHibernateService<Containe
     ContainerExecution save(final ResolvedCommand resolvedCommand,
                             final String containerId,
                             final UserI userI);
+    ContainerExecution saveBatch(final ResolvedCommand batch,
+                                 final List<ResolvedCommand> items,
+                                 final String containerId,
+                                 final UserI userI);
+    List<ContainerExecution> launchDueRetries();
+    int archiveFinished(final Date cutoff);
+    int migrateLegacyData();
+    List<ContainerExecution> reconcile() throws NoServerPrefException, DockerServerException;
+    List<ContainerExecution> enforceBuildQuota();
+    Map<String, Date> getImageLastUsed();
+    List<ContainerExecutionSummary> getSummaries(final String status,
+                                                 final Long commandId,
+                                                 final String userId,
+                                                 final String project,
+                                                 final Date since,
+                                                 final Date until,
+                                                 final Long before,
+                                                 final Integer limit);
+    List<ContainerExecutionSummary> getSummariesByObject(final String uri,
+                                                         final String xnatId,
+                                                         final Long before,
+                                                         final Integer limit);
     String kill(final Long containerExecutionId, final UserI userI)
             throws NoServerPrefException, DockerServerException, NotFoundException;
 }
@@ -0,0 +1,14 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionStats;
+import org.nrg.containers.model.ContainerExecutionStatsSummary;
+import org.nrg.framework.orm.hibernate.BaseHibernateService;
+
+import java.util.Date;
+import java.util.List;
+
+public interface ContainerExecutionStatsService extends BaseHibernateService<ContainerExecutionStats> {
+    void record(final ContainerExecution execution, final Date finalized);
+    List<ContainerExecutionStatsSummary> getStats(final Long commandId, final String project, final Date since, final Date until);
+}
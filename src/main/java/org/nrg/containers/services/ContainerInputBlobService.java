@@ -0,0 +1,11 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.ContainerInputBlob;
+import org.nrg.framework.orm.hibernate.BaseHibernateService;
+
+import java.util.Map;
+
+public interface ContainerInputBlobService extends BaseHibernateService<ContainerInputBlob> {
+    Map<String, String> store(final Map<String, String> values);
+    Map<String, String> load(final Map<String, String> hashes);
+}
@@ -4,9 +4,13 @@ import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoServerPrefException;
 import org.nrg.containers.exceptions.NotFoundException;
 import org.nrg.containers.model.Command;
+import org.nrg.containers.model.CommandImportReport;
 import org.nrg.containers.model.DockerHub;
 import org.nrg.containers.model.DockerImage;
 import org.nrg.containers.model.DockerServer;
+import org.nrg.containers.model.ImageCatalogStatus;
+import org.nrg.containers.model.ImageGcStatus;
+import org.nrg.containers.model.ImagePull;
 import org.nrg.prefs.exceptions.InvalidPreferenceName;
 
 import java.util.List;
@@ -20,14 +24,26 @@ public interface DockerService {
             throws DockerServerException, NoServerPrefException, NotFoundException;
     DockerImage pullFromHub(String image, Boolean saveCommands)
             throws DockerServerException, NoServerPrefException, NotFoundException;
+    ImagePull startPullFromHub(Long hubId, String image, Boolean saveCommands)
+            throws DockerServerException, NoServerPrefException, NotFoundException;
+    ImagePull startPullFromHub(String image, Boolean saveCommands)
+            throws DockerServerException, NoServerPrefException;
+    ImagePull getPull(String pullId) throws NotFoundException;
+    List<ImagePull> getPulls();
 
     DockerServer getServer() throws NotFoundException;
     DockerServer setServer(DockerServer server) throws InvalidPreferenceName;
     String pingServer() throws NoServerPrefException, DockerServerException;
 
     List<DockerImage> getImages() throws NoServerPrefException, DockerServerException;
+    String getImagesETag();
+    ImageCatalogStatus refreshImages() throws NoServerPrefException, DockerServerException;
+    ImageCatalogStatus getImageCatalogStatus();
     DockerImage getImage(String imageId) throws NoServerPrefException, NotFoundException;
     void removeImage(String imageId, Boolean force) throws NotFoundException, NoServerPrefException, DockerServerException;
     List<Command> saveFromImageLabels(String imageId) throws DockerServerException, NotFoundException, NoServerPrefException;
     List<Command> saveFromImageLabels(DockerImage dockerImage);
+    List<CommandImportReport> saveFromAllImageLabels(boolean force) throws NoServerPrefException, DockerServerException;
+    ImageGcStatus collectImageGarbage() throws NoServerPrefException, DockerServerException;
+    ImageGcStatus getImageGcStatus();
 }
@@ -0,0 +1,11 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.ContainerExecutionMount;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface InputStagingService {
+    List<Path> stage(String dockerHost, List<Path> pathsOnXnatHost);
+    void release(List<ContainerExecutionMount> mountsIn);
+}
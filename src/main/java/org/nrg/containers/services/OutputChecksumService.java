@@ -0,0 +1,12 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.FileChecksum;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public interface OutputChecksumService {
+    List<FileChecksum> checksum(List<File> entries, Map<String, FileChecksum> known) throws IOException;
+}
@@ -0,0 +1,13 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.model.FileChecksum;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface OutputStoreService {
+    boolean isEnabled();
+    Path find(FileChecksum checksum, Path file);
+    long deduplicate(Path resourceDir, List<FileChecksum> checksums);
+    long clean();
+}
@@ -0,0 +1,21 @@
+package org.nrg.containers.services;
+
+import org.nrg.containers.events.ContainerFinalizedEvent;
+import org.nrg.containers.exceptions.NotFoundException;
+import org.nrg.containers.model.Workflow;
+import org.nrg.containers.model.WorkflowExecution;
+import org.nrg.containers.model.WorkflowTiming;
+import org.nrg.framework.orm.hibernate.BaseHibernateService;
+import org.nrg.xft.security.UserI;
+
+import java.util.Map;
+
+public interface WorkflowService extends BaseHibernateService<Workflow> {
+    WorkflowExecution launch(final Long workflowId,
+                             final Map<String, String> runtimeValues,
+                             final UserI userI)
+            throws NotFoundException;
+    WorkflowExecution retrieveExecution(final Long workflowExecutionId) throws NotFoundException;
+    WorkflowTiming getTiming(final Long workflowExecutionId) throws NotFoundException;
+    void processFinalizedEvent(final ContainerFinalizedEvent event);
+}
@@ -0,0 +1,292 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.model.ContainerExecutionMount;
+import org.nrg.containers.model.ContainerExecutionStatsSummary;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.services.BuildDirectoryService;
+import org.nrg.containers.services.ContainerExecutionStatsService;
+import org.nrg.transporter.TransportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out output directories for container executions.
+ *
+ * <p>With a build path set, each execution gets a directory under {@code <build path>/executions}. Empty
+ * directories are kept ready under {@code <build path>/pool}, and one is moved into place for each launch. Once
+ * an execution's outputs are uploaded its directories are emptied, in the background, and go back to the pool, or
+ * are removed if the pool is full. Commands whose outputs have been small get their directories on the tmpfs
+ * build path, if one is set. With no build path set, directories come from the transporter as before.</p>
+ */
+@Service
+public class BuildDirectoryServiceImpl implements BuildDirectoryService {
+    private static final Logger log = LoggerFactory.getLogger(BuildDirectoryServiceImpl.class);
+    private static final String POOL = "pool";
+    private static final String EXECUTIONS = "executions";
+    private static final long TMPFS_HISTORY_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    private TransportService transporter;
+    private DockerServerPrefsBean dockerServerPrefsBean;
+    private ContainerExecutionStatsService statsService;
+
+    private final ExecutorService cleaner = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("build-directory-cleaner-%d").setDaemon(true).build());
+
+    // Ready directories under each build path. Loaded from disk the first time a build path is used.
+    private final ConcurrentMap<Path, Queue<Path>> pools = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BuildDirectoryServiceImpl(final TransportService transporter,
+                                     final DockerServerPrefsBean dockerServerPrefsBean,
+                                     final ContainerExecutionStatsService statsService) {
+        this.transporter = transporter;
+        this.dockerServerPrefsBean = dockerServerPrefsBean;
+        this.statsService = statsService;
+    }
+
+    @PreDestroy
+    public void shutdownCleaner() {
+        cleaner.shutdown();
+    }
+
+    /**
+     * Get empty output directories for a launch.
+     *
+     * @param dockerHost The docker server
+     * @param commandId The command being launched, or null if the directories are not for one command
+     * @param count How many directories
+     * @return Directories on the docker server
+     */
+    @Override
+    public List<Path> acquire(final String dockerHost, final Long commandId, final int count) {
+        final Path root = chooseRoot(commandId);
+        if (root == null) {
+            return transporter.getWritableDirectories(dockerHost, count);
+        }
+
+        final List<Path> directories = Lists.newArrayList();
+        try {
+            final Path executions = Files.createDirectories(root.resolve(EXECUTIONS));
+            final Queue<Path> pool = getPool(root);
+            for (int i = 0; i < count; i++) {
+                final Path directory = executions.resolve(UUID.randomUUID().toString());
+                final Path ready = pool.poll();
+                if (ready == null) {
+                    Files.createDirectory(directory);
+                } else {
+                    Files.move(ready, directory, StandardCopyOption.ATOMIC_MOVE);
+                }
+                directories.add(directory);
+            }
+        } catch (IOException e) {
+            log.error(String.format("Could not make output directories under %s. Getting them from the transporter instead.", root), e);
+            return transporter.getWritableDirectories(dockerHost, count);
+        }
+        refill(root);
+        return directories;
+    }
+
+    /**
+     * @return Total size, in bytes, of the files in the mounts' directories that can be read from here
+     */
+    @Override
+    public long measure(final List<ContainerExecutionMount> mountsOut) {
+        long bytes = 0L;
+        if (mountsOut == null) {
+            return bytes;
+        }
+        for (final ContainerExecutionMount mount : mountsOut) {
+            if (StringUtils.isNotBlank(mount.getHostPath())) {
+                bytes += sizeOf(Paths.get(mount.getHostPath()));
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean isOverQuota(final long bytes) {
+        final Long quota = dockerServerPrefsBean.getBuildQuota();
+        return quota != null && quota > 0 && bytes > quota;
+    }
+
+    /**
+     * Empty the mounts' directories in the background, and return them to the pool. Directories that did not come
+     * from a build path are left alone.
+     */
+    @Override
+    public void release(final List<ContainerExecutionMount> mountsOut) {
+        if (mountsOut == null) {
+            return;
+        }
+        final List<Path> roots = Lists.newArrayList();
+        for (final String root : new String[] {dockerServerPrefsBean.getBuildPath(), dockerServerPrefsBean.getBuildTmpfsPath()}) {
+            if (StringUtils.isNotBlank(root)) {
+                roots.add(Paths.get(root.trim()));
+            }
+        }
+        for (final ContainerExecutionMount mount : mountsOut) {
+            if (StringUtils.isBlank(mount.getHostPath())) {
+                continue;
+            }
+            final Path directory = Paths.get(mount.getHostPath());
+            for (final Path root : roots) {
+                if (root.resolve(EXECUTIONS).equals(directory.getParent())) {
+                    cleaner.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            recycle(root, directory);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private Path chooseRoot(final Long commandId) {
+        final String tmpfsPath = StringUtils.trimToNull(dockerServerPrefsBean.getBuildTmpfsPath());
+        final Long tmpfsMaxBytes = dockerServerPrefsBean.getBuildTmpfsMaxBytes();
+        if (tmpfsPath != null && tmpfsMaxBytes != null && tmpfsMaxBytes > 0 && commandId != null) {
+            long executions = 0L;
+            long uploadedBytes = 0L;
+            for (final ContainerExecutionStatsSummary stats : statsService.getStats(commandId, null,
+                    new Date(System.currentTimeMillis() - TMPFS_HISTORY_MILLIS), null)) {
+                executions += stats.getExecutions();
+                uploadedBytes += stats.getUploadedBytes();
+            }
+            if (executions > 0 && uploadedBytes / executions <= tmpfsMaxBytes) {
+                return Paths.get(tmpfsPath);
+            }
+        }
+        final String buildPath = StringUtils.trimToNull(dockerServerPrefsBean.getBuildPath());
+        return buildPath == null ? null : Paths.get(buildPath);
+    }
+
+    private Queue<Path> getPool(final Path root) throws IOException {
+        Queue<Path> pool = pools.get(root);
+        if (pool != null) {
+            return pool;
+        }
+        final Queue<Path> loaded = new ConcurrentLinkedQueue<>();
+        final Path poolDirectory = Files.createDirectories(root.resolve(POOL));
+        try (final DirectoryStream<Path> ready = Files.newDirectoryStream(poolDirectory)) {
+            for (final Path directory : ready) {
+                loaded.add(directory);
+            }
+        }
+        pool = pools.putIfAbsent(root, loaded);
+        return pool == null ? loaded : pool;
+    }
+
+    private long poolSize() {
+        final Long size = dockerServerPrefsBean.getBuildPoolSize();
+        return size == null ? 0L : size;
+    }
+
+    private void refill(final Path root) {
+        cleaner.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Queue<Path> pool = getPool(root);
+                    while (pool.size() < poolSize()) {
+                        pool.add(Files.createDirectory(root.resolve(POOL).resolve(UUID.randomUUID().toString())));
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not make ready output directories under " + root, e);
+                }
+            }
+        });
+    }
+
+    private void recycle(final Path root, final Path directory) {
+        try {
+            if (!Files.isDirectory(directory)) {
+                return;
+            }
+            final Queue<Path> pool = getPool(root);
+            if (pool.size() < poolSize()) {
+                deleteContents(directory);
+                final Path ready = root.resolve(POOL).resolve(UUID.randomUUID().toString());
+                Files.move(directory, ready, StandardCopyOption.ATOMIC_MOVE);
+                pool.add(ready);
+            } else {
+                deleteContents(directory);
+                Files.delete(directory);
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up output directory " + directory, e);
+        }
+    }
+
+    private static void deleteContents(final Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                if (!dir.equals(directory)) {
+                    Files.delete(dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static long sizeOf(final Path path) {
+        if (!Files.exists(path)) {
+            return 0L;
+        }
+        final long[] bytes = {0L};
+        try {
+            Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    bytes[0] += attrs.size();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+                    // Files the container is still writing may come and go
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Could not measure " + path, e);
+        }
+        return bytes[0];
+    }
+}
@@ -1,37 +1,93 @@
 package org.nrg.containers.services.impl;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.daos.CommandLabelImportDao;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoServerPrefException;
 import org.nrg.containers.exceptions.NotFoundException;
 import org.nrg.containers.model.Command;
+import org.nrg.containers.model.CommandImportReport;
+import org.nrg.containers.model.CommandLabelImport;
 import org.nrg.containers.model.DockerHub;
 import org.nrg.containers.model.DockerImage;
 import org.nrg.containers.model.DockerServer;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.model.ImageCatalogStatus;
+import org.nrg.containers.model.ImageGcStatus;
+import org.nrg.containers.model.ImagePull;
 import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.api.ImagePullListener;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerExecutionService;
 import org.nrg.containers.services.DockerHubService;
 import org.nrg.containers.services.DockerService;
 import org.nrg.prefs.exceptions.InvalidPreferenceName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.nrg.containers.api.ContainerControlApi.LABEL_KEY;
 
 @Service
 @Transactional
 public class DockerServiceImpl implements DockerService {
+    private static final Logger log = LoggerFactory.getLogger(DockerServiceImpl.class);
+    private static final int LABEL_PARSER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
     private ContainerControlApi controlApi;
     private DockerHubService dockerHubService;
     private CommandService commandService;
+    private CommandLabelImportDao commandLabelImportDao;
+    private ContainerExecutionService containerExecutionService;
+    private DockerServerPrefsBean dockerServerPrefsBean;
+
+    private ImageGcStatus lastImageGcStatus;
+    private final Map<String, Map<String, Long>> imageLayerSizes = Maps.newHashMap();
+    private long reclaimedBytesTotal = 0L;
+    private long evictedImagesTotal = 0L;
+
+    private final ExecutorService labelParser = Executors.newFixedThreadPool(LABEL_PARSER_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("command-label-parser-%d").setDaemon(true).build());
 
     @Autowired
     public DockerServiceImpl(final ContainerControlApi controlApi,
                              final DockerHubService dockerHubService,
-                             final CommandService commandService) {
+                             final CommandService commandService,
+                             final CommandLabelImportDao commandLabelImportDao,
+                             final ContainerExecutionService containerExecutionService,
+                             final DockerServerPrefsBean dockerServerPrefsBean) {
         this.controlApi = controlApi;
         this.dockerHubService = dockerHubService;
         this.commandService = commandService;
+        this.commandLabelImportDao = commandLabelImportDao;
+        this.containerExecutionService = containerExecutionService;
+        this.dockerServerPrefsBean = dockerServerPrefsBean;
+    }
+
+    @PreDestroy
+    public void shutdownLabelParser() {
+        labelParser.shutdownNow();
     }
 
     @Override
@@ -79,6 +135,44 @@ public class DockerServiceImpl implements DockerService {
         return dockerImage;
     }
 
+    @Override
+    public ImagePull startPullFromHub(final Long hubId, final String image, final Boolean saveCommands)
+            throws DockerServerException, NoServerPrefException, NotFoundException {
+        final DockerHub hub = dockerHubService.retrieve(hubId);
+        if (hub == null) {
+            throw new NotFoundException("No Docker Hub with id " + hubId);
+        }
+        return controlApi.startPull(image, hub, saveCommandsListener(saveCommands));
+    }
+
+    @Override
+    public ImagePull startPullFromHub(final String image, final Boolean saveCommands)
+            throws DockerServerException, NoServerPrefException {
+        return controlApi.startPull(image, null, saveCommandsListener(saveCommands));
+    }
+
+    private ImagePullListener saveCommandsListener(final Boolean saveCommands) {
+        if (saveCommands == null || !saveCommands) {
+            return null;
+        }
+        return new ImagePullListener() {
+            @Override
+            public void pulled(final DockerImage image) {
+                saveFromImageLabels(image);
+            }
+        };
+    }
+
+    @Override
+    public ImagePull getPull(final String pullId) throws NotFoundException {
+        return controlApi.getPull(pullId);
+    }
+
+    @Override
+    public List<ImagePull> getPulls() {
+        return controlApi.getPulls();
+    }
+
     @Override
     public DockerServer getServer() throws NotFoundException {
         try {
@@ -104,6 +198,21 @@ public class DockerServiceImpl implements DockerService {
         return controlApi.getAllImages();
     }
 
+    @Override
+    public String getImagesETag() {
+        return controlApi.getImageCatalogETag();
+    }
+
+    @Override
+    public ImageCatalogStatus refreshImages() throws NoServerPrefException, DockerServerException {
+        return controlApi.refreshImageCatalog();
+    }
+
+    @Override
+    public ImageCatalogStatus getImageCatalogStatus() {
+        return controlApi.getImageCatalogStatus();
+    }
+
     public DockerImage getImage(final String imageId)
             throws NoServerPrefException, NotFoundException {
         try {
@@ -130,4 +239,325 @@ public class DockerServiceImpl implements DockerService {
         final List<Command> parsed = controlApi.parseLabels(dockerImage);
         return commandService.save(parsed);
     }
+
+    /**
+     * Save commands from the labels of every image on the docker server.
+     *
+     * <p>The images are listed once. Labels whose content is unchanged since the last import of the same image are
+     * skipped unless {@code force} is set. The remaining labels are parsed in parallel, and all the new commands are
+     * saved together in this transaction.</p>
+     *
+     * @param force Parse and save labels even if they have not changed since the last import
+     * @return One report per image, in the order the docker server listed them
+     */
+    @Override
+    public List<CommandImportReport> saveFromAllImageLabels(final boolean force)
+            throws NoServerPrefException, DockerServerException {
+        final List<DockerImage> images = controlApi.getAllImages();
+        final Map<String, CommandLabelImport> previousImports = commandLabelImportDao.findAllByImageId();
+
+        final List<CommandImportReport> reports = Lists.newArrayList();
+        final Map<CommandImportReport, String> hashes = Maps.newLinkedHashMap();
+        final List<Callable<List<Command>>> parseTasks = Lists.newArrayList();
+        for (final DockerImage image : images) {
+            final String label = image.getLabels() == null ? null : image.getLabels().get(LABEL_KEY);
+            if (StringUtils.isBlank(label)) {
+                reports.add(new CommandImportReport(image, CommandImportReport.NO_LABEL));
+                continue;
+            }
+
+            final String hash = Hashing.sha256().hashString(label, StandardCharsets.UTF_8).toString();
+            final CommandLabelImport previous = previousImports.get(image.getImageId());
+            if (!force && previous != null && hash.equals(previous.getLabelHash())) {
+                reports.add(new CommandImportReport(image, CommandImportReport.UNCHANGED));
+                continue;
+            }
+
+            final CommandImportReport report = new CommandImportReport(image, CommandImportReport.IMPORTED);
+            reports.add(report);
+            hashes.put(report, hash);
+            parseTasks.add(new Callable<List<Command>>() {
+                @Override
+                public List<Command> call() throws Exception {
+                    return controlApi.parseLabels(image);
+                }
+            });
+        }
+
+        if (parseTasks.isEmpty()) {
+            return reports;
+        }
+
+        final List<Future<List<Command>>> parsed;
+        try {
+            parsed = labelParser.invokeAll(parseTasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DockerServerException("Interrupted while parsing image labels.", e);
+        }
+
+        // Collect the new commands from every label so they can be saved and flushed at once
+        final Map<CommandImportReport, List<Command>> toSaveByReport = Maps.newLinkedHashMap();
+        final List<Command> toSave = Lists.newArrayList();
+        final Set<String> toSaveKeys = Sets.newHashSet();
+        int index = 0;
+        for (final CommandImportReport report : hashes.keySet()) {
+            final List<Command> commands;
+            try {
+                commands = parsed.get(index++).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DockerServerException("Interrupted while parsing image labels.", e);
+            } catch (ExecutionException e) {
+                report.setStatus(CommandImportReport.ERROR);
+                report.setMessage(e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+                continue;
+            }
+            if (commands == null) {
+                report.setStatus(CommandImportReport.ERROR);
+                report.setMessage("Could not parse commands from label " + LABEL_KEY);
+                continue;
+            }
+
+            final List<Command> reportToSave = Lists.newArrayList();
+            for (final Command command : commands) {
+                final String key = command.getName() + ":" + command.getDockerImage();
+                if (toSaveKeys.contains(key) || commandService.retrieve(command.getName(), command.getDockerImage()) != null) {
+                    report.getAlreadyPresent().add(command.getName());
+                } else {
+                    toSaveKeys.add(key);
+                    reportToSave.add(command);
+                }
+            }
+            toSave.addAll(reportToSave);
+            toSaveByReport.put(report, reportToSave);
+        }
+
+        final Set<Command> saved = Sets.newIdentityHashSet();
+        saved.addAll(commandService.save(toSave));
+
+        for (final Map.Entry<CommandImportReport, List<Command>> entry : toSaveByReport.entrySet()) {
+            final CommandImportReport report = entry.getKey();
+            final List<String> failed = Lists.newArrayList();
+            for (final Command command : entry.getValue()) {
+                if (saved.contains(command)) {
+                    report.getSaved().add(command.getName());
+                } else {
+                    failed.add(command.getName());
+                }
+            }
+
+            if (!failed.isEmpty()) {
+                // Leave the import record alone so the label is tried again next time
+                report.setStatus(CommandImportReport.ERROR);
+                report.setMessage("Could not save commands " + StringUtils.join(failed, ", "));
+                continue;
+            }
+
+            final String hash = hashes.get(report);
+            final CommandLabelImport previous = previousImports.get(report.getImageId());
+            if (previous == null) {
+                commandLabelImportDao.create(new CommandLabelImport(report.getImageId(), hash));
+            } else {
+                previous.setLabelHash(hash);
+                previous.setImported(new Date());
+                commandLabelImportDao.update(previous);
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Imported commands from %d of %d images. Saved %d commands.",
+                    toSaveByReport.size(), images.size(), saved.size()));
+        }
+        return reports;
+    }
+
+    /**
+     * Remove the least recently used images until the images on the docker server fit in the disk budget.
+     *
+     * <p>An image is used when a container execution is launched from it. Images that any command uses are pinned,
+     * and are never removed. Images that docker refuses to remove, because a container still uses them, are
+     * skipped.</p>
+     *
+     * <p>Disk usage is counted by layer, so a layer that several images share is counted once. Removing an image
+     * reclaims only the layers that no image left on the server has.</p>
+     *
+     * @return Disk usage after the run, and the images that were removed
+     */
+    @Override
+    public synchronized ImageGcStatus collectImageGarbage() throws NoServerPrefException, DockerServerException {
+        final Long budget = dockerServerPrefsBean.getImageDiskBudget();
+        final List<DockerImage> images = controlApi.getAllImages();
+        final Map<String, String> resolved = Maps.newHashMap();
+
+        final Set<String> pinned = Sets.newHashSet();
+        for (final Command command : commandService.getAll()) {
+            final String imageId = resolveImageId(command.getDockerImage(), resolved);
+            if (imageId != null) {
+                pinned.add(imageId);
+            }
+        }
+
+        final Map<String, Date> lastUsed = Maps.newHashMap();
+        for (final Map.Entry<String, Date> entry : containerExecutionService.getImageLastUsed().entrySet()) {
+            final String imageId = resolveImageId(entry.getKey(), resolved);
+            final Date previous = lastUsed.get(imageId);
+            if (imageId != null && (previous == null || previous.before(entry.getValue()))) {
+                lastUsed.put(imageId, entry.getValue());
+            }
+        }
+
+        // Layers shared between images take their disk once, and are only freed when every image that has them is gone
+        final Map<String, Map<String, Long>> layersByImage = Maps.newHashMap();
+        final Map<String, Integer> imagesByLayer = Maps.newHashMap();
+        final Map<String, Integer> pinnedImagesByLayer = Maps.newHashMap();
+        final List<DockerImage> candidates = Lists.newArrayList();
+        for (final DockerImage image : images) {
+            final Map<String, Long> layers = layersOf(image);
+            layersByImage.put(image.getImageId(), layers);
+            final boolean isPinned = pinned.contains(image.getImageId());
+            for (final String layer : layers.keySet()) {
+                increment(imagesByLayer, layer);
+                if (isPinned) {
+                    increment(pinnedImagesByLayer, layer);
+                }
+            }
+            if (!isPinned) {
+                candidates.add(image);
+            }
+        }
+        imageLayerSizes.keySet().retainAll(layersByImage.keySet());
+
+        final Map<String, Long> layerSizes = Maps.newHashMap();
+        for (final Map<String, Long> layers : layersByImage.values()) {
+            layerSizes.putAll(layers);
+        }
+        long used = 0L;
+        long reclaimable = 0L;
+        for (final Map.Entry<String, Long> layer : layerSizes.entrySet()) {
+            used += layer.getValue();
+            if (!pinnedImagesByLayer.containsKey(layer.getKey())) {
+                reclaimable += layer.getValue();
+            }
+        }
+
+        final List<DockerImage> evicted = Lists.newArrayList();
+        if (budget != null && budget > 0 && used > budget) {
+            // Images that have never been used sort before all the others
+            Collections.sort(candidates, new Comparator<DockerImage>() {
+                @Override
+                public int compare(final DockerImage first, final DockerImage second) {
+                    final Date firstUsed = lastUsed.get(first.getImageId());
+                    final Date secondUsed = lastUsed.get(second.getImageId());
+                    return Long.compare(firstUsed == null ? 0L : firstUsed.getTime(),
+                            secondUsed == null ? 0L : secondUsed.getTime());
+                }
+            });
+
+            for (final DockerImage candidate : candidates) {
+                if (used <= budget) {
+                    break;
+                }
+                try {
+                    controlApi.deleteImageById(candidate.getImageId(), false);
+                } catch (DockerServerException e) {
+                    log.info(String.format("Could not remove image %s to reclaim disk space. %s",
+                            candidate.getImageId(), e.getMessage()));
+                    continue;
+                }
+
+                // Only the layers no remaining image has were removed with it
+                long freed = 0L;
+                for (final Map.Entry<String, Long> layer : layersByImage.get(candidate.getImageId()).entrySet()) {
+                    if (decrement(imagesByLayer, layer.getKey()) == 0) {
+                        freed += layer.getValue();
+                    }
+                }
+                imageLayerSizes.remove(candidate.getImageId());
+                used -= freed;
+                reclaimable -= freed;
+                reclaimedBytesTotal += freed;
+                evictedImagesTotal++;
+                evicted.add(candidate);
+            }
+
+            log.info(String.format("Removed %d images to reclaim disk space. Images now use %d bytes of a %d byte budget.",
+                    evicted.size(), used, budget));
+        }
+
+        final ImageGcStatus status = new ImageGcStatus();
+        status.setBudgetBytes(budget);
+        status.setUsedBytes(used);
+        status.setReclaimableBytes(reclaimable);
+        status.setImages(images.size() - evicted.size());
+        status.setPinnedImages(images.size() - candidates.size());
+        status.setLastRun(new Date());
+        status.setLastEvicted(evicted);
+        status.setReclaimedBytesTotal(reclaimedBytesTotal);
+        status.setEvictedImagesTotal(evictedImagesTotal);
+        lastImageGcStatus = status;
+        return status;
+    }
+
+    @Override
+    public synchronized ImageGcStatus getImageGcStatus() {
+        if (lastImageGcStatus != null) {
+            return lastImageGcStatus;
+        }
+        final ImageGcStatus status = new ImageGcStatus();
+        status.setBudgetBytes(dockerServerPrefsBean.getImageDiskBudget());
+        return status;
+    }
+
+    /**
+     * Find the id of the image that a command or container execution refers to, by id or by tag.
+     *
+     * @param image The image reference
+     * @param resolved Image references that have already been looked up
+     * @return The image id, or null if there is no such image on the docker server
+     */
+    private String resolveImageId(final String image, final Map<String, String> resolved)
+            throws NoServerPrefException, DockerServerException {
+        if (StringUtils.isBlank(image)) {
+            return null;
+        }
+        if (!resolved.containsKey(image)) {
+            try {
+                resolved.put(image, controlApi.getImageById(image).getImageId());
+            } catch (NotFoundException e) {
+                resolved.put(image, null);
+            }
+        }
+        return resolved.get(image);
+    }
+
+    /**
+     * The layers of an image, and the size of each. An image's layers never change, so they are looked up once.
+     * If the docker server cannot list them, the image is counted as one layer of its full size, shared with no other.
+     */
+    private Map<String, Long> layersOf(final DockerImage image) throws NoServerPrefException {
+        Map<String, Long> layers = imageLayerSizes.get(image.getImageId());
+        if (layers == null) {
+            try {
+                layers = controlApi.getImageLayerSizes(image.getImageId());
+                imageLayerSizes.put(image.getImageId(), layers);
+            } catch (NotFoundException | DockerServerException e) {
+                log.info(String.format("Could not list the layers of image %s. Counting its full size. %s",
+                        image.getImageId(), e.getMessage()));
+                layers = Collections.singletonMap(image.getImageId(), image.getSize() == null ? 0L : image.getSize());
+            }
+        }
+        return layers;
+    }
+
+    private static void increment(final Map<String, Integer> counts, final String key) {
+        final Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    private static int decrement(final Map<String, Integer> counts, final String key) {
+        final int count = counts.get(key) - 1;
+        counts.put(key, count);
+        return count;
+    }
 }
@@ -0,0 +1,110 @@
+package org.nrg.containers.services.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.nrg.containers.daos.ArchivedContainerExecutionDao;
+import org.nrg.containers.exceptions.NotFoundException;
+import org.nrg.containers.helpers.DeflateHelper;
+import org.nrg.containers.model.ArchivedContainerExecution;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionSummary;
+import org.nrg.containers.services.ArchivedContainerExecutionService;
+import org.nrg.containers.services.ContainerInputBlobService;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps finished container executions out of the execution tables. Each archived execution is one row:
+ * the columns it can be listed and filtered by, and a deflated JSON document of the rest. Input values
+ * are not copied into the document; it keeps their hashes, and the values are read from the input value
+ * store when the document is read.
+ */
+@Service
+@Transactional
+public class HibernateArchivedContainerExecutionService
+        extends AbstractHibernateEntityService<ArchivedContainerExecution, ArchivedContainerExecutionDao>
+        implements ArchivedContainerExecutionService {
+    private static final String INPUT_VALUES = "input-values";
+    private static final String INPUT_VALUE_HASHES = "input-value-hashes";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private ObjectMapper mapper;
+    private ContainerInputBlobService inputBlobService;
+
+    @Autowired
+    public HibernateArchivedContainerExecutionService(final ObjectMapper mapper,
+                                                      final ContainerInputBlobService inputBlobService) {
+        this.mapper = mapper;
+        this.inputBlobService = inputBlobService;
+    }
+
+    /**
+     * Write an execution to the archive. The caller removes it from the execution tables.
+     *
+     * @param execution An execution, with its history read
+     * @return The archived execution
+     */
+    @Override
+    public ArchivedContainerExecution archive(final ContainerExecution execution) {
+        final ObjectNode document = mapper.valueToTree(execution);
+        document.remove(INPUT_VALUES);
+        document.set(INPUT_VALUE_HASHES, mapper.valueToTree(execution.getInputValueHashes()));
+
+        final byte[] bytes;
+        try {
+            bytes = mapper.writeValueAsBytes(document);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write ContainerExecution " + execution.getId() + " as JSON.", e);
+        }
+        return create(new ArchivedContainerExecution(execution, bytes.length, DeflateHelper.deflate(bytes)));
+    }
+
+    @Override
+    public List<ContainerExecutionSummary> getSummaries(final Long commandId,
+                                                        final String userId,
+                                                        final String project,
+                                                        final String uri,
+                                                        final Date since,
+                                                        final Date until,
+                                                        final Long before,
+                                                        final Integer limit) {
+        final int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        return getDao().findSummaries(commandId, userId, project, uri, since, until, before, pageSize);
+    }
+
+    /**
+     * Read an archived execution as it was when it was archived, with its input values.
+     *
+     * @param executionId The ID the execution had before it was archived
+     * @return The execution as JSON
+     */
+    @Override
+    public String getDocument(final long executionId) throws NotFoundException {
+        final ArchivedContainerExecution archived = getDao().findByExecutionId(executionId);
+        if (archived == null) {
+            throw new NotFoundException("No archived ContainerExecution " + executionId + ".");
+        }
+        try {
+            final ObjectNode document = (ObjectNode) mapper.readTree(DeflateHelper.inflate(archived.getData(), archived.getSize()));
+            final JsonNode hashes = document.remove(INPUT_VALUE_HASHES);
+            if (hashes != null && !hashes.isNull()) {
+                final Map<String, String> hashesByName = mapper.convertValue(hashes, new TypeReference<Map<String, String>>() {});
+                document.set(INPUT_VALUES, mapper.valueToTree(inputBlobService.load(hashesByName)));
+            }
+            return mapper.writeValueAsString(document);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read archived ContainerExecution " + executionId + ".", e);
+        }
+    }
+}
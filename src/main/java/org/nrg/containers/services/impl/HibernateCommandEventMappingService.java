@@ -2,9 +2,13 @@ package org.nrg.containers.services.impl;
 
 
 import org.nrg.containers.daos.CommandEventMappingDao;
+import org.nrg.containers.model.Command;
 import org.nrg.containers.model.CommandEventMapping;
 import org.nrg.containers.services.CommandEventMappingService;
+import org.nrg.containers.services.CommandService;
+import org.nrg.framework.exceptions.NrgRuntimeException;
 import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +20,25 @@ import java.util.List;
 public class HibernateCommandEventMappingService extends AbstractHibernateEntityService<CommandEventMapping, CommandEventMappingDao>
         implements CommandEventMappingService {
 
+    private CommandService commandService;
+
+    @Autowired
+    public HibernateCommandEventMappingService(final CommandService commandService) {
+        this.commandService = commandService;
+    }
+
+    @Override
+    public CommandEventMapping create(final CommandEventMapping commandEventMapping) throws NrgRuntimeException {
+        final CommandEventMapping created = super.create(commandEventMapping);
+
+        // Commands launched by events should not have to wait for their image when the first event arrives
+        if (created.getCommandId() != null) {
+            final Command command = commandService.retrieve(created.getCommandId());
+            commandService.prewarmImage(command);
+        }
+        return created;
+    }
+
     @Override
     public List<CommandEventMapping> findByEventType(String eventType) {
             return getDao().findByEventType(eventType);
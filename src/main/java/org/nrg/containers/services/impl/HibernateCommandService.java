@@ -1,5 +1,6 @@
 package org.nrg.containers.services.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -9,15 +10,18 @@ import com.jayway.jsonpath.spi.json.JacksonJsonProvider;
 import com.jayway.jsonpath.spi.json.JsonProvider;
 import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.jayway.jsonpath.spi.mapper.MappingProvider;
+import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Hibernate;
 import org.hibernate.exception.ConstraintViolationException;
 import org.nrg.config.services.ConfigService;
 import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.daos.CommandDao;
 import org.nrg.containers.exceptions.CommandResolutionException;
+import org.nrg.containers.exceptions.ContainerException;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoServerPrefException;
 import org.nrg.containers.exceptions.NotFoundException;
+import org.nrg.containers.helpers.BatchLaunchHelper;
 import org.nrg.containers.helpers.CommandResolutionHelper;
 import org.nrg.containers.model.Command;
 import org.nrg.containers.model.CommandMount;
@@ -25,12 +29,13 @@ import org.nrg.containers.model.CommandRun;
 import org.nrg.containers.model.ContainerExecution;
 import org.nrg.containers.model.ContainerExecutionMount;
 import org.nrg.containers.model.ResolvedCommand;
+import org.nrg.containers.services.BuildDirectoryService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.InputStagingService;
 import org.nrg.framework.exceptions.NrgRuntimeException;
 import org.nrg.framework.exceptions.NrgServiceRuntimeException;
 import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
-import org.nrg.transporter.TransportService;
 import org.nrg.xdat.entities.AliasToken;
 import org.nrg.xdat.preferences.SiteConfigPreferences;
 import org.nrg.xdat.services.AliasTokenService;
@@ -56,23 +61,29 @@ public class HibernateCommandService extends AbstractHibernateEntityService<Comm
     private ContainerControlApi controlApi;
     private AliasTokenService aliasTokenService;
     private SiteConfigPreferences siteConfigPreferences;
-    private TransportService transporter;
     private ContainerExecutionService containerExecutionService;
     private ConfigService configService;
+    private InputStagingService inputStagingService;
+    private BuildDirectoryService buildDirectoryService;
+    private ObjectMapper mapper;
 
     @Autowired
     public HibernateCommandService(final ContainerControlApi controlApi,
                                    final AliasTokenService aliasTokenService,
                                    final SiteConfigPreferences siteConfigPreferences,
-                                   final TransportService transporter,
                                    final ContainerExecutionService containerExecutionService,
-                                   final ConfigService configService) {
+                                   final ConfigService configService,
+                                   final InputStagingService inputStagingService,
+                                   final BuildDirectoryService buildDirectoryService,
+                                   final ObjectMapper mapper) {
         this.controlApi = controlApi;
         this.aliasTokenService = aliasTokenService;
         this.siteConfigPreferences = siteConfigPreferences;
-        this.transporter = transporter;
         this.containerExecutionService = containerExecutionService;
         this.configService = configService;
+        this.inputStagingService = inputStagingService;
+        this.buildDirectoryService = buildDirectoryService;
+        this.mapper = mapper;
     }
 
     @Override
@@ -128,11 +139,38 @@ public class HibernateCommandService extends AbstractHibernateEntityService<Comm
 
     @Override
     public Command create(final Command command) throws NrgRuntimeException {
+        final Command created;
         try {
-            return super.create(command);
+            created = super.create(command);
         } catch (ConstraintViolationException e) {
             throw new NrgServiceRuntimeException("A command already exists with this name and docker image ID.");
         }
+        prewarmImage(created);
+        return created;
+    }
+
+    @Override
+    public void update(final Command command) throws NrgRuntimeException {
+        super.update(command);
+        prewarmImage(command);
+    }
+
+    @Override
+    public void prewarmImage(final Command command) {
+        if (command == null || StringUtils.isBlank(command.getDockerImage())) {
+            return;
+        }
+        try {
+            controlApi.prewarmImage(command.getDockerImage());
+        } catch (NoServerPrefException | DockerServerException e) {
+            log.info(String.format("Could not pre-pull image %s for command %s. %s",
+                    command.getDockerImage(), command.getName(), e.getMessage()));
+        }
+    }
+
+    @Override
+    public Command retrieve(final String name, final String dockerImageId) {
+        return getDao().retrieve(name, dockerImageId);
     }
 
     @Override
@@ -193,6 +231,28 @@ public class HibernateCommandService extends AbstractHibernateEntityService<Comm
         return containerExecutionService.save(preparedToLaunch, containerId, userI);
     }
 
+    @Override
+    public ContainerExecution launchResolvedCommands(final List<ResolvedCommand> resolvedCommands,
+                                                     final UserI userI)
+            throws NoServerPrefException, DockerServerException, ContainerException {
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Preparing to launch a batch of %d resolved commands.", resolvedCommands.size()));
+        }
+        final List<ResolvedCommand> preparedToLaunch = Lists.newArrayList();
+        for (final ResolvedCommand resolvedCommand : resolvedCommands) {
+            preparedToLaunch.add(prepareToLaunch(resolvedCommand, userI));
+        }
+
+        final Path batchDirectory = buildDirectoryService.acquire(controlApi.getServer().getHost(), null, 1).get(0);
+        final ResolvedCommand batch = BatchLaunchHelper.packBatch(preparedToLaunch, batchDirectory, mapper);
+
+        log.info("Launching batch.");
+        final String containerId = controlApi.launchImage(batch);
+
+        log.info("Recording batch launch.");
+        return containerExecutionService.saveBatch(batch, preparedToLaunch, containerId, userI);
+    }
+
     private ResolvedCommand prepareToLaunch(final ResolvedCommand resolvedCommand,
                                             final UserI userI)
             throws NoServerPrefException {
@@ -218,18 +278,22 @@ public class HibernateCommandService extends AbstractHibernateEntityService<Comm
                 (resolvedCommand.getMountsOut() != null && !resolvedCommand.getMountsOut().isEmpty()))) {
             log.debug("Transporting mounts");
         }
-        if (resolvedCommand.getMountsIn() != null) {
+        if (resolvedCommand.getMountsIn() != null && !resolvedCommand.getMountsIn().isEmpty()) {
             final String dockerHost = controlApi.getServer().getHost();
-            for (final ContainerExecutionMount mountIn : resolvedCommand.getMountsIn()) {
-                final Path pathOnXnatHost = Paths.get(mountIn.getHostPath());
-                final Path pathOnDockerHost = transporter.transport(dockerHost, pathOnXnatHost);
-                mountIn.setHostPath(pathOnDockerHost.toString());
+            final List<ContainerExecutionMount> mountsIn = resolvedCommand.getMountsIn();
+            final List<Path> pathsOnXnatHost = Lists.newArrayList();
+            for (final ContainerExecutionMount mountIn : mountsIn) {
+                pathsOnXnatHost.add(Paths.get(mountIn.getHostPath()));
+            }
+            final List<Path> pathsOnDockerHost = inputStagingService.stage(dockerHost, pathsOnXnatHost);
+            for (int i = 0; i < mountsIn.size(); i++) {
+                mountsIn.get(i).setHostPath(pathsOnDockerHost.get(i).toString());
             }
         }
         if (resolvedCommand.getMountsOut() != null) {
             final String dockerHost = controlApi.getServer().getHost();
             final List<ContainerExecutionMount> mountsOut = resolvedCommand.getMountsOut();
-            final List<Path> buildPaths = transporter.getWritableDirectories(dockerHost, mountsOut.size());
+            final List<Path> buildPaths = buildDirectoryService.acquire(dockerHost, resolvedCommand.getCommandId(), mountsOut.size());
             for (int i=0; i < mountsOut.size(); i++) {
                 final ContainerExecutionMount mountOut = mountsOut.get(i);
                 final Path buildPath = buildPaths.get(i);
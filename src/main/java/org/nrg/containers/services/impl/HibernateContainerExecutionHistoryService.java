@@ -0,0 +1,255 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.nrg.containers.daos.ContainerExecutionHistoryDao;
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.containers.services.ContainerExecutionHistoryService;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Buffers container execution history entries and writes them behind, in batches. A batch is written by the
+ * history flusher when the buffer holds {@value #BATCH_SIZE} entries, or when its oldest entry has waited
+ * {@value #MAX_DELAY_MILLIS} ms. Entries are never written from a caller's thread, which may hold row locks that
+ * the write would wait on; history that is read includes the entries that have not been written yet.
+ *
+ * <p>When a batch cannot be written, its entries are written one at a time, so one bad entry does not hold back the
+ * rest. An entry that cannot be written alone goes back to the front of the buffer, to be tried on the next flush,
+ * and is dropped after {@value #MAX_ATTEMPTS} tries. The buffer holds at most {@value #MAX_BUFFERED} entries; while
+ * the database cannot be written, the oldest are dropped to make room. Dropped entries are logged.</p>
+ */
+@Service
+@Transactional
+public class HibernateContainerExecutionHistoryService
+        extends AbstractHibernateEntityService<ContainerExecutionHistory, ContainerExecutionHistoryDao>
+        implements ContainerExecutionHistoryService {
+    private static final Logger log = LoggerFactory.getLogger(HibernateContainerExecutionHistoryService.class);
+
+    static final int BATCH_SIZE = 50;
+    static final long MAX_DELAY_MILLIS = 1000L;
+    static final int MAX_ATTEMPTS = 3;
+    static final int MAX_BUFFERED = 10000;
+
+    private final Object flushLock = new Object();
+    private List<ContainerExecutionHistory> buffer = Lists.newArrayList();
+    private List<ContainerExecutionHistory> writing = Collections.emptyList();
+    private long oldestBuffered = 0L;
+    // Failed writes of each entry that has failed alone; only used while holding the flush lock
+    private final Map<ContainerExecutionHistory, Integer> attempts = new IdentityHashMap<>();
+
+    private long appended = 0L;
+    private long batches = 0L;
+    private long failures = 0L;
+    private long dropped = 0L;
+    private long writeMillis = 0L;
+
+    @Override
+    public synchronized void append(final Long containerExecutionId, final ContainerExecutionHistory entry) {
+        entry.setContainerExecutionId(containerExecutionId);
+        if (buffer.isEmpty()) {
+            oldestBuffered = System.currentTimeMillis();
+        }
+        buffer.add(entry);
+        appended++;
+        trimBuffer();
+    }
+
+    // Called holding this service's lock
+    private void trimBuffer() {
+        while (buffer.size() > MAX_BUFFERED) {
+            final ContainerExecutionHistory oldest = buffer.remove(0);
+            dropped++;
+            if (dropped % 1000 == 1) {
+                log.error(String.format("The container execution history buffer is full. Dropped the entry %s of " +
+                        "ContainerExecution %s. %d entries dropped so far.", oldest.getStatus(), oldest.getContainerExecutionId(), dropped));
+            }
+        }
+    }
+
+    @Override
+    public void flushIfDue() {
+        final boolean due;
+        synchronized (this) {
+            due = buffer.size() >= BATCH_SIZE ||
+                    (!buffer.isEmpty() && System.currentTimeMillis() - oldestBuffered >= MAX_DELAY_MILLIS);
+        }
+        if (due) {
+            flush();
+        }
+    }
+
+    /**
+     * Write the buffered entries now. Must not be called from a transaction that has changed executions.
+     */
+    @Override
+    public void flush() {
+        // Only one batch is written at a time, so sequence numbers within an execution's history never collide
+        synchronized (flushLock) {
+            final List<ContainerExecutionHistory> batch;
+            synchronized (this) {
+                if (buffer.isEmpty()) {
+                    return;
+                }
+                batch = buffer;
+                writing = batch;
+                buffer = Lists.newArrayList();
+            }
+
+            final long start = System.currentTimeMillis();
+            try {
+                getDao().append(batch);
+                for (final ContainerExecutionHistory entry : batch) {
+                    attempts.remove(entry);
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    failures++;
+                }
+                log.error(String.format("Could not write %d container execution history entries. Writing them one at a time. " +
+                        "%d failed writes so far.", batch.size(), failures), e);
+                writeEach(batch);
+                return;
+            }
+
+            final long elapsed = System.currentTimeMillis() - start;
+            synchronized (this) {
+                writing = Collections.emptyList();
+                batches++;
+                writeMillis += elapsed;
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Wrote %d container execution history entries in %d ms. " +
+                                    "%d entries appended in total, written in %d batches taking %d ms.",
+                            batch.size(), elapsed, appended, batches, writeMillis));
+                }
+            }
+        }
+    }
+
+    /**
+     * Write entries now, without buffering them, in their own transaction. Used for history that is known before it
+     * is written, such as history migrated from an earlier version.
+     *
+     * @param entries Entries to write, each with its execution's ID, in the order they happened
+     */
+    @Override
+    public void write(final List<ContainerExecutionHistory> entries) {
+        synchronized (flushLock) {
+            getDao().append(entries);
+        }
+    }
+
+    /**
+     * Write the entries of a batch that could not be written one at a time, in order. Entries that cannot be written
+     * alone go back to the front of the buffer, unless they have failed too often. Called holding the flush lock.
+     */
+    private void writeEach(final List<ContainerExecutionHistory> batch) {
+        final List<ContainerExecutionHistory> failed = Lists.newArrayList();
+        for (final ContainerExecutionHistory entry : batch) {
+            // The failed batch was rolled back, so the entry is numbered again
+            reset(entry);
+            try {
+                getDao().append(Collections.singletonList(entry));
+                attempts.remove(entry);
+            } catch (RuntimeException e) {
+                reset(entry);
+                final int tries = attempts.containsKey(entry) ? attempts.get(entry) + 1 : 1;
+                if (tries < MAX_ATTEMPTS) {
+                    attempts.put(entry, tries);
+                    failed.add(entry);
+                } else {
+                    attempts.remove(entry);
+                    synchronized (this) {
+                        dropped++;
+                    }
+                    log.error(String.format("Could not write the history entry %s at %s of ContainerExecution %s after %d tries. Dropping it.",
+                            entry.getStatus(), entry.getTime(), entry.getContainerExecutionId(), tries), e);
+                }
+            }
+        }
+
+        synchronized (this) {
+            writing = Collections.emptyList();
+            if (!failed.isEmpty()) {
+                failed.addAll(buffer);
+                buffer = failed;
+                oldestBuffered = System.currentTimeMillis();
+                trimBuffer();
+            }
+        }
+    }
+
+    private static void reset(final ContainerExecutionHistory entry) {
+        entry.setId(0);
+        entry.setSequence(null);
+    }
+
+    /**
+     * Read an execution's history: the entries that have been written, followed by those that have not.
+     */
+    @Override
+    public List<ContainerExecutionHistory> getHistory(final Long containerExecutionId) {
+        // Take the unwritten entries before reading, so an entry written in between is found in one or the other
+        final List<ContainerExecutionHistory> unwritten = Lists.newArrayList();
+        synchronized (this) {
+            addEntries(containerExecutionId, writing, unwritten);
+            addEntries(containerExecutionId, buffer, unwritten);
+        }
+
+        final List<ContainerExecutionHistory> history = Lists.newArrayList(getDao().findByExecutionId(containerExecutionId));
+        final Set<Long> written = Sets.newHashSet();
+        for (final ContainerExecutionHistory entry : history) {
+            written.add(entry.getId());
+        }
+        for (final ContainerExecutionHistory entry : unwritten) {
+            if (!written.contains(entry.getId())) {
+                history.add(entry);
+            }
+        }
+        return history;
+    }
+
+    private static void addEntries(final Long containerExecutionId,
+                                   final List<ContainerExecutionHistory> from,
+                                   final List<ContainerExecutionHistory> to) {
+        for (final ContainerExecutionHistory entry : from) {
+            if (containerExecutionId.equals(entry.getContainerExecutionId())) {
+                to.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Delete the history of executions, including entries that have not been written.
+     */
+    @Override
+    public void deleteHistory(final List<Long> containerExecutionIds) {
+        if (containerExecutionIds == null || containerExecutionIds.isEmpty()) {
+            return;
+        }
+        // Hold off the flusher, so no entry of these executions is written after they are deleted
+        synchronized (flushLock) {
+            synchronized (this) {
+                final Iterator<ContainerExecutionHistory> entries = buffer.iterator();
+                while (entries.hasNext()) {
+                    final ContainerExecutionHistory entry = entries.next();
+                    if (containerExecutionIds.contains(entry.getContainerExecutionId())) {
+                        entries.remove();
+                        attempts.remove(entry);
+                    }
+                }
+            }
+            getDao().deleteByExecutionIds(containerExecutionIds);
+        }
+    }
+}
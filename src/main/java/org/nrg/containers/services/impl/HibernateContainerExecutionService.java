@@ -1,20 +1,44 @@
 package org.nrg.containers.services.impl;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Hibernate;
 import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.daos.ContainerExecutionObjectDao;
 import org.nrg.containers.daos.ContainerExecutionRepository;
+import org.nrg.containers.events.ContainerFinalizedEvent;
 import org.nrg.containers.events.DockerContainerEvent;
 import org.nrg.containers.exceptions.DockerServerException;
 import org.nrg.containers.exceptions.NoServerPrefException;
 import org.nrg.containers.exceptions.NotFoundException;
+import org.nrg.containers.helpers.BatchLaunchHelper;
 import org.nrg.containers.helpers.ContainerFinalizeHelper;
+import org.nrg.containers.model.CommandRetryPolicy;
+import org.nrg.containers.model.Container;
 import org.nrg.containers.model.ContainerExecution;
 import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.containers.model.ContainerExecutionMount;
+import org.nrg.containers.model.ContainerExecutionObject;
+import org.nrg.containers.model.ContainerExecutionSummary;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.model.LegacyContainerExecutionHistory;
 import org.nrg.containers.model.ResolvedCommand;
+import org.nrg.containers.services.ArchivedContainerExecutionService;
+import org.nrg.containers.services.BuildDirectoryService;
+import org.nrg.containers.services.ContainerExecutionHistoryService;
 import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.ContainerExecutionStatsService;
+import org.nrg.containers.services.ContainerInputBlobService;
+import org.nrg.containers.services.InputStagingService;
+import org.nrg.containers.services.OutputChecksumService;
+import org.nrg.containers.services.OutputStoreService;
 import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.nrg.framework.services.NrgEventService;
 import org.nrg.transporter.TransportService;
 import org.nrg.xdat.preferences.SiteConfigPreferences;
 import org.nrg.xdat.security.helpers.Users;
@@ -29,8 +53,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class HibernateContainerExecutionService
@@ -39,12 +71,37 @@ public class HibernateContainerExecutionService
     private static final Logger log = LoggerFactory.getLogger(HibernateContainerExecutionService.class);
     private final String UTF8 = StandardCharsets.UTF_8.name();
 
+    private static final String RETRY_SCHEDULED = "retry-scheduled";
+    private static final String RETRY_LAUNCHED = "retry-launched";
+    private static final String RETRY_FAILED = "retry-failed";
+    private static final String BUILD_QUOTA_EXCEEDED = "build-quota-exceeded";
+    // Recorded for a container that stopped without an exit code we could read, so it is not taken to have succeeded
+    private static final String UNKNOWN_EXIT_CODE = "-1";
+    private static final List<String> EXIT_STATUSES = Arrays.asList("kill", "die", "oom");
+    private static final String EXIT_STATUS_PATTERN = StringUtils.join(EXIT_STATUSES, "|");
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final List<String> FINISHED_STATUSES = Arrays.asList("kill", "die", "oom", RETRY_LAUNCHED, RETRY_FAILED);
+    private static final int ARCHIVE_BATCH_SIZE = 100;
+    private static final int MIGRATION_BATCH_SIZE = 100;
+
     private ContainerControlApi containerControlApi;
     private SiteConfigPreferences siteConfigPreferences;
     private TransportService transportService;
     private PermissionsServiceI permissionsService;
     private CatalogService catalogService;
     private ObjectMapper mapper;
+    private NrgEventService eventService;
+    private ContainerExecutionHistoryService historyService;
+    private ContainerExecutionObjectDao objectDao;
+    private ContainerInputBlobService inputBlobService;
+    private ArchivedContainerExecutionService archiveService;
+    private ContainerExecutionStatsService statsService;
+    private InputStagingService inputStagingService;
+    private BuildDirectoryService buildDirectoryService;
+    private DockerServerPrefsBean dockerServerPrefsBean;
+    private OutputChecksumService checksumService;
+    private OutputStoreService outputStore;
 
     @Autowired
     public HibernateContainerExecutionService(final ContainerControlApi containerControlApi,
@@ -52,13 +109,35 @@ public class HibernateContainerExecutionService
                                               final TransportService transportService,
                                               final PermissionsServiceI permissionsService,
                                               final CatalogService catalogService,
-                                              final ObjectMapper mapper) {
+                                              final ObjectMapper mapper,
+                                              final NrgEventService eventService,
+                                              final ContainerExecutionHistoryService historyService,
+                                              final ContainerExecutionObjectDao objectDao,
+                                              final ContainerInputBlobService inputBlobService,
+                                              final ArchivedContainerExecutionService archiveService,
+                                              final ContainerExecutionStatsService statsService,
+                                              final InputStagingService inputStagingService,
+                                              final BuildDirectoryService buildDirectoryService,
+                                              final DockerServerPrefsBean dockerServerPrefsBean,
+                                              final OutputChecksumService checksumService,
+                                              final OutputStoreService outputStore) {
         this.containerControlApi = containerControlApi;
         this.siteConfigPreferences = siteConfigPreferences;
         this.transportService = transportService;
         this.permissionsService = permissionsService;
         this.catalogService = catalogService;
         this.mapper = mapper;
+        this.eventService = eventService;
+        this.historyService = historyService;
+        this.objectDao = objectDao;
+        this.inputBlobService = inputBlobService;
+        this.archiveService = archiveService;
+        this.statsService = statsService;
+        this.inputStagingService = inputStagingService;
+        this.buildDirectoryService = buildDirectoryService;
+        this.dockerServerPrefsBean = dockerServerPrefsBean;
+        this.checksumService = checksumService;
+        this.outputStore = outputStore;
     }
 
     @Override
@@ -68,54 +147,577 @@ public class HibernateContainerExecutionService
         }
         Hibernate.initialize(entity);
         Hibernate.initialize(entity.getEnvironmentVariables());
-        Hibernate.initialize(entity.getHistory());
+        Hibernate.initialize(entity.getPorts());
+        Hibernate.initialize(entity.getInputValueHashes());
+        loadDetail(entity);
         Hibernate.initialize(entity.getMountsIn());
         Hibernate.initialize(entity.getMountsOut());
         Hibernate.initialize(entity.getCommandLine());
-        Hibernate.initialize(entity.getInputValues());
         Hibernate.initialize(entity.getOutputs());
     }
 
+    /**
+     * Save the execution, store its input values, and record which XNAT objects it was given as inputs.
+     */
+    @Override
+    @Transactional
+    public ContainerExecution create(final ContainerExecution entity) {
+        entity.setInputValueHashes(inputBlobService.store(entity.getInputValues()));
+        final ContainerExecution created = super.create(entity);
+        indexObjects(created);
+        return created;
+    }
+
+    private void indexObjects(final ContainerExecution execution) {
+        final Map<String, String> inputValues = execution.getInputValues();
+        if (inputValues == null || inputValues.isEmpty()) {
+            return;
+        }
+        final Set<String> indexed = Sets.newHashSet();
+        for (final Map.Entry<String, String> inputValue : inputValues.entrySet()) {
+            final ContainerExecutionObject object = readObject(execution.getId(), inputValue.getKey(), inputValue.getValue());
+            if (object != null && indexed.add(object.getUri())) {
+                objectDao.create(object);
+            }
+        }
+    }
+
+    /**
+     * Read the URI, ID, and type of the XNAT object an input value holds. Only the object's own fields are read;
+     * its children, which for a session include every scan, resource, and file, are skipped without being parsed into objects.
+     *
+     * @return The object, or null if the value is not an XNAT object
+     */
+    private ContainerExecutionObject readObject(final long executionId, final String inputName, final String value) {
+        if (StringUtils.isBlank(value) || !value.trim().startsWith("{")) {
+            return null;
+        }
+        String uri = null;
+        String xnatId = null;
+        String type = null;
+        try (final JsonParser parser = mapper.getFactory().createParser(value)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                final JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                } else if ("uri".equals(field)) {
+                    uri = parser.getValueAsString();
+                } else if ("id".equals(field)) {
+                    xnatId = parser.getValueAsString();
+                } else if ("type".equals(field)) {
+                    type = parser.getValueAsString();
+                }
+            }
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Value of input %s on ContainerExecution %s is not JSON. Not recording it as an XNAT object.", inputName, executionId));
+            }
+            return null;
+        }
+        return StringUtils.isBlank(uri) ? null : new ContainerExecutionObject(executionId, uri, xnatId, type, inputName);
+    }
+
     @Override
     @Transactional
     public void processEvent(final DockerContainerEvent event) {
         if (log.isDebugEnabled()) {
             log.debug("Processing docker container event: " + event);
         }
-        final List<ContainerExecution> matchingContainerIds = getDao().findByProperty("containerId", event.getContainerId());
+        final Long executionId = getDao().findIdByContainerId(event.getContainerId());
+        if (executionId == null) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Found matching execution: " + executionId);
+        }
 
-        // Container ID is constrained to be unique, so we can safely take the first element of this list
-        if (matchingContainerIds != null && !matchingContainerIds.isEmpty()) {
-            final ContainerExecution execution = matchingContainerIds.get(0);
-            if (log.isDebugEnabled()) {
-                log.debug("Found matching execution: " + execution.getId());
+        if (!isExit(event)) {
+            // Nothing but the history and status change, so the execution does not need to be read
+            historyService.append(executionId, new ContainerExecutionHistory(event.getStatus(), event.getTime(), event.getExitCode()));
+            getDao().updateStatus(executionId, event.getStatus(), event.getTime());
+            return;
+        }
+
+        final ContainerExecution execution = retrieve(executionId);
+        loadDetail(execution);
+        processEvent(execution, event);
+    }
+
+    private static boolean isExit(final DockerContainerEvent event) {
+        return StringUtils.isNotBlank(event.getStatus()) && event.getStatus().matches(EXIT_STATUS_PATTERN);
+    }
+
+    /**
+     * Read the parts of the execution that are stored apart from it: its history and its input values.
+     */
+    private void loadDetail(final ContainerExecution execution) {
+        loadHistory(execution);
+        if (needsInputMigration(execution)) {
+            // Saved before values were stored apart, and not migrated yet
+            execution.setInputValues(Maps.newHashMap(execution.getLegacyInputValues()));
+        } else {
+            execution.setInputValues(inputBlobService.load(execution.getInputValueHashes()));
+        }
+    }
+
+    private static boolean needsInputMigration(final ContainerExecution execution) {
+        return (execution.getInputValueHashes() == null || execution.getInputValueHashes().isEmpty()) &&
+                execution.getLegacyInputValues() != null && !execution.getLegacyInputValues().isEmpty();
+    }
+
+    /**
+     * Read the execution's history, including any entries that have not been written yet.
+     */
+    private void loadHistory(final ContainerExecution execution) {
+        final List<ContainerExecutionHistory> history = Lists.newArrayList(historyService.getHistory(execution.getId()));
+        if (history.isEmpty() && execution.getLegacyHistory() != null && !execution.getLegacyHistory().isEmpty()) {
+            // Saved before history was stored apart, and not migrated yet
+            history.addAll(legacyHistory(execution));
+        }
+        execution.setHistory(history);
+    }
+
+    private static List<ContainerExecutionHistory> legacyHistory(final ContainerExecution execution) {
+        final List<LegacyContainerExecutionHistory> legacy = Lists.newArrayList(execution.getLegacyHistory());
+        // The old table kept no order
+        Collections.sort(legacy, new Comparator<LegacyContainerExecutionHistory>() {
+            @Override
+            public int compare(final LegacyContainerExecutionHistory first, final LegacyContainerExecutionHistory second) {
+                if (first.getTime() == null || second.getTime() == null) {
+                    return first.getTime() == null ? (second.getTime() == null ? 0 : -1) : 1;
+                }
+                return first.getTime().compareTo(second.getTime());
             }
+        });
+        final List<ContainerExecutionHistory> history = Lists.newArrayList();
+        for (final LegacyContainerExecutionHistory entry : legacy) {
+            history.add(entry.toHistory());
+        }
+        return history;
+    }
 
-            final ContainerExecutionHistory history = new ContainerExecutionHistory(event.getStatus(), event.getTime());
-            if (log.isDebugEnabled()) {
-                log.debug("Adding history entry: " + history);
+    private void recordHistory(final ContainerExecution execution, final ContainerExecutionHistory entry) {
+        execution.addToHistory(entry);
+        historyService.append(execution.getId(), entry);
+    }
+
+    private void processEvent(final ContainerExecution execution, final DockerContainerEvent event) {
+        final boolean alreadyExited = execution.getExitTime() != null;
+
+        final ContainerExecutionHistory history = new ContainerExecutionHistory(event.getStatus(), event.getTime(), event.getExitCode());
+        if (log.isDebugEnabled()) {
+            log.debug("Adding history entry: " + history);
+        }
+        recordHistory(execution, history);
+
+        final boolean exited = isExit(event);
+        if (exited && execution.hasHistoryStatus(RETRY_SCHEDULED)) {
+            // Docker sends more than one event when a container stops. We already scheduled
+            // a retry on an earlier one; the retry will be finalized instead of this container.
+            update(execution);
+            return;
+        }
+        if (exited && alreadyExited) {
+            // Docker sends more than one event when a container stops, and reconciliation may
+            // have recorded the stop before docker's events were read. Finalize only once.
+            update(execution);
+            return;
+        }
+
+        final boolean retrying = exited && scheduleRetryIfAllowed(execution, event);
+        update(execution);
+
+        if (exited && !retrying) {
+            finalizeAsLaunchingUser(execution);
+        }
+    }
+
+    /**
+     * Bring executions up to date with their containers, for containers that stopped while no one was
+     * reading docker's events. All the containers are listed in one request, and all the executions
+     * that have not exited are read in one query. Each execution whose container has stopped, or is gone,
+     * gets the same history entry a docker "die" event would have given it, and is finalized or retried. A container
+     * that is gone, or dead with no exit code, is recorded with exit code {@value #UNKNOWN_EXIT_CODE}, as a failure.
+     *
+     * @return Executions whose containers were found to have stopped
+     */
+    @Override
+    @Transactional
+    public List<ContainerExecution> reconcile() throws NoServerPrefException, DockerServerException {
+        // Written before any execution is changed, so exits seen by docker's events are found by the query
+        historyService.flush();
+        final List<ContainerExecution> notExited = getDao().findNotExited(EXIT_STATUSES);
+        final List<ContainerExecution> reconciled = Lists.newArrayList();
+        if (notExited == null || notExited.isEmpty()) {
+            return reconciled;
+        }
+
+        Map<String, Container> containers = indexById(containerControlApi.getContainerStates(true));
+        boolean listedAll = false;
+        final Date now = new Date();
+        for (final ContainerExecution execution : notExited) {
+            Container container = containers.get(execution.getContainerId());
+            if (container == null && !listedAll) {
+                // Containers launched before XNAT labeled them can only be found in the list of all containers
+                containers = indexById(containerControlApi.getContainerStates(false));
+                listedAll = true;
+                container = containers.get(execution.getContainerId());
+            }
+            if (container != null && !container.isStopped()) {
+                continue;
+            }
+
+            if (container == null) {
+                log.warn(String.format("Container %s for ContainerExecution %s is no longer on the docker server.",
+                        execution.getContainerId(), execution.getId()));
+            }
+            loadDetail(execution);
+            if (execution.getExitTime() != null) {
+                // The exit was recorded after the query, or has not been written yet
+                continue;
             }
-            execution.addToHistory(history);
+            // A container that is gone, or dead without an exit code, did not finish cleanly
+            final String exitCode = container == null ? null : StringUtils.trimToNull(container.exitCode());
+            processEvent(execution, new DockerContainerEvent("die", execution.getContainerId(), now,
+                    exitCode == null ? UNKNOWN_EXIT_CODE : exitCode));
+            reconciled.add(execution);
+        }
+        return reconciled;
+    }
+
+    /**
+     * Measure the output mounts of executions whose containers are running, and kill those that are over the
+     * build quota. Each execution keeps the largest size it was measured at.
+     *
+     * @return Executions that were killed
+     */
+    @Override
+    @Transactional
+    public List<ContainerExecution> enforceBuildQuota() {
+        final List<ContainerExecution> killed = Lists.newArrayList();
+        final List<ContainerExecution> notExited = getDao().findNotExited(EXIT_STATUSES);
+        if (notExited == null || notExited.isEmpty()) {
+            return killed;
+        }
+
+        for (final ContainerExecution execution : notExited) {
+            final long bytes = buildDirectoryService.measure(execution.getMountsOut());
+            if (recordBuildBytes(execution, bytes)) {
+                update(execution);
+            }
+            if (!buildDirectoryService.isOverQuota(bytes)) {
+                continue;
+            }
+            loadHistory(execution);
+            if (execution.hasHistoryStatus(BUILD_QUOTA_EXCEEDED)) {
+                // Already killed. Waiting for docker to say the container has stopped.
+                continue;
+            }
+
+            log.warn(String.format("ContainerExecution %s has %d bytes in its output mounts, over the build quota. Killing container %s.",
+                    execution.getId(), bytes, execution.getContainerId()));
+            recordHistory(execution, new ContainerExecutionHistory(BUILD_QUOTA_EXCEEDED, new Date()));
             update(execution);
+            try {
+                containerControlApi.killContainer(execution.getContainerId());
+                killed.add(execution);
+            } catch (NoServerPrefException | DockerServerException | NotFoundException e) {
+                log.error(String.format("Could not kill container %s of ContainerExecution %s.",
+                        execution.getContainerId(), execution.getId()), e);
+            }
+        }
+        return killed;
+    }
 
-            if (StringUtils.isNotBlank(event.getStatus()) &&
-                    event.getStatus().matches("kill|die|oom")) {
-                final String userLogin = execution.getUserId();
-                try {
-                    final UserI userI = Users.getUser(userLogin);
-                    finalize(execution, userI);
-                } catch (UserInitException | UserNotFoundException e) {
-                    log.error("Could not finalize container execution. Could not get user details for user " + userLogin, e);
-                }
+    private static Map<String, Container> indexById(final List<Container> containers) {
+        final Map<String, Container> byId = Maps.newHashMap();
+        if (containers != null) {
+            for (final Container container : containers) {
+                byId.put(container.id(), container);
+            }
+        }
+        return byId;
+    }
+
+    @Override
+    @Transactional
+    public Map<String, Date> getImageLastUsed() {
+        return getDao().findImageLastUsed();
+    }
+
+    /**
+     * List executions, newest first, a page at a time. Only the execution's own columns are read,
+     * so listing does not grow with the size of the executions' inputs or history.
+     */
+    @Override
+    @Transactional
+    public List<ContainerExecutionSummary> getSummaries(final String status,
+                                                        final Long commandId,
+                                                        final String userId,
+                                                        final String project,
+                                                        final Date since,
+                                                        final Date until,
+                                                        final Long before,
+                                                        final Integer limit) {
+        return getDao().findSummaries(status, commandId, userId, project, since, until, before, pageSize(limit));
+    }
+
+    /**
+     * List executions that were given an XNAT object as an input, newest first, a page at a time.
+     */
+    @Override
+    @Transactional
+    public List<ContainerExecutionSummary> getSummariesByObject(final String uri,
+                                                                final String xnatId,
+                                                                final Long before,
+                                                                final Integer limit) {
+        return getDao().findSummariesByObject(uri, xnatId, before, pageSize(limit));
+    }
+
+    private static int pageSize(final Integer limit) {
+        return limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+    }
 
+    /**
+     * Move executions that finished before the cutoff, and will not be retried, out of the execution tables
+     * and into the archive. At most {@value #ARCHIVE_BATCH_SIZE} executions are moved per call, so each call
+     * is a short transaction; call again until fewer than that are moved. The executions' input values stay
+     * where they are, since other executions may share them, as do the records of which XNAT objects they ran on.
+     *
+     * @param cutoff Executions whose latest history entry is before this time are archived
+     * @return The number of executions archived
+     */
+    @Override
+    @Transactional
+    public int archiveFinished(final Date cutoff) {
+        // Written before any execution is changed
+        historyService.flush();
+        final List<ContainerExecution> finished = getDao().findFinishedBefore(FINISHED_STATUSES, cutoff, ARCHIVE_BATCH_SIZE);
+        if (finished == null || finished.isEmpty()) {
+            return 0;
+        }
+
+        final List<Long> ids = Lists.newArrayList();
+        for (final ContainerExecution execution : finished) {
+            Hibernate.initialize(execution.getEnvironmentVariables());
+            Hibernate.initialize(execution.getPorts());
+            Hibernate.initialize(execution.getMountsIn());
+            Hibernate.initialize(execution.getMountsOut());
+            Hibernate.initialize(execution.getInputValueHashes());
+            Hibernate.initialize(execution.getOutputs());
+            migrateInputValues(execution);
+            loadHistory(execution);
+            archiveService.archive(execution);
+            ids.add(execution.getId());
+        }
+        historyService.deleteHistory(ids);
+        for (final ContainerExecution execution : finished) {
+            super.delete(execution);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Archived %d ContainerExecutions that finished before %s.", ids.size(), cutoff));
+        }
+        return ids.size();
+    }
+
+    /**
+     * Move data of executions saved by an earlier version out of the tables that version kept it in: input values
+     * are stored as blobs, by hash, and the XNAT objects among them are recorded; history is written to the history
+     * table, and sets the execution's status if it has none. At most {@value #MIGRATION_BATCH_SIZE} executions are migrated per call, so
+     * each call is a short transaction; call again until none are migrated.
+     *
+     * @return The number of executions migrated
+     */
+    @Override
+    @Transactional
+    public int migrateLegacyData() {
+        // History that is already stored is not migrated again, so buffered entries are written first
+        historyService.flush();
+        final List<ContainerExecution> legacy = getDao().findWithLegacyData(MIGRATION_BATCH_SIZE);
+        if (legacy == null || legacy.isEmpty()) {
+            return 0;
+        }
+        for (final ContainerExecution execution : legacy) {
+            final boolean unindexed = needsInputMigration(execution);
+            if (unindexed) {
+                execution.setInputValues(Maps.newHashMap(execution.getLegacyInputValues()));
+            }
+            migrateInputValues(execution);
+            if (unindexed) {
+                // Saved before the XNAT objects given as inputs were recorded
+                indexObjects(execution);
+            }
+            migrateHistory(execution);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Migrated the input values and history of %d ContainerExecutions.", legacy.size()));
+        }
+        return legacy.size();
+    }
+
+    private void migrateInputValues(final ContainerExecution execution) {
+        if (needsInputMigration(execution)) {
+            execution.setInputValueHashes(inputBlobService.store(execution.getLegacyInputValues()));
+        }
+        // Cleared once the values are stored, so the rows are deleted when the execution is flushed
+        execution.getLegacyInputValues().clear();
+    }
+
+    private void migrateHistory(final ContainerExecution execution) {
+        if (execution.getLegacyHistory().isEmpty()) {
+            return;
+        }
+        if (historyService.getHistory(execution.getId()).isEmpty()) {
+            final List<ContainerExecutionHistory> history = legacyHistory(execution);
+            for (final ContainerExecutionHistory entry : history) {
+                entry.setContainerExecutionId(execution.getId());
+            }
+            // Written now, in its own transaction: if this transaction rolls back, the history is not written again
+            historyService.write(history);
+            if (execution.getStatus() == null) {
+                final ContainerExecutionHistory latest = history.get(history.size() - 1);
+                execution.setStatus(latest.getStatus());
+                execution.setStatusTime(latest.getTime());
             }
         }
+        execution.getLegacyHistory().clear();
+    }
+
+    /**
+     * Delete the execution and its history, which is stored apart from it.
+     */
+    @Override
+    @Transactional
+    public void delete(final ContainerExecution entity) {
+        if (entity != null) {
+            historyService.deleteHistory(Lists.newArrayList(entity.getId()));
+        }
+        super.delete(entity);
+    }
+
+    @Override
+    @Transactional
+    public void delete(final long id) {
+        historyService.deleteHistory(Lists.newArrayList(id));
+        super.delete(id);
+    }
+
+    @Override
+    @Transactional
+    public List<ContainerExecution> launchDueRetries() {
+        final List<ContainerExecution> due = getDao().findRetriesDue(new Date());
+        final List<ContainerExecution> launched = Lists.newArrayList();
+        if (due == null || due.isEmpty()) {
+            return launched;
+        }
+
+        for (final ContainerExecution failed : due) {
+            loadDetail(failed);
+            try {
+                launched.add(retry(failed));
+            } catch (NoServerPrefException | DockerServerException | RuntimeException e) {
+                log.error(String.format("Could not retry ContainerExecution %s. Finalizing it instead.", failed.getId()), e);
+                failed.setRetryAfter(null);
+                recordHistory(failed, new ContainerExecutionHistory(RETRY_FAILED, new Date()));
+                update(failed);
+                finalizeAsLaunchingUser(failed);
+            }
+        }
+        return launched;
+    }
+
+    private boolean scheduleRetryIfAllowed(final ContainerExecution execution, final DockerContainerEvent event) {
+        final CommandRetryPolicy policy = execution.getRetryPolicy();
+        final int attempt = execution.getAttempt() == null ? 1 : execution.getAttempt();
+        if (policy == null || !policy.allowsRetry(attempt)) {
+            return false;
+        }
+
+        // Someone killed the container on purpose. Don't bring it back.
+        if (execution.hasHistoryStatus("kill")) {
+            return false;
+        }
+
+        final boolean failed;
+        if ("oom".equals(event.getStatus())) {
+            failed = true;
+        } else if ("die".equals(event.getStatus())) {
+            final String exitCode = StringUtils.trimToNull(event.getExitCode());
+            failed = exitCode != null && !"0".equals(exitCode);
+        } else {
+            failed = false;
+        }
+        if (!failed) {
+            return false;
+        }
+
+        final long backoff = policy.getBackoffMillis(attempt);
+        execution.setRetryAfter(new Date(System.currentTimeMillis() + backoff));
+        recordHistory(execution, new ContainerExecutionHistory(RETRY_SCHEDULED, new Date()));
+        if (log.isInfoEnabled()) {
+            log.info(String.format("ContainerExecution %s failed on attempt %d of %d. Retrying after %s.",
+                    execution.getId(), attempt, policy.getMaxAttempts(), execution.getRetryAfter()));
+        }
+        return true;
+    }
+
+    private ContainerExecution retry(final ContainerExecution failed)
+            throws NoServerPrefException, DockerServerException {
+        final int attempt = failed.getAttempt() == null ? 1 : failed.getAttempt();
+        final ResolvedCommand resolvedCommand = new ResolvedCommand(failed);
+        if (failed.hasHistoryStatus("oom") && failed.getRetryPolicy() != null) {
+            resolvedCommand.setMemoryLimit(failed.getRetryPolicy().escalateMemory(failed.getMemoryLimit()));
+        }
+
+        // Whatever the failed container wrote may be incomplete, so the retry gets fresh output directories.
+        // Input mounts have already been transported, and are reused as they are.
+        final List<ContainerExecutionMount> mountsOut = resolvedCommand.getMountsOut();
+        if (mountsOut != null && !mountsOut.isEmpty()) {
+            final String dockerHost = containerControlApi.getServer().getHost();
+            final List<Path> buildPaths = buildDirectoryService.acquire(dockerHost, resolvedCommand.getCommandId(), mountsOut.size());
+            for (int i = 0; i < mountsOut.size(); i++) {
+                mountsOut.get(i).setHostPath(buildPaths.get(i).toString());
+            }
+        }
+
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Launching attempt %d of ContainerExecution %s.", attempt + 1, failed.getId()));
+        }
+        final String containerId = containerControlApi.launchImage(resolvedCommand);
+
+        final ContainerExecution retry = new ContainerExecution(resolvedCommand, containerId, failed.getUserId());
+        retry.setAttempt(attempt + 1);
+        retry.setOriginalExecutionId(failed.getOriginalExecutionId() != null ?
+                failed.getOriginalExecutionId() :
+                failed.getId());
+        create(retry);
+
+        failed.setRetryAfter(null);
+        recordHistory(failed, new ContainerExecutionHistory(RETRY_LAUNCHED, new Date()));
+        recordBuildBytes(failed, buildDirectoryService.measure(failed.getMountsOut()));
+        update(failed);
+        buildDirectoryService.release(failed.getMountsOut());
+
+        return retry;
+    }
+
+    private void finalizeAsLaunchingUser(final ContainerExecution execution) {
+        final String userLogin = execution.getUserId();
+        try {
+            final UserI userI = Users.getUser(userLogin);
+            finalize(execution, userI);
+        } catch (UserInitException | UserNotFoundException e) {
+            log.error("Could not finalize container execution. Could not get user details for user " + userLogin, e);
+        }
     }
 
     @Override
     @Transactional
     public void finalize(final Long containerExecutionId, final UserI userI) {
         final ContainerExecution containerExecution = retrieve(containerExecutionId);
+        loadDetail(containerExecution);
         finalize(containerExecution, userI);
     }
 
@@ -126,7 +728,81 @@ public class HibernateContainerExecutionService
             log.debug(String.format("Finalizing ContainerExecution %s for container %s", containerExecution.getId(), containerExecution.getContainerId()));
         }
 
-        ContainerFinalizeHelper.finalizeContainer(containerExecution, userI, containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, mapper);
+        final boolean uploaded = ContainerFinalizeHelper.finalizeContainer(containerExecution, userI, containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, checksumService, outputStore, mapper, dockerServerPrefsBean.getOutputIngestMode());
+        recordStats(containerExecution);
+        inputStagingService.release(containerExecution.getMountsIn());
+
+        eventService.triggerEvent(new ContainerFinalizedEvent(containerExecution, new Date()));
+
+        final List<ContainerExecution> batchItems = getDao().findByProperty("batchExecutionId", containerExecution.getId());
+        if (batchItems != null && !batchItems.isEmpty()) {
+            finalizeBatchItems(containerExecution, batchItems, userI);
+        }
+
+        // The batch's items read their exit codes from its directory, so it is released after them
+        releaseBuildDirectories(containerExecution, uploaded);
+    }
+
+    private void releaseBuildDirectories(final ContainerExecution execution, final boolean uploaded) {
+        recordBuildBytes(execution, buildDirectoryService.measure(execution.getMountsOut()));
+        if (uploaded) {
+            buildDirectoryService.release(execution.getMountsOut());
+        } else {
+            log.info(String.format("Keeping the output directories of ContainerExecution %s. Some of its outputs could not be uploaded.",
+                    execution.getId()));
+        }
+    }
+
+    private static boolean recordBuildBytes(final ContainerExecution execution, final long bytes) {
+        if (execution.getBuildBytes() == null || execution.getBuildBytes() < bytes) {
+            execution.setBuildBytes(bytes);
+            return true;
+        }
+        return false;
+    }
+
+    private void finalizeBatchItems(final ContainerExecution batch,
+                                    final List<ContainerExecution> items,
+                                    final UserI userI) {
+        String batchDirectory = null;
+        for (final ContainerExecutionMount mount : batch.getMountsOut()) {
+            if (BatchLaunchHelper.BATCH_MOUNT_NAME.equals(mount.getName())) {
+                batchDirectory = mount.getHostPath();
+            }
+        }
+        final Date exitTime = batch.getExitTime() == null ? new Date() : batch.getExitTime();
+
+        for (final ContainerExecution item : items) {
+            if (item.getBatchIndex() == null) {
+                continue;
+            }
+            // Items are read without their inputs, which the outputs are uploaded to
+            loadDetail(item);
+            // An item with no recorded exit code never finished, because the batch was killed or stopped partway.
+            final String exitCode = BatchLaunchHelper.readExitCode(batchDirectory, item.getBatchIndex());
+            recordHistory(item, new ContainerExecutionHistory("die", exitTime, exitCode == null ? UNKNOWN_EXIT_CODE : exitCode));
+
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Finalizing item %d of batch ContainerExecution %s as ContainerExecution %s.",
+                        item.getBatchIndex(), batch.getId(), item.getId()));
+            }
+            final boolean uploaded = ContainerFinalizeHelper.finalizeContainer(item, userI, containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, checksumService, outputStore, mapper, dockerServerPrefsBean.getOutputIngestMode());
+            recordStats(item);
+            inputStagingService.release(item.getMountsIn());
+            releaseBuildDirectories(item, uploaded);
+            update(item);
+
+            eventService.triggerEvent(new ContainerFinalizedEvent(item, new Date()));
+        }
+    }
+
+    private void recordStats(final ContainerExecution execution) {
+        try {
+            statsService.record(execution, new Date());
+        } catch (RuntimeException e) {
+            // The execution is finalized whether or not it can be counted.
+            log.error("Could not add ContainerExecution " + execution.getId() + " to the execution statistics.", e);
+        }
     }
 
     @Override
@@ -138,13 +814,38 @@ public class HibernateContainerExecutionService
         return create(execution);
     }
 
+    @Override
+    @Transactional
+    public ContainerExecution saveBatch(final ResolvedCommand batch,
+                                        final List<ResolvedCommand> items,
+                                        final String containerId,
+                                        final UserI userI) {
+        final ContainerExecution batchExecution = create(new ContainerExecution(batch, containerId, userI.getLogin()));
+        for (int index = 0; index < items.size(); index++) {
+            // Items share the batch's container, so they have no container ID of their own, and cannot be retried on their own
+            final ContainerExecution item = new ContainerExecution(items.get(index), null, userI.getLogin());
+            item.setRetryPolicy(null);
+            item.setBatchExecutionId(batchExecution.getId());
+            item.setBatchIndex(index);
+            create(item);
+        }
+        return batchExecution;
+    }
+
     @Override
     @Transactional
     public String kill(final Long containerExecutionId, final UserI userI)
             throws NoServerPrefException, DockerServerException, NotFoundException {
         // TODO check user permissions. How?
         final ContainerExecution containerExecution = retrieve(containerExecutionId);
+        if (containerExecution == null) {
+            throw new NotFoundException("ContainerExecution " + containerExecutionId + " not found.");
+        }
         final String containerId = containerExecution.getContainerId();
+        if (StringUtils.isBlank(containerId) && containerExecution.getBatchExecutionId() != null) {
+            throw new NotFoundException(String.format("ContainerExecution %s has no container of its own. Kill its batch, ContainerExecution %s.",
+                    containerExecutionId, containerExecution.getBatchExecutionId()));
+        }
         containerControlApi.killContainer(containerId);
         return containerId;
     }
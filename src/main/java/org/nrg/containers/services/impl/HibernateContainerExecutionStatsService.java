@@ -0,0 +1,135 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.daos.ContainerExecutionStatsDao;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.containers.model.ContainerExecutionStats;
+import org.nrg.containers.model.ContainerExecutionStatsSummary;
+import org.nrg.containers.services.ContainerExecutionStatsService;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Keeps daily totals of finalized container executions, so dashboards can read counts and durations without
+ * reading the executions themselves.
+ */
+@Service
+@Transactional
+public class HibernateContainerExecutionStatsService
+        extends AbstractHibernateEntityService<ContainerExecutionStats, ContainerExecutionStatsDao>
+        implements ContainerExecutionStatsService {
+    private static final Logger log = LoggerFactory.getLogger(HibernateContainerExecutionStatsService.class);
+
+    private static final String DAY_FORMAT = "yyyy-MM-dd";
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    /**
+     * Add a finalized execution to the totals for its command, project, outcome, and the day it stopped. Runs
+     * outside the caller's transaction, which the totals are written apart from, so a failure here cannot mark
+     * the finalizing transaction for rollback.
+     *
+     * @param execution An execution that has stopped, with its history
+     * @param finalized When its outputs finished uploading
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void record(final ContainerExecution execution, final Date finalized) {
+        final Date exitTime = execution.getExitTime() == null ? finalized : execution.getExitTime();
+        final Date startTime = getStartTime(execution);
+
+        final ContainerExecutionStats key = new ContainerExecutionStats(formatDay(exitTime),
+                execution.getCommandId() == null ? 0L : execution.getCommandId(),
+                StringUtils.defaultString(execution.getProject(), ContainerExecutionStats.NO_PROJECT),
+                getOutcome(execution));
+        final Long queueMillis = startTime == null || execution.getCreated() == null ?
+                null : Math.max(0L, startTime.getTime() - execution.getCreated().getTime());
+        final Long runMillis = startTime == null ? null : Math.max(0L, exitTime.getTime() - startTime.getTime());
+        final Long finalizeMillis = Math.max(0L, finalized.getTime() - exitTime.getTime());
+        final long uploadedBytes = execution.getUploadedBytes() == null ? 0L : execution.getUploadedBytes();
+        final long linkedBytes = execution.getLinkedBytes() == null ? 0L : execution.getLinkedBytes();
+        final long deduplicatedBytes = execution.getDeduplicatedBytes() == null ? 0L : execution.getDeduplicatedBytes();
+        final long avoidedWriteBytes = execution.getAvoidedWriteBytes() == null ? 0L : execution.getAvoidedWriteBytes();
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Adding ContainerExecution %s to %s: queue %s ms, run %s ms, finalize %s ms, %s bytes (%s linked, %s deduplicated).",
+                    execution.getId(), key, queueMillis, runMillis, finalizeMillis, uploadedBytes, linkedBytes, deduplicatedBytes));
+        }
+        add(key, queueMillis, runMillis, finalizeMillis, uploadedBytes, linkedBytes, deduplicatedBytes, avoidedWriteBytes);
+    }
+
+    // Each row is read and written in one short transaction. Only one execution is added at a time, so two
+    // finalizing executions cannot both insert the same new row or overwrite each other's totals.
+    private synchronized void add(final ContainerExecutionStats key,
+                                  final Long queueMillis,
+                                  final Long runMillis,
+                                  final Long finalizeMillis,
+                                  final long uploadedBytes,
+                                  final long linkedBytes,
+                                  final long deduplicatedBytes,
+                                  final long avoidedWriteBytes) {
+        getDao().add(key, queueMillis, runMillis, finalizeMillis, uploadedBytes, linkedBytes, deduplicatedBytes, avoidedWriteBytes);
+    }
+
+    /**
+     * Read the daily totals.
+     *
+     * @param commandId Only this command. Null for every command.
+     * @param project Only this project. Null for every project.
+     * @param since Only days on or after the UTC day of this time. Null for no lower bound.
+     * @param until Only days on or before the UTC day of this time. Null for no upper bound.
+     * @return One summary per day, command, project, and outcome, by day. Empty list if there are none.
+     */
+    @Override
+    public List<ContainerExecutionStatsSummary> getStats(final Long commandId,
+                                                         final String project,
+                                                         final Date since,
+                                                         final Date until) {
+        final List<ContainerExecutionStats> rows = getDao().find(commandId, StringUtils.trimToNull(project),
+                since == null ? null : formatDay(since), until == null ? null : formatDay(until));
+        final List<ContainerExecutionStatsSummary> summaries = Lists.newArrayList();
+        for (final ContainerExecutionStats row : rows) {
+            summaries.add(new ContainerExecutionStatsSummary(row));
+        }
+        return summaries;
+    }
+
+    private static String getOutcome(final ContainerExecution execution) {
+        if (execution.hasHistoryStatus("kill")) {
+            return "killed";
+        }
+        if (execution.hasHistoryStatus("oom")) {
+            return "oom";
+        }
+        return execution.isExitedCleanly() ? "succeeded" : "failed";
+    }
+
+    private static Date getStartTime(final ContainerExecution execution) {
+        Date startTime = null;
+        if (execution.getHistory() != null) {
+            for (final ContainerExecutionHistory historyItem : execution.getHistory()) {
+                if ("start".equals(historyItem.getStatus()) && historyItem.getTime() != null &&
+                        (startTime == null || historyItem.getTime().before(startTime))) {
+                    startTime = historyItem.getTime();
+                }
+            }
+        }
+        return startTime;
+    }
+
+    private static String formatDay(final Date date) {
+        final SimpleDateFormat format = new SimpleDateFormat(DAY_FORMAT);
+        format.setTimeZone(UTC);
+        return format.format(date);
+    }
+}
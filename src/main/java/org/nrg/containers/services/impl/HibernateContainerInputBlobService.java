@@ -0,0 +1,121 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import org.hibernate.exception.ConstraintViolationException;
+import org.nrg.containers.daos.ContainerInputBlobDao;
+import org.nrg.containers.helpers.DeflateHelper;
+import org.nrg.containers.model.ContainerInputBlob;
+import org.nrg.containers.services.ContainerInputBlobService;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores resolved input values once per content hash. Values of {@value #COMPRESS_THRESHOLD_BYTES} bytes
+ * or more are deflated.
+ */
+@Service
+@Transactional
+public class HibernateContainerInputBlobService
+        extends AbstractHibernateEntityService<ContainerInputBlob, ContainerInputBlobDao>
+        implements ContainerInputBlobService {
+    private static final Logger log = LoggerFactory.getLogger(HibernateContainerInputBlobService.class);
+
+    static final int COMPRESS_THRESHOLD_BYTES = 1024;
+
+    /**
+     * Store any values that are not stored yet.
+     *
+     * @param values Map of input name to value
+     * @return Map of input name to the hash of its value. Inputs with null values are left out.
+     */
+    @Override
+    public Map<String, String> store(final Map<String, String> values) {
+        final Map<String, String> hashes = Maps.newHashMap();
+        if (values == null || values.isEmpty()) {
+            return hashes;
+        }
+        final Map<String, byte[]> bytesByHash = Maps.newHashMap();
+        for (final Map.Entry<String, String> value : values.entrySet()) {
+            if (value.getValue() == null) {
+                continue;
+            }
+            final byte[] bytes = value.getValue().getBytes(StandardCharsets.UTF_8);
+            final String hash = Hashing.sha256().hashBytes(bytes).toString();
+            hashes.put(value.getKey(), hash);
+            bytesByHash.put(hash, bytes);
+        }
+        if (!bytesByHash.isEmpty()) {
+            storeMissing(bytesByHash);
+        }
+        return hashes;
+    }
+
+    private synchronized void storeMissing(final Map<String, byte[]> bytesByHash) {
+        try {
+            getDao().insert(newBlobs(bytesByHash));
+        } catch (ConstraintViolationException e) {
+            // Another XNAT node stored one of the values between our check and our insert. It is there now.
+            if (log.isDebugEnabled()) {
+                log.debug("An input value was stored by someone else while we were storing it. Trying again.", e);
+            }
+            getDao().insert(newBlobs(bytesByHash));
+        }
+    }
+
+    private Set<ContainerInputBlob> newBlobs(final Map<String, byte[]> bytesByHash) {
+        final Set<String> missing = Sets.newHashSet(bytesByHash.keySet());
+        missing.removeAll(getDao().findStoredHashes(bytesByHash.keySet()));
+
+        final Set<ContainerInputBlob> blobs = Sets.newHashSet();
+        long rawBytes = 0L;
+        long storedBytes = 0L;
+        for (final String hash : missing) {
+            final byte[] bytes = bytesByHash.get(hash);
+            final byte[] deflated = bytes.length >= COMPRESS_THRESHOLD_BYTES ? DeflateHelper.deflate(bytes) : null;
+            final boolean compressed = deflated != null && deflated.length < bytes.length;
+            final ContainerInputBlob blob = new ContainerInputBlob(hash, compressed, bytes.length, compressed ? deflated : bytes);
+            blobs.add(blob);
+            rawBytes += bytes.length;
+            storedBytes += blob.getData().length;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Storing %d of %d input values. %d bytes stored as %d.",
+                    missing.size(), bytesByHash.size(), rawBytes, storedBytes));
+        }
+        return blobs;
+    }
+
+    /**
+     * Read stored values.
+     *
+     * @param hashes Map of input name to the hash of its value
+     * @return Map of input name to value. Inputs whose values are not stored are left out.
+     */
+    @Override
+    public Map<String, String> load(final Map<String, String> hashes) {
+        final Map<String, String> values = Maps.newHashMap();
+        if (hashes == null || hashes.isEmpty()) {
+            return values;
+        }
+        final Map<String, ContainerInputBlob> blobs = getDao().findByHashes(Sets.newHashSet(hashes.values()));
+        for (final Map.Entry<String, String> hash : hashes.entrySet()) {
+            final ContainerInputBlob blob = blobs.get(hash.getValue());
+            if (blob == null) {
+                log.error(String.format("Value of input %s, with hash %s, is not stored.", hash.getKey(), hash.getValue()));
+                continue;
+            }
+            final byte[] bytes = blob.isCompressed() ? DeflateHelper.inflate(blob.getData(), blob.getSize()) : blob.getData();
+            values.put(hash.getKey(), new String(bytes, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,362 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Hibernate;
+import org.hibernate.exception.ConstraintViolationException;
+import org.nrg.containers.daos.WorkflowDao;
+import org.nrg.containers.daos.WorkflowExecutionDao;
+import org.nrg.containers.events.ContainerFinalizedEvent;
+import org.nrg.containers.exceptions.NotFoundException;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionOutput;
+import org.nrg.containers.model.Workflow;
+import org.nrg.containers.model.WorkflowEdge;
+import org.nrg.containers.model.WorkflowExecution;
+import org.nrg.containers.model.WorkflowStep;
+import org.nrg.containers.model.WorkflowStepExecution;
+import org.nrg.containers.model.WorkflowTiming;
+import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.WorkflowService;
+import org.nrg.framework.exceptions.NrgRuntimeException;
+import org.nrg.framework.exceptions.NrgServiceRuntimeException;
+import org.nrg.framework.orm.hibernate.AbstractHibernateEntityService;
+import org.nrg.xdat.security.helpers.Users;
+import org.nrg.xdat.security.user.exceptions.UserInitException;
+import org.nrg.xdat.security.user.exceptions.UserNotFoundException;
+import org.nrg.xft.security.UserI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Transactional
+public class HibernateWorkflowService extends AbstractHibernateEntityService<Workflow, WorkflowDao>
+        implements WorkflowService {
+    private static final Logger log = LoggerFactory.getLogger(HibernateWorkflowService.class);
+
+    private CommandService commandService;
+    private ContainerExecutionService containerExecutionService;
+    private WorkflowExecutionDao workflowExecutionDao;
+
+    @Autowired
+    public HibernateWorkflowService(final CommandService commandService,
+                                    final ContainerExecutionService containerExecutionService,
+                                    final WorkflowExecutionDao workflowExecutionDao) {
+        this.commandService = commandService;
+        this.containerExecutionService = containerExecutionService;
+        this.workflowExecutionDao = workflowExecutionDao;
+    }
+
+    @Override
+    public void initialize(final Workflow entity) {
+        if (entity == null) {
+            return;
+        }
+        Hibernate.initialize(entity);
+        Hibernate.initialize(entity.getSteps());
+        Hibernate.initialize(entity.getEdges());
+    }
+
+    @Override
+    public Workflow create(final Workflow workflow) throws NrgRuntimeException {
+        validate(workflow);
+        try {
+            return super.create(workflow);
+        } catch (ConstraintViolationException e) {
+            throw new NrgServiceRuntimeException("A workflow already exists with this name.");
+        }
+    }
+
+    @Override
+    public void update(final Workflow workflow) throws NrgRuntimeException {
+        validate(workflow);
+        super.update(workflow);
+    }
+
+    /**
+     * Steps must have unique names and existing commands, edges must connect existing steps,
+     * and no step may be its own upstream.
+     */
+    void validate(final Workflow workflow) {
+        if (StringUtils.isBlank(workflow.getName())) {
+            throw new NrgServiceRuntimeException("Workflow must have a name.");
+        }
+        if (workflow.getSteps().isEmpty()) {
+            throw new NrgServiceRuntimeException("Workflow must have at least one step.");
+        }
+
+        final Set<String> stepNames = Sets.newHashSet();
+        for (final WorkflowStep step : workflow.getSteps()) {
+            if (StringUtils.isBlank(step.getName()) || !stepNames.add(step.getName())) {
+                throw new NrgServiceRuntimeException("Workflow step names must be present and unique. Invalid name: " + step.getName());
+            }
+            if (step.getCommandId() == null || commandService.retrieve(step.getCommandId()) == null) {
+                throw new NrgServiceRuntimeException(String.format("Workflow step \"%s\" refers to command %s, which does not exist.",
+                        step.getName(), step.getCommandId()));
+            }
+        }
+
+        final Map<String, Integer> inDegree = Maps.newHashMap();
+        for (final String stepName : stepNames) {
+            inDegree.put(stepName, 0);
+        }
+        for (final WorkflowEdge edge : workflow.getEdges()) {
+            if (!stepNames.contains(edge.getFromStep()) || !stepNames.contains(edge.getToStep())) {
+                throw new NrgServiceRuntimeException("Workflow edge refers to a step that does not exist: " + edge);
+            }
+            if (StringUtils.isBlank(edge.getFromOutput()) || StringUtils.isBlank(edge.getToInput())) {
+                throw new NrgServiceRuntimeException("Workflow edge must name an output and an input: " + edge);
+            }
+            inDegree.put(edge.getToStep(), inDegree.get(edge.getToStep()) + 1);
+        }
+
+        // Kahn's algorithm: if we cannot visit every step by repeatedly removing steps with no upstream, there is a cycle
+        final Deque<String> roots = Lists.newLinkedList();
+        for (final Map.Entry<String, Integer> entry : inDegree.entrySet()) {
+            if (entry.getValue() == 0) {
+                roots.add(entry.getKey());
+            }
+        }
+        int visited = 0;
+        while (!roots.isEmpty()) {
+            final String stepName = roots.poll();
+            visited++;
+            for (final WorkflowEdge edge : workflow.getEdgesOutOf(stepName)) {
+                final int remaining = inDegree.get(edge.getToStep()) - 1;
+                inDegree.put(edge.getToStep(), remaining);
+                if (remaining == 0) {
+                    roots.add(edge.getToStep());
+                }
+            }
+        }
+        if (visited < stepNames.size()) {
+            throw new NrgServiceRuntimeException("Workflow steps must not form a cycle.");
+        }
+    }
+
+    @Override
+    public WorkflowExecution launch(final Long workflowId,
+                                    final Map<String, String> runtimeValues,
+                                    final UserI userI)
+            throws NotFoundException {
+        final Workflow workflow = retrieve(workflowId);
+        if (workflow == null) {
+            throw new NotFoundException("Workflow " + workflowId + " not found.");
+        }
+
+        final WorkflowExecution execution = new WorkflowExecution(workflow, runtimeValues, userI.getLogin());
+        final Date now = new Date();
+        execution.setLaunched(now);
+        workflowExecutionDao.create(execution);
+
+        // Every step without upstream steps can start right away
+        for (final WorkflowStepExecution step : execution.getSteps()) {
+            if (workflow.getEdgesInto(step.getStepName()).isEmpty()) {
+                step.setReady(now);
+                launchStep(workflow, execution, step, null, userI);
+            }
+        }
+        updateStatus(workflow, execution);
+        workflowExecutionDao.update(execution);
+        return execution;
+    }
+
+    @Override
+    public WorkflowExecution retrieveExecution(final Long workflowExecutionId) throws NotFoundException {
+        final WorkflowExecution execution = workflowExecutionDao.retrieve(workflowExecutionId);
+        if (execution == null) {
+            throw new NotFoundException("Workflow execution " + workflowExecutionId + " not found.");
+        }
+        Hibernate.initialize(execution.getRuntimeValues());
+        Hibernate.initialize(execution.getSteps());
+        return execution;
+    }
+
+    @Override
+    public WorkflowTiming getTiming(final Long workflowExecutionId) throws NotFoundException {
+        final WorkflowExecution execution = retrieveExecution(workflowExecutionId);
+        final Workflow workflow = retrieve(execution.getWorkflowId());
+        if (workflow == null) {
+            throw new NotFoundException("Workflow " + execution.getWorkflowId() + " not found.");
+        }
+        return new WorkflowTiming(execution, workflow);
+    }
+
+    @Override
+    public synchronized void processFinalizedEvent(final ContainerFinalizedEvent event) {
+        for (final WorkflowExecution execution : workflowExecutionDao.findRunning()) {
+            final WorkflowStepExecution step =
+                    execution.getStepForContainerExecution(event.getContainerExecutionId(), event.getOriginalExecutionId());
+            if (step == null) {
+                continue;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Container execution %s finished step \"%s\" of workflow execution %s.",
+                        event.getContainerExecutionId(), step.getStepName(), execution.getId()));
+            }
+
+            final Workflow workflow = retrieve(execution.getWorkflowId());
+            if (workflow == null) {
+                log.error(String.format("Workflow %s for workflow execution %s no longer exists.",
+                        execution.getWorkflowId(), execution.getId()));
+                execution.setStatus(WorkflowExecution.FAILED);
+                workflowExecutionDao.update(execution);
+                continue;
+            }
+
+            // If the container was retried, the outputs are on the retry
+            step.setContainerExecutionId(event.getContainerExecutionId());
+            step.setExited(event.getExited());
+            step.setFinalized(event.getFinalized());
+            if (event.isSucceeded()) {
+                step.setStatus(WorkflowStepExecution.COMPLETE);
+                launchReadyDownstream(workflow, execution, step, event);
+            } else {
+                failStep(workflow, execution, step);
+            }
+
+            updateStatus(workflow, execution);
+            workflowExecutionDao.update(execution);
+        }
+    }
+
+    private void launchReadyDownstream(final Workflow workflow,
+                                       final WorkflowExecution execution,
+                                       final WorkflowStepExecution finished,
+                                       final ContainerFinalizedEvent event) {
+        UserI userI = null;
+        final Date now = new Date();
+        for (final WorkflowEdge out : workflow.getEdgesOutOf(finished.getStepName())) {
+            final WorkflowStepExecution downstream = execution.getStep(out.getToStep());
+            if (downstream == null || !WorkflowStepExecution.WAITING.equals(downstream.getStatus())) {
+                continue;
+            }
+
+            boolean ready = true;
+            for (final WorkflowEdge in : workflow.getEdgesInto(downstream.getStepName())) {
+                final WorkflowStepExecution upstream = execution.getStep(in.getFromStep());
+                if (upstream == null || !WorkflowStepExecution.COMPLETE.equals(upstream.getStatus())) {
+                    ready = false;
+                    break;
+                }
+            }
+            if (!ready) {
+                continue;
+            }
+
+            if (userI == null) {
+                try {
+                    userI = Users.getUser(execution.getUserId());
+                } catch (UserInitException | UserNotFoundException e) {
+                    log.error("Could not launch workflow step. Could not get user details for user " + execution.getUserId(), e);
+                    failStep(workflow, execution, downstream);
+                    continue;
+                }
+            }
+            downstream.setReady(now);
+            launchStep(workflow, execution, downstream, event, userI);
+        }
+    }
+
+    private void launchStep(final Workflow workflow,
+                            final WorkflowExecution execution,
+                            final WorkflowStepExecution stepExecution,
+                            final ContainerFinalizedEvent justFinalized,
+                            final UserI userI) {
+        final WorkflowStep step = workflow.getStep(stepExecution.getStepName());
+        final Map<String, String> values = Maps.newHashMap(execution.getRuntimeValues());
+        for (final WorkflowEdge edge : workflow.getEdgesInto(step.getName())) {
+            final String created = getCreatedOutput(execution.getStep(edge.getFromStep()), edge.getFromOutput(), justFinalized);
+            if (created == null) {
+                log.error(String.format("Workflow step \"%s\" did not create output \"%s\", which step \"%s\" needs.",
+                        edge.getFromStep(), edge.getFromOutput(), step.getName()));
+                failStep(workflow, execution, stepExecution);
+                return;
+            }
+            // The input will be resolved against its parent, so it needs the ID of the created object, not its URI
+            values.put(edge.getToInput(), StringUtils.substringAfterLast(created, "/"));
+        }
+
+        try {
+            final ContainerExecution containerExecution =
+                    commandService.resolveAndLaunchCommand(step.getCommandId(), values, userI);
+            stepExecution.setContainerExecutionId(containerExecution.getId());
+            stepExecution.setLaunched(new Date());
+            stepExecution.setStatus(WorkflowStepExecution.RUNNING);
+        } catch (Exception e) {
+            log.error(String.format("Could not launch step \"%s\" of workflow execution %s.", step.getName(), execution.getId()), e);
+            failStep(workflow, execution, stepExecution);
+        }
+    }
+
+    private String getCreatedOutput(final WorkflowStepExecution upstream,
+                                    final String outputName,
+                                    final ContainerFinalizedEvent justFinalized) {
+        if (upstream == null || upstream.getContainerExecutionId() == null) {
+            return null;
+        }
+
+        // The execution that was just finalized may not be committed yet, so read its outputs from the event
+        if (justFinalized != null && upstream.getContainerExecutionId().equals(justFinalized.getContainerExecutionId())) {
+            return justFinalized.getCreatedOutputs().get(outputName);
+        }
+
+        final ContainerExecution containerExecution = containerExecutionService.retrieve(upstream.getContainerExecutionId());
+        if (containerExecution == null || containerExecution.getOutputs() == null) {
+            return null;
+        }
+        for (final ContainerExecutionOutput output : containerExecution.getOutputs()) {
+            if (outputName.equals(output.getName())) {
+                return output.getCreated();
+            }
+        }
+        return null;
+    }
+
+    private void failStep(final Workflow workflow,
+                          final WorkflowExecution execution,
+                          final WorkflowStepExecution step) {
+        step.setStatus(WorkflowStepExecution.FAILED);
+
+        // Nothing downstream of a failed step can run
+        final Deque<String> toSkip = Lists.newLinkedList();
+        toSkip.add(step.getStepName());
+        while (!toSkip.isEmpty()) {
+            for (final WorkflowEdge edge : workflow.getEdgesOutOf(toSkip.poll())) {
+                final WorkflowStepExecution downstream = execution.getStep(edge.getToStep());
+                if (downstream != null && WorkflowStepExecution.WAITING.equals(downstream.getStatus())) {
+                    downstream.setStatus(WorkflowStepExecution.SKIPPED);
+                    toSkip.add(downstream.getStepName());
+                }
+            }
+        }
+    }
+
+    private void updateStatus(final Workflow workflow, final WorkflowExecution execution) {
+        boolean failed = false;
+        for (final WorkflowStepExecution step : execution.getSteps()) {
+            final String status = step.getStatus();
+            if (WorkflowStepExecution.WAITING.equals(status) || WorkflowStepExecution.RUNNING.equals(status)) {
+                return;
+            }
+            failed |= !WorkflowStepExecution.COMPLETE.equals(status);
+        }
+        execution.setStatus(failed ? WorkflowExecution.FAILED : WorkflowExecution.COMPLETE);
+        if (log.isInfoEnabled()) {
+            log.info(String.format("Workflow execution %s of workflow \"%s\" is %s.",
+                    execution.getId(), workflow.getName(), execution.getStatus()));
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.model.ContainerExecutionMount;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.services.InputStagingService;
+import org.nrg.framework.exceptions.NrgServiceRuntimeException;
+import org.nrg.transporter.TransportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Stages input mounts on the docker server.
+ *
+ * <p>With no input cache path set, each mount is transported as it always has been, but all of a launch's mounts
+ * are transported at once. With a cache path set, each input file is copied into the cache once per SHA-256 of
+ * its contents, and each launch gets its own read-only directories of hard links to the cached files. Launches
+ * on the same session find its files already cached. Cached files are removed least recently used first when
+ * the cache is over its budget; hard links already made to them keep working. Symbolic links in an input are
+ * recreated as they are. An input holding any other kind of special file is transported instead.</p>
+ */
+@Service
+public class InputStagingServiceImpl implements InputStagingService {
+    private static final Logger log = LoggerFactory.getLogger(InputStagingServiceImpl.class);
+    private static final int STAGING_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int MAX_REMEMBERED_HASHES = 100000;
+    private static final String BLOBS = "blobs";
+    private static final String EXECUTIONS = "executions";
+
+    private TransportService transporter;
+    private DockerServerPrefsBean dockerServerPrefsBean;
+
+    private final ExecutorService stager = Executors.newFixedThreadPool(STAGING_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("input-stager-%d").setDaemon(true).build());
+
+    // Hashes of files on the XNAT host, by path, size, and modification time, so unchanged files are not read again
+    private final Map<String, String> hashes = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+            return size() > MAX_REMEMBERED_HASHES;
+        }
+    });
+
+    // Sizes of cached files by hash, least recently used first. Guarded by this.
+    private final LinkedHashMap<String, Long> cached = new LinkedHashMap<>(16, 0.75f, true);
+    private Path indexedCache;
+    private long cachedBytes = 0L;
+
+    @Autowired
+    public InputStagingServiceImpl(final TransportService transporter,
+                                   final DockerServerPrefsBean dockerServerPrefsBean) {
+        this.transporter = transporter;
+        this.dockerServerPrefsBean = dockerServerPrefsBean;
+    }
+
+    @PreDestroy
+    public void shutdownStager() {
+        stager.shutdownNow();
+    }
+
+    /**
+     * Make input mounts available on the docker server.
+     *
+     * @param dockerHost The docker server
+     * @param pathsOnXnatHost Input directories or files on the XNAT host
+     * @return Where each input can be mounted from on the docker server, in the same order
+     */
+    @Override
+    public List<Path> stage(final String dockerHost, final List<Path> pathsOnXnatHost) {
+        final String cachePath = StringUtils.trimToNull(dockerServerPrefsBean.getInputCachePath());
+        final Path cache = cachePath == null ? null : Paths.get(cachePath);
+        if (cache != null) {
+            loadIndex(cache);
+        }
+
+        final List<Callable<Path>> tasks = Lists.newArrayList();
+        for (final Path pathOnXnatHost : pathsOnXnatHost) {
+            tasks.add(new Callable<Path>() {
+                @Override
+                public Path call() {
+                    return cache == null ? transporter.transport(dockerHost, pathOnXnatHost) : stage(cache, dockerHost, pathOnXnatHost);
+                }
+            });
+        }
+
+        final List<Future<Path>> staged;
+        try {
+            staged = stager.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NrgServiceRuntimeException("Interrupted while staging inputs.", e);
+        }
+        final List<Path> pathsOnDockerHost = Lists.newArrayList();
+        for (final Future<Path> path : staged) {
+            try {
+                pathsOnDockerHost.add(path.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NrgServiceRuntimeException("Interrupted while staging inputs.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new NrgServiceRuntimeException("Could not stage inputs.", e.getCause());
+            }
+        }
+
+        if (cache != null) {
+            evict();
+        }
+        return pathsOnDockerHost;
+    }
+
+    /**
+     * Remove an execution's staged input directories. Cached files stay in the cache.
+     *
+     * @param mountsIn The execution's input mounts
+     */
+    @Override
+    public void release(final List<ContainerExecutionMount> mountsIn) {
+        final String cachePath = StringUtils.trimToNull(dockerServerPrefsBean.getInputCachePath());
+        if (cachePath == null || mountsIn == null) {
+            return;
+        }
+        final Path executions = Paths.get(cachePath).resolve(EXECUTIONS);
+        for (final ContainerExecutionMount mount : mountsIn) {
+            if (StringUtils.isBlank(mount.getHostPath())) {
+                continue;
+            }
+            final Path hostPath = Paths.get(mount.getHostPath());
+            if (!hostPath.startsWith(executions) || hostPath.equals(executions)) {
+                continue;
+            }
+            final Path stagingDirectory = executions.resolve(executions.relativize(hostPath).getName(0));
+            try {
+                deleteTree(stagingDirectory);
+            } catch (IOException e) {
+                log.warn("Could not remove staged inputs at " + stagingDirectory, e);
+            }
+        }
+    }
+
+    private Path stage(final Path cache, final String dockerHost, final Path pathOnXnatHost) {
+        final Path stagingDirectory = cache.resolve(EXECUTIONS).resolve(UUID.randomUUID().toString());
+        try {
+            if (Files.isDirectory(pathOnXnatHost)) {
+                linkTree(cache, pathOnXnatHost, stagingDirectory);
+                return stagingDirectory;
+            }
+            Files.createDirectories(stagingDirectory);
+            final Path staged = stagingDirectory.resolve(pathOnXnatHost.getFileName().toString());
+            link(cache(cache, pathOnXnatHost, Files.readAttributes(pathOnXnatHost, BasicFileAttributes.class)), staged);
+            stagingDirectory.toFile().setWritable(false, false);
+            return staged;
+        } catch (IOException e) {
+            log.warn(String.format("Could not stage %s through the input cache. Transporting it instead.", pathOnXnatHost), e);
+            try {
+                deleteTree(stagingDirectory);
+            } catch (IOException ignored) {
+                // Released or cleaned up by hand later
+            }
+            return transporter.transport(dockerHost, pathOnXnatHost);
+        }
+    }
+
+    private void linkTree(final Path cache, final Path source, final Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                final Path linked = target.resolve(source.relativize(file).toString());
+                if (attrs.isRegularFile()) {
+                    link(cache(cache, file, attrs), linked);
+                } else if (attrs.isSymbolicLink()) {
+                    // Recreated as is, so a relative link still points where it did in the source tree
+                    Files.createSymbolicLink(linked, Files.readSymbolicLink(file));
+                } else {
+                    // Staging fails, and the input is transported instead
+                    throw new IOException("Cannot stage special file " + file + " through the input cache.");
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                target.resolve(source.relativize(dir).toString()).toFile().setWritable(false, false);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Copy a file into the cache, unless a file with the same contents is already there.
+     *
+     * @return The cached file
+     */
+    private Path cache(final Path cache, final Path file, final BasicFileAttributes attrs) throws IOException {
+        final String hash = hash(file, attrs);
+        final Path blob = cache.resolve(BLOBS).resolve(hash.substring(0, 2)).resolve(hash);
+        synchronized (this) {
+            if (cached.get(hash) != null && Files.exists(blob)) {
+                return blob;
+            }
+        }
+
+        Files.createDirectories(blob.getParent());
+        final Path partial = Files.createTempFile(blob.getParent(), hash, ".partial");
+        try {
+            Files.copy(file, partial, StandardCopyOption.REPLACE_EXISTING);
+            partial.toFile().setWritable(false, false);
+            Files.move(partial, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another launch cached the same contents first
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        synchronized (this) {
+            if (cached.put(hash, attrs.size()) == null) {
+                cachedBytes += attrs.size();
+            }
+        }
+        return blob;
+    }
+
+    private String hash(final Path file, final BasicFileAttributes attrs) throws IOException {
+        final String key = file.toAbsolutePath() + "|" + attrs.size() + "|" + attrs.lastModifiedTime().toMillis();
+        final String known = hashes.get(key);
+        if (known != null) {
+            return known;
+        }
+        final String hash = com.google.common.io.Files.asByteSource(file.toFile()).hash(Hashing.sha256()).toString();
+        hashes.put(key, hash);
+        return hash;
+    }
+
+    // Hard links share the cached copy. Where the cache and the staging directory cannot be linked, copy instead.
+    private static void link(final Path blob, final Path staged) throws IOException {
+        try {
+            Files.createLink(staged, blob);
+        } catch (UnsupportedOperationException | IOException e) {
+            if (!Files.exists(blob)) {
+                throw new IOException("Cached file " + blob + " was removed while it was being staged.", e);
+            }
+            Files.copy(blob, staged);
+        }
+        Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * Read the cached files' sizes, least recently used first, the first time a cache directory is used.
+     */
+    private synchronized void loadIndex(final Path cache) {
+        if (cache.equals(indexedCache)) {
+            return;
+        }
+        final Map<String, Long> sizes = Maps.newHashMap();
+        final Map<String, Long> lastUsed = Maps.newHashMap();
+        final Path blobs = cache.resolve(BLOBS);
+        if (Files.isDirectory(blobs)) {
+            try (final DirectoryStream<Path> prefixes = Files.newDirectoryStream(blobs)) {
+                for (final Path prefix : prefixes) {
+                    if (!Files.isDirectory(prefix)) {
+                        continue;
+                    }
+                    try (final DirectoryStream<Path> files = Files.newDirectoryStream(prefix)) {
+                        for (final Path file : files) {
+                            final String name = file.getFileName().toString();
+                            if (name.endsWith(".partial")) {
+                                Files.deleteIfExists(file);
+                                continue;
+                            }
+                            final BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                            sizes.put(name, attrs.size());
+                            lastUsed.put(name, attrs.lastModifiedTime().toMillis());
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Could not read the input cache at " + blobs + ". Its files will not be reused or removed.", e);
+            }
+        }
+
+        final List<String> byLastUse = Lists.newArrayList(sizes.keySet());
+        Collections.sort(byLastUse, new Comparator<String>() {
+            @Override
+            public int compare(final String first, final String second) {
+                return Long.compare(lastUsed.get(first), lastUsed.get(second));
+            }
+        });
+        cached.clear();
+        cachedBytes = 0L;
+        for (final String hash : byLastUse) {
+            cached.put(hash, sizes.get(hash));
+            cachedBytes += sizes.get(hash);
+        }
+        indexedCache = cache;
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Input cache at %s holds %d files, %d bytes.", cache, cached.size(), cachedBytes));
+        }
+    }
+
+    /**
+     * Remove the least recently used cached files until the cache fits in its budget.
+     */
+    private synchronized void evict() {
+        final Long budget = dockerServerPrefsBean.getInputCacheBudget();
+        if (budget == null || budget <= 0 || cachedBytes <= budget || indexedCache == null) {
+            return;
+        }
+        int evicted = 0;
+        final Iterator<Map.Entry<String, Long>> leastRecentlyUsed = cached.entrySet().iterator();
+        while (cachedBytes > budget && leastRecentlyUsed.hasNext()) {
+            final Map.Entry<String, Long> entry = leastRecentlyUsed.next();
+            final Path blob = indexedCache.resolve(BLOBS).resolve(entry.getKey().substring(0, 2)).resolve(entry.getKey());
+            try {
+                Files.deleteIfExists(blob);
+            } catch (IOException e) {
+                log.info(String.format("Could not remove %s from the input cache. %s", blob, e.getMessage()));
+                continue;
+            }
+            cachedBytes -= entry.getValue();
+            leastRecentlyUsed.remove();
+            evicted++;
+        }
+        log.info(String.format("Removed %d files from the input cache. It now uses %d bytes of a %d byte budget.",
+                evicted, cachedBytes, budget));
+    }
+
+    private static void deleteTree(final Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                dir.toFile().setWritable(true, true);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
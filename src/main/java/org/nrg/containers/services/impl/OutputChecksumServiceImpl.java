@@ -0,0 +1,117 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.nrg.containers.helpers.FileChecksummer;
+import org.nrg.containers.model.FileChecksum;
+import org.nrg.containers.services.OutputChecksumService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checksums output files while outputs are finalized. Files are spread over a small fixed pool shared by every
+ * finalizing execution, so one large output cannot take every disk read, and many small files are read at once.
+ */
+@Service
+public class OutputChecksumServiceImpl implements OutputChecksumService {
+    private static final Logger log = LoggerFactory.getLogger(OutputChecksumServiceImpl.class);
+    private static final int CHECKSUM_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final ExecutorService checksummer = Executors.newFixedThreadPool(CHECKSUM_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("output-checksummer-%d").setDaemon(true).build());
+
+    // One buffer and digest per pool thread
+    private final ThreadLocal<FileChecksummer> checksummers = new ThreadLocal<FileChecksummer>() {
+        @Override
+        protected FileChecksummer initialValue() {
+            return new FileChecksummer();
+        }
+    };
+
+    @PreDestroy
+    public void shutdownChecksummer() {
+        checksummer.shutdownNow();
+    }
+
+    /**
+     * Checksum every regular file under the given files and directories. Symbolic links are not followed.
+     *
+     * @param entries Files and directories. Each file's path is taken relative to its entry's parent directory.
+     * @param known Checksums already computed, e.g. while a file was copied, by path. These files are not read again.
+     * @return A checksum for each file, sorted by path
+     * @throws IOException If a file cannot be read
+     */
+    @Override
+    public List<FileChecksum> checksum(final List<File> entries, final Map<String, FileChecksum> known) throws IOException {
+        final List<FileChecksum> checksums = Lists.newArrayList();
+        final List<Callable<FileChecksum>> tasks = Lists.newArrayList();
+        for (final File entry : entries) {
+            final Path parent = entry.toPath().getParent();
+            Files.walkFileTree(entry.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+                    if (!attributes.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    final String path = parent.relativize(file).toString().replace(File.separatorChar, '/');
+                    if (known != null && known.containsKey(path)) {
+                        checksums.add(known.get(path));
+                    } else {
+                        tasks.add(new Callable<FileChecksum>() {
+                            @Override
+                            public FileChecksum call() throws IOException {
+                                return checksummers.get().checksum(file, path);
+                            }
+                        });
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Checksumming %d files. %d were already checksummed.", tasks.size(), checksums.size()));
+        }
+        try {
+            for (final Future<FileChecksum> checksum : checksummer.invokeAll(tasks)) {
+                checksums.add(checksum.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while checksumming output files.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not checksum output files.", e.getCause());
+        }
+
+        Collections.sort(checksums, new Comparator<FileChecksum>() {
+            @Override
+            public int compare(final FileChecksum first, final FileChecksum second) {
+                return first.getPath().compareTo(second.getPath());
+            }
+        });
+        return checksums;
+    }
+}
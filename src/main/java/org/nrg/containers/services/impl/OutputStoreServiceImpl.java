@@ -0,0 +1,162 @@
+package org.nrg.containers.services.impl;
+
+import org.apache.commons.lang3.StringUtils;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.model.FileChecksum;
+import org.nrg.containers.services.OutputStoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps one copy of each distinct output file, so outputs that reruns write again byte for byte take no more space.
+ *
+ * <p>The store is a directory on the archive's filesystem, with each stored file at
+ * {@code <md5 prefix>/<md5>-<crc32>-<size>}. An archived output file whose checksums match a stored file, and whose
+ * bytes are then found to be equal, is replaced by a hard link to it; an output file with new contents is linked
+ * into the store. Stored files are made read-only, so no archived copy can be changed in place under the others.</p>
+ *
+ * <p>The filesystem's link count is the reference count: deleting an archived file, by any means, drops it by one.
+ * A stored file whose only link is the store's own is no longer used by any resource, and is removed by
+ * {@link #clean()}.</p>
+ */
+@Service
+public class OutputStoreServiceImpl implements OutputStoreService {
+    private static final Logger log = LoggerFactory.getLogger(OutputStoreServiceImpl.class);
+
+    private DockerServerPrefsBean dockerServerPrefsBean;
+
+    @Autowired
+    public OutputStoreServiceImpl(final DockerServerPrefsBean dockerServerPrefsBean) {
+        this.dockerServerPrefsBean = dockerServerPrefsBean;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return getStore() != null;
+    }
+
+    /**
+     * Find a stored file with the same contents as a file.
+     *
+     * @param checksum The file's checksums
+     * @param file The file, whose bytes are compared with the stored file's
+     * @return The stored file, or null if none has the same contents or the store is not enabled
+     */
+    @Override
+    public Path find(final FileChecksum checksum, final Path file) {
+        final Path store = getStore();
+        if (store == null) {
+            return null;
+        }
+        final Path stored = storedPath(store, checksum);
+        try {
+            return Files.isRegularFile(stored) && com.google.common.io.Files.equal(stored.toFile(), file.toFile()) ? stored : null;
+        } catch (IOException e) {
+            log.warn(String.format("Could not compare %s with stored file %s.", file, stored), e);
+            return null;
+        }
+    }
+
+    /**
+     * Replace each file in a resource that has the same contents as a stored file with a link to it, and store
+     * the others.
+     *
+     * @param resourceDir The resource's directory in the archive
+     * @param checksums The checksums of the resource's files, with paths relative to the resource directory
+     * @return Bytes no longer taken by the resource's own copies of files, because they are linked to stored files
+     */
+    @Override
+    public long deduplicate(final Path resourceDir, final List<FileChecksum> checksums) {
+        final Path store = getStore();
+        if (store == null || checksums == null) {
+            return 0L;
+        }
+
+        long deduplicatedBytes = 0L;
+        for (final FileChecksum checksum : checksums) {
+            final Path file = resourceDir.resolve(checksum.getPath().replace('/', File.separatorChar));
+            final Path stored = storedPath(store, checksum);
+            try {
+                if (!Files.isRegularFile(file) || (Files.exists(stored) && Files.isSameFile(file, stored))) {
+                    continue;
+                }
+                if (!Files.exists(stored)) {
+                    Files.createDirectories(stored.getParent());
+                    try {
+                        Files.createLink(stored, file);
+                        stored.toFile().setReadOnly();
+                        continue;
+                    } catch (FileAlreadyExistsException e) {
+                        // Another execution stored the same contents first. Link to its copy.
+                    }
+                }
+                if (com.google.common.io.Files.equal(stored.toFile(), file.toFile())) {
+                    final Path link = file.resolveSibling(".dedup-" + UUID.randomUUID());
+                    Files.createLink(link, stored);
+                    Files.move(link, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    deduplicatedBytes += checksum.getSize();
+                } else {
+                    log.warn(String.format("%s has the checksums of stored file %s, but not its contents. Not deduplicating it.", file, stored));
+                }
+            } catch (IOException | UnsupportedOperationException e) {
+                log.warn(String.format("Could not deduplicate %s against %s.", file, stored), e);
+            }
+        }
+        return deduplicatedBytes;
+    }
+
+    /**
+     * Remove stored files that no archived file links to any longer.
+     *
+     * @return Bytes freed
+     */
+    @Override
+    public long clean() {
+        final Path store = getStore();
+        if (store == null || !Files.isDirectory(store)) {
+            return 0L;
+        }
+
+        final long[] freed = {0L};
+        try {
+            Files.walkFileTree(store, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+                    if (attributes.isRegularFile() && ((Number) Files.getAttribute(file, "unix:nlink")).intValue() <= 1) {
+                        Files.delete(file);
+                        freed[0] += attributes.size();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException | UnsupportedOperationException e) {
+            log.error("Could not clean the output store " + store, e);
+        }
+        return freed[0];
+    }
+
+    private Path getStore() {
+        final String storePath = StringUtils.trimToNull(dockerServerPrefsBean.getOutputStorePath());
+        return storePath == null ? null : Paths.get(storePath);
+    }
+
+    private static Path storedPath(final Path store, final FileChecksum checksum) {
+        return store.resolve(checksum.getMd5().substring(0, 2))
+                .resolve(checksum.getMd5() + "-" + checksum.getCrc32() + "-" + checksum.getSize());
+    }
+}
@@ -0,0 +1,70 @@
+package org.nrg.containers.api;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.nrg.containers.model.DockerImage;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DockerImageCatalogTest {
+    private static final String ID = "sha256:0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private DockerImageCatalog catalog;
+    private DockerImage image;
+
+    @Before
+    public void setup() {
+        image = new DockerImage();
+        image.setImageId(ID);
+        image.setTags(Lists.newArrayList("xnat/dcm2niix:1.0", "xnat/dcm2niix:latest"));
+
+        final DockerImage other = new DockerImage();
+        other.setImageId("sha256:fedcba9876543210fedcba9876543210fedcba9876543210fedcba9876543210");
+        other.setTags(Lists.newArrayList("busybox:latest"));
+
+        catalog = new DockerImageCatalog();
+        catalog.load(Lists.newArrayList(other, image));
+    }
+
+    @Test
+    public void testFindById() {
+        assertThat(catalog.find(ID), is(image));
+        assertThat(catalog.find(ID.substring("sha256:".length())), is(image));
+    }
+
+    @Test
+    public void testFindByShortId() {
+        assertThat(catalog.find("0123456789ab"), is(image));
+        assertThat(catalog.find("sha256:0123456789ab"), is(image));
+    }
+
+    @Test
+    public void testShortIdMustHaveTwelveCharacters() {
+        assertThat(catalog.find("0123456789a"), is(nullValue()));
+    }
+
+    @Test
+    public void testFindByTag() {
+        assertThat(catalog.find("xnat/dcm2niix:1.0"), is(image));
+        assertThat(catalog.find("xnat/dcm2niix"), is(image));
+        assertThat(catalog.find("xnat/dcm2niix:2.0"), is(nullValue()));
+    }
+
+    @Test
+    public void testNothingIsFoundUntilLoaded() {
+        catalog.invalidate();
+        assertThat(catalog.find(ID), is(nullValue()));
+    }
+
+    @Test
+    public void testRemoveChangesETag() {
+        final String etag = catalog.getETag();
+        catalog.remove("xnat/dcm2niix:1.0");
+        assertThat(catalog.find(ID), is(nullValue()));
+        assertThat(catalog.getETag(), is(not(etag)));
+    }
+}
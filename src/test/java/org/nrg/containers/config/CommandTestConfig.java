@@ -7,9 +7,15 @@ import org.nrg.config.services.ConfigService;
 import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.daos.CommandDao;
 import org.nrg.containers.model.Command;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.services.BuildDirectoryService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.ContainerExecutionStatsService;
+import org.nrg.containers.services.InputStagingService;
+import org.nrg.containers.services.impl.BuildDirectoryServiceImpl;
 import org.nrg.containers.services.impl.HibernateCommandService;
+import org.nrg.containers.services.impl.InputStagingServiceImpl;
 import org.nrg.prefs.services.NrgPreferenceService;
 import org.nrg.transporter.TransportService;
 import org.nrg.transporter.TransportServiceImpl;
@@ -83,11 +89,23 @@ public class CommandTestConfig {
     public CommandService commandService(final ContainerControlApi controlApi,
                                          final AliasTokenService aliasTokenService,
                                          final SiteConfigPreferences siteConfigPreferences,
-                                         final TransportService transporter,
                                          final ContainerExecutionService containerExecutionService,
-                                         final ConfigService configService) {
+                                         final ConfigService configService,
+                                         final InputStagingService inputStagingService,
+                                         final BuildDirectoryService buildDirectoryService,
+                                         final ObjectMapper objectMapper) {
         return new HibernateCommandService(controlApi, aliasTokenService, siteConfigPreferences,
-                transporter, containerExecutionService, configService);
+                containerExecutionService, configService, inputStagingService, buildDirectoryService, objectMapper);
+    }
+
+    @Bean
+    public BuildDirectoryService buildDirectoryService(final TransportService transporter) {
+        return new BuildDirectoryServiceImpl(transporter, Mockito.mock(DockerServerPrefsBean.class), Mockito.mock(ContainerExecutionStatsService.class));
+    }
+
+    @Bean
+    public InputStagingService inputStagingService(final TransportService transporter) {
+        return new InputStagingServiceImpl(transporter, Mockito.mock(DockerServerPrefsBean.class));
     }
 
     @Bean
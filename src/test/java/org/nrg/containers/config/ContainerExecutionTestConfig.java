@@ -4,18 +4,44 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hibernate.SessionFactory;
 import org.mockito.Mockito;
 import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.daos.ArchivedContainerExecutionDao;
+import org.nrg.containers.daos.ContainerExecutionHistoryDao;
+import org.nrg.containers.daos.ContainerExecutionObjectDao;
 import org.nrg.containers.daos.ContainerExecutionRepository;
+import org.nrg.containers.daos.ContainerExecutionStatsDao;
+import org.nrg.containers.daos.ContainerInputBlobDao;
+import org.nrg.containers.model.ArchivedContainerExecution;
 import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.containers.model.ContainerExecutionObject;
+import org.nrg.containers.model.ContainerExecutionStats;
+import org.nrg.containers.model.ContainerInputBlob;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.services.ArchivedContainerExecutionService;
+import org.nrg.containers.services.BuildDirectoryService;
+import org.nrg.containers.services.ContainerExecutionHistoryService;
 import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.ContainerExecutionStatsService;
+import org.nrg.containers.services.ContainerInputBlobService;
+import org.nrg.containers.services.InputStagingService;
+import org.nrg.containers.services.OutputChecksumService;
+import org.nrg.containers.services.OutputStoreService;
+import org.nrg.containers.services.impl.HibernateArchivedContainerExecutionService;
+import org.nrg.containers.services.impl.HibernateContainerExecutionHistoryService;
 import org.nrg.containers.services.impl.HibernateContainerExecutionService;
+import org.nrg.containers.services.impl.HibernateContainerExecutionStatsService;
+import org.nrg.containers.services.impl.HibernateContainerInputBlobService;
+import org.nrg.framework.services.ContextService;
 import org.nrg.framework.services.NrgEventService;
 import org.nrg.prefs.services.NrgPreferenceService;
 import org.nrg.transporter.TransportService;
 import org.nrg.xdat.preferences.SiteConfigPreferences;
 import org.nrg.xdat.security.services.PermissionsServiceI;
+import org.nrg.xdat.security.services.UserManagementServiceI;
 import org.nrg.xdat.services.AliasTokenService;
 import org.nrg.xnat.services.archive.CatalogService;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -76,14 +102,45 @@ public class ContainerExecutionTestConfig {
         return Mockito.mock(CatalogService.class);
     }
 
+    @Bean
+    public UserManagementServiceI userManagementService() {
+        return Mockito.mock(UserManagementServiceI.class);
+    }
+
+    // Executions are finalized as the user who launched them, who is looked up through the context
+    @Bean
+    public ContextService contextService(final ApplicationContext applicationContext) {
+        final ContextService contextService = new ContextService();
+        contextService.setApplicationContext(applicationContext);
+        return contextService;
+    }
+
+    @Bean
+    public InputStagingService inputStagingService() {
+        return Mockito.mock(InputStagingService.class);
+    }
+
+    @Bean
+    public BuildDirectoryService buildDirectoryService() {
+        return Mockito.mock(BuildDirectoryService.class);
+    }
+
     @Bean
     public ContainerExecutionService containerExecutionService(final ContainerControlApi containerControlApi,
                                                                final SiteConfigPreferences siteConfigPreferences,
                                                                final TransportService transportService,
                                                                final PermissionsServiceI permissionsService,
                                                                final CatalogService catalogService,
-                                                               final ObjectMapper mapper) {
-        return new HibernateContainerExecutionService(containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, mapper);
+                                                               final ObjectMapper mapper,
+                                                               final NrgEventService eventService,
+                                                               final ContainerExecutionHistoryService containerExecutionHistoryService,
+                                                               final ContainerExecutionObjectDao containerExecutionObjectDao,
+                                                               final ContainerInputBlobService containerInputBlobService,
+                                                               final ArchivedContainerExecutionService archivedContainerExecutionService,
+                                                               final ContainerExecutionStatsService containerExecutionStatsService,
+                                                               final InputStagingService inputStagingService,
+                                                               final BuildDirectoryService buildDirectoryService) {
+        return new HibernateContainerExecutionService(containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, mapper, eventService, containerExecutionHistoryService, containerExecutionObjectDao, containerInputBlobService, archivedContainerExecutionService, containerExecutionStatsService, inputStagingService, buildDirectoryService, Mockito.mock(DockerServerPrefsBean.class), Mockito.mock(OutputChecksumService.class), Mockito.mock(OutputStoreService.class));
     }
 
     @Bean
@@ -91,13 +148,64 @@ public class ContainerExecutionTestConfig {
         return new ContainerExecutionRepository();
     }
 
+    @Bean
+    public ContainerExecutionHistoryService containerExecutionHistoryService() {
+        return new HibernateContainerExecutionHistoryService();
+    }
+
+    @Bean
+    public ContainerExecutionHistoryDao containerExecutionHistoryDao() {
+        return new ContainerExecutionHistoryDao();
+    }
+
+    @Bean
+    public ContainerExecutionObjectDao containerExecutionObjectDao() {
+        return new ContainerExecutionObjectDao();
+    }
+
+    @Bean
+    public ContainerInputBlobService containerInputBlobService() {
+        return new HibernateContainerInputBlobService();
+    }
+
+    @Bean
+    public ContainerInputBlobDao containerInputBlobDao() {
+        return new ContainerInputBlobDao();
+    }
+
+    @Bean
+    public ArchivedContainerExecutionService archivedContainerExecutionService(final ObjectMapper mapper,
+                                                                               final ContainerInputBlobService containerInputBlobService) {
+        return new HibernateArchivedContainerExecutionService(mapper, containerInputBlobService);
+    }
+
+    @Bean
+    public ArchivedContainerExecutionDao archivedContainerExecutionDao() {
+        return new ArchivedContainerExecutionDao();
+    }
+
+    @Bean
+    public ContainerExecutionStatsService containerExecutionStatsService() {
+        return new HibernateContainerExecutionStatsService();
+    }
+
+    @Bean
+    public ContainerExecutionStatsDao containerExecutionStatsDao() {
+        return new ContainerExecutionStatsDao();
+    }
+
     @Bean
     public LocalSessionFactoryBean sessionFactory(final DataSource dataSource, @Qualifier("hibernateProperties") final Properties properties) {
         final LocalSessionFactoryBean bean = new LocalSessionFactoryBean();
         bean.setDataSource(dataSource);
         bean.setHibernateProperties(properties);
         bean.setAnnotatedClasses(
-                ContainerExecution.class);
+                ContainerExecution.class,
+                ContainerExecutionHistory.class,
+                ContainerExecutionObject.class,
+                ContainerInputBlob.class,
+                ArchivedContainerExecution.class,
+                ContainerExecutionStats.class);
         return bean;
     }
 
@@ -7,17 +7,23 @@ import org.nrg.config.services.ConfigService;
 import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.api.DockerControlApi;
 import org.nrg.containers.daos.CommandDao;
+import org.nrg.containers.daos.CommandLabelImportDao;
 import org.nrg.containers.daos.ContainerExecutionRepository;
 import org.nrg.containers.model.Command;
 import org.nrg.containers.model.DockerServerPrefsBean;
 import org.nrg.containers.rest.DockerRestApi;
+import org.nrg.containers.services.BuildDirectoryService;
 import org.nrg.containers.services.CommandService;
 import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.ContainerExecutionStatsService;
 import org.nrg.containers.services.DockerHubService;
 import org.nrg.containers.services.DockerService;
+import org.nrg.containers.services.InputStagingService;
+import org.nrg.containers.services.impl.BuildDirectoryServiceImpl;
 import org.nrg.containers.services.impl.DockerServiceImpl;
 import org.nrg.containers.services.impl.HibernateCommandService;
 import org.nrg.containers.services.impl.HibernateContainerExecutionService;
+import org.nrg.containers.services.impl.InputStagingServiceImpl;
 import org.nrg.framework.services.ContextService;
 import org.nrg.framework.services.NrgEventService;
 import org.nrg.prefs.services.NrgPreferenceService;
@@ -65,8 +71,11 @@ public class DockerRestApiTestConfig extends WebSecurityConfigurerAdapter {
     @Bean
     public DockerService dockerService(final ContainerControlApi controlApi,
                                        final DockerHubService dockerHubService,
-                                       final CommandService commandService) {
-        return new DockerServiceImpl(controlApi, dockerHubService, commandService);
+                                       final CommandService commandService,
+                                       final ContainerExecutionService containerExecutionService,
+                                       final DockerServerPrefsBean dockerServerPrefsBean) {
+        return new DockerServiceImpl(controlApi, dockerHubService, commandService, Mockito.mock(CommandLabelImportDao.class),
+                containerExecutionService, dockerServerPrefsBean);
     }
 
     @Bean
@@ -116,11 +125,25 @@ public class DockerRestApiTestConfig extends WebSecurityConfigurerAdapter {
     public CommandService commandService(final ContainerControlApi controlApi,
                                          final AliasTokenService aliasTokenService,
                                          final SiteConfigPreferences siteConfigPreferences,
-                                         final TransportService transporter,
                                          final ContainerExecutionService containerExecutionService,
-                                         final ConfigService configService) {
+                                         final ConfigService configService,
+                                         final InputStagingService inputStagingService,
+                                         final BuildDirectoryService buildDirectoryService,
+                                         final ObjectMapper objectMapper) {
         return new HibernateCommandService(controlApi, aliasTokenService, siteConfigPreferences,
-                transporter, containerExecutionService, configService);
+                containerExecutionService, configService, inputStagingService, buildDirectoryService, objectMapper);
+    }
+
+    @Bean
+    public BuildDirectoryService buildDirectoryService(final TransportService transporter,
+                                                       final DockerServerPrefsBean dockerServerPrefsBean) {
+        return new BuildDirectoryServiceImpl(transporter, dockerServerPrefsBean, Mockito.mock(ContainerExecutionStatsService.class));
+    }
+
+    @Bean
+    public InputStagingService inputStagingService(final TransportService transporter,
+                                                   final DockerServerPrefsBean dockerServerPrefsBean) {
+        return new InputStagingServiceImpl(transporter, dockerServerPrefsBean);
     }
 
     @Bean
@@ -6,16 +6,42 @@ import org.mockito.Mockito;
 import org.nrg.config.services.ConfigService;
 import org.nrg.containers.api.ContainerControlApi;
 import org.nrg.containers.api.DockerControlApi;
+import org.nrg.containers.daos.ArchivedContainerExecutionDao;
 import org.nrg.containers.daos.CommandDao;
+import org.nrg.containers.daos.ContainerExecutionHistoryDao;
+import org.nrg.containers.daos.ContainerExecutionObjectDao;
 import org.nrg.containers.daos.ContainerExecutionRepository;
+import org.nrg.containers.daos.ContainerExecutionStatsDao;
+import org.nrg.containers.daos.ContainerInputBlobDao;
 import org.nrg.containers.events.DockerContainerEventListener;
+import org.nrg.containers.model.ArchivedContainerExecution;
 import org.nrg.containers.model.Command;
 import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.containers.model.ContainerExecutionObject;
+import org.nrg.containers.model.ContainerExecutionStats;
+import org.nrg.containers.model.ContainerInputBlob;
 import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.services.ArchivedContainerExecutionService;
+import org.nrg.containers.services.BuildDirectoryService;
 import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerExecutionHistoryService;
 import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.ContainerExecutionStatsService;
+import org.nrg.containers.services.ContainerInputBlobService;
+import org.nrg.containers.services.InputStagingService;
+import org.nrg.containers.services.OutputChecksumService;
+import org.nrg.containers.services.OutputStoreService;
+import org.nrg.containers.services.impl.BuildDirectoryServiceImpl;
+import org.nrg.containers.services.impl.HibernateArchivedContainerExecutionService;
 import org.nrg.containers.services.impl.HibernateCommandService;
+import org.nrg.containers.services.impl.HibernateContainerExecutionHistoryService;
 import org.nrg.containers.services.impl.HibernateContainerExecutionService;
+import org.nrg.containers.services.impl.HibernateContainerExecutionStatsService;
+import org.nrg.containers.services.impl.HibernateContainerInputBlobService;
+import org.nrg.containers.services.impl.InputStagingServiceImpl;
+import org.nrg.containers.services.impl.OutputChecksumServiceImpl;
+import org.nrg.containers.services.impl.OutputStoreServiceImpl;
 import org.nrg.framework.services.ContextService;
 import org.nrg.framework.services.NrgEventService;
 import org.nrg.prefs.services.NrgPreferenceService;
@@ -66,11 +92,26 @@ public class IntegrationTestConfig {
     public CommandService commandService(final ContainerControlApi controlApi,
                                          final AliasTokenService aliasTokenService,
                                          final SiteConfigPreferences siteConfigPreferences,
-                                         final TransportService transporter,
                                          final ContainerExecutionService containerExecutionService,
-                                         final ConfigService configService) {
+                                         final ConfigService configService,
+                                         final InputStagingService inputStagingService,
+                                         final BuildDirectoryService buildDirectoryService,
+                                         final ObjectMapper objectMapper) {
         return new HibernateCommandService(controlApi, aliasTokenService, siteConfigPreferences,
-                transporter, containerExecutionService, configService);
+                containerExecutionService, configService, inputStagingService, buildDirectoryService, objectMapper);
+    }
+
+    @Bean
+    public BuildDirectoryService buildDirectoryService(final TransportService transporter,
+                                                       final DockerServerPrefsBean dockerServerPrefsBean,
+                                                       final ContainerExecutionStatsService containerExecutionStatsService) {
+        return new BuildDirectoryServiceImpl(transporter, dockerServerPrefsBean, containerExecutionStatsService);
+    }
+
+    @Bean
+    public InputStagingService inputStagingService(final TransportService transporter,
+                                                   final DockerServerPrefsBean dockerServerPrefsBean) {
+        return new InputStagingServiceImpl(transporter, dockerServerPrefsBean);
     }
 
     @Bean
@@ -140,14 +181,35 @@ public class IntegrationTestConfig {
         return Mockito.mock(CatalogService.class);
     }
 
+    @Bean
+    public OutputChecksumService outputChecksumService() {
+        return new OutputChecksumServiceImpl();
+    }
+
+    @Bean
+    public OutputStoreService outputStoreService(final DockerServerPrefsBean dockerServerPrefsBean) {
+        return new OutputStoreServiceImpl(dockerServerPrefsBean);
+    }
+
     @Bean
     public ContainerExecutionService containerExecutionService(final ContainerControlApi containerControlApi,
                                                                final SiteConfigPreferences siteConfigPreferences,
                                                                final TransportService transportService,
                                                                final PermissionsServiceI permissionsService,
                                                                final CatalogService catalogService,
-                                                               final ObjectMapper mapper) {
-        return new HibernateContainerExecutionService(containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, mapper);
+                                                               final ObjectMapper mapper,
+                                                               final NrgEventService eventService,
+                                                               final ContainerExecutionHistoryService containerExecutionHistoryService,
+                                                               final ContainerExecutionObjectDao containerExecutionObjectDao,
+                                                               final ContainerInputBlobService containerInputBlobService,
+                                                               final ArchivedContainerExecutionService archivedContainerExecutionService,
+                                                               final ContainerExecutionStatsService containerExecutionStatsService,
+                                                               final InputStagingService inputStagingService,
+                                                               final BuildDirectoryService buildDirectoryService,
+                                                               final DockerServerPrefsBean dockerServerPrefsBean,
+                                                               final OutputChecksumService outputChecksumService,
+                                                               final OutputStoreService outputStoreService) {
+        return new HibernateContainerExecutionService(containerControlApi, siteConfigPreferences, transportService, permissionsService, catalogService, mapper, eventService, containerExecutionHistoryService, containerExecutionObjectDao, containerInputBlobService, archivedContainerExecutionService, containerExecutionStatsService, inputStagingService, buildDirectoryService, dockerServerPrefsBean, outputChecksumService, outputStoreService);
     }
 
     @Bean
@@ -155,6 +217,52 @@ public class IntegrationTestConfig {
         return new ContainerExecutionRepository();
     }
 
+    @Bean
+    public ContainerExecutionHistoryService containerExecutionHistoryService() {
+        return new HibernateContainerExecutionHistoryService();
+    }
+
+    @Bean
+    public ContainerExecutionHistoryDao containerExecutionHistoryDao() {
+        return new ContainerExecutionHistoryDao();
+    }
+
+    @Bean
+    public ContainerExecutionObjectDao containerExecutionObjectDao() {
+        return new ContainerExecutionObjectDao();
+    }
+
+    @Bean
+    public ContainerInputBlobService containerInputBlobService() {
+        return new HibernateContainerInputBlobService();
+    }
+
+    @Bean
+    public ContainerInputBlobDao containerInputBlobDao() {
+        return new ContainerInputBlobDao();
+    }
+
+    @Bean
+    public ArchivedContainerExecutionService archivedContainerExecutionService(final ObjectMapper mapper,
+                                                                               final ContainerInputBlobService containerInputBlobService) {
+        return new HibernateArchivedContainerExecutionService(mapper, containerInputBlobService);
+    }
+
+    @Bean
+    public ArchivedContainerExecutionDao archivedContainerExecutionDao() {
+        return new ArchivedContainerExecutionDao();
+    }
+
+    @Bean
+    public ContainerExecutionStatsService containerExecutionStatsService() {
+        return new HibernateContainerExecutionStatsService();
+    }
+
+    @Bean
+    public ContainerExecutionStatsDao containerExecutionStatsDao() {
+        return new ContainerExecutionStatsDao();
+    }
+
     @Bean
     public LocalSessionFactoryBean sessionFactory(final DataSource dataSource, @Qualifier("hibernateProperties") final Properties properties) {
         final LocalSessionFactoryBean bean = new LocalSessionFactoryBean();
@@ -162,7 +270,12 @@ public class IntegrationTestConfig {
         bean.setHibernateProperties(properties);
         bean.setAnnotatedClasses(
                 Command.class,
-                ContainerExecution.class);
+                ContainerExecution.class,
+                ContainerExecutionHistory.class,
+                ContainerExecutionObject.class,
+                ContainerInputBlob.class,
+                ArchivedContainerExecution.class,
+                ContainerExecutionStats.class);
 //                Preference.class, Tool.class);
 
         return bean;
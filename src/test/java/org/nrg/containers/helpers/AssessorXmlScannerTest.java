@@ -0,0 +1,99 @@
+package org.nrg.containers.helpers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nrg.containers.exceptions.ContainerException;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class AssessorXmlScannerTest {
+    private static final String ASSESSOR_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<fs:Freesurfer xmlns:fs=\"http://nrg.wustl.edu/fs\" xmlns:xnat=\"http://nrg.wustl.edu/xnat\" ID=\"A1\" label=\"fs1\" project=\"PROJ\">" +
+            "<xnat:date>2017-01-01</xnat:date>" +
+            "<xnat:imageSession_ID>E1</xnat:imageSession_ID>" +
+            "<fs:measures><fs:volumetric><xnat:imageSession_ID>nested</xnat:imageSession_ID></fs:volumetric></fs:measures>" +
+            "</fs:Freesurfer>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testScan() throws Exception {
+        final AssessorXmlScanner scanned = AssessorXmlScanner.scan(write(ASSESSOR_XML));
+
+        assertThat(scanned.getRootElement(), is("fs:Freesurfer"));
+        assertThat(scanned.getProject(), is("PROJ"));
+        // Only the root's own element names the session
+        assertThat(scanned.getImageSessionId(), is("E1"));
+        assertThat(scanned.getElements(), is(6L));
+    }
+
+    @Test
+    public void testDocumentWithoutPlacement() throws Exception {
+        final AssessorXmlScanner scanned = AssessorXmlScanner.scan(write("<xnat:QCAssessment xmlns:xnat=\"http://nrg.wustl.edu/xnat\"/>"));
+
+        assertThat(scanned.getProject(), is(nullValue()));
+        assertThat(scanned.getImageSessionId(), is(nullValue()));
+        scanned.checkParent("E2", "OTHER");
+    }
+
+    @Test
+    public void testDtdIsRejected() throws Exception {
+        final String xml = "<?xml version=\"1.0\"?>" +
+                "<!DOCTYPE fs:Freesurfer [<!ENTITY secret SYSTEM \"file:///etc/passwd\">]>" +
+                "<fs:Freesurfer xmlns:fs=\"http://nrg.wustl.edu/fs\">&secret;</fs:Freesurfer>";
+        try {
+            AssessorXmlScanner.scan(write(xml));
+            fail("A document that declares a DTD should be rejected.");
+        } catch (ContainerException e) {
+            assertThat(e.getMessage(), containsString("DTD"));
+        }
+    }
+
+    @Test(expected = ContainerException.class)
+    public void testMalformedIsRejected() throws Exception {
+        AssessorXmlScanner.scan(write("<fs:Freesurfer xmlns:fs=\"http://nrg.wustl.edu/fs\"><fs:measures></fs:Freesurfer>"));
+    }
+
+    @Test
+    public void testParentMatches() throws Exception {
+        AssessorXmlScanner.scan(write(ASSESSOR_XML)).checkParent("E1", "PROJ");
+        // A session whose project is not known is checked by ID alone
+        AssessorXmlScanner.scan(write(ASSESSOR_XML)).checkParent("E1", null);
+    }
+
+    @Test
+    public void testSessionMismatch() throws Exception {
+        try {
+            AssessorXmlScanner.scan(write(ASSESSOR_XML)).checkParent("E2", "PROJ");
+            fail("An assessor whose XML names another session should be rejected.");
+        } catch (ContainerException e) {
+            assertThat(e.getMessage(), containsString("session E1"));
+        }
+    }
+
+    @Test
+    public void testProjectMismatch() throws Exception {
+        try {
+            AssessorXmlScanner.scan(write(ASSESSOR_XML)).checkParent("E1", "OTHER");
+            fail("An assessor whose XML names another project should be rejected.");
+        } catch (ContainerException e) {
+            assertThat(e.getMessage(), containsString("project PROJ"));
+        }
+    }
+
+    private File write(final String xml) throws Exception {
+        final File file = folder.newFile();
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
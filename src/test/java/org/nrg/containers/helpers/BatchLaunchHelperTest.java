@@ -0,0 +1,119 @@
+package org.nrg.containers.helpers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nrg.containers.exceptions.ContainerException;
+import org.nrg.containers.model.ContainerExecutionMount;
+import org.nrg.containers.model.ResolvedCommand;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class BatchLaunchHelperTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPackBatch() throws Exception {
+        final Path batchDirectory = folder.getRoot().toPath().resolve("batch");
+        final ResolvedCommand first = item("process /input /output", "/host/in0", "/host/out0");
+        first.setEnvironmentVariables(ImmutableMap.of("SUBJECT", "it's one"));
+        final ResolvedCommand second = item("process /input /output", "/host/in1", "/host/out1");
+
+        final ResolvedCommand batch = BatchLaunchHelper.packBatch(Lists.newArrayList(first, second), batchDirectory, mapper);
+
+        assertThat(batch.getCommandId(), is(1L));
+        assertThat(batch.getDockerImage(), is("xnat/process:1"));
+        assertThat(batch.getCommandLine(), is("/bin/sh /batch/run.sh"));
+        assertThat(batch.getEnvironmentVariables().get("XNAT_BATCH_MANIFEST"), is("/batch/manifest.json"));
+
+        // Each item's mounts are bound under its own directory, and the batch directory is an output
+        assertThat(batch.getMountsIn(), hasSize(2));
+        assertThat(batch.getMountsIn().get(1).getName(), is("in-1"));
+        assertThat(batch.getMountsIn().get(1).getHostPath(), is("/host/in1"));
+        assertThat(batch.getMountsIn().get(1).getRemotePath(), is("/batch-items/1/input"));
+        assertThat(batch.getMountsOut(), hasSize(3));
+        assertThat(batch.getMountsOut().get(0).getRemotePath(), is("/batch-items/0/output"));
+        assertThat(batch.getMountsOut().get(2).getName(), is(BatchLaunchHelper.BATCH_MOUNT_NAME));
+        assertThat(batch.getMountsOut().get(2).getHostPath(), is(batchDirectory.toString()));
+        assertThat(batch.getMountsOut().get(2).getRemotePath(), is("/batch"));
+
+        final String script = new String(Files.readAllBytes(batchDirectory.resolve(BatchLaunchHelper.SCRIPT_FILE)), StandardCharsets.UTF_8);
+        assertThat(script, containsString("rm -rf '/input' && ln -s '/batch-items/1/input' '/input'\n"));
+        assertThat(script, containsString("export SUBJECT='it'\\''s one'\n"));
+        assertThat(script, containsString("(\nprocess /input /output\n)\ncode=$?\necho $code > /batch/exit-codes/1\n"));
+        assertThat(script, containsString("\nexit $failed\n"));
+
+        final List<Map<String, Object>> manifest = mapper.readValue(batchDirectory.resolve(BatchLaunchHelper.MANIFEST_FILE).toFile(),
+                new TypeReference<List<Map<String, Object>>>() {});
+        assertThat(manifest, hasSize(2));
+        assertThat(manifest.get(1).get("index"), is((Object) 1));
+        assertThat(manifest.get(1).get("command-line"), is((Object) "process /input /output"));
+        assertThat(manifest.get(1).get("mounts"), is((Object) ImmutableMap.of("in", "/batch-items/1/input", "out", "/batch-items/1/output")));
+        assertThat(manifest.get(1).get("input-values"), is((Object) ImmutableMap.of("session", "E1")));
+    }
+
+    @Test(expected = ContainerException.class)
+    public void testEmptyBatchIsRejected() throws Exception {
+        BatchLaunchHelper.packBatch(Lists.<ResolvedCommand>newArrayList(), folder.getRoot().toPath(), mapper);
+    }
+
+    @Test
+    public void testReadExitCode() throws Exception {
+        final File exitCodes = folder.newFolder("batch", BatchLaunchHelper.EXIT_CODES_DIR);
+        Files.write(new File(exitCodes, "0").toPath(), "0\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(exitCodes, "1").toPath(), "137\n".getBytes(StandardCharsets.UTF_8));
+        final String batchDirectory = exitCodes.getParent();
+
+        assertThat(BatchLaunchHelper.readExitCode(batchDirectory, 0), is("0"));
+        assertThat(BatchLaunchHelper.readExitCode(batchDirectory, 1), is("137"));
+    }
+
+    @Test
+    public void testItemThatNeverFinishedHasNoExitCode() throws Exception {
+        final File exitCodes = folder.newFolder("batch", BatchLaunchHelper.EXIT_CODES_DIR);
+        Files.write(new File(exitCodes, "0").toPath(), "\n".getBytes(StandardCharsets.UTF_8));
+
+        // An exit code file that was created but never written, a missing file, and a batch with no directory
+        assertThat(BatchLaunchHelper.readExitCode(exitCodes.getParent(), 0), is(nullValue()));
+        assertThat(BatchLaunchHelper.readExitCode(exitCodes.getParent(), 1), is(nullValue()));
+        assertThat(BatchLaunchHelper.readExitCode(null, 0), is(nullValue()));
+    }
+
+    private static ResolvedCommand item(final String commandLine, final String inputHostPath, final String outputHostPath) {
+        final ResolvedCommand item = new ResolvedCommand();
+        item.setCommandId(1L);
+        item.setDockerImage("xnat/process:1");
+        item.setCommandLine(commandLine);
+        item.setInputValues(ImmutableMap.of("session", "E1"));
+        item.setMountsIn(Lists.newArrayList(mount("in", true, inputHostPath, "/input")));
+        item.setMountsOut(Lists.newArrayList(mount("out", false, outputHostPath, "/output")));
+        return item;
+    }
+
+    private static ContainerExecutionMount mount(final String name, final boolean isInput, final String hostPath, final String remotePath) {
+        final ContainerExecutionMount mount = new ContainerExecutionMount();
+        mount.setName(name);
+        mount.setIsInput(isInput);
+        mount.setHostPath(hostPath);
+        mount.setRemotePath(remotePath);
+        return mount;
+    }
+}
@@ -0,0 +1,65 @@
+package org.nrg.containers.helpers;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class DurationHistogramTest {
+
+    @Test
+    public void testEmptyHasNoPercentile() {
+        assertThat(new DurationHistogram().percentile(0.5), is(nullValue()));
+        assertThat(DurationHistogram.parse("").percentile(0.5), is(nullValue()));
+    }
+
+    @Test
+    public void testPercentilesAreWithinTenPercent() {
+        final DurationHistogram histogram = new DurationHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.add(millis);
+        }
+
+        assertThat(histogram.getTotal(), is(1000L));
+        assertThat(histogram.percentile(0.5), allOf(greaterThanOrEqualTo(500L), lessThanOrEqualTo(550L)));
+        assertThat(histogram.percentile(0.95), allOf(greaterThanOrEqualTo(950L), lessThanOrEqualTo(1045L)));
+        assertThat(histogram.percentile(1.0), allOf(greaterThanOrEqualTo(1000L), lessThanOrEqualTo(1100L)));
+    }
+
+    @Test
+    public void testPercentileOfOneDuration() {
+        final DurationHistogram histogram = new DurationHistogram();
+        histogram.add(60000L);
+
+        assertThat(histogram.percentile(0.01), allOf(greaterThanOrEqualTo(60000L), lessThanOrEqualTo(66000L)));
+        assertThat(histogram.percentile(0.99), is(histogram.percentile(0.01)));
+    }
+
+    @Test
+    public void testZeroDurations() {
+        final DurationHistogram histogram = new DurationHistogram();
+        histogram.add(0L);
+        histogram.add(0L);
+        histogram.add(5000L);
+
+        assertThat(histogram.percentile(0.5), is(0L));
+        assertThat(histogram.percentile(1.0), allOf(greaterThanOrEqualTo(5000L), lessThanOrEqualTo(5500L)));
+    }
+
+    @Test
+    public void testTextRoundTrip() {
+        final DurationHistogram histogram = new DurationHistogram();
+        for (final long millis : new long[] {3L, 3L, 250L, 12000L}) {
+            histogram.add(millis);
+        }
+
+        final DurationHistogram parsed = DurationHistogram.parse(histogram.toString());
+        assertThat(parsed.toString(), is(histogram.toString()));
+        assertThat(parsed.getTotal(), is(4L));
+        assertThat(parsed.percentile(0.75), is(histogram.percentile(0.75)));
+    }
+}
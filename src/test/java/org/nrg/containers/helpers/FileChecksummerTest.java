@@ -0,0 +1,88 @@
+package org.nrg.containers.helpers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nrg.containers.model.FileChecksum;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+public class FileChecksummerTest {
+    private static final String FOX = "The quick brown fox jumps over the lazy dog";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testChecksum() throws Exception {
+        final Path file = write("fox.txt", FOX.getBytes(StandardCharsets.UTF_8));
+
+        final FileChecksum checksum = new FileChecksummer().checksum(file, "text/fox.txt");
+        assertThat(checksum.getPath(), is("text/fox.txt"));
+        assertThat(checksum.getSize(), is(43L));
+        assertThat(checksum.getMd5(), is("9e107d9d372bb6826bd81d3542a419d6"));
+        assertThat(checksum.getCrc32(), is("414fa339"));
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        final FileChecksum checksum = new FileChecksummer().checksum(write("empty", new byte[0]), "empty");
+        assertThat(checksum.getSize(), is(0L));
+        assertThat(checksum.getMd5(), is("d41d8cd98f00b204e9800998ecf8427e"));
+        assertThat(checksum.getCrc32(), is("00000000"));
+    }
+
+    @Test
+    public void testCopyLargerThanBuffer() throws Exception {
+        // Several buffers' worth, ending part way through one
+        final byte[] contents = new byte[3 * 1024 * 1024 + 12345];
+        new Random(42L).nextBytes(contents);
+        final Path source = write("source.bin", contents);
+        final Path target = new File(folder.getRoot(), "target.bin").toPath();
+
+        final FileChecksummer checksummer = new FileChecksummer();
+        final FileChecksum copied = checksummer.copy(source, target, "source.bin");
+
+        assertArrayEquals(contents, Files.readAllBytes(target));
+        final CRC32 crc = new CRC32();
+        crc.update(contents);
+        assertThat(copied.getSize(), is((long) contents.length));
+        assertThat(copied.getMd5(), is(hex(MessageDigest.getInstance("MD5").digest(contents))));
+        assertThat(copied.getCrc32(), is(String.format("%08x", crc.getValue())));
+
+        // The same checksummer starts over for each file
+        assertThat(checksummer.checksum(target, "target.bin").getMd5(), is(copied.getMd5()));
+    }
+
+    @Test(expected = FileAlreadyExistsException.class)
+    public void testCopyDoesNotOverwrite() throws Exception {
+        final Path source = write("source.txt", FOX.getBytes(StandardCharsets.UTF_8));
+        final Path target = write("target.txt", new byte[0]);
+        new FileChecksummer().copy(source, target, "source.txt");
+    }
+
+    private Path write(final String name, final byte[] contents) throws Exception {
+        final Path file = folder.newFile(name).toPath();
+        Files.write(file, contents);
+        return file;
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package org.nrg.containers.helpers;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+// The source and target directories stand in for the execution host and the XNAT host
+public class MountTransferTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSend() throws Exception {
+        final Path source = folder.newFolder("source").toPath();
+        final Path target = folder.getRoot().toPath().resolve("target");
+        final byte[] large = randomBytes(10500);
+        Files.write(source.resolve("large.bin"), large);
+        Files.createDirectories(source.resolve("sub"));
+        Files.write(source.resolve("sub").resolve("small.txt"), "small".getBytes(StandardCharsets.UTF_8));
+        Files.createFile(source.resolve("sub").resolve("empty"));
+
+        final long sent;
+        try (final MountReceiver receiver = new MountReceiver(target, loopback())) {
+            sent = new MountTransfer(3, 1000).send(source, receiver.getAddress());
+        }
+
+        assertThat(sent, is(10505L));
+        assertThat(Arrays.equals(Files.readAllBytes(target.resolve("large.bin")), large), is(true));
+        assertThat(new String(Files.readAllBytes(target.resolve("sub").resolve("small.txt")), StandardCharsets.UTF_8), equalTo("small"));
+        assertThat(Files.size(target.resolve("sub").resolve("empty")), is(0L));
+        assertThat(Files.exists(target.resolve(MountReceiver.JOURNAL)), is(false));
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        final Path source = folder.newFolder("source").toPath();
+        final Path target = folder.newFolder("target").toPath();
+        final byte[] bytes = randomBytes(3000);
+        final Path sourceFile = source.resolve("data.bin");
+        Files.write(sourceFile, bytes);
+
+        // An earlier transfer received only the first chunk before it was interrupted
+        Files.write(target.resolve("data.bin"), Arrays.copyOf(bytes, 1000));
+        final long modified = Files.getLastModifiedTime(sourceFile).toMillis();
+        Files.write(target.resolve(MountReceiver.JOURNAL),
+                ("data.bin\t0\t3000\t" + modified + "\t1000\t" + crc(bytes, 0, 1000) + "\n").getBytes(StandardCharsets.UTF_8));
+
+        final long sent;
+        try (final MountReceiver receiver = new MountReceiver(target, loopback())) {
+            sent = new MountTransfer(2, 1000).send(source, receiver.getAddress());
+        }
+
+        assertThat(sent, is(2000L));
+        assertThat(Arrays.equals(Files.readAllBytes(target.resolve("data.bin")), bytes), is(true));
+        assertThat(Files.exists(target.resolve(MountReceiver.JOURNAL)), is(false));
+    }
+
+    @Test
+    public void testChunkWithAnotherChecksumIsSentAgain() throws Exception {
+        final Path source = folder.newFolder("source").toPath();
+        final Path target = folder.newFolder("target").toPath();
+        final byte[] bytes = randomBytes(1000);
+        final Path sourceFile = source.resolve("data.bin");
+        Files.write(sourceFile, bytes);
+
+        // The journal names the same source file, but a checksum the source does not have
+        Files.write(target.resolve("data.bin"), new byte[1000]);
+        final long modified = Files.getLastModifiedTime(sourceFile).toMillis();
+        Files.write(target.resolve(MountReceiver.JOURNAL),
+                ("data.bin\t0\t1000\t" + modified + "\t1000\t" + crc(new byte[1000], 0, 1000) + "\n").getBytes(StandardCharsets.UTF_8));
+
+        final long sent;
+        try (final MountReceiver receiver = new MountReceiver(target, loopback())) {
+            sent = new MountTransfer(1, 1000).send(source, receiver.getAddress());
+        }
+
+        assertThat(sent, is(1000L));
+        assertThat(Arrays.equals(Files.readAllBytes(target.resolve("data.bin")), bytes), is(true));
+    }
+
+    private static InetSocketAddress loopback() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    private static long crc(final byte[] bytes, final int offset, final int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return crc.getValue();
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
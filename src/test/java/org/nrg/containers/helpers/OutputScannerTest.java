@@ -0,0 +1,72 @@
+package org.nrg.containers.helpers;
+
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nrg.containers.exceptions.ContainerException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class OutputScannerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFilter() throws Exception {
+        final Path root = createOutput();
+        final List<String> visited = Lists.newArrayList();
+
+        final OutputScanner scanner = new OutputScanner("**.nii", "scratch", null, null);
+        scanner.scan(root, new OutputScanner.Visitor() {
+            @Override
+            public void visit(final Path file, final Path relativePath, final BasicFileAttributes attributes) {
+                visited.add(relativePath.toString());
+            }
+        });
+        Collections.sort(visited);
+
+        assertThat(visited, contains("brain.nii", "stats/lh.nii"));
+        assertThat(scanner.getFiles(), is(2L));
+        assertThat(scanner.getBytes(), is(8L));
+    }
+
+    @Test
+    public void testQuota() throws Exception {
+        final Path root = createOutput();
+
+        try {
+            new OutputScanner(null, null, 3L, null).scan(root, null);
+            fail("Expected the file limit to be exceeded.");
+        } catch (ContainerException e) {
+            assertThat(e.getMessage(), is("More than 3 files match."));
+        }
+
+        final OutputScanner scanner = new OutputScanner(null, null, 4L, 13L);
+        scanner.scan(root, null);
+        assertThat(scanner.getFiles(), is(4L));
+    }
+
+    private Path createOutput() throws Exception {
+        final Path root = folder.newFolder("output").toPath();
+        Files.createDirectories(root.resolve("stats"));
+        Files.createDirectories(root.resolve("scratch"));
+        Files.createDirectories(root.resolve(OutputScanner.STAGING_PREFIX + "old"));
+        Files.write(root.resolve("brain.nii"), "brain".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("stats").resolve("lh.nii"), "lh!".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("stats").resolve("lh.txt"), "txt".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("scratch").resolve("tmp.nii"), "t".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve(OutputScanner.STAGING_PREFIX + "old").resolve("brain.nii"), "brain".getBytes(StandardCharsets.UTF_8));
+        return root;
+    }
+}
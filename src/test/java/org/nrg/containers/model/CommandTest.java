@@ -24,9 +24,11 @@ import static org.hamcrest.Matchers.isIn;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -110,6 +112,15 @@ public class CommandTest {
                     "\"outputs\":[ " + RESOLVED_OUTPUT_JSON + "]," +
                     "\"ports\": {\"22\": \"2222\"}}";
 
+    private static final String RETRY_COMMAND_JSON =
+            "{\"name\":\"retry_command\", \"docker-image\":\"abc123\", " +
+                    "\"run\": {\"command-line\":\"cmd\", \"memory-limit\": 1073741824}, " +
+                    "\"retry-policy\": {" +
+                        "\"max-attempts\": 3, " +
+                        "\"backoff-seconds\": 10, " +
+                        "\"memory-escalation-factor\": 1.5" +
+                    "}}";
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -261,4 +272,27 @@ public class CommandTest {
 
         assertEquals("cmd --flag=bar -b", resolvedCommand2.getCommandLine());
     }
+
+    @Test
+    public void testRetryPolicy() throws Exception {
+        final Command command = mapper.readValue(RETRY_COMMAND_JSON, Command.class);
+
+        final CommandRetryPolicy retryPolicy = command.getRetryPolicy();
+        assertNotNull(retryPolicy);
+        assertEquals(Integer.valueOf(3), retryPolicy.getMaxAttempts());
+        assertEquals(Long.valueOf(1073741824L), command.getRun().getMemoryLimit());
+
+        assertTrue(retryPolicy.allowsRetry(1));
+        assertTrue(retryPolicy.allowsRetry(2));
+        assertFalse(retryPolicy.allowsRetry(3));
+
+        assertEquals(10000L, retryPolicy.getBackoffMillis(1));
+        assertEquals(20000L, retryPolicy.getBackoffMillis(2));
+        assertEquals(Long.valueOf(1610612736L), retryPolicy.escalateMemory(1073741824L));
+        assertNull(retryPolicy.escalateMemory(null));
+
+        final ResolvedCommand resolvedCommand = new ResolvedCommand(command);
+        assertEquals(retryPolicy, resolvedCommand.getRetryPolicy());
+        assertEquals(command.getRun().getMemoryLimit(), resolvedCommand.getMemoryLimit());
+    }
 }
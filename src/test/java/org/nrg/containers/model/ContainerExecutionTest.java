@@ -1,6 +1,8 @@
 package org.nrg.containers.model;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nrg.containers.config.ContainerExecutionTestConfig;
@@ -10,6 +12,10 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -29,4 +35,43 @@ public class ContainerExecutionTest {
     public void testSpringConfiguration() {
         assertThat(containerExecutionService, not(nullValue()));
     }
+
+    @Test
+    public void testLegacyInputValuesAreMigrated() {
+        final String session = "{\"type\": \"Session\", \"id\": \"E1\", \"uri\": \"/experiments/E1\"}";
+        final Map<String, String> legacyInputValues = Maps.newHashMap();
+        legacyInputValues.put("session", session);
+        legacyInputValues.put("threshold", "5");
+
+        // As an earlier version saved it: the values are in the old table, and there are no hashes
+        final ContainerExecution execution = new ContainerExecution();
+        execution.setLegacyInputValues(legacyInputValues);
+        final long id = containerExecutionService.create(execution).getId();
+
+        // Read from the old table until migrated
+        final ContainerExecution unmigrated = containerExecutionService.retrieve(id);
+        assertThat(unmigrated.getInputValues().get("threshold"), is("5"));
+        assertThat(containerExecutionService.getSummariesByObject("/experiments/E1", null, null, null).isEmpty(), is(true));
+
+        assertThat(containerExecutionService.migrateLegacyData(), is(1));
+        assertThat(containerExecutionService.migrateLegacyData(), is(0));
+
+        final ContainerExecution migrated = containerExecutionService.retrieve(id);
+        assertThat(migrated.getLegacyInputValues().isEmpty(), is(true));
+        assertThat(migrated.getInputValueHashes().size(), is(2));
+        assertThat(migrated.getInputValues().get("session"), is(session));
+        assertThat(migrated.getInputValues().get("threshold"), is("5"));
+        assertThat(containerExecutionService.getSummariesByObject("/experiments/E1", null, null, null), hasSize(1));
+    }
+
+    @Test
+    public void testPortsAreKeptForRetries() {
+        final ResolvedCommand resolvedCommand = new ResolvedCommand();
+        resolvedCommand.setPorts(ImmutableMap.of("22", "2222"));
+        final long id = containerExecutionService.create(new ContainerExecution(resolvedCommand, "abc123", "admin")).getId();
+
+        final ContainerExecution saved = containerExecutionService.retrieve(id);
+        assertThat(saved.getPorts(), is((Map<String, String>) ImmutableMap.of("22", "2222")));
+        assertThat(new ResolvedCommand(saved).getPorts(), is((Map<String, String>) ImmutableMap.of("22", "2222")));
+    }
 }
@@ -0,0 +1,59 @@
+package org.nrg.containers.model.xnat;
+
+import com.google.common.collect.Lists;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CatalogEntryReaderTest {
+    private static final String CATALOG_XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" +
+            "<cat:Catalog xmlns:cat=\"http://nrg.wustl.edu/catalog\" ID=\"RESOURCE\"><cat:entries>" +
+            "<cat:entry URI=\"DICOM/1.dcm\" format=\"DICOM\" content=\"RAW\"><cat:tags><cat:tag>squishy</cat:tag><cat:tag>jovial</cat:tag></cat:tags></cat:entry>" +
+            "<cat:entry URI=\"%s\" format=\"NIFTI\"/>" +
+            "<cat:entry URI=\"missing/4.txt\"/>" +
+            "</cat:entries><cat:sets><cat:entryset><cat:entries>" +
+            "<cat:entry URI=\"notes/3.txt\"/>" +
+            "</cat:entries></cat:entryset></cat:sets></cat:Catalog>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadEntries() throws Exception {
+        folder.newFolder("DICOM");
+        folder.newFile("DICOM/1.dcm");
+        folder.newFolder("notes");
+        folder.newFile("notes/3.txt");
+        final File elsewhere = new File(folder.newFolder("elsewhere"), "2.nii");
+        Files.createFile(elsewhere.toPath());
+
+        final File catalog = folder.newFile("catalog.xml");
+        Files.write(catalog.toPath(), String.format(CATALOG_XML, elsewhere.getAbsolutePath()).getBytes(StandardCharsets.UTF_8));
+
+        final List<XnatFile> files = Lists.newArrayList();
+        try (final CatalogEntryReader reader = new CatalogEntryReader("/experiments/E1/resources/1", catalog)) {
+            while (reader.hasNext()) {
+                files.add(reader.next());
+            }
+        }
+
+        assertThat(files.size(), is(3));
+        final XnatFile dicom = files.get(0);
+        assertThat(dicom.getUri(), is("/experiments/E1/resources/1/files/1.dcm"));
+        assertThat(dicom.getPath(), is(new File(folder.getRoot(), "DICOM/1.dcm").getAbsolutePath()));
+        assertThat(dicom.getTags(), contains("squishy", "jovial"));
+        assertThat(dicom.getFormat(), is("DICOM"));
+        assertThat(dicom.getContent(), is("RAW"));
+        assertThat(files.get(1).getPath(), is(elsewhere.getAbsolutePath()));
+        assertThat(files.get(2).getName(), is("3.txt"));
+    }
+}
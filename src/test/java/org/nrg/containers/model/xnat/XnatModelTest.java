@@ -13,13 +13,19 @@ import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
 import com.jayway.jsonpath.spi.mapper.MappingProvider;
 import org.apache.ecs.xhtml.label;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Set;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
@@ -34,6 +40,9 @@ public class XnatModelTest {
     private static final String SESSION_JSON = "{\"id\":\"E1\", \"type\":\"Session\", \"label\":\"a_session\", " +
             "\"xsiType\":\"xnat:fakesessiondata\", \"resources\":[" + RESOURCE_JSON + "]}";
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     @Before
@@ -136,4 +145,27 @@ public class XnatModelTest {
 
         assertEquals(Lists.newArrayList(expected), results);
     }
+
+    @Test
+    public void testResourceFilesAreSerializedOnlyOnceRead() throws Exception {
+        final File directory = folder.newFolder("resource");
+        Files.createFile(new File(directory, "1.txt").toPath());
+        final File catalog = new File(directory, "resource_catalog.xml");
+        Files.write(catalog.toPath(), ("<cat:Catalog xmlns:cat=\"http://nrg.wustl.edu/catalog\"><cat:entries>" +
+                "<cat:entry URI=\"1.txt\"/></cat:entries></cat:Catalog>").getBytes(StandardCharsets.UTF_8));
+
+        final Resource resource = mapper.readValue("{\"id\":\"1\", \"type\":\"Resource\", \"uri\":\"/experiments/E1/resources/1\", " +
+                "\"catalog-path\":\"" + catalog.getAbsolutePath() + "\"}", Resource.class);
+        final Resource same = mapper.readValue(mapper.writeValueAsString(resource), Resource.class);
+        assertThat(mapper.readTree(mapper.writeValueAsString(resource)).has("files"), is(false));
+
+        // Comparing resources does not read their catalogs, and files are not part of what is compared
+        assertEquals(same, resource);
+        assertThat(resource.getFiles(), hasSize(1));
+        assertEquals(same, resource);
+        assertEquals(same.hashCode(), resource.hashCode());
+
+        final String json = mapper.writeValueAsString(resource);
+        assertEquals("1.txt", JsonPath.parse(json).read("$.files[0].name"));
+    }
 }
@@ -0,0 +1,103 @@
+package org.nrg.containers.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nrg.containers.config.ContainerExecutionTestConfig;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.containers.model.ContainerExecutionSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+// Not transactional: archiving reads history written in its own transactions
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = ContainerExecutionTestConfig.class)
+public class ArchiveFinishedTest {
+    private static final String SESSION = "{\"type\": \"Session\", \"id\": \"ARC_E1\", \"label\": \"session1\", \"uri\": \"/experiments/ARC_E1\"}";
+    private static final Date CUTOFF = new Date(5000L);
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private ContainerExecutionService containerExecutionService;
+
+    @Autowired
+    private ContainerExecutionHistoryService historyService;
+
+    @Autowired
+    private ArchivedContainerExecutionService archiveService;
+
+    @Test
+    public void testArchivedExecutionIsReadBack() throws Exception {
+        final long finished = create("die", new Date(2000L));
+        historyService.append(finished, new ContainerExecutionHistory("Created", new Date(1000L)));
+        historyService.append(finished, new ContainerExecutionHistory("die", new Date(2000L), "0"));
+        // Finished since the cutoff, and not finished at all
+        final long recent = create("die", new Date());
+        historyService.append(recent, new ContainerExecutionHistory("die", new Date(), "0"));
+        final long running = create("Running", new Date(2000L));
+        historyService.append(running, new ContainerExecutionHistory("Running", new Date(2000L)));
+
+        // Other tests' executions may have finished before the cutoff too
+        assertThat(containerExecutionService.archiveFinished(CUTOFF), greaterThanOrEqualTo(1));
+
+        // The hot rows and the history are gone
+        assertThat(containerExecutionService.retrieve(finished), is(nullValue()));
+        assertThat(historyService.getHistory(finished), is(empty()));
+        assertThat(containerExecutionService.retrieve(recent), is(not(nullValue())));
+        assertThat(containerExecutionService.retrieve(running), is(not(nullValue())));
+
+        // The archived document has the execution's input values and history
+        final JsonNode document = mapper.readTree(archiveService.getDocument(finished));
+        assertThat(document.get("input-values").get("session").asText(), is(SESSION));
+        assertThat(document.get("project").asText(), is("ARC_P1"));
+        final List<String> statuses = Lists.newArrayList();
+        for (final JsonNode entry : document.get("history")) {
+            statuses.add(entry.get("status").asText());
+        }
+        assertThat(statuses, contains("Created", "die"));
+
+        // And it is listed by project and by the object it ran on
+        assertThat(ids(archiveService.getSummaries(null, null, "ARC_P1", null, null, null, null, null)), contains(finished));
+        assertThat(ids(archiveService.getSummaries(null, null, null, "/experiments/ARC_E1", null, null, null, null)), contains(finished));
+        assertThat(archiveService.getSummaries(null, null, "ARC_P2", null, null, null, null, null), is(empty()));
+    }
+
+    private long create(final String status, final Date statusTime) {
+        final Map<String, String> inputValues = Maps.newHashMap();
+        inputValues.put("session", SESSION);
+        final ContainerExecution execution = new ContainerExecution();
+        execution.setProject("ARC_P1");
+        execution.setUserId("admin");
+        execution.setStatus(status);
+        execution.setStatusTime(statusTime);
+        execution.setInputValues(inputValues);
+        return containerExecutionService.create(execution).getId();
+    }
+
+    private static List<Long> ids(final List<ContainerExecutionSummary> summaries) {
+        final List<Long> ids = Lists.newArrayList();
+        for (final ContainerExecutionSummary summary : summaries) {
+            ids.add(summary.getId());
+        }
+        return ids;
+    }
+}
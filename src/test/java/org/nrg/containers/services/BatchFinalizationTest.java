@@ -0,0 +1,202 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.nrg.containers.config.ContainerExecutionTestConfig;
+import org.nrg.containers.helpers.BatchLaunchHelper;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionMount;
+import org.nrg.containers.model.ContainerExecutionOutput;
+import org.nrg.containers.model.OutputType;
+import org.nrg.transporter.TransportService;
+import org.nrg.xdat.om.XnatResourcecatalog;
+import org.nrg.xft.security.UserI;
+import org.nrg.xnat.services.archive.CatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+// Not transactional: finalizing reads the batch's items in its own transaction, as the event handler does
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = ContainerExecutionTestConfig.class)
+public class BatchFinalizationTest {
+    private static final String SESSION = "{\"type\": \"Session\", \"id\": \"E1\", \"label\": \"session1\", \"uri\": \"/experiments/E1\"}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    private ContainerExecutionService containerExecutionService;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private TransportService transportService;
+
+    @Autowired
+    private BuildDirectoryService buildDirectoryService;
+
+    private Path resourceDir;
+
+    @Before
+    public void setup() throws Exception {
+        Mockito.reset(catalogService, transportService, buildDirectoryService);
+
+        // Mounts are read where they are
+        Mockito.when(transportService.transport(Mockito.anyString(), Mockito.any(Path.class))).thenAnswer(new Answer<Path>() {
+            @Override
+            public Path answer(final InvocationOnMock invocation) {
+                return (Path) invocation.getArguments()[1];
+            }
+        });
+
+        resourceDir = folder.newFolder("archive", "resources", "out").toPath();
+        final XnatResourcecatalog resourcecatalog = Mockito.mock(XnatResourcecatalog.class);
+        Mockito.when(resourcecatalog.getXnatAbstractresourceId()).thenReturn(7);
+        Mockito.when(resourcecatalog.getUri()).thenReturn(resourceDir.resolve("out_catalog.xml").toString());
+        Mockito.when(catalogService.insertResourceCatalog(Mockito.any(UserI.class), Mockito.anyString(), Mockito.any(XnatResourcecatalog.class)))
+                .thenReturn(resourcecatalog);
+    }
+
+    @Test
+    public void testItemOutputIsUploadedToItsInput() throws Exception {
+        final File batchDirectory = folder.newFolder("batch");
+        final File exitCodes = new File(batchDirectory, BatchLaunchHelper.EXIT_CODES_DIR);
+        exitCodes.mkdirs();
+        Files.write(new File(exitCodes, "0").toPath(), "0\n".getBytes(StandardCharsets.UTF_8));
+
+        final ContainerExecution batch = new ContainerExecution();
+        batch.setInputValues(Maps.<String, String>newHashMap());
+        batch.setOutputs(Lists.<ContainerExecutionOutput>newArrayList());
+        batch.setMountsOut(Lists.newArrayList(mount(BatchLaunchHelper.BATCH_MOUNT_NAME, batchDirectory)));
+        final ContainerExecution savedBatch = containerExecutionService.create(batch);
+
+        final File outDirectory = folder.newFolder("item-out");
+        Files.write(new File(outDirectory, "result.txt").toPath(), "result".getBytes(StandardCharsets.UTF_8));
+
+        final ContainerExecutionOutput output = new ContainerExecutionOutput();
+        output.setName("result");
+        output.setType(OutputType.RESOURCE);
+        output.setLabel("RESULT");
+        output.setParentInputName("session");
+        output.setMount("out");
+
+        final Map<String, String> inputValues = Maps.newHashMap();
+        inputValues.put("session", SESSION);
+        final ContainerExecution item = new ContainerExecution();
+        item.setInputValues(inputValues);
+        item.setOutputs(Lists.newArrayList(output));
+        item.setMountsOut(Lists.newArrayList(mount("out", outDirectory)));
+        item.setBatchExecutionId(savedBatch.getId());
+        item.setBatchIndex(0);
+        final ContainerExecution savedItem = containerExecutionService.create(item);
+
+        containerExecutionService.finalize(savedBatch.getId(), Mockito.mock(UserI.class));
+
+        Mockito.verify(catalogService).insertResourceCatalog(Mockito.any(UserI.class), Mockito.eq("/archive/experiments/E1"), Mockito.any(XnatResourcecatalog.class));
+        assertThat(new String(Files.readAllBytes(resourceDir.resolve("result.txt")), StandardCharsets.UTF_8), is("result"));
+
+        final ContainerExecution finalized = containerExecutionService.retrieve(savedItem.getId());
+        assertThat(finalized.getOutputs().get(0).getCreated(), is("/experiments/E1/resources/7"));
+        assertThat(finalized.getStatus(), is("die"));
+        assertThat(finalized.isExitedCleanly(), is(true));
+        // Uploaded, so the output directories of both the item and the batch are released
+        Mockito.verify(buildDirectoryService, Mockito.times(2)).release(Mockito.anyListOf(ContainerExecutionMount.class));
+    }
+
+    @Test
+    public void testItemWhoseOutputFailsKeepsItsDirectories() throws Exception {
+        final ContainerExecution batch = new ContainerExecution();
+        batch.setInputValues(Maps.<String, String>newHashMap());
+        batch.setOutputs(Lists.<ContainerExecutionOutput>newArrayList());
+        batch.setMountsOut(Lists.newArrayList(mount(BatchLaunchHelper.BATCH_MOUNT_NAME, folder.newFolder("batch"))));
+        final ContainerExecution savedBatch = containerExecutionService.create(batch);
+
+        final ContainerExecutionOutput output = new ContainerExecutionOutput();
+        output.setName("result");
+        output.setType(OutputType.RESOURCE);
+        output.setParentInputName("session");
+        output.setMount("out");
+
+        // The output names an input the item does not have
+        final ContainerExecution item = new ContainerExecution();
+        item.setInputValues(Maps.<String, String>newHashMap());
+        item.setOutputs(Lists.newArrayList(output));
+        item.setMountsOut(Lists.newArrayList(mount("out", folder.newFolder("item-out"))));
+        item.setBatchExecutionId(savedBatch.getId());
+        item.setBatchIndex(0);
+        containerExecutionService.create(item);
+
+        containerExecutionService.finalize(savedBatch.getId(), Mockito.mock(UserI.class));
+
+        Mockito.verify(catalogService, Mockito.never()).insertResourceCatalog(Mockito.any(UserI.class), Mockito.anyString(), Mockito.any(XnatResourcecatalog.class));
+        // Only the batch's directories are released
+        Mockito.verify(buildDirectoryService, Mockito.times(1)).release(Mockito.anyListOf(ContainerExecutionMount.class));
+    }
+
+    @Test
+    public void testItemWithoutExitCodeFailed() throws Exception {
+        final File batchDirectory = folder.newFolder("batch");
+        final File exitCodes = new File(batchDirectory, BatchLaunchHelper.EXIT_CODES_DIR);
+        exitCodes.mkdirs();
+        Files.write(new File(exitCodes, "0").toPath(), "0\n".getBytes(StandardCharsets.UTF_8));
+
+        final ContainerExecution batch = new ContainerExecution();
+        batch.setInputValues(Maps.<String, String>newHashMap());
+        batch.setOutputs(Lists.<ContainerExecutionOutput>newArrayList());
+        batch.setMountsOut(Lists.newArrayList(mount(BatchLaunchHelper.BATCH_MOUNT_NAME, batchDirectory)));
+        final ContainerExecution savedBatch = containerExecutionService.create(batch);
+
+        // The batch was stopped after the first item, so the second recorded no exit code
+        final ContainerExecution finished = containerExecutionService.create(item(savedBatch, 0));
+        final ContainerExecution unfinished = containerExecutionService.create(item(savedBatch, 1));
+
+        containerExecutionService.finalize(savedBatch.getId(), Mockito.mock(UserI.class));
+
+        final ContainerExecution finalizedFinished = containerExecutionService.retrieve(finished.getId());
+        assertThat(finalizedFinished.getStatus(), is("die"));
+        assertThat(finalizedFinished.isExitedCleanly(), is(true));
+
+        final ContainerExecution finalizedUnfinished = containerExecutionService.retrieve(unfinished.getId());
+        assertThat(finalizedUnfinished.getStatus(), is("die"));
+        assertThat(finalizedUnfinished.isExitedCleanly(), is(false));
+        assertThat(finalizedUnfinished.getHistory(), hasItem(hasProperty("exitCode", is("-1"))));
+    }
+
+    private static ContainerExecution item(final ContainerExecution batch, final int index) {
+        final ContainerExecution item = new ContainerExecution();
+        item.setInputValues(Maps.<String, String>newHashMap());
+        item.setOutputs(Lists.<ContainerExecutionOutput>newArrayList());
+        item.setBatchExecutionId(batch.getId());
+        item.setBatchIndex(index);
+        return item;
+    }
+
+    private static ContainerExecutionMount mount(final String name, final File hostPath) {
+        final ContainerExecutionMount mount = new ContainerExecutionMount();
+        mount.setName(name);
+        mount.setHostPath(hostPath.getAbsolutePath());
+        mount.setRemotePath("/output");
+        return mount;
+    }
+}
@@ -0,0 +1,183 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nrg.containers.config.ContainerExecutionTestConfig;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.containers.model.LegacyContainerExecutionHistory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+// Not transactional: history is written in its own transactions, which must see what the test has committed
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = ContainerExecutionTestConfig.class)
+public class ContainerExecutionHistoryServiceTest {
+    // The database lives as long as the context, so each test writes the history of its own executions
+    private static final AtomicLong EXECUTION_IDS = new AtomicLong(1000L);
+
+    @Autowired
+    private ContainerExecutionHistoryService historyService;
+
+    @Autowired
+    private ContainerExecutionService containerExecutionService;
+
+    @Test
+    public void testUnwrittenEntriesAreRead() throws Exception {
+        final Long executionId = EXECUTION_IDS.incrementAndGet();
+        final Long otherId = EXECUTION_IDS.incrementAndGet();
+        historyService.append(executionId, new ContainerExecutionHistory("Created", new Date()));
+        historyService.append(otherId, new ContainerExecutionHistory("Created", new Date()));
+        historyService.append(executionId, new ContainerExecutionHistory("Running", new Date()));
+
+        final List<ContainerExecutionHistory> unwritten = historyService.getHistory(executionId);
+        assertThat(statuses(unwritten), contains("Created", "Running"));
+        assertThat(unwritten.get(0).getSequence(), is(nullValue()));
+
+        historyService.flush();
+
+        final List<ContainerExecutionHistory> written = historyService.getHistory(executionId);
+        assertThat(statuses(written), contains("Created", "Running"));
+        assertThat(sequences(written), contains(0, 1));
+        assertThat(sequences(historyService.getHistory(otherId)), contains(0));
+    }
+
+    @Test
+    public void testSequenceContinuesAcrossBatches() throws Exception {
+        final Long executionId = EXECUTION_IDS.incrementAndGet();
+        historyService.append(executionId, new ContainerExecutionHistory("Created", new Date()));
+        historyService.append(executionId, new ContainerExecutionHistory("Running", new Date()));
+        historyService.flush();
+        historyService.append(executionId, new ContainerExecutionHistory("die", new Date(), "0"));
+        historyService.flush();
+
+        final List<ContainerExecutionHistory> history = historyService.getHistory(executionId);
+        assertThat(statuses(history), contains("Created", "Running", "die"));
+        assertThat(sequences(history), contains(0, 1, 2));
+        assertThat(history.get(2).getExitCode(), is("0"));
+    }
+
+    @Test
+    public void testDeleteIncludesUnwrittenEntries() throws Exception {
+        final Long executionId = EXECUTION_IDS.incrementAndGet();
+        historyService.append(executionId, new ContainerExecutionHistory("Created", new Date()));
+        historyService.flush();
+        historyService.append(executionId, new ContainerExecutionHistory("Running", new Date()));
+
+        historyService.deleteHistory(Collections.singletonList(executionId));
+        assertThat(historyService.getHistory(executionId), is(empty()));
+
+        historyService.flush();
+        assertThat(historyService.getHistory(executionId), is(empty()));
+    }
+
+    @Test
+    public void testEntryThatCannotBeWrittenIsDropped() throws Exception {
+        final Long executionId = EXECUTION_IDS.incrementAndGet();
+        // Longer than the status column, so it cannot be written
+        final String tooLong = StringUtils.repeat("x", 300);
+        historyService.append(executionId, new ContainerExecutionHistory("Created", new Date()));
+        historyService.append(executionId, new ContainerExecutionHistory(tooLong, new Date()));
+        historyService.append(executionId, new ContainerExecutionHistory("Running", new Date()));
+
+        // The batch fails, so the entries are written one at a time; the entry that fails is kept to try again
+        historyService.flush();
+        final List<ContainerExecutionHistory> history = historyService.getHistory(executionId);
+        assertThat(statuses(history), contains("Created", "Running", tooLong));
+        assertThat(sequences(history), contains(0, 1, null));
+
+        // Dropped when it fails for the third time
+        historyService.flush();
+        historyService.flush();
+        final List<ContainerExecutionHistory> written = historyService.getHistory(executionId);
+        assertThat(statuses(written), contains("Created", "Running"));
+        assertThat(sequences(written), contains(0, 1));
+
+        // Nothing is left to write
+        historyService.append(executionId, new ContainerExecutionHistory("die", new Date(), "0"));
+        historyService.flush();
+        assertThat(sequences(historyService.getHistory(executionId)), contains(0, 1, 2));
+    }
+
+    @Test
+    public void testLegacyHistoryIsMigrated() throws Exception {
+        // As an earlier version saved it: the history is in the old table, in no order, and there is no status
+        final ContainerExecution execution = new ContainerExecution();
+        execution.setInputValues(Maps.<String, String>newHashMap());
+        execution.setLegacyHistory(Lists.newArrayList(legacy("die", 3000L, "0"), legacy("Created", 1000L, null), legacy("Running", 2000L, null)));
+        final Long id = containerExecutionService.create(execution).getId();
+
+        // Read from the old table until migrated
+        assertThat(statuses(containerExecutionService.retrieve(id).getHistory()), contains("Created", "Running", "die"));
+
+        assertThat(containerExecutionService.migrateLegacyData(), greaterThanOrEqualTo(1));
+        assertThat(containerExecutionService.migrateLegacyData(), is(0));
+
+        final List<ContainerExecutionHistory> history = historyService.getHistory(id);
+        assertThat(statuses(history), contains("Created", "Running", "die"));
+        assertThat(sequences(history), contains(0, 1, 2));
+        assertThat(history.get(2).getExitCode(), is("0"));
+
+        final ContainerExecution migrated = containerExecutionService.retrieve(id);
+        assertThat(migrated.getStatus(), is("die"));
+        assertThat(migrated.getStatusTime().getTime(), is(3000L));
+        assertThat(statuses(migrated.getHistory()), contains("Created", "Running", "die"));
+    }
+
+    @Test
+    public void testStatusIsUpdatedWithTheExecution() throws Exception {
+        final ContainerExecution execution = new ContainerExecution();
+        execution.setInputValues(Maps.<String, String>newHashMap());
+        execution.setStatus("Created");
+        execution.setStatusTime(new Date(1000L));
+        final ContainerExecution created = containerExecutionService.create(execution);
+
+        created.setStatus("Running");
+        created.setStatusTime(new Date(2000L));
+        containerExecutionService.update(created);
+
+        final ContainerExecution updated = containerExecutionService.retrieve(created.getId());
+        assertThat(updated.getStatus(), is("Running"));
+        assertThat(updated.getStatusTime().getTime(), is(2000L));
+    }
+
+    private static LegacyContainerExecutionHistory legacy(final String status, final long time, final String exitCode) {
+        final LegacyContainerExecutionHistory entry = new LegacyContainerExecutionHistory();
+        entry.setStatus(status);
+        entry.setTime(new Date(time));
+        entry.setExitCode(exitCode);
+        return entry;
+    }
+
+    private static List<String> statuses(final List<ContainerExecutionHistory> history) {
+        final List<String> statuses = Lists.newArrayList();
+        for (final ContainerExecutionHistory entry : history) {
+            statuses.add(entry.getStatus());
+        }
+        return statuses;
+    }
+
+    private static List<Integer> sequences(final List<ContainerExecutionHistory> history) {
+        final List<Integer> sequences = Lists.newArrayList();
+        for (final ContainerExecutionHistory entry : history) {
+            sequences.add(entry.getSequence());
+        }
+        return sequences;
+    }
+}
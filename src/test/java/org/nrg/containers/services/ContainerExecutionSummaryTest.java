@@ -0,0 +1,110 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nrg.containers.config.ContainerExecutionTestConfig;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@Transactional
+@ContextConfiguration(classes = ContainerExecutionTestConfig.class)
+public class ContainerExecutionSummaryTest {
+    private static final String SESSION = "{\"type\": \"Session\", \"id\": \"SUM_E1\", \"label\": \"session1\", \"uri\": \"/experiments/SUM_E1\"}";
+    private static final String OTHER_SESSION = "{\"type\": \"Session\", \"id\": \"SUM_E2\", \"label\": \"session2\", \"uri\": \"/experiments/SUM_E2\"}";
+
+    @Autowired
+    private ContainerExecutionService containerExecutionService;
+
+    @Test
+    public void testPagesAreNewestFirst() {
+        final long first = create("SUM_P1", 1L, "alice", "die", null);
+        final long second = create("SUM_P1", 1L, "alice", "die", null);
+        final long third = create("SUM_P1", 1L, "alice", "die", null);
+        final long fourth = create("SUM_P1", 1L, "alice", "die", null);
+        final long fifth = create("SUM_P1", 1L, "alice", "die", null);
+
+        // Each page starts below the lowest ID of the page before
+        final List<ContainerExecutionSummary> page = containerExecutionService.getSummaries(null, null, null, "SUM_P1", null, null, null, 2);
+        assertThat(ids(page), contains(fifth, fourth));
+        final long last = page.get(page.size() - 1).getId();
+        assertThat(ids(containerExecutionService.getSummaries(null, null, null, "SUM_P1", null, null, last, 2)), contains(third, second));
+        assertThat(ids(containerExecutionService.getSummaries(null, null, null, "SUM_P1", null, null, second, 2)), contains(first));
+        assertThat(containerExecutionService.getSummaries(null, null, null, "SUM_P1", null, null, first, 2), is(empty()));
+    }
+
+    @Test
+    public void testFilters() {
+        final long aliceDied = create("SUM_P2", 1L, "alice", "die", null);
+        final long bobDied = create("SUM_P2", 2L, "bob", "die", null);
+        final long aliceRunning = create("SUM_P2", 2L, "alice", "start", null);
+        final long otherProject = create("SUM_P3", 1L, "alice", "die", null);
+
+        assertThat(ids(containerExecutionService.getSummaries("die", null, null, "SUM_P2", null, null, null, null)), contains(bobDied, aliceDied));
+        assertThat(ids(containerExecutionService.getSummaries(null, 2L, null, "SUM_P2", null, null, null, null)), contains(aliceRunning, bobDied));
+        assertThat(ids(containerExecutionService.getSummaries(null, null, "alice", "SUM_P2", null, null, null, null)), contains(aliceRunning, aliceDied));
+        assertThat(ids(containerExecutionService.getSummaries("die", 1L, "alice", "SUM_P2", null, null, null, null)), contains(aliceDied));
+        assertThat(ids(containerExecutionService.getSummaries(null, null, null, "SUM_P3", null, null, null, null)), contains(otherProject));
+
+        // Created between an hour ago and an hour from now, and not before an hour ago or after an hour from now
+        final Date hourAgo = new Date(System.currentTimeMillis() - 3600000L);
+        final Date hourFromNow = new Date(System.currentTimeMillis() + 3600000L);
+        assertThat(ids(containerExecutionService.getSummaries(null, null, null, "SUM_P3", hourAgo, hourFromNow, null, null)), contains(otherProject));
+        assertThat(containerExecutionService.getSummaries(null, null, null, "SUM_P3", hourFromNow, null, null, null), is(empty()));
+        assertThat(containerExecutionService.getSummaries(null, null, null, "SUM_P3", null, hourAgo, null, null), is(empty()));
+    }
+
+    @Test
+    public void testSummariesByObject() {
+        final long first = create("SUM_P4", 1L, "alice", "die", SESSION);
+        final long second = create("SUM_P4", 1L, "alice", "die", SESSION);
+        final long other = create("SUM_P4", 1L, "alice", "die", OTHER_SESSION);
+
+        // Found by the object's URI or by its ID
+        assertThat(ids(containerExecutionService.getSummariesByObject("/experiments/SUM_E1", null, null, null)), contains(second, first));
+        assertThat(ids(containerExecutionService.getSummariesByObject(null, "SUM_E1", null, null)), contains(second, first));
+        assertThat(ids(containerExecutionService.getSummariesByObject(null, "SUM_E2", null, null)), contains(other));
+        assertThat(containerExecutionService.getSummariesByObject("/experiments/SUM_E3", null, null, null), is(empty()));
+
+        // And paged like the other summaries
+        assertThat(ids(containerExecutionService.getSummariesByObject("/experiments/SUM_E1", null, null, 1)), contains(second));
+        assertThat(ids(containerExecutionService.getSummariesByObject("/experiments/SUM_E1", null, second, 1)), contains(first));
+    }
+
+    private long create(final String project, final Long commandId, final String userId, final String status, final String session) {
+        final Map<String, String> inputValues = Maps.newHashMap();
+        if (session != null) {
+            inputValues.put("session", session);
+        }
+        final ContainerExecution execution = new ContainerExecution();
+        execution.setProject(project);
+        execution.setCommandId(commandId);
+        execution.setUserId(userId);
+        execution.setStatus(status);
+        execution.setInputValues(inputValues);
+        return containerExecutionService.create(execution).getId();
+    }
+
+    private static List<Long> ids(final List<ContainerExecutionSummary> summaries) {
+        final List<Long> ids = Lists.newArrayList();
+        for (final ContainerExecutionSummary summary : summaries) {
+            ids.add(summary.getId());
+        }
+        return ids;
+    }
+}
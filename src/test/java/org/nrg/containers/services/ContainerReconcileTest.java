@@ -0,0 +1,125 @@
+package org.nrg.containers.services;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.config.ContainerExecutionTestConfig;
+import org.nrg.containers.events.DockerContainerEvent;
+import org.nrg.containers.model.Container;
+import org.nrg.containers.model.ContainerExecution;
+import org.nrg.containers.model.ContainerExecutionHistory;
+import org.nrg.containers.model.ResolvedCommand;
+import org.nrg.xdat.security.services.UserManagementServiceI;
+import org.nrg.xft.security.UserI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+// Not transactional: reconciling writes history in its own transaction before it reads the executions
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = ContainerExecutionTestConfig.class)
+public class ContainerReconcileTest {
+    @Autowired
+    private ContainerExecutionService containerExecutionService;
+
+    @Autowired
+    private ContainerExecutionHistoryService historyService;
+
+    @Autowired
+    private ContainerControlApi containerControlApi;
+
+    @Autowired
+    private UserManagementServiceI userManagementService;
+
+    @Before
+    public void setup() throws Exception {
+        Mockito.reset(containerControlApi, userManagementService);
+        Mockito.when(userManagementService.getUser("admin")).thenReturn(Mockito.mock(UserI.class));
+    }
+
+    @Test
+    public void testRunningContainerIsSkipped() throws Exception {
+        final ContainerExecution execution = launched("running-1");
+        containers(new Container("running-1", "Up 5 minutes"));
+
+        assertThat(reconciledIds(), not(hasItem(execution.getId())));
+        assertThat(exitCode(execution), is(nullValue()));
+    }
+
+    @Test
+    public void testExitCodeIsReadFromStatus() throws Exception {
+        final ContainerExecution execution = launched("exited-1");
+        containers(new Container("exited-1", "Exited (3) 2 minutes ago"));
+
+        assertThat(reconciledIds(), hasItem(execution.getId()));
+        assertThat(exitCode(execution), is("3"));
+        assertThat(containerExecutionService.retrieve(execution.getId()).isExitedCleanly(), is(false));
+    }
+
+    @Test
+    public void testVanishedContainerFailed() throws Exception {
+        final ContainerExecution execution = launched("vanished-1");
+        containers();
+
+        assertThat(reconciledIds(), hasItem(execution.getId()));
+        assertThat(exitCode(execution), is("-1"));
+        // Not labeled, so it was looked for among all the containers too
+        Mockito.verify(containerControlApi).getContainerStates(false);
+    }
+
+    @Test
+    public void testRecordedExitIsNotRecordedAgain() throws Exception {
+        final ContainerExecution execution = launched("recorded-1");
+        containerExecutionService.processEvent(new DockerContainerEvent("die", "recorded-1", new Date(), "0"));
+        containers(new Container("recorded-1", "Exited (0) 1 minute ago"));
+
+        assertThat(reconciledIds(), not(hasItem(execution.getId())));
+        assertThat(dieEntries(execution), hasSize(1));
+        assertThat(exitCode(execution), is("0"));
+    }
+
+    private ContainerExecution launched(final String containerId) {
+        return containerExecutionService.create(new ContainerExecution(new ResolvedCommand(), containerId, "admin"));
+    }
+
+    private void containers(final Container... containers) throws Exception {
+        Mockito.when(containerControlApi.getContainerStates(Mockito.anyBoolean())).thenReturn(Lists.newArrayList(containers));
+    }
+
+    private List<Long> reconciledIds() throws Exception {
+        final List<Long> ids = Lists.newArrayList();
+        for (final ContainerExecution execution : containerExecutionService.reconcile()) {
+            ids.add(execution.getId());
+        }
+        return ids;
+    }
+
+    private List<ContainerExecutionHistory> dieEntries(final ContainerExecution execution) {
+        historyService.flush();
+        final List<ContainerExecutionHistory> dies = Lists.newArrayList();
+        for (final ContainerExecutionHistory entry : historyService.getHistory(execution.getId())) {
+            if ("die".equals(entry.getStatus())) {
+                dies.add(entry);
+            }
+        }
+        return dies;
+    }
+
+    private String exitCode(final ContainerExecution execution) {
+        final List<ContainerExecutionHistory> dies = dieEntries(execution);
+        return dies.isEmpty() ? null : dies.get(dies.size() - 1).getExitCode();
+    }
+}
@@ -0,0 +1,197 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.nrg.containers.model.ContainerExecutionMount;
+import org.nrg.containers.model.ContainerExecutionStatsSummary;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.services.ContainerExecutionStatsService;
+import org.nrg.transporter.TransportService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BuildDirectoryServiceImplTest {
+    private static final String DOCKER_HOST = "unix:///var/run/docker.sock";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TransportService transporter;
+    private DockerServerPrefsBean prefs;
+    private ContainerExecutionStatsService statsService;
+    private BuildDirectoryServiceImpl buildDirectories;
+    private Path buildPath;
+    private Path tmpfsPath;
+
+    @Before
+    public void setup() throws Exception {
+        transporter = Mockito.mock(TransportService.class);
+        prefs = Mockito.mock(DockerServerPrefsBean.class);
+        statsService = Mockito.mock(ContainerExecutionStatsService.class);
+        buildPath = folder.newFolder("build").toPath();
+        tmpfsPath = folder.newFolder("tmpfs").toPath();
+        Mockito.when(prefs.getBuildPath()).thenReturn(buildPath.toString());
+        Mockito.when(prefs.getBuildPoolSize()).thenReturn(0L);
+        buildDirectories = new BuildDirectoryServiceImpl(transporter, prefs, statsService);
+    }
+
+    @After
+    public void teardown() {
+        buildDirectories.shutdownCleaner();
+    }
+
+    @Test
+    public void testTransporterWithoutBuildPath() throws Exception {
+        Mockito.when(prefs.getBuildPath()).thenReturn(null);
+        final List<Path> transported = Lists.newArrayList(Paths.get("/transported/out"));
+        Mockito.when(transporter.getWritableDirectories(DOCKER_HOST, 1)).thenReturn(transported);
+
+        assertThat(buildDirectories.acquire(DOCKER_HOST, 1L, 1), is(transported));
+    }
+
+    @Test
+    public void testAcquireTakesFromPool() throws Exception {
+        Mockito.when(prefs.getBuildPoolSize()).thenReturn(1L);
+        final List<Path> first = buildDirectories.acquire(DOCKER_HOST, null, 2);
+        assertThat(first, hasSize(2));
+        for (final Path directory : first) {
+            assertThat(directory.getParent(), is(buildPath.resolve("executions")));
+            assertThat(Files.isDirectory(directory), is(true));
+        }
+
+        // The pool is filled in the background, and the next launch takes its directory
+        await(poolHas(buildPath, 1));
+        final Path ready = list(buildPath.resolve("pool")).get(0);
+        final Path second = buildDirectories.acquire(DOCKER_HOST, null, 1).get(0);
+        assertThat(Files.exists(ready), is(false));
+        assertThat(Files.isDirectory(second), is(true));
+        await(poolHas(buildPath, 1));
+    }
+
+    @Test
+    public void testReleasedDirectoryIsRecycled() throws Exception {
+        final Path directory = buildDirectories.acquire(DOCKER_HOST, null, 1).get(0);
+        Files.createDirectories(directory.resolve("nested"));
+        Files.write(directory.resolve("nested/result.txt"), "result".getBytes(StandardCharsets.UTF_8));
+
+        // There is room in the pool, so the directory is emptied and kept
+        Mockito.when(prefs.getBuildPoolSize()).thenReturn(1L);
+        buildDirectories.release(Lists.newArrayList(mount(directory)));
+
+        await(poolHas(buildPath, 1));
+        assertThat(Files.exists(directory), is(false));
+        assertThat(list(list(buildPath.resolve("pool")).get(0)), hasSize(0));
+    }
+
+    @Test
+    public void testReleasedDirectoryIsDeletedWhenPoolIsFull() throws Exception {
+        final Path directory = buildDirectories.acquire(DOCKER_HOST, null, 1).get(0);
+        Files.write(directory.resolve("result.txt"), "result".getBytes(StandardCharsets.UTF_8));
+        // Not from a build path, so left alone
+        final Path elsewhere = folder.newFolder("elsewhere").toPath();
+
+        buildDirectories.release(Lists.newArrayList(mount(directory), mount(elsewhere)));
+
+        await(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return !Files.exists(directory);
+            }
+        });
+        assertThat(list(buildPath.resolve("pool")), hasSize(0));
+        assertThat(Files.isDirectory(elsewhere), is(true));
+    }
+
+    @Test
+    public void testSmallOutputsUseTmpfs() throws Exception {
+        Mockito.when(prefs.getBuildTmpfsPath()).thenReturn(tmpfsPath.toString());
+        Mockito.when(prefs.getBuildTmpfsMaxBytes()).thenReturn(1000L);
+        stats(1L, 4, 2000L);
+        stats(2L, 2, 5000L);
+
+        // A mean of 500 bytes fits, and a mean of 2500 does not
+        assertThat(buildDirectories.acquire(DOCKER_HOST, 1L, 1).get(0).getParent(), is(tmpfsPath.resolve("executions")));
+        assertThat(buildDirectories.acquire(DOCKER_HOST, 2L, 1).get(0).getParent(), is(buildPath.resolve("executions")));
+        // Nothing is known about the outputs of a command that has never run, or of no command
+        stats(3L, 0, 0L);
+        assertThat(buildDirectories.acquire(DOCKER_HOST, 3L, 1).get(0).getParent(), is(buildPath.resolve("executions")));
+        assertThat(buildDirectories.acquire(DOCKER_HOST, null, 1).get(0).getParent(), is(buildPath.resolve("executions")));
+    }
+
+    @Test
+    public void testMeasureAndQuota() throws Exception {
+        final Path first = buildDirectories.acquire(DOCKER_HOST, null, 1).get(0);
+        final Path second = buildDirectories.acquire(DOCKER_HOST, null, 1).get(0);
+        Files.createDirectories(first.resolve("nested"));
+        Files.write(first.resolve("nested/a.txt"), new byte[300]);
+        Files.write(second.resolve("b.txt"), new byte[200]);
+        final ContainerExecutionMount missing = mount(buildPath.resolve("executions/missing"));
+
+        assertThat(buildDirectories.measure(Lists.newArrayList(mount(first), mount(second), missing)), is(500L));
+        assertThat(buildDirectories.measure(null), is(0L));
+
+        assertThat(buildDirectories.isOverQuota(500L), is(false));
+        Mockito.when(prefs.getBuildQuota()).thenReturn(400L);
+        assertThat(buildDirectories.isOverQuota(400L), is(false));
+        assertThat(buildDirectories.isOverQuota(500L), is(true));
+    }
+
+    private void stats(final Long commandId, final long executions, final long uploadedBytes) {
+        final ContainerExecutionStatsSummary summary = new ContainerExecutionStatsSummary();
+        summary.setExecutions(executions);
+        summary.setUploadedBytes(uploadedBytes);
+        Mockito.when(statsService.getStats(Mockito.eq(commandId), Mockito.anyString(), Mockito.any(Date.class), Mockito.any(Date.class)))
+                .thenReturn(Lists.newArrayList(summary));
+    }
+
+    private static ContainerExecutionMount mount(final Path hostPath) {
+        final ContainerExecutionMount mount = new ContainerExecutionMount();
+        mount.setName("out");
+        mount.setHostPath(hostPath.toString());
+        return mount;
+    }
+
+    private static Callable<Boolean> poolHas(final Path root, final int directories) {
+        return new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return Files.isDirectory(root.resolve("pool")) && list(root.resolve("pool")).size() == directories;
+            }
+        };
+    }
+
+    private static List<Path> list(final Path directory) throws Exception {
+        final List<Path> entries = Lists.newArrayList();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (final Path entry : stream) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    // Directories are refilled and recycled in the background
+    private static void await(final Callable<Boolean> condition) throws Exception {
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.call()) {
+            assertThat("Timed out waiting for build directories to be cleaned up", System.currentTimeMillis() < deadline, is(true));
+            Thread.sleep(10L);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.nrg.containers.api.ContainerControlApi;
+import org.nrg.containers.daos.CommandLabelImportDao;
+import org.nrg.containers.model.Command;
+import org.nrg.containers.model.CommandImportReport;
+import org.nrg.containers.model.CommandLabelImport;
+import org.nrg.containers.model.DockerImage;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.model.ImageGcStatus;
+import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.containers.services.DockerHubService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DockerServiceImplTest {
+    private ContainerControlApi controlApi;
+    private CommandService commandService;
+    private CommandLabelImportDao commandLabelImportDao;
+    private ContainerExecutionService containerExecutionService;
+    private DockerServerPrefsBean prefs;
+    private DockerServiceImpl dockerService;
+
+    private final List<DockerImage> images = Lists.newArrayList();
+    private final List<Command> commands = Lists.newArrayList();
+    private final Map<String, CommandLabelImport> imports = Maps.newHashMap();
+
+    @Before
+    public void setup() throws Exception {
+        controlApi = Mockito.mock(ContainerControlApi.class);
+        commandService = Mockito.mock(CommandService.class);
+        commandLabelImportDao = Mockito.mock(CommandLabelImportDao.class);
+        containerExecutionService = Mockito.mock(ContainerExecutionService.class);
+        prefs = Mockito.mock(DockerServerPrefsBean.class);
+        dockerService = new DockerServiceImpl(controlApi, Mockito.mock(DockerHubService.class), commandService,
+                commandLabelImportDao, containerExecutionService, prefs);
+
+        Mockito.when(controlApi.getAllImages()).thenReturn(images);
+        Mockito.when(commandService.getAll()).thenReturn(commands);
+        Mockito.when(commandLabelImportDao.findAllByImageId()).thenReturn(imports);
+        Mockito.when(commandService.save(Mockito.anyListOf(Command.class))).thenAnswer(new Answer<List<Command>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Command> answer(final InvocationOnMock invocation) {
+                return (List<Command>) invocation.getArguments()[0];
+            }
+        });
+    }
+
+    @After
+    public void teardown() {
+        dockerService.shutdownLabelParser();
+    }
+
+    @Test
+    public void testUnchangedLabelIsSkipped() throws Exception {
+        labeled("img1", "[{\"name\": \"cmd1\"}]");
+        imports.put("img1", new CommandLabelImport("img1", hash("[{\"name\": \"cmd1\"}]")));
+
+        final List<CommandImportReport> reports = dockerService.saveFromAllImageLabels(false);
+
+        assertThat(reports.get(0).getStatus(), is(CommandImportReport.UNCHANGED));
+        Mockito.verify(controlApi, Mockito.never()).parseLabels(Mockito.any(DockerImage.class));
+        Mockito.verify(commandService, Mockito.never()).save(Mockito.anyListOf(Command.class));
+    }
+
+    @Test
+    public void testForceImportsUnchangedLabel() throws Exception {
+        final DockerImage image = labeled("img1", "[{\"name\": \"cmd1\"}]");
+        final CommandLabelImport previous = new CommandLabelImport("img1", hash("[{\"name\": \"cmd1\"}]"));
+        imports.put("img1", previous);
+        Mockito.when(controlApi.parseLabels(image)).thenReturn(Lists.newArrayList(command("cmd1", "img1")));
+
+        final List<CommandImportReport> reports = dockerService.saveFromAllImageLabels(true);
+
+        assertThat(reports.get(0).getStatus(), is(CommandImportReport.IMPORTED));
+        assertThat(reports.get(0).getSaved(), contains("cmd1"));
+        Mockito.verify(commandLabelImportDao).update(previous);
+        Mockito.verify(commandLabelImportDao, Mockito.never()).create(Mockito.any(CommandLabelImport.class));
+    }
+
+    @Test
+    public void testParseErrorsAreReportedPerImage() throws Exception {
+        final DockerImage bad = labeled("bad", "not json");
+        final DockerImage unparsed = labeled("unparsed", "[]");
+        final DockerImage good = labeled("good", "[{\"name\": \"cmd1\"}]");
+        images.add(new DockerImage("unlabeled", null, null, 0L));
+        Mockito.when(controlApi.parseLabels(bad)).thenThrow(new IllegalArgumentException("Could not read label"));
+        Mockito.when(controlApi.parseLabels(unparsed)).thenReturn(null);
+        Mockito.when(controlApi.parseLabels(good)).thenReturn(Lists.newArrayList(command("cmd1", "good")));
+
+        final List<CommandImportReport> reports = dockerService.saveFromAllImageLabels(false);
+
+        assertThat(reports.get(0).getStatus(), is(CommandImportReport.ERROR));
+        assertThat(reports.get(0).getMessage(), is("Could not read label"));
+        assertThat(reports.get(1).getStatus(), is(CommandImportReport.ERROR));
+        assertThat(reports.get(2).getStatus(), is(CommandImportReport.IMPORTED));
+        assertThat(reports.get(2).getSaved(), contains("cmd1"));
+        assertThat(reports.get(3).getStatus(), is(CommandImportReport.NO_LABEL));
+        // Only the image whose label was imported is remembered, so the others are tried again
+        Mockito.verify(commandLabelImportDao).create(new CommandLabelImport("good", hash("[{\"name\": \"cmd1\"}]")));
+        Mockito.verify(commandLabelImportDao, Mockito.times(1)).create(Mockito.any(CommandLabelImport.class));
+    }
+
+    @Test
+    public void testPresentCommandsAreNotSavedAgain() throws Exception {
+        final DockerImage image = labeled("img1", "[{\"name\": \"cmd1\"}, {\"name\": \"cmd2\"}]");
+        final Command present = command("cmd1", "img1");
+        final Command added = command("cmd2", "img1");
+        Mockito.when(controlApi.parseLabels(image)).thenReturn(Lists.newArrayList(present, added));
+        Mockito.when(commandService.retrieve("cmd1", "img1")).thenReturn(present);
+
+        final CommandImportReport report = dockerService.saveFromAllImageLabels(false).get(0);
+
+        assertThat(report.getStatus(), is(CommandImportReport.IMPORTED));
+        assertThat(report.getAlreadyPresent(), contains("cmd1"));
+        assertThat(report.getSaved(), contains("cmd2"));
+        Mockito.verify(commandService).save(Lists.newArrayList(added));
+    }
+
+    @Test
+    public void testNothingToImport() throws Exception {
+        assertThat(dockerService.saveFromAllImageLabels(false), is(empty()));
+    }
+
+    @Test
+    public void testSharedLayersAreCountedOnce() throws Exception {
+        image("old", 150L, ImmutableMap.of("base", 100L, "old-top", 50L));
+        image("new", 130L, ImmutableMap.of("base", 100L, "new-top", 30L));
+        lastUsed(ImmutableMap.of("old", new Date(1000L), "new", new Date(2000L)));
+        Mockito.when(prefs.getImageDiskBudget()).thenReturn(150L);
+
+        final ImageGcStatus status = dockerService.collectImageGarbage();
+
+        // Removing the least recently used image frees only its own layer, which brings the images under budget
+        Mockito.verify(controlApi).deleteImageById("old", false);
+        Mockito.verify(controlApi, Mockito.never()).deleteImageById("new", false);
+        assertThat(status.getLastEvicted(), contains(images.get(0)));
+        assertThat(status.getUsedBytes(), is(130L));
+        assertThat(status.getReclaimableBytes(), is(130L));
+        assertThat(status.getReclaimedBytesTotal(), is(50L));
+        assertThat(status.getImages(), is(1));
+    }
+
+    @Test
+    public void testLayersOfPinnedImagesAreNotReclaimable() throws Exception {
+        image("pinned", 120L, ImmutableMap.of("base", 100L, "pinned-top", 20L));
+        image("unused", 140L, ImmutableMap.of("base", 100L, "unused-top", 40L));
+        final Command command = new Command();
+        command.setDockerImage("pinned");
+        commands.add(command);
+        lastUsed(Maps.<String, Date>newHashMap());
+        Mockito.when(prefs.getImageDiskBudget()).thenReturn(0L);
+
+        final ImageGcStatus status = dockerService.collectImageGarbage();
+
+        Mockito.verify(controlApi, Mockito.never()).deleteImageById(Mockito.anyString(), Mockito.anyBoolean());
+        assertThat(status.getUsedBytes(), is(160L));
+        assertThat(status.getReclaimableBytes(), is(40L));
+        assertThat(status.getPinnedImages(), is(1));
+    }
+
+    private void image(final String imageId, final long size, final Map<String, Long> layers) throws Exception {
+        final DockerImage image = new DockerImage(imageId, Lists.newArrayList(imageId + ":latest"), null, size);
+        images.add(image);
+        Mockito.when(controlApi.getImageById(imageId)).thenReturn(image);
+        Mockito.when(controlApi.getImageLayerSizes(imageId)).thenReturn(layers);
+    }
+
+    private DockerImage labeled(final String imageId, final String label) {
+        final Map<String, String> labels = Maps.newHashMap();
+        labels.put(ContainerControlApi.LABEL_KEY, label);
+        final DockerImage image = new DockerImage(imageId, Lists.newArrayList(imageId + ":latest"), labels, 0L);
+        images.add(image);
+        return image;
+    }
+
+    private static Command command(final String name, final String dockerImage) {
+        final Command command = new Command();
+        command.setName(name);
+        command.setDockerImage(dockerImage);
+        return command;
+    }
+
+    private static String hash(final String label) {
+        return Hashing.sha256().hashString(label, StandardCharsets.UTF_8).toString();
+    }
+
+    private void lastUsed(final Map<String, Date> lastUsed) {
+        Mockito.when(containerExecutionService.getImageLastUsed()).thenReturn(lastUsed);
+    }
+}
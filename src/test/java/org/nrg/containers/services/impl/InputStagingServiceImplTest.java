@@ -0,0 +1,159 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.nrg.containers.model.ContainerExecutionMount;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.transporter.TransportService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class InputStagingServiceImplTest {
+    private static final String DOCKER_HOST = "unix:///var/run/docker.sock";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TransportService transporter;
+    private DockerServerPrefsBean prefs;
+    private InputStagingServiceImpl inputStaging;
+    private Path cache;
+
+    @Before
+    public void setup() throws Exception {
+        transporter = Mockito.mock(TransportService.class);
+        prefs = Mockito.mock(DockerServerPrefsBean.class);
+        cache = folder.newFolder("cache").toPath();
+        Mockito.when(prefs.getInputCachePath()).thenReturn(cache.toString());
+        inputStaging = new InputStagingServiceImpl(transporter, prefs);
+    }
+
+    @Test
+    public void testTransportedWithoutCache() throws Exception {
+        Mockito.when(prefs.getInputCachePath()).thenReturn(null);
+        final Path input = session("session", "scan data");
+        final Path transported = Paths.get("/transported/session");
+        Mockito.when(transporter.transport(DOCKER_HOST, input)).thenReturn(transported);
+
+        assertThat(inputStaging.stage(DOCKER_HOST, Collections.singletonList(input)).get(0), is(transported));
+    }
+
+    @Test
+    public void testStagedFilesAreLinksToTheCache() throws Exception {
+        final Path input = session("session", "scan data");
+
+        final Path staged = stage(input);
+        assertThat(staged.startsWith(cache.resolve("executions")), is(true));
+        final Path stagedFile = staged.resolve("scans/1/data.dcm");
+        assertThat(new String(Files.readAllBytes(stagedFile), StandardCharsets.UTF_8), is("scan data"));
+        assertThat(Files.isSameFile(stagedFile, blob("scan data")), is(true));
+        assertThat(Files.getPosixFilePermissions(staged), not(hasItem(PosixFilePermission.OWNER_WRITE)));
+        Mockito.verify(transporter, Mockito.never()).transport(Mockito.anyString(), Mockito.any(Path.class));
+    }
+
+    @Test
+    public void testCachedContentsAreReused() throws Exception {
+        final Path first = stage(session("first", "scan data"));
+        final Path second = stage(session("second", "scan data"));
+
+        // Each launch has its own directory, linked to the one cached copy
+        assertThat(first, is(not(second)));
+        assertThat(Files.isSameFile(first.resolve("scans/1/data.dcm"), second.resolve("scans/1/data.dcm")), is(true));
+        assertThat(blobs(), hasSize(1));
+    }
+
+    @Test
+    public void testSymbolicLinksAreRecreated() throws Exception {
+        final Path input = session("session", "scan data");
+        Files.createSymbolicLink(input.resolve("scans/latest"), Paths.get("1"));
+
+        final Path staged = stage(input);
+        assertThat(Files.isSymbolicLink(staged.resolve("scans/latest")), is(true));
+        assertThat(Files.readSymbolicLink(staged.resolve("scans/latest")), is(Paths.get("1")));
+        assertThat(new String(Files.readAllBytes(staged.resolve("scans/latest/data.dcm")), StandardCharsets.UTF_8), is("scan data"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedAreEvicted() throws Exception {
+        // Room for one ten byte file
+        Mockito.when(prefs.getInputCacheBudget()).thenReturn(15L);
+        final Path older = stage(session("older", "0123456789"));
+        final Path newer = stage(session("newer", "9876543210"));
+
+        assertThat(Files.exists(blob("0123456789")), is(false));
+        assertThat(Files.exists(blob("9876543210")), is(true));
+        // The evicted file's staged link still has its contents
+        assertThat(new String(Files.readAllBytes(older.resolve("scans/1/data.dcm")), StandardCharsets.UTF_8), is("0123456789"));
+        assertThat(new String(Files.readAllBytes(newer.resolve("scans/1/data.dcm")), StandardCharsets.UTF_8), is("9876543210"));
+    }
+
+    @Test
+    public void testReleaseRemovesStagedDirectoryOnly() throws Exception {
+        final Path input = session("session", "scan data");
+        final Path staged = stage(input);
+
+        final ContainerExecutionMount mount = new ContainerExecutionMount();
+        mount.setName("session");
+        mount.setIsInput(true);
+        mount.setHostPath(staged.toString());
+        final ContainerExecutionMount elsewhere = new ContainerExecutionMount();
+        elsewhere.setName("other");
+        elsewhere.setIsInput(true);
+        elsewhere.setHostPath(input.toString());
+        inputStaging.release(Lists.newArrayList(mount, elsewhere));
+
+        assertThat(Files.exists(staged), is(false));
+        assertThat(Files.exists(blob("scan data")), is(true));
+        // Mounts that were not staged through the cache are left alone
+        assertThat(Files.exists(input.resolve("scans/1/data.dcm")), is(true));
+    }
+
+    private Path stage(final Path input) {
+        final List<Path> staged = inputStaging.stage(DOCKER_HOST, Collections.singletonList(input));
+        assertThat(staged, hasSize(1));
+        return staged.get(0);
+    }
+
+    private Path session(final String name, final String contents) throws Exception {
+        final Path session = folder.newFolder("archive", name, "scans", "1").toPath().getParent().getParent();
+        Files.write(session.resolve("scans/1/data.dcm"), contents.getBytes(StandardCharsets.UTF_8));
+        return session;
+    }
+
+    private Path blob(final String contents) {
+        final String hash = Hashing.sha256().hashBytes(contents.getBytes(StandardCharsets.UTF_8)).toString();
+        return cache.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private List<Path> blobs() throws Exception {
+        final List<Path> blobs = Lists.newArrayList();
+        try (final DirectoryStream<Path> prefixes = Files.newDirectoryStream(cache.resolve("blobs"))) {
+            for (final Path prefix : prefixes) {
+                try (final DirectoryStream<Path> files = Files.newDirectoryStream(prefix)) {
+                    for (final Path file : files) {
+                        blobs.add(file);
+                    }
+                }
+            }
+        }
+        return blobs;
+    }
+}
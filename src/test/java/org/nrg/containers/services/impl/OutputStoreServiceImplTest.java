@@ -0,0 +1,119 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.nrg.containers.helpers.FileChecksummer;
+import org.nrg.containers.model.DockerServerPrefsBean;
+import org.nrg.containers.model.FileChecksum;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class OutputStoreServiceImplTest {
+    private static final byte[] CONTENTS = "the same output, written by two executions".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DockerServerPrefsBean prefs;
+    private OutputStoreServiceImpl outputStore;
+
+    @Before
+    public void setup() throws Exception {
+        prefs = Mockito.mock(DockerServerPrefsBean.class);
+        Mockito.when(prefs.getOutputStorePath()).thenReturn(folder.newFolder("store").getAbsolutePath());
+        outputStore = new OutputStoreServiceImpl(prefs);
+    }
+
+    @Test
+    public void testDisabledWithoutPath() throws Exception {
+        Mockito.when(prefs.getOutputStorePath()).thenReturn(" ");
+        final Path resource = resource("resource", CONTENTS);
+
+        assertThat(outputStore.isEnabled(), is(false));
+        assertThat(outputStore.deduplicate(resource, checksums(resource)), is(0L));
+        assertThat(nlink(resource.resolve("out/data.txt")), is(1));
+    }
+
+    @Test
+    public void testDuplicatesAreLinked() throws Exception {
+        final Path first = resource("first", CONTENTS);
+        final Path second = resource("second", CONTENTS);
+        final Path firstFile = first.resolve("out/data.txt");
+        final Path secondFile = second.resolve("out/data.txt");
+
+        // The first copy is stored; the second is replaced by a link to it
+        assertThat(outputStore.deduplicate(first, checksums(first)), is(0L));
+        assertThat(nlink(firstFile), is(2));
+        assertThat(outputStore.deduplicate(second, checksums(second)), is((long) CONTENTS.length));
+        assertThat(Files.isSameFile(firstFile, secondFile), is(true));
+        assertThat(nlink(secondFile), is(3));
+
+        // Deduplicating again changes nothing
+        assertThat(outputStore.deduplicate(second, checksums(second)), is(0L));
+        assertThat(nlink(secondFile), is(3));
+    }
+
+    @Test
+    public void testFindComparesContents() throws Exception {
+        final Path stored = resource("stored", CONTENTS);
+        outputStore.deduplicate(stored, checksums(stored));
+
+        final Path same = resource("same", CONTENTS).resolve("out/data.txt");
+        final FileChecksum checksum = checksums(stored).get(0);
+        assertThat(Files.isSameFile(outputStore.find(checksum, same), stored.resolve("out/data.txt")), is(true));
+
+        // Checksums that match but contents that do not
+        final byte[] different = CONTENTS.clone();
+        different[0] = 'T';
+        final Path other = resource("other", different);
+        assertThat(outputStore.find(checksum, other.resolve("out/data.txt")), is(nullValue()));
+        assertThat(outputStore.deduplicate(other, Collections.singletonList(checksum)), is(0L));
+        assertThat(nlink(other.resolve("out/data.txt")), is(1));
+    }
+
+    @Test
+    public void testCleanRemovesUnreferencedFiles() throws Exception {
+        final Path first = resource("first", CONTENTS);
+        final Path second = resource("second", CONTENTS);
+        outputStore.deduplicate(first, checksums(first));
+        outputStore.deduplicate(second, checksums(second));
+
+        // Deleting one resource's file drops the link count by one, so the stored file is still used
+        Files.delete(first.resolve("out/data.txt"));
+        assertThat(outputStore.clean(), is(0L));
+        assertThat(nlink(second.resolve("out/data.txt")), is(2));
+
+        // Once no resource links to it, only the store's own link is left
+        Files.delete(second.resolve("out/data.txt"));
+        assertThat(outputStore.clean(), is((long) CONTENTS.length));
+        assertThat(outputStore.clean(), is(0L));
+    }
+
+    // A resource directory holding out/data.txt
+    private Path resource(final String name, final byte[] contents) throws Exception {
+        final Path resource = folder.newFolder(name).toPath();
+        final Path file = Files.createDirectories(resource.resolve("out")).resolve("data.txt");
+        Files.write(file, contents);
+        return resource;
+    }
+
+    private static List<FileChecksum> checksums(final Path resource) throws Exception {
+        return Lists.newArrayList(new FileChecksummer().checksum(resource.resolve("out/data.txt"), "out/data.txt"));
+    }
+
+    private static int nlink(final Path file) throws Exception {
+        return ((Number) Files.getAttribute(file, "unix:nlink")).intValue();
+    }
+}
@@ -0,0 +1,73 @@
+package org.nrg.containers.services.impl;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.nrg.containers.daos.WorkflowExecutionDao;
+import org.nrg.containers.model.Command;
+import org.nrg.containers.model.Workflow;
+import org.nrg.containers.model.WorkflowEdge;
+import org.nrg.containers.model.WorkflowStep;
+import org.nrg.containers.services.CommandService;
+import org.nrg.containers.services.ContainerExecutionService;
+import org.nrg.framework.exceptions.NrgServiceRuntimeException;
+
+public class WorkflowValidationTest {
+    private HibernateWorkflowService workflowService;
+
+    @Before
+    public void setup() {
+        final CommandService commandService = Mockito.mock(CommandService.class);
+        Mockito.when(commandService.retrieve(Mockito.anyLong())).thenReturn(new Command());
+        workflowService = new HibernateWorkflowService(commandService,
+                Mockito.mock(ContainerExecutionService.class), Mockito.mock(WorkflowExecutionDao.class));
+    }
+
+    @Test
+    public void testChainIsValid() {
+        workflowService.validate(workflow(
+                new WorkflowEdge("a", "out", "b", "in"),
+                new WorkflowEdge("b", "out", "c", "in")));
+    }
+
+    @Test
+    public void testDiamondIsValid() {
+        workflowService.validate(workflow(
+                new WorkflowEdge("a", "out", "b", "in"),
+                new WorkflowEdge("a", "out", "c", "in"),
+                new WorkflowEdge("b", "out", "d", "first"),
+                new WorkflowEdge("c", "out", "d", "second")));
+    }
+
+    @Test(expected = NrgServiceRuntimeException.class)
+    public void testCycleIsRejected() {
+        workflowService.validate(workflow(
+                new WorkflowEdge("a", "out", "b", "in"),
+                new WorkflowEdge("b", "out", "c", "in"),
+                new WorkflowEdge("c", "out", "b", "other")));
+    }
+
+    @Test(expected = NrgServiceRuntimeException.class)
+    public void testSelfLoopIsRejected() {
+        workflowService.validate(workflow(new WorkflowEdge("a", "out", "a", "in")));
+    }
+
+    @Test(expected = NrgServiceRuntimeException.class)
+    public void testEdgeToMissingStepIsRejected() {
+        workflowService.validate(workflow(new WorkflowEdge("a", "out", "z", "in")));
+    }
+
+    // Steps a, b, c, and d, connected by the edges
+    private static Workflow workflow(final WorkflowEdge... edges) {
+        final Workflow workflow = new Workflow();
+        workflow.setName("workflow");
+        workflow.setSteps(Lists.newArrayList(
+                new WorkflowStep("a", 1L),
+                new WorkflowStep("b", 2L),
+                new WorkflowStep("c", 3L),
+                new WorkflowStep("d", 4L)));
+        workflow.setEdges(Lists.newArrayList(edges));
+        return workflow;
+    }
+}